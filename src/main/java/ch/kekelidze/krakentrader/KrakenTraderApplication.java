@@ -22,6 +22,9 @@ import org.springframework.cache.annotation.EnableCaching;
 public class KrakenTraderApplication {
 
   public static void main(String[] args) {
-    SpringApplication.run(KrakenTraderApplication.class, args);
+    var application = new SpringApplication(KrakenTraderApplication.class);
+    // Enables the trade journal, which no other application writes or replays
+    application.setAdditionalProfiles("trader");
+    application.run(args);
   }
 }
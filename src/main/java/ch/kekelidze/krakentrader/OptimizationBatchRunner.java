@@ -0,0 +1,51 @@
+package ch.kekelidze.krakentrader;
+
+import ch.kekelidze.krakentrader.api.file.service.CsvFileService;
+import ch.kekelidze.krakentrader.api.util.ResponseConverterUtils;
+import ch.kekelidze.krakentrader.backtester.service.BackTesterService;
+import ch.kekelidze.krakentrader.batch.OptimizationJobConfig;
+import ch.kekelidze.krakentrader.batch.OptimizationJobLauncher;
+import ch.kekelidze.krakentrader.indicator.Indicator;
+import ch.kekelidze.krakentrader.optimize.Optimizer;
+import ch.kekelidze.krakentrader.optimize.distributed.EvaluationCoordinator;
+import ch.kekelidze.krakentrader.strategy.Strategy;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/**
+ * Runs the strategy optimization as a Spring Batch job and keeps running to optimize the coins of
+ * {@code optimization.batch.coins} every night. Started with coins and a period, it also optimizes
+ * them right away; a run of the same day that failed restarts where it stopped.
+ */
+@Slf4j
+@SpringBootApplication(
+    scanBasePackageClasses = {CsvFileService.class, ResponseConverterUtils.class,
+        BackTesterService.class, Indicator.class, Strategy.class, Optimizer.class,
+        OptimizationJobConfig.class}
+)
+public class OptimizationBatchRunner {
+
+  public static void main(String[] args) throws IOException {
+    var application = SpringApplication.run(OptimizationBatchRunner.class, args);
+
+    // A coordinator hands the backtests of every run out to the workers
+    var mode = application.getEnvironment().getProperty("optimization.distributed.mode", "local");
+    if ("coordinator".equals(mode)) {
+      application.getBean(EvaluationCoordinator.class).start();
+    }
+
+    // The Quartz scheduler keeps the application running after main returns
+    if (args.length >= 2 && !args[0].isBlank() && !args[0].startsWith("--")) {
+      List<String> coins = List.of(args[0].split(","));
+      int period = Integer.parseInt(args[1]);
+      application.getBean(OptimizationJobLauncher.class).launch(coins, period, LocalDate.now());
+    }
+
+    log.info("Waiting for the nightly optimization at '{}'",
+        application.getEnvironment().getProperty("optimization.batch.cron"));
+  }
+}
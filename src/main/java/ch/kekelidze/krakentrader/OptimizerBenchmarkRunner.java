@@ -0,0 +1,83 @@
+package ch.kekelidze.krakentrader;
+
+import ch.kekelidze.krakentrader.api.file.service.CsvFileService;
+import ch.kekelidze.krakentrader.api.util.ResponseConverterUtils;
+import ch.kekelidze.krakentrader.backtester.service.BackTesterService;
+import ch.kekelidze.krakentrader.indicator.Indicator;
+import ch.kekelidze.krakentrader.optimize.Optimizer;
+import ch.kekelidze.krakentrader.optimize.model.OptimizerBenchmark;
+import ch.kekelidze.krakentrader.optimize.service.OptimizerBenchmarkService;
+import ch.kekelidze.krakentrader.strategy.Strategy;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/**
+ * Runs the genetic algorithm and CMA-ES on the same CSV history and writes the evaluations each
+ * needs to reach a common fitness to the results folder. Run with the {@code csv-data} profile.
+ */
+@Slf4j
+@SpringBootApplication(
+    scanBasePackageClasses = {CsvFileService.class, ResponseConverterUtils.class,
+        BackTesterService.class, Indicator.class, Strategy.class, Optimizer.class}
+)
+public class OptimizerBenchmarkRunner {
+
+  public static void main(String[] args) {
+    if (args.length < 2 || args[0].isBlank()) {
+      log.error("Usage: <coins> <period>");
+      return;
+    }
+    List<String> coins = List.of(args[0].split(","));
+    int period = Integer.parseInt(args[1]);
+
+    var application = SpringApplication.run(OptimizerBenchmarkRunner.class, args);
+    var benchmarkService = application.getBean(OptimizerBenchmarkService.class);
+
+    var benchmarks = new ArrayList<OptimizerBenchmark>();
+    for (String coin : coins) {
+      log.info("Starting optimizer benchmark for {}", coin);
+      benchmarks.addAll(benchmarkService.benchmark(coin, period));
+    }
+
+    var timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+    writeBenchmarksToMarkdownFile(String.format("results/optimizer_benchmark_%s.md", timestamp),
+        benchmarks);
+    int exitCode = SpringApplication.exit(application, () -> 0);
+    System.exit(exitCode);
+  }
+
+  private static void writeBenchmarksToMarkdownFile(String filePath,
+      List<OptimizerBenchmark> benchmarks) {
+    try (var writer = new FileWriter(filePath)) {
+      writer.write("# Optimizer Benchmark\n\n");
+      writer.write("Evaluations to target count the backtests until the best fitness reached by "
+          + "both optimizers, - if an optimizer never reached it.\n\n");
+      writer.write("| Coin | Strategy | Target | GA Best | GA Evaluations | GA To Target | GA Time "
+          + "| CMA-ES Best | CMA-ES Evaluations | CMA-ES To Target | CMA-ES Time |\n");
+      writer.write("|---|---|---|---|---|---|---|---|---|---|---|\n");
+      for (var benchmark : benchmarks) {
+        writer.write(String.format("| %s | %s | %.4f | %.4f | %d | %s | %d s | %.4f | %d | %s "
+                + "| %d s |\n",
+            benchmark.coin(), benchmark.strategyName(), benchmark.target(),
+            benchmark.geneticBestFitness(), benchmark.geneticEvaluations(),
+            toTarget(benchmark.geneticEvaluationsToTarget()), benchmark.geneticMillis() / 1000,
+            benchmark.cmaEsBestFitness(), benchmark.cmaEsEvaluations(),
+            toTarget(benchmark.cmaEsEvaluationsToTarget()), benchmark.cmaEsMillis() / 1000));
+      }
+      log.info("Results successfully written to {}", filePath);
+    } catch (IOException e) {
+      log.error("Failed to write results to file: {}", e.getMessage(), e);
+    }
+  }
+
+  private static String toTarget(int evaluations) {
+    return evaluations < 0 ? "-" : String.valueOf(evaluations);
+  }
+}
@@ -4,9 +4,12 @@ import ch.kekelidze.krakentrader.api.util.ResponseConverterUtils;
 import ch.kekelidze.krakentrader.backtester.service.BackTesterService;
 import ch.kekelidze.krakentrader.indicator.Indicator;
 import ch.kekelidze.krakentrader.optimize.Optimizer;
+import ch.kekelidze.krakentrader.optimize.distributed.EvaluationCoordinator;
+import ch.kekelidze.krakentrader.optimize.distributed.EvaluationWorker;
 import ch.kekelidze.krakentrader.api.file.service.CsvFileService;
 import ch.kekelidze.krakentrader.optimize.service.StrategyOptimizationService;
 import ch.kekelidze.krakentrader.strategy.Strategy;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 import lombok.extern.slf4j.Slf4j;
@@ -20,9 +23,16 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 )
 public class StrategyOptimizationRunner {
 
-  public static void main(String[] args) {
+  public static void main(String[] args) throws IOException {
     var application = SpringApplication.run(StrategyOptimizationRunner.class, args);
 
+    // A worker only backtests the batches of a coordinator, it doesn't take coins
+    var mode = application.getEnvironment().getProperty("optimization.distributed.mode", "local");
+    if ("worker".equals(mode)) {
+      application.getBean(EvaluationWorker.class).run();
+      return;
+    }
+
     // Parse coins from command-line arguments
     if (args.length == 0 || args[0].isBlank()) {
       log.error("No coins were provided as command-line arguments.");
@@ -40,6 +50,9 @@ public class StrategyOptimizationRunner {
 
     // Create optimization service
     var optimizationService = application.getBean(StrategyOptimizationService.class);
+    if ("coordinator".equals(mode)) {
+      application.getBean(EvaluationCoordinator.class).start();
+    }
 
     // Run optimization
     log.info("Starting Strategy Optimization");
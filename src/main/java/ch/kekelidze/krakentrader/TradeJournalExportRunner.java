@@ -0,0 +1,44 @@
+package ch.kekelidze.krakentrader;
+
+import ch.kekelidze.krakentrader.trade.journal.TradeJournalReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Exports the binary trade journal to CSV for auditing.
+ * <p>
+ * Usage: {@code trade-journal-export <journal file> [output csv]}. Without an output file the
+ * records are written to standard output.
+ */
+@Slf4j
+public class TradeJournalExportRunner {
+
+  private static final String HEADER =
+      "sequence,timestamp,type,coin_pair,in_trade,price,volume,fee,capital";
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      System.err.println("Usage: trade-journal-export <journal file> [output csv]");
+      System.exit(1);
+    }
+    Path journalPath = Path.of(args[0]);
+    try (var writer = args.length > 1
+        ? new PrintWriter(Files.newBufferedWriter(Path.of(args[1])))
+        : new PrintWriter(System.out)) {
+      writer.println(HEADER);
+      long exported = TradeJournalReader.readAll(journalPath, entry -> writer.printf(
+          "%d,%d,%s,%s,%b,%s,%s,%s,%s%n", entry.sequence(), entry.timestamp(), entry.type(),
+          entry.coinPair(), entry.inTrade(), entry.price(), entry.volume(), entry.fee(),
+          entry.capital()));
+      writer.flush();
+      if (writer.checkError()) {
+        throw new UncheckedIOException(new IOException("Failed to write trade journal export"));
+      }
+      log.info("Exported {} trade journal records from {}", exported, journalPath);
+    }
+  }
+}
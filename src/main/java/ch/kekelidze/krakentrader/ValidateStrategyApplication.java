@@ -1,24 +1,31 @@
 package ch.kekelidze.krakentrader;
 
-import ch.kekelidze.krakentrader.api.HistoricalDataService;
 import ch.kekelidze.krakentrader.api.file.service.CsvFileService;
 import ch.kekelidze.krakentrader.api.rest.service.MarketDataService;
 import ch.kekelidze.krakentrader.api.rest.service.PaperTradeKrakenApiService;
+import ch.kekelidze.krakentrader.api.rest.service.TradingApiService;
 import ch.kekelidze.krakentrader.api.util.ResponseConverterUtils;
 import ch.kekelidze.krakentrader.backtester.service.BackTesterService;
+import ch.kekelidze.krakentrader.backtester.service.MonteCarloService;
+import ch.kekelidze.krakentrader.backtester.service.StrategyValidationService;
 import ch.kekelidze.krakentrader.backtester.service.dto.BacktestResult;
+import ch.kekelidze.krakentrader.backtester.service.dto.MonteCarloResult;
+import ch.kekelidze.krakentrader.backtester.service.dto.PortfolioBacktestResult;
 import ch.kekelidze.krakentrader.indicator.Indicator;
 import ch.kekelidze.krakentrader.optimize.config.StrategyConfig;
 import ch.kekelidze.krakentrader.strategy.Strategy;
-import ch.kekelidze.krakentrader.strategy.dto.EvaluationContext;
 import ch.kekelidze.krakentrader.trade.util.TradingCircuitBreaker;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
@@ -55,42 +62,47 @@ public class ValidateStrategyApplication {
 
   private static void validateWithHistoricalData(ApplicationContext application, List<String> coins,
       int period, ZonedDateTime startDate, ZonedDateTime endDate) {
-    var historicalDataService = application.getBean(HistoricalDataService.class);
-    var backtestService = application.getBean(BackTesterService.class);
-    var historicalData = historicalDataService.queryHistoricalData(coins, period);
-    var results = new java.util.HashMap<String, BacktestResult>();
-
-    for (String coin : coins) {
-      log.info("Validating strategy for {} from {} to {}", coin, startDate, endDate);
-      var evaluationContext = EvaluationContext.builder()
-          .symbol(coin)
-          .period(period)
-          .bars(historicalData.get(coin).stream()
-              .filter(bar -> checkDateAfter(bar.getEndTime(), startDate))
-              .filter(bar -> checkDateBefore(bar.getEndTime(), endDate))
-              .toList()
-          )
-          .build();
-      var result = backtestService.runSimulation(evaluationContext, INITIAL_CAPITAL);
-      results.put(coin, result);
-      log.info("Trade result for {}: {}", coin, result);
+    var validationService = application.getBean(StrategyValidationService.class);
+    // Results are appended as coins finish, running the same validation again resumes from here
+    var progressFile = Path.of(String.format("results/strategy_validation_%d_%s_%s.progress",
+        period, startDate.toLocalDate(), endDate.toLocalDate()));
+    // Loaded once for the per coin and the portfolio validation
+    var barsByCoin = validationService.loadBars(coins, period, startDate, endDate);
+    var results = validationService.validate(barsByCoin, period, INITIAL_CAPITAL, progressFile);
+
+    // Coins resumed from the progress file have no trade log to resample
+    var monteCarloService = application.getBean(MonteCarloService.class);
+    var robustness = new LinkedHashMap<String, MonteCarloResult>();
+    results.forEach((coin, result) -> {
+      if (result.tradeLog() != null && result.tradeLog().size() > 0) {
+        robustness.put(coin, monteCarloService.simulate(result.tradeLog()));
+      }
+    });
+
+    // The same coins trading from one capital, the way the live trader splits it
+    var minimumOrderVolumes = new HashMap<String, Double>();
+    var tradingApiService = application.getBeanProvider(TradingApiService.class).getIfAvailable();
+    if (tradingApiService != null) {
+      coins.forEach(coin -> minimumOrderVolumes.put(coin,
+          tradingApiService.getMinimumOrderVolume(coin)));
     }
+    var portfolio = validationService.validatePortfolio(barsByCoin, period,
+        INITIAL_CAPITAL * coins.size(), minimumOrderVolumes);
 
     var timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
     var filename = String.format("results/strategy_results_%s.md", timestamp);
-    writeResultsToMarkdownFile(filename, results);
-  }
-  
-  private static boolean checkDateAfter(ZonedDateTime date, ZonedDateTime afterDate) {
-    return date.isAfter(afterDate) || date.isEqual(afterDate);
-  }
-  
-  private static boolean checkDateBefore(ZonedDateTime date, ZonedDateTime beforeDate) {
-    return date.isBefore(beforeDate) || date.isEqual(beforeDate);
+    if (writeResultsToMarkdownFile(filename, results, robustness, portfolio)) {
+      try {
+        Files.deleteIfExists(progressFile);
+      } catch (IOException e) {
+        log.warn("Failed to delete validation progress {}: {}", progressFile, e.getMessage());
+      }
+    }
   }
 
-  private static void writeResultsToMarkdownFile(String filePath,
-      Map<String, BacktestResult> results) {
+  private static boolean writeResultsToMarkdownFile(String filePath,
+      Map<String, BacktestResult> results, Map<String, MonteCarloResult> robustness,
+      PortfolioBacktestResult portfolio) {
     try (var writer = new FileWriter(filePath)) {
       writer.write("# Strategy Results\n\n");
 
@@ -114,7 +126,21 @@ public class ValidateStrategyApplication {
         writer.write(String.format("- Win Rate: %.2f%%\n", result.winRate() * 100));
         writer.write(
             String.format("- Largest Drawdown: %.2f%%\n", result.maxDrawdown()));
-        writer.write(String.format("- Sharpe Ratio: %.2f\n\n", result.sharpeRatio()));
+        writer.write(String.format("- Sharpe Ratio: %.2f\n", result.sharpeRatio()));
+
+        var monteCarlo = robustness.get(entry.getKey());
+        if (monteCarlo != null) {
+          writer.write(String.format(
+              "- Monte Carlo Return (5th / 50th / 95th percentile): %.2f%% / %.2f%% / %.2f%%\n",
+              monteCarlo.totalReturn().p5(), monteCarlo.totalReturn().p50(),
+              monteCarlo.totalReturn().p95()));
+          writer.write(String.format(
+              "- Monte Carlo Drawdown (50th / 95th percentile): %.2f%% / %.2f%%\n",
+              monteCarlo.maxDrawdown().p50(), monteCarlo.maxDrawdown().p95()));
+          writer.write(String.format("- Probability of Loss: %.2f%%\n",
+              monteCarlo.probabilityOfLoss() * 100));
+        }
+        writer.write("\n");
       }
 
       // Add summary section
@@ -127,10 +153,25 @@ public class ValidateStrategyApplication {
       writer.write(String.format("- **Overall Return**: %.2f%%\n", (totalNetProfit / totalInitialCapital) * 100));
       writer.write(String.format("- **Number of Coins Traded**: %d\n", results.size()));
 
+      writer.write("\n## Portfolio (shared capital)\n");
+      if (portfolio.incrementalIndicators()) {
+        writer.write("Indicators are warmed up over the whole history instead of the last "
+            + "minimum candles, so these numbers are not comparable to the per coin results "
+            + "above. Disable backtesting.portfolio.incremental-indicators to compare them.\n\n");
+      }
+      writer.write(String.format("- Return: %.2f%%\n", portfolio.totalReturn()));
+      writer.write(String.format("- Final Equity: %.2f\n", portfolio.finalEquity()));
+      writer.write(String.format("- Total Trades: %d\n", portfolio.totalTrades()));
+      writer.write(String.format("- Win Rate: %.2f%%\n", portfolio.winRate() * 100));
+      writer.write(String.format("- Largest Drawdown: %.2f%%\n", portfolio.maxDrawdown()));
+      writer.write(String.format("- Sharpe Ratio: %.2f\n", portfolio.sharpeRatio()));
+
       writer.flush();
       log.info("Results successfully written to {}", filePath);
+      return true;
     } catch (IOException e) {
       log.error("Failed to write results to file: {}", e.getMessage(), e);
+      return false;
     }
   }
 }
@@ -0,0 +1,100 @@
+package ch.kekelidze.krakentrader;
+
+import ch.kekelidze.krakentrader.api.file.service.CsvFileService;
+import ch.kekelidze.krakentrader.api.rest.service.MarketDataService;
+import ch.kekelidze.krakentrader.api.rest.service.PaperTradeKrakenApiService;
+import ch.kekelidze.krakentrader.api.util.ResponseConverterUtils;
+import ch.kekelidze.krakentrader.backtester.service.BackTesterService;
+import ch.kekelidze.krakentrader.indicator.Indicator;
+import ch.kekelidze.krakentrader.optimize.Optimizer;
+import ch.kekelidze.krakentrader.optimize.model.WalkForwardReport;
+import ch.kekelidze.krakentrader.optimize.service.WalkForwardOptimizationService;
+import ch.kekelidze.krakentrader.strategy.Strategy;
+import ch.kekelidze.krakentrader.trade.util.TradingCircuitBreaker;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/**
+ * Optimizes and validates coins in one run with rolling train and test ranges and writes the
+ * out-of-sample report to the results folder.
+ */
+@Slf4j
+@SpringBootApplication(
+    scanBasePackageClasses = {CsvFileService.class, MarketDataService.class,
+        PaperTradeKrakenApiService.class, ResponseConverterUtils.class, Optimizer.class,
+        BackTesterService.class, Indicator.class, Strategy.class, TradingCircuitBreaker.class}
+)
+public class WalkForwardOptimizationRunner {
+
+  public static void main(String[] args) {
+    if (args.length < 3 || args[0].isBlank()) {
+      log.error("Usage: <coins> <period> <start date> [end date]");
+      return;
+    }
+    List<String> coins = List.of(args[0].split(","));
+    int period = Integer.parseInt(args[1]);
+    ZonedDateTime startDate = LocalDate.parse(args[2], DateTimeFormatter.ISO_DATE)
+        .atStartOfDay(ZoneId.systemDefault());
+    ZonedDateTime endDate = args.length > 3
+        ? LocalDate.parse(args[3], DateTimeFormatter.ISO_DATE).atStartOfDay(ZoneId.systemDefault())
+        : LocalDate.now().atStartOfDay(ZoneId.systemDefault());
+
+    var application = SpringApplication.run(WalkForwardOptimizationRunner.class, args);
+    var walkForwardService = application.getBean(WalkForwardOptimizationService.class);
+
+    // Coins run one after another, the ranges of a coin already use all threads
+    var reports = new ArrayList<WalkForwardReport>();
+    for (String coin : coins) {
+      log.info("Starting walk-forward optimization for {}", coin);
+      reports.add(walkForwardService.optimize(coin, period, startDate, endDate));
+    }
+
+    var timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+    writeReportsToMarkdownFile(String.format("results/walk_forward_%s.md", timestamp), reports);
+    int exitCode = SpringApplication.exit(application, () -> 0);
+    System.exit(exitCode);
+  }
+
+  private static void writeReportsToMarkdownFile(String filePath, List<WalkForwardReport> reports) {
+    try (var writer = new FileWriter(filePath)) {
+      writer.write("# Walk-Forward Results\n\n");
+      for (var report : reports) {
+        writer.write(String.format("## %s\n", report.coin()));
+        writer.write(String.format("- Out-of-Sample Return: %.2f%%\n", report.outOfSampleReturn()));
+        writer.write(String.format("- Profitable Windows: %d of %d\n", report.profitableWindows(),
+            report.windows().size()));
+        writer.write(String.format("- Total Trades: %d\n", report.totalTrades()));
+        writer.write(String.format("- Win Rate: %.2f%%\n", report.winRate() * 100));
+        writer.write(String.format("- Worst Drawdown: %.2f%%\n", report.worstDrawdown()));
+        writer.write(String.format("- Average Sharpe Ratio: %.2f\n", report.averageSharpeRatio()));
+        writer.write(String.format("- Walk-Forward Efficiency: %.2f\n\n",
+            report.walkForwardEfficiency()));
+
+        writer.write(
+            "| Test Start | Test End | Strategy | In-Sample | Out-of-Sample | Trades |\n");
+        writer.write("|---|---|---|---|---|---|\n");
+        for (var window : report.windows()) {
+          writer.write(String.format("| %s | %s | %s | %.2f%% | %.2f%% | %d |\n",
+              window.testStart().toLocalDate(), window.testEnd().toLocalDate(),
+              window.strategyName(),
+              window.inSampleReturn(), window.outOfSampleReturn(),
+              window.outOfSample().totalTrades()));
+        }
+        writer.write("\n");
+      }
+      log.info("Results successfully written to {}", filePath);
+    } catch (IOException e) {
+      log.error("Failed to write results to file: {}", e.getMessage(), e);
+    }
+  }
+}
@@ -1,5 +1,7 @@
 package ch.kekelidze.krakentrader.api;
 
+import java.time.ZonedDateTime;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.ta4j.core.Bar;
@@ -7,4 +9,21 @@ import org.ta4j.core.Bar;
 public interface HistoricalDataService {
 
   Map<String, List<Bar>> queryHistoricalData(List<String> coin, int period);
+
+  /**
+   * Returns only the candles that end after the given time. Implementations backed by a remote API
+   * should override this to avoid transferring the full history.
+   *
+   * @param coin   coins to get data for
+   * @param period period duration, e.g. 60 for 1-hour candles
+   * @param since  candles ending at or before this time are skipped
+   * @return candles per coin ending after {@code since}
+   */
+  default Map<String, List<Bar>> queryHistoricalDataSince(List<String> coin, int period,
+      ZonedDateTime since) {
+    var result = new HashMap<String, List<Bar>>();
+    queryHistoricalData(coin, period).forEach((symbol, bars) -> result.put(symbol,
+        bars.stream().filter(bar -> bar.getEndTime().isAfter(since)).toList()));
+    return result;
+  }
 }
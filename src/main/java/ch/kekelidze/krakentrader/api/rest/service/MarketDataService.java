@@ -7,15 +7,21 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 import org.ta4j.core.Bar;
@@ -28,6 +34,16 @@ public class MarketDataService implements HistoricalDataService {
 
   private final ResponseConverterUtils responseConverterUtils;
 
+  // Kraken's public endpoints are rate limited per IP, so only a few pairs are fetched at a time
+  @Value("${kraken.ohlc.max-concurrent-requests:3}")
+  int maxConcurrentRequests;
+
+  @Value("${kraken.ohlc.max-attempts:3}")
+  int maxAttempts;
+
+  @Value("${kraken.ohlc.retry-delay-ms:1000}")
+  long retryDelayMs;
+
   /**
    * Kraken’s OHLC Format: Each candle is an array [time, open, high, low, close, vwap, volume,
    * count].
@@ -38,40 +54,100 @@ public class MarketDataService implements HistoricalDataService {
    */
   @Override
   public Map<String, List<Bar>> queryHistoricalData(List<String> coin, int period) {
+    return queryOhlc(coin, period, null);
+  }
+
+  /**
+   * Fetches only the candles ending after {@code since} using Kraken's {@code since} parameter, so
+   * a warm restart or a gap backfill transfers just the missing candles. Kraken filters on the
+   * candle begin time, hence the shift by one period.
+   */
+  @Override
+  public Map<String, List<Bar>> queryHistoricalDataSince(List<String> coin, int period,
+      ZonedDateTime since) {
+    return queryOhlc(coin, period, since.minusMinutes(period));
+  }
+
+  /**
+   * Requests the coin pairs with at most {@code maxConcurrentRequests} requests in flight and
+   * retries failed requests with a linear backoff. A coin pair that still fails after all attempts
+   * is logged and gets an empty candle list, so the other pairs are still returned.
+   */
+  private Map<String, List<Bar>> queryOhlc(List<String> coin, int period, ZonedDateTime since) {
     var historicalData = new HashMap<String, List<Bar>>();
-    try (HttpClient client = HttpClient.newHttpClient()) {
+    if (coin.isEmpty()) {
+      return historicalData;
+    }
+    int threads = Math.max(1, Math.min(maxConcurrentRequests, coin.size()));
+    try (HttpClient client = HttpClient.newHttpClient();
+        var executor = Executors.newFixedThreadPool(threads)) {
+      var responses = new LinkedHashMap<String, Future<List<Bar>>>();
       for (String coinPair : coin) {
-        try {
-          String url =
-              "https://api.kraken.com/0/public/OHLC?pair=" + coinPair + "&interval=" + period;
-          HttpRequest request = HttpRequest.newBuilder()
-              .uri(URI.create(url))
-              .build();
-
-          HttpResponse<String> response = client.send(request,
-              HttpResponse.BodyHandlers.ofString());
-          JSONObject json = new JSONObject(response.body());
-          JSONObject result = json.getJSONObject("result");
-          JSONArray ohlcData = result.keySet().stream().filter(coinPair::equals)
-              .map(result::getJSONArray).findFirst().orElse(new JSONArray());
+        String url = "https://api.kraken.com/0/public/OHLC?pair=" + coinPair + "&interval=" + period
+            + (since != null ? "&since=" + since.toEpochSecond() : "");
+        HttpRequest request = HttpRequest.newBuilder()
+            .uri(URI.create(url))
+            .build();
+        responses.put(coinPair,
+            executor.submit(() -> fetchOhlc(client, request, coinPair, period)));
+      }
 
-          // Extract closing prices (index 4 in Kraken's OHLC array)
-          var dataBars = new ArrayList<Bar>();
-          for (int i = 0; i < ohlcData.length(); i++) {
-            var ohlcCandle = ohlcData.getJSONArray(i);
-            var bar = responseConverterUtils.getPriceBar(ohlcCandle, period);
-            dataBars.add(bar);
-          }
-          historicalData.put(coinPair, dataBars);
-        } catch (JSONException e) {
-          log.error("Failed to parse market data for coin pair '{}'. JSONException: {}",
-              coinPair, e.getMessage(), e);
+      for (var entry : responses.entrySet()) {
+        var coinPair = entry.getKey();
+        try {
+          historicalData.put(coinPair, entry.getValue().get());
+        } catch (ExecutionException e) {
+          log.error("Failed to fetch market data for coin pair '{}' after {} attempts: {}",
+              coinPair, maxAttempts, e.getCause().getMessage(), e.getCause());
           historicalData.put(coinPair, new ArrayList<>());
         }
       }
       return historicalData;
-    } catch (IOException | InterruptedException e) {
-      throw new RuntimeException("Failed to fetch and parse historical data: " + e.getMessage(), e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while fetching historical data", e);
+    }
+  }
+
+  private List<Bar> fetchOhlc(HttpClient client, HttpRequest request, String coinPair, int period)
+      throws IOException, InterruptedException {
+    for (int attempt = 1; ; attempt++) {
+      try {
+        return parseOhlcResponse(coinPair, send(client, request), period);
+      } catch (IOException | JSONException e) {
+        if (attempt >= maxAttempts) {
+          throw e;
+        }
+        log.warn("Attempt {} of {} to fetch market data for '{}' failed: {}", attempt,
+            maxAttempts, coinPair, e.getMessage());
+        Thread.sleep(retryDelayMs * attempt);
+      }
+    }
+  }
+
+  String send(HttpClient client, HttpRequest request) throws IOException, InterruptedException {
+    return client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+  }
+
+  private List<Bar> parseOhlcResponse(String coinPair, String body, int period)
+      throws IOException {
+    JSONObject json = new JSONObject(body);
+    // Rate limited or rejected requests carry their reason in the error array and have no result
+    JSONArray errors = json.optJSONArray("error");
+    if (errors != null && !errors.isEmpty()) {
+      throw new IOException("Kraken returned " + errors);
+    }
+    JSONObject result = json.getJSONObject("result");
+    JSONArray ohlcData = result.keySet().stream().filter(coinPair::equals)
+        .map(result::getJSONArray).findFirst().orElse(new JSONArray());
+
+    // Extract closing prices (index 4 in Kraken's OHLC array)
+    var dataBars = new ArrayList<Bar>();
+    for (int i = 0; i < ohlcData.length(); i++) {
+      var ohlcCandle = ohlcData.getJSONArray(i);
+      var bar = responseConverterUtils.getPriceBar(ohlcCandle, period);
+      dataBars.add(bar);
     }
+    return dataBars;
   }
 }
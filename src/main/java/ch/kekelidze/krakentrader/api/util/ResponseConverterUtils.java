@@ -1,6 +1,7 @@
 package ch.kekelidze.krakentrader.api.util;
 
 import ch.kekelidze.krakentrader.api.dto.OhlcEntry;
+import ch.kekelidze.krakentrader.api.websocket.decoder.OhlcFrame;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
@@ -15,12 +16,16 @@ import org.ta4j.core.num.DecimalNum;
 @Component
 public class ResponseConverterUtils {
 
+  /**
+   * Converts a REST OHLC candle. Kraken reports the begin time of the candle, the bar end time is
+   * shifted by one period to match the candles received over the WebSocket.
+   */
   public Bar getPriceBar(JSONArray ohlcCandle, int period) {
     return BaseBar.builder(DecimalNum::valueOf, Number.class)
         .timePeriod(Duration.ofMinutes(period))
         .endTime(ZonedDateTime.ofInstant(
             Instant.ofEpochSecond(ohlcCandle.getLong(0)),
-            ZoneId.systemDefault()))
+            ZoneId.systemDefault()).plusMinutes(period))
         .openPrice(DecimalNum.valueOf(ohlcCandle.getDouble(1)))
         .highPrice(DecimalNum.valueOf(ohlcCandle.getDouble(2)))
         .lowPrice(DecimalNum.valueOf(ohlcCandle.getDouble(3)))
@@ -41,8 +46,24 @@ public class ResponseConverterUtils {
         .build();
   }
 
+  public Bar getPriceBarFromOhlcFrame(OhlcFrame ohlcFrame) {
+    return BaseBar.builder(DecimalNum::valueOf, Number.class)
+        .timePeriod(Duration.ofMinutes(ohlcFrame.getInterval()))
+        .endTime(ZonedDateTime.ofInstant(Instant.ofEpochMilli(ohlcFrame.getEndMillis()),
+            ZoneId.systemDefault()))
+        .openPrice(DecimalNum.valueOf(ohlcFrame.getOpen()))
+        .highPrice(DecimalNum.valueOf(ohlcFrame.getHigh()))
+        .lowPrice(DecimalNum.valueOf(ohlcFrame.getLow()))
+        .closePrice(DecimalNum.valueOf(ohlcFrame.getClose()))
+        .volume(DecimalNum.valueOf(ohlcFrame.getVolume()))
+        .build();
+  }
+
   // Method to convert a JsonObject to an OhlcEntry
   public OhlcEntry convertJsonToOhlcEntry(JSONObject jsonObject) {
+    var interval = jsonObject.getInt("interval");
+    var intervalBegin = ZonedDateTime.parse(jsonObject.getString("interval_begin"))
+        .withZoneSameInstant(ZoneId.systemDefault());
     return OhlcEntry.builder()
         .symbol(jsonObject.getString("symbol"))
         .open(jsonObject.getBigDecimal("open").doubleValue())
@@ -52,11 +73,9 @@ public class ResponseConverterUtils {
         .trades(jsonObject.getInt("trades"))
         .volume(jsonObject.getBigDecimal("volume").doubleValue())
         .vwap(jsonObject.getBigDecimal("vwap").doubleValue())
-        .intervalBegin(ZonedDateTime.parse(jsonObject.getString("interval_begin"))
-            .withZoneSameInstant(ZoneId.systemDefault()))
-        .interval(jsonObject.getInt("interval"))
-        .timestamp(ZonedDateTime.parse(jsonObject.getString("interval_begin"))
-            .withZoneSameInstant(ZoneId.systemDefault()).plusMinutes(jsonObject.getInt("interval")))
+        .intervalBegin(intervalBegin)
+        .interval(interval)
+        .timestamp(intervalBegin.plusMinutes(interval))
         .build();
   }
 }
@@ -2,7 +2,14 @@ package ch.kekelidze.krakentrader.api.websocket;
 
 import ch.kekelidze.krakentrader.api.HistoricalDataService;
 import ch.kekelidze.krakentrader.api.util.ResponseConverterUtils;
+import ch.kekelidze.krakentrader.api.websocket.bus.MarketDataBus;
+import ch.kekelidze.krakentrader.api.websocket.decoder.KrakenMessageDecoder;
+import ch.kekelidze.krakentrader.api.websocket.decoder.OhlcFrame;
+import ch.kekelidze.krakentrader.api.websocket.service.CandleBufferSnapshotService;
+import ch.kekelidze.krakentrader.api.websocket.service.CandleGapBackfillService;
 import ch.kekelidze.krakentrader.api.websocket.service.KrakenWebSocketService;
+import ch.kekelidze.krakentrader.api.websocket.service.WebSocketSchedulerService;
+import ch.kekelidze.krakentrader.indicator.cache.IndicatorCache;
 import ch.kekelidze.krakentrader.trade.service.TradeService;
 import jakarta.websocket.ClientEndpoint;
 import jakarta.websocket.OnError;
@@ -11,47 +18,52 @@ import jakarta.websocket.OnOpen;
 import jakarta.websocket.Session;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.atomic.AtomicLong;
 import lombok.extern.slf4j.Slf4j;
-import org.json.JSONArray;
-import org.json.JSONObject;
 import org.ta4j.core.Bar;
+import org.ta4j.core.num.DecimalNum;
 
 @Slf4j
 @ClientEndpoint
 public class KrakenWebSocketClient {
 
-  private static final String CHANNEL = "channel";
-  private static final String STATUS = "status";
-  private static final String HEARTBEAT = "heartbeat";
-  private static final String OHLC = "ohlc";
   private static final String PING_MESSAGE = "{\"method\":\"ping\"}";
   private static final long PING_INTERVAL_MS = 5000;
   private static final long PING_TIMEOUT_MS = 2000;
 
-  private static final int MAX_QUEUE_SIZE = 600;
-  private static List<String> SYMBOLS;
+  public static final int MAX_QUEUE_SIZE = 600;
+  private static volatile List<String> SYMBOLS;
   //Default period is 1h, overridable from the runtime arguments or strategy implementation
   private static int PERIOD = 60;
 
-  private static final Map<String, Deque<Bar>> priceQueue = new HashMap<>();
+  // Each queue is guarded by its own monitor, it is shared with the snapshot thread
+  private static final Map<String, Deque<Bar>> priceQueue = new ConcurrentHashMap<>();
+  // Symbols with a gap backfill in flight, their candles are buffered but not published until the
+  // missing candles are merged
+  private static final Set<String> pendingBackfills = ConcurrentHashMap.newKeySet();
 
-  private static TradeService tradeService;
+  private static MarketDataBus marketDataBus;
   private static ResponseConverterUtils responseConverterUtils;
   private static KrakenWebSocketService webSocketService;
+  private static CandleGapBackfillService gapBackfillService;
+  private static HistoricalDataService historicalDataService;
+  private static CandleBufferSnapshotService candleBufferSnapshotService;
 
+  // Messages of one session are delivered sequentially, so each client owns its decoder
+  private final KrakenMessageDecoder decoder = new KrakenMessageDecoder();
   protected Session session;
   protected final AtomicLong lastMessageTimestamp = new AtomicLong(System.currentTimeMillis());
-  private ScheduledExecutorService heartbeatExecutor;
-  private boolean pingInProgress = false;
+  private volatile ScheduledFuture<?> heartbeatTask;
+  private volatile boolean pingInProgress = false;
 
   // Method to set dependencies from Spring context
   // Backward-compatible initializer (without explicit period): falls back to strategy's period
@@ -64,25 +76,88 @@ public class KrakenWebSocketClient {
   public static void initialize(TradeService strategyService, ResponseConverterUtils converterUtils,
       HistoricalDataService marketDataService, String[] symbols, KrakenWebSocketService service,
       int period) {
-    tradeService = strategyService;
+    // A single strategy gets its own bus without indicator sharing
+    var bus = new MarketDataBus(new IndicatorCache());
+    bus.subscribe(strategyService::executeStrategy);
+    initialize(bus, converterUtils, marketDataService, symbols, service, period, null, null);
+  }
+
+  // Warm-start initializer: restores the candle buffers from the last snapshot when available and
+  // backfills candles missed while the connection was down. Candle updates are published on the
+  // bus, which fans them out to all subscribed strategy engines
+  public static void initialize(MarketDataBus bus, ResponseConverterUtils converterUtils,
+      HistoricalDataService marketDataService, String[] symbols, KrakenWebSocketService service,
+      int period, CandleBufferSnapshotService snapshotService,
+      CandleGapBackfillService backfillService) {
+    marketDataBus = bus;
     responseConverterUtils = converterUtils;
     webSocketService = service;
+    gapBackfillService = backfillService;
+    historicalDataService = marketDataService;
+    candleBufferSnapshotService = snapshotService;
     SYMBOLS = List.of(symbols);
     PERIOD = period;
-    initializePriceQueue(marketDataService);
+    initializePriceQueue(SYMBOLS);
+  }
+
+  /**
+   * Loads the candle history of symbols that are added while running, e.g. when this node takes
+   * over coin pairs in cluster mode.
+   *
+   * @param symbols symbols to add, symbols that are already buffered are ignored
+   */
+  public static synchronized void addSymbols(List<String> symbols) {
+    var newSymbols = symbols.stream().filter(symbol -> !SYMBOLS.contains(symbol)).toList();
+    if (newSymbols.isEmpty()) {
+      return;
+    }
+    initializePriceQueue(newSymbols);
+    var allSymbols = new ArrayList<>(SYMBOLS);
+    allSymbols.addAll(newSymbols);
+    SYMBOLS = List.copyOf(allSymbols);
+  }
+
+  /**
+   * Drops the candle buffers of symbols that are no longer handled by this process.
+   *
+   * @param symbols symbols to remove
+   */
+  public static synchronized void removeSymbols(List<String> symbols) {
+    symbols.forEach(priceQueue::remove);
+    symbols.forEach(pendingBackfills::remove);
+    SYMBOLS = SYMBOLS.stream().filter(symbol -> !symbols.contains(symbol)).toList();
   }
 
-  private static void initializePriceQueue(HistoricalDataService marketDataService) {
-    var historicalData = marketDataService.queryHistoricalData(SYMBOLS, PERIOD);
-    for (String coin : SYMBOLS) {
-      var historicalCoinData = historicalData.get(coin);
+  private static void initializePriceQueue(List<String> symbols) {
+    var historicalData = candleBufferSnapshotService != null
+        ? candleBufferSnapshotService.loadHistory(symbols, PERIOD, historicalDataService)
+        : historicalDataService.queryHistoricalData(symbols, PERIOD);
+    for (String coin : symbols) {
+      var historicalCoinData = historicalData.getOrDefault(coin, List.of());
       var coinQueue = priceQueue.computeIfAbsent(coin, key -> new LinkedList<>());
-      for (Bar bar : historicalCoinData) {
-        enqueueNewBar(bar, coinQueue);
+      synchronized (coinQueue) {
+        for (Bar bar : historicalCoinData) {
+          enqueueNewBar(bar, coinQueue);
+        }
       }
     }
   }
 
+  /**
+   * Returns a copy of the current candle buffers, taken per symbol under the buffer's lock.
+   *
+   * @return candle buffers per symbol in chronological order
+   */
+  public static Map<String, List<Bar>> copyPriceQueues() {
+    var copy = new HashMap<String, List<Bar>>();
+    priceQueue.forEach((symbol, queue) -> {
+      synchronized (queue) {
+        copy.put(symbol, new ArrayList<>(queue));
+      }
+    });
+    return copy;
+  }
+
   @OnOpen
   public void onOpen(Session session) {
     log.info("Connected to Kraken WebSocket");
@@ -97,16 +172,21 @@ public class KrakenWebSocketClient {
   }
 
   protected void startHeartbeat() {
-    if (heartbeatExecutor != null) {
-      heartbeatExecutor.shutdownNow();
-    }
+    stopHeartbeat();
 
-    heartbeatExecutor = Executors.newSingleThreadScheduledExecutor();
-    heartbeatExecutor.scheduleAtFixedRate(this::checkConnection, 
-        PING_INTERVAL_MS, PING_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    var scheduler = getScheduler();
+    if (scheduler == null) {
+      log.warn("No WebSocket scheduler available, heartbeat disabled");
+      return;
+    }
+    heartbeatTask = scheduler.scheduleHeartbeat(this::checkConnection, PING_INTERVAL_MS);
     log.info("Heartbeat mechanism started");
   }
 
+  private static WebSocketSchedulerService getScheduler() {
+    return webSocketService != null ? webSocketService.getWebSocketSchedulerService() : null;
+  }
+
   private void checkConnection() {
     if (session == null || !session.isOpen()) {
       log.warn("Session is null or closed, requesting reconnection");
@@ -130,13 +210,13 @@ public class KrakenWebSocketClient {
         session.getAsyncRemote().sendText(PING_MESSAGE);
 
         // Schedule a task to check if ping was responded to
-        heartbeatExecutor.schedule(() -> {
-          if (pingInProgress) {
+        getScheduler().schedule(() -> {
+          if (pingInProgress && heartbeatTask != null) {
             log.warn("Ping timeout, requesting reconnection");
             stopHeartbeat();
             requestReconnection();
           }
-        }, PING_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        }, PING_TIMEOUT_MS);
       } catch (Exception e) {
         log.error("Error sending ping: {}", e.getMessage(), e);
         stopHeartbeat();
@@ -146,9 +226,9 @@ public class KrakenWebSocketClient {
   }
 
   private void stopHeartbeat() {
-    if (heartbeatExecutor != null) {
-      heartbeatExecutor.shutdownNow();
-      heartbeatExecutor = null;
+    if (heartbeatTask != null) {
+      heartbeatTask.cancel(false);
+      heartbeatTask = null;
     }
   }
 
@@ -176,65 +256,131 @@ public class KrakenWebSocketClient {
 
   @OnMessage
   public void onMessage(String message) {
-    if (responseConverterUtils == null || tradeService == null) {
+    if (responseConverterUtils == null || marketDataBus == null) {
       throw new RuntimeException("Dependencies not set. Please call initialize() first.");
     }
 
     lastMessageTimestamp.set(System.currentTimeMillis());
 
-    if (message.contains("\"method\":\"pong\"")) {
-      log.debug("Received pong response");
-      pingInProgress = false;
-      return;
+    var messageType = decoder.decode(message);
+    switch (messageType) {
+      case PONG -> {
+        log.debug("Received pong response");
+        pingInProgress = false;
+      }
+      case STATUS, HEARTBEAT -> log.trace("Ignore heartbeat/status messages");
+      case OHLC -> {
+        if (decoder.isUpdate()) {
+          log.debug("Received message: {}", message);
+          for (int i = 0; i < decoder.getFrameCount(); i++) {
+            processOhlcFrame(decoder.getOhlcFrame(i));
+          }
+        }
+      }
+      default -> log.trace("Ignore {} message", messageType);
     }
+  }
 
-    JSONObject json = new JSONObject(message);
-    var channel = getChannel(json);
-    if (STATUS.equals(channel) || HEARTBEAT.equals(channel)) {
-      log.trace("Ignore heartbeat/status messages");
+  private void processOhlcFrame(OhlcFrame frame) {
+    var symbol = frame.getSymbol();
+    var candleQueue = priceQueue.get(symbol);
+    if (candleQueue == null) {
+      log.debug("Ignoring candle for unsubscribed symbol {}", symbol);
       return;
     }
-
-    if (OHLC.equals(channel) && isUpdateMessage(json)) {
-      log.debug("Received message: {}", message);
-
-      JSONArray data = json.getJSONArray("data");
-      for (int i = 0; i < data.length(); i++) {
-        JSONObject ohlcObject = data.getJSONObject(i);
-        var ohlcEntry = responseConverterUtils.convertJsonToOhlcEntry(ohlcObject);
-        var bar = responseConverterUtils.getPriceBarFromOhlcEntry(ohlcEntry);
-        var symbol = ohlcEntry.symbol();
-        var candleQueue = priceQueue.get(symbol);
-        if (isUpdatedCandle(symbol, bar)) {
-          var lastBar = candleQueue.peekLast();
-          lastBar.addPrice(bar.getClosePrice());
-        } else {
-          enqueueNewBar(bar, candleQueue);
+    Bar lastBar;
+    Bar gapStart = null;
+    synchronized (candleQueue) {
+      lastBar = candleQueue.peekLast();
+      if (isUpdatedCandle(lastBar, frame)) {
+        // Only the close changes for an open candle, a new bar is created for new candles only
+        lastBar.addPrice(DecimalNum.valueOf(frame.getClose()));
+      } else {
+        var bar = responseConverterUtils.getPriceBarFromOhlcFrame(frame);
+        if (hasGap(symbol, lastBar, bar)) {
+          pendingBackfills.add(symbol);
+          gapStart = lastBar;
         }
+        enqueueNewBar(bar, candleQueue);
+        lastBar = bar;
+      }
+    }
 
-        if (candleQueue.size() < MAX_QUEUE_SIZE) {
-          log.debug("Candle queue size is too small for {}: {}", symbol, candleQueue.size());
-          continue;
-        }
+    if (gapStart != null) {
+      backfillGap(symbol, gapStart, lastBar);
+    } else if (!pendingBackfills.contains(symbol)) {
+      publish(symbol, candleQueue, lastBar);
+    }
+  }
 
-        log.debug("Triggering strategy evaluation for {} at {}", symbol, bar.getEndTime());
-        tradeService.executeStrategy(symbol, new ArrayList<>(candleQueue));
+  private void publish(String symbol, Deque<Bar> candleQueue, Bar lastBar) {
+    List<Bar> candles;
+    synchronized (candleQueue) {
+      if (candleQueue.size() < MAX_QUEUE_SIZE) {
+        log.debug("Candle queue size is too small for {}: {}", symbol, candleQueue.size());
+        return;
       }
+      candles = new ArrayList<>(candleQueue);
     }
+
+    log.debug("Triggering strategy evaluation for {} at {}", symbol, lastBar.getEndTime());
+    marketDataBus.publish(symbol, candles);
+  }
+
+  private static boolean isUpdatedCandle(Bar lastBar, OhlcFrame frame) {
+    return lastBar != null
+        && lastBar.getEndTime().toEpochSecond() * 1000 == frame.getEndMillis();
   }
 
-  private String getChannel(JSONObject json) {
-    return json.has(CHANNEL) ? String.valueOf(json.get(CHANNEL)) : "";
+  private static boolean hasGap(String symbol, Bar lastBar, Bar bar) {
+    return gapBackfillService != null && lastBar != null && !pendingBackfills.contains(symbol)
+        && CandleGapBackfillService.countMissingCandles(lastBar, bar, PERIOD) > 0;
   }
 
-  private boolean isUpdateMessage(JSONObject json) {
-    return json.has("type") && "update".equals(json.get("type"));
+  /**
+   * Fetches the candles missing between two buffered bars in the background and merges them into
+   * the buffer once they arrive. Until then the symbol's candles are buffered but not published, so
+   * strategy evaluation never runs on a series with skipped intervals.
+   */
+  private void backfillGap(String symbol, Bar lastBar, Bar bar) {
+    try {
+      gapBackfillService.backfillAsync(symbol, PERIOD, lastBar, bar)
+          .thenAccept(missingBars -> mergeBackfill(symbol, missingBars))
+          .exceptionally(e -> {
+            log.error("Failed to merge gap backfill for {}: {}", symbol, e.getMessage(), e);
+            pendingBackfills.remove(symbol);
+            return null;
+          });
+    } catch (Exception e) {
+      log.error("Could not start gap backfill for {}: {}", symbol, e.getMessage(), e);
+      pendingBackfills.remove(symbol);
+    }
   }
 
-  private boolean isUpdatedCandle(String symbol, Bar bar) {
+  private void mergeBackfill(String symbol, List<Bar> missingBars) {
     var candleQueue = priceQueue.get(symbol);
-    var lastBar = candleQueue.peekLast();
-    return lastBar != null && lastBar.getEndTime().isEqual(bar.getEndTime());
+    if (candleQueue == null) {
+      pendingBackfills.remove(symbol);
+      return;
+    }
+    Bar lastBar;
+    synchronized (candleQueue) {
+      var merged = new ArrayList<>(candleQueue);
+      for (Bar missingBar : missingBars) {
+        if (merged.stream().noneMatch(b -> b.getEndTime().isEqual(missingBar.getEndTime()))) {
+          merged.add(missingBar);
+        }
+      }
+      merged.sort(Comparator.comparing(Bar::getEndTime));
+      candleQueue.clear();
+      merged.forEach(mergedBar -> enqueueNewBar(mergedBar, candleQueue));
+      lastBar = candleQueue.peekLast();
+      pendingBackfills.remove(symbol);
+    }
+    log.debug("Merged {} backfilled candles into the buffer of {}", missingBars.size(), symbol);
+    if (lastBar != null) {
+      publish(symbol, candleQueue, lastBar);
+    }
   }
 
   private static void enqueueNewBar(Bar bar, Deque<Bar> priceQueue) {
@@ -0,0 +1,80 @@
+package ch.kekelidze.krakentrader.api.websocket.bus;
+
+import ch.kekelidze.krakentrader.indicator.cache.IndicatorCache;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.ta4j.core.Bar;
+
+/**
+ * In-process fan-out of the market data feed.
+ * <p>
+ * The WebSocket clients ingest every symbol once and publish each candle update here, the bus
+ * hands the same read-only candle list to all subscribed strategy engines. When more than one
+ * engine is subscribed the list is registered with the {@link IndicatorCache}, so indicators the
+ * engines have in common are computed once per update. Listeners are called sequentially on the
+ * thread of the publishing client, a failing listener does not prevent the others from receiving
+ * the update.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MarketDataBus {
+
+  private final List<MarketDataListener> listeners = new CopyOnWriteArrayList<>();
+  private final AtomicLong publishedUpdates = new AtomicLong();
+  private final AtomicLong listenerFailures = new AtomicLong();
+
+  private final IndicatorCache indicatorCache;
+
+  public void subscribe(MarketDataListener listener) {
+    listeners.add(listener);
+    log.info("Subscribed market data listener, {} listeners in total", listeners.size());
+  }
+
+  public void unsubscribe(MarketDataListener listener) {
+    listeners.remove(listener);
+  }
+
+  public int getListenerCount() {
+    return listeners.size();
+  }
+
+  public long getPublishedUpdates() {
+    return publishedUpdates.get();
+  }
+
+  public long getListenerFailures() {
+    return listenerFailures.get();
+  }
+
+  /**
+   * Publishes a candle update of a symbol to all listeners.
+   *
+   * @param symbol  the coin pair
+   * @param candles the candle buffer in chronological order, must not be modified afterwards
+   */
+  public void publish(String symbol, List<Bar> candles) {
+    if (listeners.isEmpty()) {
+      log.debug("No market data listeners subscribed, dropping update for {}", symbol);
+      return;
+    }
+    var sharedCandles = Collections.unmodifiableList(candles);
+    if (listeners.size() > 1) {
+      indicatorCache.share(sharedCandles);
+    }
+    publishedUpdates.incrementAndGet();
+    for (MarketDataListener listener : listeners) {
+      try {
+        listener.onCandles(symbol, sharedCandles);
+      } catch (Exception e) {
+        listenerFailures.incrementAndGet();
+        log.error("Market data listener failed for {}: {}", symbol, e.getMessage(), e);
+      }
+    }
+  }
+}
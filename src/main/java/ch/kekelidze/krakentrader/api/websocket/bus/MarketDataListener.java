@@ -0,0 +1,20 @@
+package ch.kekelidze.krakentrader.api.websocket.bus;
+
+import java.util.List;
+import org.ta4j.core.Bar;
+
+/**
+ * Consumer of closed and updated candles published on the {@link MarketDataBus}.
+ */
+@FunctionalInterface
+public interface MarketDataListener {
+
+  /**
+   * Called for every candle update of a subscribed symbol.
+   *
+   * @param symbol  the coin pair
+   * @param candles the candle buffer in chronological order, shared with the other listeners and
+   *                therefore read-only
+   */
+  void onCandles(String symbol, List<Bar> candles);
+}
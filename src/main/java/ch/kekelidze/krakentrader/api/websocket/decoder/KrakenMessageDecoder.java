@@ -0,0 +1,602 @@
+package ch.kekelidze.krakentrader.api.websocket.decoder;
+
+import java.util.Arrays;
+
+/**
+ * Streaming decoder for Kraken v2 WebSocket messages.
+ * <p>
+ * The message is scanned in place: keys are compared against the raw text, numbers and ISO-8601
+ * timestamps are parsed straight from the characters, and the values are written into frames that
+ * are reused across messages. Symbols are interned, so a known symbol does not allocate a new
+ * string. No JSON tree is built. A decoder is not thread safe, use one instance per connection.
+ */
+public class KrakenMessageDecoder {
+
+  private static final double[] POW10 = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+      1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+  // Mantissas below 2^53 are exact doubles, dividing by an exact power of ten rounds correctly
+  private static final long MAX_EXACT_MANTISSA = 1L << 53;
+  private static final int MAX_MANTISSA_DIGITS = 18;
+
+  private String message;
+  private int pos;
+  private int length;
+
+  private KrakenMessageType type;
+  private boolean update;
+  private int keyStart;
+  private int keyEnd;
+  private int valueStart;
+  private int valueEnd;
+
+  private String[] symbols = new String[16];
+  private int symbolCount;
+
+  private OhlcFrame[] ohlcFrames = new OhlcFrame[0];
+  private TickerFrame[] tickerFrames = new TickerFrame[0];
+  private TradeFrame[] tradeFrames = new TradeFrame[0];
+  private int frameCount;
+
+  /**
+   * Decodes a message and returns its type. The data entries of {@code ohlc}, {@code ticker} and
+   * {@code trade} messages are available through {@link #getFrameCount()} and the frame getters
+   * until the next call.
+   *
+   * @param message raw WebSocket text frame
+   * @return message type
+   * @throws IllegalArgumentException if the message is not a JSON object
+   */
+  public KrakenMessageType decode(String message) {
+    this.message = message;
+    this.pos = 0;
+    this.length = message.length();
+    this.type = KrakenMessageType.OTHER;
+    this.update = false;
+    this.frameCount = 0;
+
+    skipWhitespace();
+    expect('{');
+    int dataStart = -1;
+    while (nextKey()) {
+      if (keyEquals("channel")) {
+        type = channelType();
+      } else if (keyEquals("method")) {
+        readString();
+        if (valueEquals("pong")) {
+          type = KrakenMessageType.PONG;
+        }
+      } else if (keyEquals("type")) {
+        readString();
+        update = valueEquals("update");
+      } else if (keyEquals("data")) {
+        // The channel may follow the data, so the data is parsed once the whole object is read
+        dataStart = pos;
+        skipValue();
+      } else {
+        skipValue();
+      }
+    }
+
+    if (dataStart >= 0 && (type == KrakenMessageType.OHLC || type == KrakenMessageType.TICKER
+        || type == KrakenMessageType.TRADE)) {
+      pos = dataStart;
+      parseData();
+    }
+    return type;
+  }
+
+  public KrakenMessageType getType() {
+    return type;
+  }
+
+  /**
+   * @return true if the message is an incremental update rather than the snapshot sent right after
+   * subscribing
+   */
+  public boolean isUpdate() {
+    return update;
+  }
+
+  public int getFrameCount() {
+    return frameCount;
+  }
+
+  public OhlcFrame getOhlcFrame(int index) {
+    checkFrame(index, KrakenMessageType.OHLC);
+    return ohlcFrames[index];
+  }
+
+  public TickerFrame getTickerFrame(int index) {
+    checkFrame(index, KrakenMessageType.TICKER);
+    return tickerFrames[index];
+  }
+
+  public TradeFrame getTradeFrame(int index) {
+    checkFrame(index, KrakenMessageType.TRADE);
+    return tradeFrames[index];
+  }
+
+  private void checkFrame(int index, KrakenMessageType expectedType) {
+    if (type != expectedType || index < 0 || index >= frameCount) {
+      throw new IndexOutOfBoundsException(
+          "No " + expectedType + " frame " + index + " in " + type + " message");
+    }
+  }
+
+  private KrakenMessageType channelType() {
+    readString();
+    if (valueEquals("ohlc")) {
+      return KrakenMessageType.OHLC;
+    } else if (valueEquals("ticker")) {
+      return KrakenMessageType.TICKER;
+    } else if (valueEquals("trade")) {
+      return KrakenMessageType.TRADE;
+    } else if (valueEquals("heartbeat")) {
+      return KrakenMessageType.HEARTBEAT;
+    } else if (valueEquals("status")) {
+      return KrakenMessageType.STATUS;
+    }
+    return KrakenMessageType.OTHER;
+  }
+
+  private void parseData() {
+    skipWhitespace();
+    expect('[');
+    skipWhitespace();
+    if (peek() == ']') {
+      pos++;
+      return;
+    }
+    while (true) {
+      skipWhitespace();
+      expect('{');
+      switch (type) {
+        case OHLC -> parseOhlc(nextOhlcFrame());
+        case TICKER -> parseTicker(nextTickerFrame());
+        case TRADE -> parseTrade(nextTradeFrame());
+        default -> throw new IllegalStateException("Unexpected data for " + type);
+      }
+      frameCount++;
+      skipWhitespace();
+      char c = next();
+      if (c == ']') {
+        return;
+      }
+      if (c != ',') {
+        throw error("Expected ',' or ']'");
+      }
+    }
+  }
+
+  private void parseOhlc(OhlcFrame frame) {
+    while (nextKey()) {
+      if (keyEquals("symbol")) {
+        frame.symbol = readSymbol();
+      } else if (keyEquals("open")) {
+        frame.open = readDouble();
+      } else if (keyEquals("high")) {
+        frame.high = readDouble();
+      } else if (keyEquals("low")) {
+        frame.low = readDouble();
+      } else if (keyEquals("close")) {
+        frame.close = readDouble();
+      } else if (keyEquals("volume")) {
+        frame.volume = readDouble();
+      } else if (keyEquals("vwap")) {
+        frame.vwap = readDouble();
+      } else if (keyEquals("trades")) {
+        frame.trades = (int) readLong();
+      } else if (keyEquals("interval")) {
+        frame.interval = (int) readLong();
+      } else if (keyEquals("interval_begin")) {
+        frame.intervalBeginMillis = readTimestamp();
+      } else {
+        skipValue();
+      }
+    }
+  }
+
+  private void parseTicker(TickerFrame frame) {
+    while (nextKey()) {
+      if (keyEquals("symbol")) {
+        frame.symbol = readSymbol();
+      } else if (keyEquals("bid")) {
+        frame.bid = readDouble();
+      } else if (keyEquals("bid_qty")) {
+        frame.bidQty = readDouble();
+      } else if (keyEquals("ask")) {
+        frame.ask = readDouble();
+      } else if (keyEquals("ask_qty")) {
+        frame.askQty = readDouble();
+      } else if (keyEquals("last")) {
+        frame.last = readDouble();
+      } else if (keyEquals("volume")) {
+        frame.volume = readDouble();
+      } else if (keyEquals("vwap")) {
+        frame.vwap = readDouble();
+      } else if (keyEquals("low")) {
+        frame.low = readDouble();
+      } else if (keyEquals("high")) {
+        frame.high = readDouble();
+      } else if (keyEquals("change")) {
+        frame.change = readDouble();
+      } else if (keyEquals("change_pct")) {
+        frame.changePct = readDouble();
+      } else {
+        skipValue();
+      }
+    }
+  }
+
+  private void parseTrade(TradeFrame frame) {
+    while (nextKey()) {
+      if (keyEquals("symbol")) {
+        frame.symbol = readSymbol();
+      } else if (keyEquals("side")) {
+        readString();
+        frame.buy = valueEquals("buy");
+      } else if (keyEquals("price")) {
+        frame.price = readDouble();
+      } else if (keyEquals("qty")) {
+        frame.qty = readDouble();
+      } else if (keyEquals("trade_id")) {
+        frame.tradeId = readLong();
+      } else if (keyEquals("timestamp")) {
+        frame.timestampMillis = readTimestamp();
+      } else {
+        skipValue();
+      }
+    }
+  }
+
+  private OhlcFrame nextOhlcFrame() {
+    if (frameCount == ohlcFrames.length) {
+      ohlcFrames = Arrays.copyOf(ohlcFrames, Math.max(4, frameCount * 2));
+      for (int i = frameCount; i < ohlcFrames.length; i++) {
+        ohlcFrames[i] = new OhlcFrame();
+      }
+    }
+    var frame = ohlcFrames[frameCount];
+    frame.reset();
+    return frame;
+  }
+
+  private TickerFrame nextTickerFrame() {
+    if (frameCount == tickerFrames.length) {
+      tickerFrames = Arrays.copyOf(tickerFrames, Math.max(4, frameCount * 2));
+      for (int i = frameCount; i < tickerFrames.length; i++) {
+        tickerFrames[i] = new TickerFrame();
+      }
+    }
+    var frame = tickerFrames[frameCount];
+    frame.reset();
+    return frame;
+  }
+
+  private TradeFrame nextTradeFrame() {
+    if (frameCount == tradeFrames.length) {
+      tradeFrames = Arrays.copyOf(tradeFrames, Math.max(4, frameCount * 2));
+      for (int i = frameCount; i < tradeFrames.length; i++) {
+        tradeFrames[i] = new TradeFrame();
+      }
+    }
+    var frame = tradeFrames[frameCount];
+    frame.reset();
+    return frame;
+  }
+
+  /**
+   * Advances to the next key of the current object and leaves the position on its value.
+   *
+   * @return false when the end of the object was reached
+   */
+  private boolean nextKey() {
+    skipWhitespace();
+    char c = peek();
+    if (c == ',') {
+      pos++;
+      skipWhitespace();
+      c = peek();
+    }
+    if (c == '}') {
+      pos++;
+      return false;
+    }
+    readString();
+    keyStart = valueStart;
+    keyEnd = valueEnd;
+    skipWhitespace();
+    expect(':');
+    skipWhitespace();
+    return true;
+  }
+
+  private boolean keyEquals(String key) {
+    return keyEnd - keyStart == key.length()
+        && message.regionMatches(keyStart, key, 0, key.length());
+  }
+
+  /**
+   * Reads a string value and records its raw bounds without the quotes. Escapes are skipped, not
+   * unescaped, which is sufficient for the ASCII identifiers Kraken sends.
+   */
+  private void readString() {
+    skipWhitespace();
+    expect('"');
+    valueStart = pos;
+    while (pos < length) {
+      char c = message.charAt(pos);
+      if (c == '\\') {
+        pos += 2;
+      } else if (c == '"') {
+        valueEnd = pos++;
+        return;
+      } else {
+        pos++;
+      }
+    }
+    throw error("Unterminated string");
+  }
+
+  private boolean valueEquals(String value) {
+    return valueEnd - valueStart == value.length()
+        && message.regionMatches(valueStart, value, 0, value.length());
+  }
+
+  private String readSymbol() {
+    readString();
+    int symbolLength = valueEnd - valueStart;
+    for (int i = 0; i < symbolCount; i++) {
+      var symbol = symbols[i];
+      if (symbol.length() == symbolLength
+          && message.regionMatches(valueStart, symbol, 0, symbolLength)) {
+        return symbol;
+      }
+    }
+    var symbol = message.substring(valueStart, valueEnd);
+    if (symbolCount == symbols.length) {
+      symbols = Arrays.copyOf(symbols, symbolCount * 2);
+    }
+    symbols[symbolCount++] = symbol;
+    return symbol;
+  }
+
+  /**
+   * Parses a JSON number. Up to 18 significant digits without exponent are computed from the
+   * digits directly, anything else falls back to {@link Double#parseDouble(String)}.
+   */
+  private double readDouble() {
+    skipWhitespace();
+    boolean quoted = peek() == '"';
+    if (quoted) {
+      pos++;
+    }
+    if (message.startsWith("null", pos)) {
+      pos += 4;
+      return Double.NaN;
+    }
+    int start = pos;
+    boolean negative = false;
+    if (peek() == '-') {
+      negative = true;
+      pos++;
+    }
+
+    long mantissa = 0;
+    int digits = 0;
+    int scale = 0;
+    boolean exact = true;
+    while (pos < length && isDigit(message.charAt(pos))) {
+      int digit = message.charAt(pos++) - '0';
+      if (digits < MAX_MANTISSA_DIGITS) {
+        mantissa = mantissa * 10 + digit;
+        if (mantissa != 0) {
+          digits++;
+        }
+      } else {
+        exact = false;
+      }
+    }
+    if (pos < length && message.charAt(pos) == '.') {
+      pos++;
+      while (pos < length && isDigit(message.charAt(pos))) {
+        int digit = message.charAt(pos++) - '0';
+        if (digits < MAX_MANTISSA_DIGITS) {
+          mantissa = mantissa * 10 + digit;
+          scale++;
+          if (mantissa != 0) {
+            digits++;
+          }
+        } else {
+          exact = false;
+        }
+      }
+    }
+    if (pos < length && (message.charAt(pos) == 'e' || message.charAt(pos) == 'E')) {
+      exact = false;
+      pos++;
+      while (pos < length && (isDigit(message.charAt(pos)) || message.charAt(pos) == '+'
+          || message.charAt(pos) == '-')) {
+        pos++;
+      }
+    }
+    int end = pos;
+    if (quoted) {
+      expect('"');
+    }
+    if (end == start || (negative && end == start + 1)) {
+      throw error("Expected number");
+    }
+
+    if (exact && mantissa < MAX_EXACT_MANTISSA && scale < POW10.length) {
+      double value = scale == 0 ? mantissa : mantissa / POW10[scale];
+      return negative ? -value : value;
+    }
+    return Double.parseDouble(message.substring(start, end));
+  }
+
+  private long readLong() {
+    skipWhitespace();
+    boolean negative = peek() == '-';
+    if (negative) {
+      pos++;
+    }
+    int start = pos;
+    long value = 0;
+    while (pos < length && isDigit(message.charAt(pos))) {
+      value = value * 10 + (message.charAt(pos++) - '0');
+    }
+    if (pos == start) {
+      throw error("Expected integer");
+    }
+    if (pos < length && (message.charAt(pos) == '.' || message.charAt(pos) == 'e'
+        || message.charAt(pos) == 'E')) {
+      // Not an integer after all, e.g. "trades": 1.0
+      pos = negative ? start - 1 : start;
+      return (long) readDouble();
+    }
+    return negative ? -value : value;
+  }
+
+  /**
+   * Parses an ISO-8601 timestamp such as {@code 2024-05-01T12:00:00.123456Z} or one with a
+   * {@code +02:00} offset into epoch milliseconds.
+   */
+  private long readTimestamp() {
+    readString();
+    int s = valueStart;
+    if (valueEnd - s < 19) {
+      throw error("Invalid timestamp");
+    }
+    int year = digits(s, 4);
+    int month = digits(s + 5, 2);
+    int day = digits(s + 8, 2);
+    int hour = digits(s + 11, 2);
+    int minute = digits(s + 14, 2);
+    int second = digits(s + 17, 2);
+
+    int p = s + 19;
+    int millis = 0;
+    if (p < valueEnd && message.charAt(p) == '.') {
+      p++;
+      int fractionDigits = 0;
+      while (p < valueEnd && isDigit(message.charAt(p))) {
+        if (fractionDigits < 3) {
+          millis = millis * 10 + (message.charAt(p) - '0');
+        }
+        fractionDigits++;
+        p++;
+      }
+      for (int i = fractionDigits; i < 3; i++) {
+        millis *= 10;
+      }
+    }
+    int offsetSeconds = 0;
+    if (p < valueEnd) {
+      char zone = message.charAt(p);
+      if (zone == '+' || zone == '-') {
+        int offset = digits(p + 1, 2) * 3600 + digits(p + 4, 2) * 60;
+        offsetSeconds = zone == '+' ? offset : -offset;
+      } else if (zone != 'Z') {
+        throw error("Invalid timestamp zone");
+      }
+    }
+
+    long epochSecond = daysFromCivil(year, month, day) * 86_400L
+        + hour * 3600L + minute * 60L + second - offsetSeconds;
+    return epochSecond * 1000 + millis;
+  }
+
+  private int digits(int start, int count) {
+    int value = 0;
+    for (int i = start; i < start + count; i++) {
+      char c = message.charAt(i);
+      if (!isDigit(c)) {
+        throw error("Expected digit");
+      }
+      value = value * 10 + (c - '0');
+    }
+    return value;
+  }
+
+  /**
+   * Days since 1970-01-01 of a proleptic Gregorian date.
+   */
+  static long daysFromCivil(int year, int month, int day) {
+    long y = month <= 2 ? year - 1 : year;
+    long era = (y >= 0 ? y : y - 399) / 400;
+    long yearOfEra = y - era * 400;
+    long dayOfYear = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+    long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * 146_097 + dayOfEra - 719_468;
+  }
+
+  private void skipValue() {
+    skipWhitespace();
+    char c = peek();
+    if (c == '"') {
+      readString();
+    } else if (c == '{' || c == '[') {
+      int depth = 0;
+      while (pos < length) {
+        char current = message.charAt(pos);
+        if (current == '"') {
+          readString();
+          continue;
+        }
+        pos++;
+        if (current == '{' || current == '[') {
+          depth++;
+        } else if (current == '}' || current == ']') {
+          if (--depth == 0) {
+            return;
+          }
+        }
+      }
+      throw error("Unterminated value");
+    } else {
+      while (pos < length) {
+        char current = message.charAt(pos);
+        if (current == ',' || current == '}' || current == ']' || Character.isWhitespace(current)) {
+          return;
+        }
+        pos++;
+      }
+    }
+  }
+
+  private void skipWhitespace() {
+    while (pos < length && Character.isWhitespace(message.charAt(pos))) {
+      pos++;
+    }
+  }
+
+  private char peek() {
+    if (pos >= length) {
+      throw error("Unexpected end of message");
+    }
+    return message.charAt(pos);
+  }
+
+  private char next() {
+    char c = peek();
+    pos++;
+    return c;
+  }
+
+  private void expect(char expected) {
+    if (next() != expected) {
+      throw error("Expected '" + expected + "'");
+    }
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private IllegalArgumentException error(String reason) {
+    return new IllegalArgumentException(reason + " at position " + pos + " of Kraken message");
+  }
+}
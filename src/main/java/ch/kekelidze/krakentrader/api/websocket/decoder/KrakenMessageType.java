@@ -0,0 +1,15 @@
+package ch.kekelidze.krakentrader.api.websocket.decoder;
+
+/**
+ * Kind of a decoded Kraken v2 WebSocket message, derived from its {@code channel} or
+ * {@code method} field.
+ */
+public enum KrakenMessageType {
+  OHLC,
+  TICKER,
+  TRADE,
+  HEARTBEAT,
+  STATUS,
+  PONG,
+  OTHER
+}
@@ -0,0 +1,33 @@
+package ch.kekelidze.krakentrader.api.websocket.decoder;
+
+import lombok.Getter;
+
+/**
+ * Reusable holder for one candle of an {@code ohlc} message. Instances are owned by the decoder and
+ * overwritten by the next message, so values must be copied before decoding continues.
+ */
+@Getter
+public class OhlcFrame {
+
+  String symbol;
+  double open;
+  double high;
+  double low;
+  double close;
+  double volume;
+  double vwap;
+  int trades;
+  int interval;
+  long intervalBeginMillis;
+
+  public long getEndMillis() {
+    return intervalBeginMillis + interval * 60_000L;
+  }
+
+  void reset() {
+    symbol = null;
+    open = high = low = close = volume = vwap = 0;
+    trades = interval = 0;
+    intervalBeginMillis = 0;
+  }
+}
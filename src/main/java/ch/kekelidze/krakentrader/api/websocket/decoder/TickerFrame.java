@@ -0,0 +1,29 @@
+package ch.kekelidze.krakentrader.api.websocket.decoder;
+
+import lombok.Getter;
+
+/**
+ * Reusable holder for one entry of a {@code ticker} message, see {@link OhlcFrame} for the
+ * ownership rules.
+ */
+@Getter
+public class TickerFrame {
+
+  String symbol;
+  double bid;
+  double bidQty;
+  double ask;
+  double askQty;
+  double last;
+  double volume;
+  double vwap;
+  double low;
+  double high;
+  double change;
+  double changePct;
+
+  void reset() {
+    symbol = null;
+    bid = bidQty = ask = askQty = last = volume = vwap = low = high = change = changePct = 0;
+  }
+}
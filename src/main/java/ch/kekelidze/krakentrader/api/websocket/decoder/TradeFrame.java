@@ -0,0 +1,25 @@
+package ch.kekelidze.krakentrader.api.websocket.decoder;
+
+import lombok.Getter;
+
+/**
+ * Reusable holder for one entry of a {@code trade} message, see {@link OhlcFrame} for the
+ * ownership rules.
+ */
+@Getter
+public class TradeFrame {
+
+  String symbol;
+  boolean buy;
+  double price;
+  double qty;
+  long tradeId;
+  long timestampMillis;
+
+  void reset() {
+    symbol = null;
+    buy = false;
+    price = qty = 0;
+    tradeId = timestampMillis = 0;
+  }
+}
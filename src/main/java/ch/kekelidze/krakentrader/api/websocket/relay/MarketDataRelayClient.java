@@ -0,0 +1,176 @@
+package ch.kekelidze.krakentrader.api.websocket.relay;
+
+import ch.kekelidze.krakentrader.api.websocket.KrakenWebSocketClient;
+import ch.kekelidze.krakentrader.api.websocket.bus.MarketDataBus;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.ta4j.core.Bar;
+
+/**
+ * Receives candles from a {@link MarketDataRelayServer} in another local process instead of
+ * connecting to Kraken. It keeps its own candle buffers, seeded from the relay snapshot, and
+ * publishes every update on the local {@link MarketDataBus} exactly like
+ * {@link KrakenWebSocketClient} does. The connection is re-established after a delay whenever it
+ * drops, each reconnect starts with a fresh snapshot.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MarketDataRelayClient implements DisposableBean {
+
+  private static final int CONNECT_TIMEOUT_MS = 5000;
+
+  private final Map<String, Deque<Bar>> candleBuffers = new ConcurrentHashMap<>();
+
+  private final MarketDataBus marketDataBus;
+
+  @Value("${market-data.relay.host:127.0.0.1}")
+  String host;
+
+  @Value("${market-data.relay.port:7701}")
+  int port;
+
+  @Value("${market-data.relay.reconnect-delay-ms:2000}")
+  long reconnectDelayMs;
+
+  private volatile boolean running;
+  private volatile Socket socket;
+  private List<String> symbols;
+  private int period;
+
+  /**
+   * Connects to the relay and starts feeding the market data bus on a background thread.
+   *
+   * @param symbols symbols to receive
+   * @param period  candle period in minutes, must match the period of the relay
+   */
+  public synchronized void start(List<String> symbols, int period) {
+    if (running) {
+      return;
+    }
+    this.symbols = List.copyOf(symbols);
+    this.period = period;
+    running = true;
+    var thread = new Thread(this::receiveLoop, "market-data-relay-client");
+    thread.setDaemon(true);
+    thread.start();
+    log.info("Receiving market data for {} from relay {}:{}", symbols, host, port);
+  }
+
+  /**
+   * Returns a copy of the candle buffers received from the relay.
+   */
+  public Map<String, List<Bar>> copyCandleBuffers() {
+    var copy = new HashMap<String, List<Bar>>();
+    candleBuffers.forEach((symbol, buffer) -> {
+      synchronized (buffer) {
+        copy.put(symbol, new ArrayList<>(buffer));
+      }
+    });
+    return copy;
+  }
+
+  private void receiveLoop() {
+    while (running) {
+      try (var relaySocket = new Socket()) {
+        socket = relaySocket;
+        relaySocket.setTcpNoDelay(true);
+        relaySocket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MS);
+        relaySocket.getOutputStream().write(RelayFrameCodec.encodeSubscribe(symbols, period));
+        relaySocket.getOutputStream().flush();
+        var in = new DataInputStream(new BufferedInputStream(relaySocket.getInputStream()));
+        log.info("Connected to market data relay {}:{}", host, port);
+        while (running) {
+          applyFrame(RelayFrameCodec.read(in));
+        }
+      } catch (IOException e) {
+        if (running) {
+          log.warn("Market data relay connection lost: {}, retrying in {} ms", e.getMessage(),
+              reconnectDelayMs);
+        }
+      }
+      sleepBeforeReconnect();
+    }
+  }
+
+  void applyFrame(RelayFrame frame) {
+    if (frame.period() != period) {
+      log.warn("Ignoring relay frame for {} with period {}, expected {}", frame.symbol(),
+          frame.period(), period);
+      return;
+    }
+    var buffer = candleBuffers.computeIfAbsent(frame.symbol(), key -> new LinkedList<>());
+    List<Bar> candles;
+    synchronized (buffer) {
+      if (frame.type() == RelayFrameType.SNAPSHOT) {
+        buffer.clear();
+      }
+      for (Bar bar : frame.bars()) {
+        mergeBar(bar, buffer);
+      }
+      if (frame.type() != RelayFrameType.UPDATE
+          || buffer.size() < KrakenWebSocketClient.MAX_QUEUE_SIZE) {
+        return;
+      }
+      candles = new ArrayList<>(buffer);
+    }
+    marketDataBus.publish(frame.symbol(), candles);
+  }
+
+  /**
+   * Appends a newer candle, replaces the last candle if it has the same end time and skips older
+   * candles that were already part of the snapshot.
+   */
+  private static void mergeBar(Bar bar, Deque<Bar> buffer) {
+    var lastBar = buffer.peekLast();
+    if (lastBar == null || bar.getEndTime().isAfter(lastBar.getEndTime())) {
+      if (buffer.size() >= KrakenWebSocketClient.MAX_QUEUE_SIZE) {
+        buffer.pollFirst();
+      }
+      buffer.addLast(bar);
+    } else if (bar.getEndTime().isEqual(lastBar.getEndTime())) {
+      buffer.pollLast();
+      buffer.addLast(bar);
+    }
+  }
+
+  private void sleepBeforeReconnect() {
+    if (!running) {
+      return;
+    }
+    try {
+      Thread.sleep(reconnectDelayMs);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      running = false;
+    }
+  }
+
+  @Override
+  public void destroy() {
+    running = false;
+    var relaySocket = socket;
+    if (relaySocket != null) {
+      try {
+        relaySocket.close();
+      } catch (IOException e) {
+        log.debug("Error closing relay socket: {}", e.getMessage());
+      }
+    }
+  }
+}
@@ -0,0 +1,241 @@
+package ch.kekelidze.krakentrader.api.websocket.relay;
+
+import ch.kekelidze.krakentrader.api.websocket.KrakenWebSocketClient;
+import ch.kekelidze.krakentrader.api.websocket.bus.MarketDataBus;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.ta4j.core.Bar;
+
+/**
+ * Republishes the candle buffers of this process to local subscriber processes.
+ * <p>
+ * The server listens on the loopback interface only. A subscriber first sends the symbols it
+ * trades, receives a snapshot of their candle buffers and afterwards every candle update published
+ * on the {@link MarketDataBus}. Each subscriber has a bounded outbound queue, a subscriber that
+ * falls behind is disconnected and resynchronizes with a fresh snapshot when it reconnects, so a
+ * slow process never stalls the Kraken feed.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MarketDataRelayServer implements DisposableBean {
+
+  private final List<RelayConnection> connections = new CopyOnWriteArrayList<>();
+  // End time of the newest candle published per symbol, shared by all connections
+  private final Map<String, ZonedDateTime> lastPublished = new ConcurrentHashMap<>();
+
+  private final MarketDataBus marketDataBus;
+
+  @Value("${market-data.relay.port:7701}")
+  int port;
+
+  @Value("${market-data.relay.max-pending-frames:1024}")
+  int maxPendingFrames;
+
+  Supplier<Map<String, List<Bar>>> candleBufferSource = KrakenWebSocketClient::copyPriceQueues;
+
+  private volatile ServerSocket serverSocket;
+  private volatile int period;
+
+  /**
+   * Starts accepting subscribers and relaying the candle updates of the market data bus.
+   *
+   * @param period candle period in minutes of the relayed feed
+   */
+  public synchronized void start(int period) throws IOException {
+    if (serverSocket != null) {
+      return;
+    }
+    this.period = period;
+    serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+    marketDataBus.subscribe(this::onCandles);
+    var acceptThread = new Thread(this::acceptLoop, "market-data-relay-accept");
+    acceptThread.setDaemon(true);
+    acceptThread.start();
+    log.info("Market data relay listening on {}", serverSocket.getLocalSocketAddress());
+  }
+
+  /**
+   * Returns the port the relay listens on, which differs from the configured one if it was 0.
+   */
+  public int getLocalPort() {
+    var socket = serverSocket;
+    return socket != null ? socket.getLocalPort() : -1;
+  }
+
+  public int getSubscriberCount() {
+    return connections.size();
+  }
+
+  void onCandles(String symbol, List<Bar> candles) {
+    var bars = changedBars(symbol, candles);
+    if (bars.isEmpty() || connections.isEmpty()) {
+      return;
+    }
+    // Encoded once and shared by all subscribers of the symbol
+    var frame = RelayFrameCodec.encode(RelayFrameType.UPDATE, period, symbol, bars);
+    for (RelayConnection connection : connections) {
+      connection.offer(symbol, frame);
+    }
+  }
+
+  /**
+   * Returns the candles that changed since the previous update of the symbol: the candle that was
+   * still open and all candles appended after it, including backfilled ones.
+   */
+  private List<Bar> changedBars(String symbol, List<Bar> candles) {
+    if (candles.isEmpty()) {
+      return List.of();
+    }
+    var previous = lastPublished.get(symbol);
+    int first = candles.size() - 1;
+    while (previous != null && first > 0
+        && !candles.get(first - 1).getEndTime().isBefore(previous)) {
+      first--;
+    }
+    lastPublished.put(symbol, candles.getLast().getEndTime());
+    return new ArrayList<>(candles.subList(first, candles.size()));
+  }
+
+  private void acceptLoop() {
+    while (!serverSocket.isClosed()) {
+      try {
+        var socket = serverSocket.accept();
+        var connection = new RelayConnection(socket);
+        var thread = new Thread(connection::run, "market-data-relay-" + socket.getPort());
+        thread.setDaemon(true);
+        thread.start();
+      } catch (IOException e) {
+        if (!serverSocket.isClosed()) {
+          log.error("Failed to accept relay subscriber: {}", e.getMessage(), e);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void destroy() {
+    var socket = serverSocket;
+    if (socket == null) {
+      return;
+    }
+    try {
+      socket.close();
+    } catch (IOException e) {
+      log.warn("Error closing market data relay: {}", e.getMessage());
+    }
+    connections.forEach(RelayConnection::close);
+    connections.clear();
+    log.info("Market data relay stopped");
+  }
+
+  private class RelayConnection {
+
+    private final Socket socket;
+    private final BlockingQueue<byte[]> outbound = new ArrayBlockingQueue<>(maxPendingFrames);
+    private final Set<String> symbols = new HashSet<>();
+    private volatile boolean closed;
+    private volatile Thread writerThread;
+
+    RelayConnection(Socket socket) {
+      this.socket = socket;
+    }
+
+    void offer(String symbol, byte[] frame) {
+      if (closed || !symbols.contains(symbol)) {
+        return;
+      }
+      if (!outbound.offer(frame)) {
+        log.warn("Relay subscriber {} is too slow, disconnecting it",
+            socket.getRemoteSocketAddress());
+        close();
+      }
+    }
+
+    void run() {
+      writerThread = Thread.currentThread();
+      try (socket) {
+        socket.setTcpNoDelay(true);
+        var in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        var subscribe = RelayFrameCodec.read(in);
+        if (subscribe.type() != RelayFrameType.SUBSCRIBE || subscribe.period() != period) {
+          log.warn("Rejecting relay subscriber {}: expected subscribe for period {}, got {}",
+              socket.getRemoteSocketAddress(), period, subscribe);
+          return;
+        }
+        symbols.addAll(subscribe.subscribedSymbols());
+        // Registered before the snapshot is taken, updates queued meanwhile are sent after it and
+        // the subscriber skips candles it already has
+        connections.add(this);
+        var out = new BufferedOutputStream(socket.getOutputStream());
+        writeSnapshot(out);
+        log.info("Relay subscriber {} connected for {}", socket.getRemoteSocketAddress(), symbols);
+        while (!closed) {
+          var frame = outbound.take();
+          out.write(frame);
+          if (outbound.isEmpty()) {
+            out.flush();
+          }
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (IOException e) {
+        if (!closed) {
+          log.info("Relay subscriber {} disconnected: {}", socket.getRemoteSocketAddress(),
+              e.getMessage());
+        }
+      } finally {
+        closed = true;
+        connections.remove(this);
+      }
+    }
+
+    private void writeSnapshot(OutputStream out) throws IOException {
+      var buffers = candleBufferSource.get();
+      for (String symbol : symbols) {
+        var bars = buffers.get(symbol);
+        if (bars == null) {
+          log.warn("Relay subscriber requested {} which is not part of the relayed feed", symbol);
+          continue;
+        }
+        out.write(RelayFrameCodec.encode(RelayFrameType.SNAPSHOT, period, symbol, bars));
+      }
+      out.flush();
+    }
+
+    void close() {
+      closed = true;
+      var thread = writerThread;
+      if (thread != null) {
+        thread.interrupt();
+      }
+      try {
+        socket.close();
+      } catch (IOException e) {
+        log.debug("Error closing relay subscriber socket: {}", e.getMessage());
+      }
+    }
+  }
+}
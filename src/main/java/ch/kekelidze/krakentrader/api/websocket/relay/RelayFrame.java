@@ -0,0 +1,21 @@
+package ch.kekelidze.krakentrader.api.websocket.relay;
+
+import java.util.Arrays;
+import java.util.List;
+import org.ta4j.core.Bar;
+
+/**
+ * Decoded relay frame. Bar frames carry one symbol and its candles, a subscribe frame carries the
+ * comma separated list of subscribed symbols and no candles.
+ *
+ * @param type   the frame type
+ * @param period candle period in minutes of the relayed feed
+ * @param symbol the symbol, or the comma separated symbols of a subscribe frame
+ * @param bars   candles in chronological order
+ */
+public record RelayFrame(RelayFrameType type, int period, String symbol, List<Bar> bars) {
+
+  public List<String> subscribedSymbols() {
+    return symbol.isEmpty() ? List.of() : Arrays.asList(symbol.split(","));
+  }
+}
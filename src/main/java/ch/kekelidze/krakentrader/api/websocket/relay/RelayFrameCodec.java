@@ -0,0 +1,117 @@
+package ch.kekelidze.krakentrader.api.websocket.relay;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.ta4j.core.Bar;
+import org.ta4j.core.BaseBar;
+import org.ta4j.core.num.DecimalNum;
+
+/**
+ * Compact binary encoding of the local market data relay.
+ * <p>
+ * Every frame starts with its payload length, followed by the frame type, the candle period in
+ * minutes, the symbol as length prefixed UTF-8 and the number of bars. Each bar is its end time in
+ * epoch seconds followed by open, high, low, close and volume as doubles, the same bar layout as
+ * the candle buffer snapshot file.
+ */
+public final class RelayFrameCodec {
+
+  static final int BAR_BYTES = Long.BYTES + 5 * Double.BYTES;
+  private static final int HEADER_BYTES = 1 + Integer.BYTES + Short.BYTES + Integer.BYTES;
+  // A full candle buffer of 600 bars is about 29 KB, anything far beyond is a corrupt stream
+  private static final int MAX_FRAME_BYTES = 1 << 20;
+
+  private RelayFrameCodec() {
+  }
+
+  /**
+   * Encodes the subscribe frame a subscriber sends after connecting.
+   */
+  public static byte[] encodeSubscribe(List<String> symbols, int period) {
+    return encode(RelayFrameType.SUBSCRIBE, period, String.join(",", symbols), List.of());
+  }
+
+  /**
+   * Encodes a snapshot or update frame with the candles of one symbol.
+   *
+   * @return the frame including its length prefix
+   */
+  public static byte[] encode(RelayFrameType type, int period, String symbol, List<Bar> bars) {
+    var symbolBytes = symbol.getBytes(StandardCharsets.UTF_8);
+    if (symbolBytes.length > Short.MAX_VALUE) {
+      throw new IllegalArgumentException("Symbol list too long for a relay frame");
+    }
+    int payloadLength = HEADER_BYTES + symbolBytes.length + bars.size() * BAR_BYTES;
+    var buffer = ByteBuffer.allocate(Integer.BYTES + payloadLength);
+    buffer.putInt(payloadLength);
+    buffer.put(type.getCode());
+    buffer.putInt(period);
+    buffer.putShort((short) symbolBytes.length);
+    buffer.put(symbolBytes);
+    buffer.putInt(bars.size());
+    for (Bar bar : bars) {
+      buffer.putLong(bar.getEndTime().toEpochSecond());
+      buffer.putDouble(bar.getOpenPrice().doubleValue());
+      buffer.putDouble(bar.getHighPrice().doubleValue());
+      buffer.putDouble(bar.getLowPrice().doubleValue());
+      buffer.putDouble(bar.getClosePrice().doubleValue());
+      buffer.putDouble(bar.getVolume().doubleValue());
+    }
+    return buffer.array();
+  }
+
+  /**
+   * Reads the next frame from the stream, blocking until it is complete.
+   *
+   * @throws java.io.EOFException if the stream ends
+   * @throws IOException          if the stream fails or the frame is malformed
+   */
+  public static RelayFrame read(DataInputStream in) throws IOException {
+    int payloadLength = in.readInt();
+    if (payloadLength < HEADER_BYTES || payloadLength > MAX_FRAME_BYTES) {
+      throw new IOException("Invalid relay frame length: " + payloadLength);
+    }
+    var payload = new byte[payloadLength];
+    in.readFully(payload);
+    try {
+      return decode(ByteBuffer.wrap(payload));
+    } catch (RuntimeException e) {
+      throw new IOException("Malformed relay frame: " + e.getMessage(), e);
+    }
+  }
+
+  static RelayFrame decode(ByteBuffer buffer) {
+    var type = RelayFrameType.fromCode(buffer.get());
+    int period = buffer.getInt();
+    var symbolBytes = new byte[buffer.getShort()];
+    buffer.get(symbolBytes);
+    var symbol = new String(symbolBytes, StandardCharsets.UTF_8);
+    int barCount = buffer.getInt();
+    if (barCount < 0 || barCount * (long) BAR_BYTES != buffer.remaining()) {
+      throw new IllegalArgumentException("Bar count " + barCount + " does not match frame size");
+    }
+    var timePeriod = Duration.ofMinutes(period);
+    var bars = new ArrayList<Bar>(barCount);
+    for (int i = 0; i < barCount; i++) {
+      bars.add(BaseBar.builder(DecimalNum::valueOf, Number.class)
+          .timePeriod(timePeriod)
+          .endTime(ZonedDateTime.ofInstant(Instant.ofEpochSecond(buffer.getLong()),
+              ZoneId.systemDefault()))
+          .openPrice(DecimalNum.valueOf(buffer.getDouble()))
+          .highPrice(DecimalNum.valueOf(buffer.getDouble()))
+          .lowPrice(DecimalNum.valueOf(buffer.getDouble()))
+          .closePrice(DecimalNum.valueOf(buffer.getDouble()))
+          .volume(DecimalNum.valueOf(buffer.getDouble()))
+          .build());
+    }
+    return new RelayFrame(type, period, symbol, bars);
+  }
+}
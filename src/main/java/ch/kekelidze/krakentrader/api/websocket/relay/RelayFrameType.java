@@ -0,0 +1,29 @@
+package ch.kekelidze.krakentrader.api.websocket.relay;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Frame types of the local market data relay protocol.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum RelayFrameType {
+  // Sent once by a subscriber after connecting, lists the symbols it wants to receive
+  SUBSCRIBE((byte) 1),
+  // Full candle buffer of one symbol, sent for every subscribed symbol before any update
+  SNAPSHOT((byte) 2),
+  // Candles of one symbol that changed since the previous update
+  UPDATE((byte) 3);
+
+  private final byte code;
+
+  public static RelayFrameType fromCode(byte code) {
+    for (RelayFrameType type : values()) {
+      if (type.code == code) {
+        return type;
+      }
+    }
+    throw new IllegalArgumentException("Unknown relay frame type: " + code);
+  }
+}
@@ -0,0 +1,260 @@
+package ch.kekelidze.krakentrader.api.websocket.service;
+
+import ch.kekelidze.krakentrader.api.HistoricalDataService;
+import ch.kekelidze.krakentrader.api.websocket.KrakenWebSocketClient;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.ta4j.core.Bar;
+import org.ta4j.core.BaseBar;
+import org.ta4j.core.num.DecimalNum;
+
+/**
+ * Persists the live candle buffers to a compact binary file so a restart only has to fetch the
+ * candles missed while the process was down instead of the full history.
+ * <p>
+ * File layout: magic, version, period, snapshot time, symbol count, then per symbol its name, the
+ * number of bars and for each bar the end time in epoch seconds followed by open, high, low, close
+ * and volume as doubles. The file is written to a temporary sibling and atomically moved in place.
+ */
+@Slf4j
+@Service
+public class CandleBufferSnapshotService implements DisposableBean {
+
+  private static final int MAGIC = 0x4B43424E;
+  private static final int VERSION = 1;
+  // Kraken's OHLC endpoint only returns the latest 720 candles, larger gaps need a full reload
+  private static final int MAX_GAP_CANDLES = 700;
+
+  @Value("${market-data.snapshot.enabled:true}")
+  boolean enabled;
+
+  @Value("${market-data.snapshot.path:data/snapshot/candle-buffers.bin}")
+  String snapshotPath;
+
+  @Value("${market-data.snapshot.interval-seconds:60}")
+  long snapshotIntervalSeconds;
+
+  private ScheduledExecutorService snapshotExecutor;
+  private volatile int period;
+
+  /**
+   * Builds the initial candle history. Symbols found in the snapshot are topped up with the gap
+   * since the snapshot, all remaining symbols are loaded in full.
+   *
+   * @param symbols               symbols to load
+   * @param period                candle period in minutes
+   * @param historicalDataService source for the gap and for the full history
+   * @return candle history per symbol in chronological order
+   */
+  public Map<String, List<Bar>> loadHistory(List<String> symbols, int period,
+      HistoricalDataService historicalDataService) {
+    long start = System.currentTimeMillis();
+    var snapshot = enabled ? readSnapshot(period) : Map.<String, List<Bar>>of();
+    var result = new HashMap<String, List<Bar>>();
+    var warmSymbols = new ArrayList<String>();
+    var coldSymbols = new ArrayList<String>();
+    ZonedDateTime oldestLastBar = null;
+    var maxGapStart = ZonedDateTime.now().minusMinutes((long) period * MAX_GAP_CANDLES);
+
+    for (String symbol : symbols) {
+      var bars = snapshot.get(symbol);
+      if (bars == null || bars.isEmpty() || bars.getLast().getEndTime().isBefore(maxGapStart)) {
+        coldSymbols.add(symbol);
+        continue;
+      }
+      warmSymbols.add(symbol);
+      result.put(symbol, bars);
+      var lastEndTime = bars.getLast().getEndTime();
+      if (oldestLastBar == null || lastEndTime.isBefore(oldestLastBar)) {
+        oldestLastBar = lastEndTime;
+      }
+    }
+
+    if (!warmSymbols.isEmpty()) {
+      // Start one period early so the last, possibly incomplete, snapshot candle is refreshed
+      var gapData = historicalDataService.queryHistoricalDataSince(warmSymbols, period,
+          oldestLastBar.minusMinutes(period));
+      for (String symbol : warmSymbols) {
+        result.put(symbol, mergeGap(result.get(symbol), gapData.getOrDefault(symbol, List.of())));
+      }
+    }
+    if (!coldSymbols.isEmpty()) {
+      var fullData = historicalDataService.queryHistoricalData(coldSymbols, period);
+      for (String symbol : coldSymbols) {
+        result.put(symbol, fullData.getOrDefault(symbol, List.of()));
+      }
+    }
+
+    log.info("Loaded candle history in {} ms: {} symbols from snapshot, {} symbols in full",
+        System.currentTimeMillis() - start, warmSymbols.size(), coldSymbols.size());
+    return result;
+  }
+
+  /**
+   * Starts writing snapshots of the live candle buffers on the configured interval.
+   *
+   * @param period candle period in minutes of the live buffers
+   */
+  public synchronized void startPeriodicSnapshots(int period) {
+    this.period = period;
+    if (!enabled || snapshotExecutor != null) {
+      return;
+    }
+    snapshotExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "candle-buffer-snapshot");
+      thread.setDaemon(true);
+      return thread;
+    });
+    snapshotExecutor.scheduleWithFixedDelay(this::snapshotQuietly, snapshotIntervalSeconds,
+        snapshotIntervalSeconds, TimeUnit.SECONDS);
+    log.info("Candle buffer snapshots enabled every {} s to {}", snapshotIntervalSeconds,
+        snapshotPath);
+  }
+
+  /**
+   * Writes the current live candle buffers to the snapshot file.
+   */
+  public void snapshot() throws IOException {
+    var buffers = KrakenWebSocketClient.copyPriceQueues();
+    if (buffers.isEmpty() || period <= 0) {
+      return;
+    }
+    writeSnapshot(buffers, period);
+  }
+
+  synchronized void writeSnapshot(Map<String, List<Bar>> buffers, int period) throws IOException {
+    var path = Path.of(snapshotPath);
+    if (path.getParent() != null) {
+      Files.createDirectories(path.getParent());
+    }
+    var tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+    try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(period);
+      out.writeLong(System.currentTimeMillis());
+      out.writeInt(buffers.size());
+      for (var entry : buffers.entrySet()) {
+        out.writeUTF(entry.getKey());
+        out.writeInt(entry.getValue().size());
+        for (Bar bar : entry.getValue()) {
+          out.writeLong(bar.getEndTime().toEpochSecond());
+          out.writeDouble(bar.getOpenPrice().doubleValue());
+          out.writeDouble(bar.getHighPrice().doubleValue());
+          out.writeDouble(bar.getLowPrice().doubleValue());
+          out.writeDouble(bar.getClosePrice().doubleValue());
+          out.writeDouble(bar.getVolume().doubleValue());
+        }
+      }
+    }
+    Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    log.debug("Wrote candle buffer snapshot for {} symbols", buffers.size());
+  }
+
+  /**
+   * Reads the snapshot file, returning an empty map if it is missing, unreadable or was written for
+   * a different candle period.
+   */
+  Map<String, List<Bar>> readSnapshot(int period) {
+    var path = Path.of(snapshotPath);
+    if (!Files.exists(path)) {
+      return Map.of();
+    }
+    try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        log.warn("Ignoring candle snapshot {} with unknown format", path);
+        return Map.of();
+      }
+      int snapshotPeriod = in.readInt();
+      long createdAt = in.readLong();
+      if (snapshotPeriod != period) {
+        log.info("Ignoring candle snapshot for period {} while trading period {}", snapshotPeriod,
+            period);
+        return Map.of();
+      }
+      int symbolCount = in.readInt();
+      var result = new HashMap<String, List<Bar>>();
+      var timePeriod = Duration.ofMinutes(period);
+      for (int i = 0; i < symbolCount; i++) {
+        var symbol = in.readUTF();
+        int barCount = in.readInt();
+        var bars = new ArrayList<Bar>(barCount);
+        for (int j = 0; j < barCount; j++) {
+          bars.add(BaseBar.builder(DecimalNum::valueOf, Number.class)
+              .timePeriod(timePeriod)
+              .endTime(ZonedDateTime.ofInstant(Instant.ofEpochSecond(in.readLong()),
+                  ZoneId.systemDefault()))
+              .openPrice(DecimalNum.valueOf(in.readDouble()))
+              .highPrice(DecimalNum.valueOf(in.readDouble()))
+              .lowPrice(DecimalNum.valueOf(in.readDouble()))
+              .closePrice(DecimalNum.valueOf(in.readDouble()))
+              .volume(DecimalNum.valueOf(in.readDouble()))
+              .build());
+        }
+        result.put(symbol, bars);
+      }
+      log.info("Read candle snapshot from {} taken at {}", path, Instant.ofEpochMilli(createdAt));
+      return result;
+    } catch (IOException e) {
+      log.warn("Failed to read candle snapshot {}: {}", path, e.getMessage());
+      return Map.of();
+    }
+  }
+
+  /**
+   * Appends the gap candles to the snapshot candles. A gap candle with the same end time as a
+   * snapshot candle replaces it, since the snapshot may hold a candle that was still open.
+   */
+  static List<Bar> mergeGap(List<Bar> snapshotBars, List<Bar> gapBars) {
+    var merged = new ArrayList<>(snapshotBars);
+    for (Bar bar : gapBars) {
+      if (merged.isEmpty() || bar.getEndTime().isAfter(merged.getLast().getEndTime())) {
+        merged.add(bar);
+      } else if (bar.getEndTime().isEqual(merged.getLast().getEndTime())) {
+        merged.set(merged.size() - 1, bar);
+      }
+      // Older gap candles are already covered by the snapshot
+    }
+    return merged;
+  }
+
+  private void snapshotQuietly() {
+    try {
+      snapshot();
+    } catch (Exception e) {
+      log.error("Failed to write candle buffer snapshot: {}", e.getMessage(), e);
+    }
+  }
+
+  @Override
+  public void destroy() {
+    if (snapshotExecutor != null) {
+      snapshotExecutor.shutdownNow();
+    }
+    if (enabled) {
+      snapshotQuietly();
+    }
+  }
+}
@@ -0,0 +1,136 @@
+package ch.kekelidze.krakentrader.api.websocket.service;
+
+import ch.kekelidze.krakentrader.api.HistoricalDataService;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Service;
+import org.ta4j.core.Bar;
+
+/**
+ * Detects missing intervals in a candle buffer and fills them from the historical data service, so
+ * indicators never see a series that silently skips candles after an outage or reconnect.
+ * Asynchronous backfills run on a single background thread, so the REST round trip never blocks
+ * the WebSocket message thread.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CandleGapBackfillService implements DisposableBean {
+
+  private final HistoricalDataService historicalDataService;
+
+  private final ExecutorService backfillExecutor = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "candle-gap-backfill");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final AtomicLong gapsDetected = new AtomicLong();
+  private final AtomicLong candlesBackfilled = new AtomicLong();
+  private final AtomicLong backfillFailures = new AtomicLong();
+  private final AtomicLong totalBackfillLatencyMs = new AtomicLong();
+  private final AtomicLong lastBackfillLatencyMs = new AtomicLong();
+
+  /**
+   * Counts the candles missing between two consecutive bars of the same period.
+   *
+   * @param lastBar last bar in the buffer
+   * @param nextBar bar about to be appended
+   * @param period  candle period in minutes
+   * @return number of missing candles, 0 if the bars are adjacent
+   */
+  public static long countMissingCandles(Bar lastBar, Bar nextBar, int period) {
+    long minutes = Duration.between(lastBar.getEndTime(), nextBar.getEndTime()).toMinutes();
+    return Math.max(0, minutes / period - 1);
+  }
+
+  /**
+   * Fetches the candles ending strictly between {@code lastBar} and {@code nextBar}. Failures are
+   * counted and logged and yield an empty list, the caller then continues with the gap.
+   *
+   * @param symbol  coin pair of the buffer
+   * @param period  candle period in minutes
+   * @param lastBar last bar in the buffer
+   * @param nextBar bar about to be appended
+   * @return missing candles in chronological order
+   */
+  public List<Bar> backfill(String symbol, int period, Bar lastBar, Bar nextBar) {
+    long missing = countMissingCandles(lastBar, nextBar, period);
+    if (missing == 0) {
+      return List.of();
+    }
+    gapsDetected.incrementAndGet();
+    log.warn("Detected gap of {} candles for {} between {} and {}", missing, symbol,
+        lastBar.getEndTime(), nextBar.getEndTime());
+
+    long start = System.currentTimeMillis();
+    try {
+      var fetched = historicalDataService.queryHistoricalDataSince(List.of(symbol), period,
+          lastBar.getEndTime()).getOrDefault(symbol, List.of());
+      var gapBars = new ArrayList<Bar>();
+      for (Bar bar : fetched) {
+        if (bar.getEndTime().isAfter(lastBar.getEndTime())
+            && bar.getEndTime().isBefore(nextBar.getEndTime())) {
+          gapBars.add(bar);
+        }
+      }
+      candlesBackfilled.addAndGet(gapBars.size());
+      if (gapBars.size() < missing) {
+        log.warn("Backfill for {} returned {} of {} missing candles", symbol, gapBars.size(),
+            missing);
+      }
+      return gapBars;
+    } catch (Exception e) {
+      backfillFailures.incrementAndGet();
+      log.error("Failed to backfill {} missing candles for {}: {}", missing, symbol,
+          e.getMessage(), e);
+      return List.of();
+    } finally {
+      long latency = System.currentTimeMillis() - start;
+      lastBackfillLatencyMs.set(latency);
+      totalBackfillLatencyMs.addAndGet(latency);
+      log.info("Gap backfill for {} took {} ms | gaps: {} | candles backfilled: {} | failures: {}",
+          symbol, latency, gapsDetected.get(), candlesBackfilled.get(), backfillFailures.get());
+    }
+  }
+
+  /**
+   * Runs {@link #backfill} on the background thread.
+   *
+   * @param symbol  coin pair of the buffer
+   * @param period  candle period in minutes
+   * @param lastBar last bar in the buffer
+   * @param nextBar bar about to be appended
+   * @return future completing with the missing candles in chronological order, never failing
+   */
+  public CompletableFuture<List<Bar>> backfillAsync(String symbol, int period, Bar lastBar,
+      Bar nextBar) {
+    return CompletableFuture.supplyAsync(() -> backfill(symbol, period, lastBar, nextBar),
+        backfillExecutor);
+  }
+
+  public GapBackfillMetrics getMetrics() {
+    long gaps = gapsDetected.get();
+    return new GapBackfillMetrics(gaps, candlesBackfilled.get(), backfillFailures.get(),
+        lastBackfillLatencyMs.get(), gaps == 0 ? 0 : totalBackfillLatencyMs.get() / gaps);
+  }
+
+  @Override
+  public void destroy() {
+    backfillExecutor.shutdownNow();
+  }
+
+  public record GapBackfillMetrics(long gapsDetected, long candlesBackfilled,
+                                   long backfillFailures, long lastBackfillLatencyMs,
+                                   long averageBackfillLatencyMs) {
+
+  }
+}
@@ -5,13 +5,22 @@ import ch.kekelidze.krakentrader.api.rest.service.TradingApiService;
 import ch.kekelidze.krakentrader.api.util.ResponseConverterUtils;
 import ch.kekelidze.krakentrader.api.websocket.KrakenWebSocketClient;
 import ch.kekelidze.krakentrader.api.websocket.SinglePairWebSocketClient;
+import ch.kekelidze.krakentrader.api.websocket.bus.MarketDataBus;
+import ch.kekelidze.krakentrader.api.websocket.bus.MarketDataListener;
+import ch.kekelidze.krakentrader.api.websocket.relay.MarketDataRelayClient;
+import ch.kekelidze.krakentrader.api.websocket.relay.MarketDataRelayServer;
 import ch.kekelidze.krakentrader.strategy.Strategy;
 import ch.kekelidze.krakentrader.trade.Portfolio;
 import ch.kekelidze.krakentrader.trade.TradeState;
+import ch.kekelidze.krakentrader.trade.cluster.ClusterCapitalLedger;
+import ch.kekelidze.krakentrader.trade.cluster.ClusterCoordinationService;
+import ch.kekelidze.krakentrader.trade.cluster.PairLeaseListener;
 import ch.kekelidze.krakentrader.trade.entity.TradeStateEntity;
 import ch.kekelidze.krakentrader.trade.repository.TradeStateRepository;
+import ch.kekelidze.krakentrader.trade.service.TradeEngineFactory;
 import ch.kekelidze.krakentrader.trade.service.TradeService;
 import ch.kekelidze.krakentrader.trade.service.TradeStatePersistenceService;
+import ch.kekelidze.krakentrader.trade.standby.StandbyReplicationService;
 import jakarta.websocket.ContainerProvider;
 import jakarta.websocket.DeploymentException;
 import jakarta.websocket.Session;
@@ -19,10 +28,13 @@ import jakarta.websocket.WebSocketContainer;
 import java.io.IOException;
 import java.net.URI;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Service;
 
@@ -32,11 +44,14 @@ import org.springframework.stereotype.Service;
 public class KrakenWebSocketService implements DisposableBean {
 
   private static final String WS_URL = "wss://ws.kraken.com/v2";
+  private static final String STRATEGY_SEPARATOR = "\\+";
   private static final int RECONNECT_DELAY_MS = 2000;
   private static final int SEND_TIMEOUT_MS = 10000;
   private static final int SESSION_IDLE_TIMEOUT_MS = 30000;
-  private final List<Session> activeSessions = new ArrayList<>();
-  private final Map<KrakenWebSocketClient, String> clientToCoinPairMap = new HashMap<>();
+  // Written by the startup, the reconnect scheduler and the lease acquisition threads
+  private final List<Session> activeSessions = new CopyOnWriteArrayList<>();
+  private final Map<KrakenWebSocketClient, String> clientToCoinPairMap =
+      new ConcurrentHashMap<>();
 
   private final Portfolio portfolio;
   private final TradeService tradeService;
@@ -46,12 +61,35 @@ public class KrakenWebSocketService implements DisposableBean {
   private final ApplicationContext applicationContext;
   private final TradeStatePersistenceService tradeStatePersistenceService;
   private final TradeStateRepository tradeStateRepository;
+  private final CandleBufferSnapshotService candleBufferSnapshotService;
+  private final CandleGapBackfillService candleGapBackfillService;
+  @Getter
+  private final WebSocketSchedulerService webSocketSchedulerService;
+  private final MarketDataBus marketDataBus;
+  private final TradeEngineFactory tradeEngineFactory;
+  private final MarketDataRelayServer marketDataRelayServer;
+  private final MarketDataRelayClient marketDataRelayClient;
+  private final ClusterCoordinationService clusterCoordinationService;
+  private final ClusterCapitalLedger clusterCapitalLedger;
+  private final StandbyReplicationService standbyReplicationService;
+
+  // none: connect to Kraken, publisher: connect to Kraken and relay the candles to local
+  // processes, subscriber: receive the candles from the local relay instead of Kraken
+  @Value("${market-data.relay.mode:none}")
+  String relayMode;
 
   private WebSocketContainer container;
 
+  /**
+   * Starts trading with the strategies given in the first argument on the coin pairs of the second
+   * argument. Several strategies separated by {@code +} run as separate engines with their own
+   * portfolio slices, all fed from the same WebSocket connections.
+   *
+   * @param args strategy bean name(s), comma separated coin pairs and the candle period
+   */
   public void startWebSocketClient(String[] args) {
     try {
-      var strategy = applicationContext.getBean(args[0], Strategy.class);
+      var strategyNames = args[0].split(STRATEGY_SEPARATOR);
       var coinPairs = args[1].split(",");
       var period = getCandlePeriod(args);
 
@@ -60,25 +98,50 @@ public class KrakenWebSocketService implements DisposableBean {
       
       initFeesCache(coinPairs);
 
+      double capital;
       try {
-        double capital = krakenApiService.getAssetBalance("USD");
+        capital = krakenApiService.getAssetBalance("USD");
         portfolio.setTotalCapital(capital);
         log.info("Retrieved capital from Kraken API: {}", capital);
+        if (clusterCapitalLedger.isEnabled()) {
+          clusterCapitalLedger.initialize(capital);
+        }
       } catch (Exception e) {
         log.error("Failed to get account balance from Kraken API: {}", e.getMessage(), e);
         throw new RuntimeException("Failed to get account balance from Kraken API", e);
       }
 
-      log.info("Starting WebSocket client for strategy: {}", strategy);
-      tradeService.setStrategy(strategy);
+      subscribeStrategyEngines(strategyNames, coinPairs, capital);
 
       // Portfolio allocation is now calculated dynamically based on coins not in trade
       log.info("Trading {} coin pairs", coinPairs.length);
       log.info("Using OHLC interval (minutes): {}", period);
 
+      if ("subscriber".equalsIgnoreCase(relayMode)) {
+        marketDataRelayClient.start(List.of(coinPairs), period);
+        standbyReplicationService.start(() -> { });
+        return;
+      }
+
+      if (clusterCoordinationService.isEnabled()) {
+        // Candle history and connections are only set up for the pairs this node owns
+        KrakenWebSocketClient.initialize(marketDataBus, responseConverterUtils, marketDataService,
+            new String[0], this, period, candleBufferSnapshotService, candleGapBackfillService);
+        candleBufferSnapshotService.startPeriodicSnapshots(period);
+        clusterCoordinationService.start(List.of(coinPairs), new ClusterLeaseListener());
+        return;
+      }
+
       // Initialize the WebSocket client with Spring-managed dependencies
-      KrakenWebSocketClient.initialize(tradeService, responseConverterUtils, marketDataService,
-          coinPairs, this, period);
+      KrakenWebSocketClient.initialize(marketDataBus, responseConverterUtils, marketDataService,
+          coinPairs, this, period, candleBufferSnapshotService, candleGapBackfillService);
+      if (standbyReplicationService.isEnabled()) {
+        // Only the primary writes the candle snapshot, a standby starts once it takes over
+        standbyReplicationService.start(
+            () -> candleBufferSnapshotService.startPeriodicSnapshots(period));
+      } else {
+        candleBufferSnapshotService.startPeriodicSnapshots(period);
+      }
 
       // Connect to WebSocket server
       var container = getWebSocketContainer();
@@ -87,11 +150,60 @@ public class KrakenWebSocketService implements DisposableBean {
         log.info("WebSocket client started and connected for coin pair: {}", coinPair);
       }
 
+      if ("publisher".equalsIgnoreCase(relayMode)) {
+        marketDataRelayServer.start(period);
+      }
+
     } catch (Exception e) {
       throw new RuntimeException(e);
     }
   }
 
+  /**
+   * Subscribes one engine per strategy to the market data bus. A single strategy runs on the main
+   * portfolio, several strategies split the capital evenly into portfolio slices.
+   */
+  private void subscribeStrategyEngines(String[] strategyNames, String[] coinPairs,
+      double capital) {
+    if (strategyNames.length == 1) {
+      var strategy = applicationContext.getBean(strategyNames[0], Strategy.class);
+      log.info("Starting WebSocket client for strategy: {}", strategy);
+      tradeService.setStrategy(strategy);
+      marketDataBus.subscribe(tradingGuard(tradeService::executeStrategy));
+      return;
+    }
+
+    double sliceCapital = capital / strategyNames.length;
+    for (String strategyName : strategyNames) {
+      var strategy = applicationContext.getBean(strategyName, Strategy.class);
+      log.info("Starting strategy engine {} for strategy: {}", strategyName, strategy);
+      var engine = tradeEngineFactory.createEngine(strategyName, strategy, sliceCapital,
+          coinPairs);
+      marketDataBus.subscribe(tradingGuard(engine::executeStrategy));
+    }
+  }
+
+  /**
+   * A hot standby receives candles but only trades once it has taken over from the primary. In
+   * cluster mode a pair is only traded while this node holds its lease, which also covers candles
+   * that are still delivered after the lease expired.
+   */
+  private MarketDataListener tradingGuard(MarketDataListener listener) {
+    if (!clusterCoordinationService.isEnabled() && !standbyReplicationService.isEnabled()) {
+      return listener;
+    }
+    return (symbol, candles) -> {
+      if (!standbyReplicationService.isActive()) {
+        return;
+      }
+      if (clusterCoordinationService.isEnabled() && !clusterCoordinationService.ownsPair(symbol)) {
+        log.debug("Skipping {}, the lease is held by another node", symbol);
+        return;
+      }
+      listener.onCandles(symbol, candles);
+    };
+  }
+
   private int getCandlePeriod(String[] args) {
     try {
       if (args.length > 2) {
@@ -133,7 +245,9 @@ public class KrakenWebSocketService implements DisposableBean {
     
     // Update each trade state
     for (TradeStateEntity entity : allTradeStates) {
-      boolean isActivelyTraded = activeCoinPairs.contains(entity.getCoinPair());
+      // Trade states of portfolio slices are stored under a slice-prefixed key
+      boolean isActivelyTraded =
+          activeCoinPairs.contains(TradeState.coinPairOf(entity.getCoinPair()));
       entity.setActivelyTraded(isActivelyTraded);
       
       // Log the status change
@@ -187,7 +301,8 @@ public class KrakenWebSocketService implements DisposableBean {
    * @param client The client that needs to be reconnected
    */
   public void reconnectClient(KrakenWebSocketClient client) {
-    String coinPair = clientToCoinPairMap.get(client);
+    // Removed right away, so a client reporting its failure twice is reconnected once
+    String coinPair = clientToCoinPairMap.remove(client);
     if (coinPair == null) {
       log.error("Cannot reconnect client: no coin pair found for client {}", client);
       return;
@@ -196,7 +311,7 @@ public class KrakenWebSocketService implements DisposableBean {
     log.info("Reconnecting client for coin pair: {}", coinPair);
 
     Session existingSession = null;
-    for (Session session : new ArrayList<>(activeSessions)) {
+    for (Session session : activeSessions) {
       if (session.getUserProperties().get("client") == client) {
         existingSession = session;
         break;
@@ -214,10 +329,10 @@ public class KrakenWebSocketService implements DisposableBean {
       }
     }
 
-    clientToCoinPairMap.remove(client);
     client.destroy();
 
-    CompletableFuture.runAsync(reconnectRunnable(coinPair, RECONNECT_DELAY_MS, 1));
+    webSocketSchedulerService.scheduleReconnect(coinPair, RECONNECT_DELAY_MS,
+        reconnectRunnable(coinPair, 1));
   }
 
   /**
@@ -241,32 +356,29 @@ public class KrakenWebSocketService implements DisposableBean {
     // Cap the maximum delay at 5 minutes
     final long MAX_DELAY_MS = 5 * 60 * 1000;
 
-    // Calculate the final delay with jitter and capping
-    final long delayMs = Math.min(
-        RECONNECT_DELAY_MS * (long)Math.pow(2, attempt - 1) 
-            + (long)(RECONNECT_DELAY_MS * Math.pow(2, attempt - 1) * 0.1 * Math.random()),
-        MAX_DELAY_MS
-    );
+    // Calculate the final delay with capping, the scheduler adds jitter on top
+    final long delayMs = Math.min(RECONNECT_DELAY_MS * (long) Math.pow(2, attempt - 1),
+        MAX_DELAY_MS);
 
     log.info("Scheduling reconnection attempt {} for coin pair {} after {} ms", 
         attempt, coinPair, delayMs);
 
-    CompletableFuture.runAsync(reconnectRunnable(coinPair, delayMs, attempt));
+    webSocketSchedulerService.scheduleReconnect(coinPair, delayMs,
+        reconnectRunnable(coinPair, attempt));
   }
 
-  private Runnable reconnectRunnable(String coinPair, long delayMs, int attempt) {
+  private Runnable reconnectRunnable(String coinPair, int attempt) {
     return () -> {
+      if (clusterCoordinationService.isEnabled() && !clusterCoordinationService.ownsPair(coinPair)) {
+        log.info("Not reconnecting {}, the pair is no longer owned by this node", coinPair);
+        return;
+      }
       try {
-        Thread.sleep(delayMs);
-
         log.info("Attempting reconnection #{} for coin pair: {}", attempt, coinPair);
         var container = getWebSocketContainer();
         createClientForCoinPair(coinPair, container);
         log.info("Client successfully reconnected for coin pair: {} after {} attempts",
             coinPair, attempt);
-      } catch (InterruptedException e) {
-        Thread.currentThread().interrupt();
-        log.error("Reconnection interrupted for coin pair {}: {}", coinPair, e.getMessage());
       } catch (Exception e) {
         log.error("Error during reconnection attempt {} for coin pair {}: {}",
             attempt, coinPair, e.getMessage(), e);
@@ -276,6 +388,48 @@ public class KrakenWebSocketService implements DisposableBean {
     };
   }
 
+  /**
+   * Closes the connection of a single coin pair, used when this node hands the pair over.
+   */
+  private synchronized void closeClientForCoinPair(String coinPair) {
+    var clients = clientToCoinPairMap.entrySet().stream()
+        .filter(entry -> entry.getValue().equals(coinPair))
+        .map(Map.Entry::getKey)
+        .toList();
+    for (KrakenWebSocketClient client : clients) {
+      activeSessions.removeIf(session -> session.getUserProperties().get("client") == client);
+      clientToCoinPairMap.remove(client);
+      client.destroy();
+    }
+  }
+
+  /**
+   * Starts and stops the feed and the trading of a pair when this node gains or loses its lease.
+   */
+  private class ClusterLeaseListener implements PairLeaseListener {
+
+    @Override
+    public void onPairAcquired(String coinPair) {
+      try {
+        // The previous owner may have traded the pair, its state is reloaded from the database
+        portfolio.getTradeStates().remove(coinPair);
+        portfolio.getOrCreateTradeState(coinPair).setActivelyTraded(true);
+        KrakenWebSocketClient.addSymbols(List.of(coinPair));
+        createClientForCoinPair(coinPair, getWebSocketContainer());
+        log.info("Started trading {} on this node", coinPair);
+      } catch (Exception e) {
+        throw new IllegalStateException("Failed to start trading " + coinPair, e);
+      }
+    }
+
+    @Override
+    public void onPairReleased(String coinPair) {
+      closeClientForCoinPair(coinPair);
+      KrakenWebSocketClient.removeSymbols(List.of(coinPair));
+      log.info("Stopped trading {} on this node", coinPair);
+    }
+  }
+
   private synchronized WebSocketContainer getWebSocketContainer() {
     if (container == null) {
       container = ContainerProvider.getWebSocketContainer();
@@ -0,0 +1,148 @@
+package ch.kekelidze.krakentrader.api.websocket.service;
+
+import jakarta.annotation.PostConstruct;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Single small scheduler shared by all WebSocket sessions for heartbeat timers and delayed
+ * reconnects. Delays are timer based, so no thread sleeps while waiting, and the number of
+ * reconnects running at the same time is capped to avoid reconnect storms after a network outage.
+ * The blocking reconnects themselves run on a separate pool, so a slow connect never delays the
+ * heartbeats of the other sessions.
+ */
+@Slf4j
+@Service
+public class WebSocketSchedulerService implements DisposableBean {
+
+  // Retry delay when all reconnect permits are taken
+  private static final long RECONNECT_PERMIT_RETRY_MS = 1000;
+
+  @Value("${websocket.scheduler.pool-size:2}")
+  int poolSize;
+
+  @Value("${websocket.reconnect.max-concurrent:2}")
+  int maxConcurrentReconnects;
+
+  @Value("${websocket.reconnect.jitter-ratio:0.2}")
+  double jitterRatio;
+
+  private ScheduledThreadPoolExecutor executor;
+  private ExecutorService reconnectExecutor;
+  private Semaphore reconnectPermits;
+
+  @PostConstruct
+  public void start() {
+    executor = new ScheduledThreadPoolExecutor(poolSize, daemonThreads("websocket-scheduler-"));
+    executor.setRemoveOnCancelPolicy(true);
+    reconnectExecutor = Executors.newFixedThreadPool(maxConcurrentReconnects,
+        daemonThreads("websocket-reconnect-"));
+    reconnectPermits = new Semaphore(maxConcurrentReconnects);
+    log.info("WebSocket scheduler started with {} threads, at most {} concurrent reconnects",
+        poolSize, maxConcurrentReconnects);
+  }
+
+  /**
+   * Runs a heartbeat check at a fixed rate until the returned future is cancelled.
+   */
+  public ScheduledFuture<?> scheduleHeartbeat(Runnable check, long intervalMs) {
+    return executor.scheduleAtFixedRate(guarded(check, "heartbeat"), intervalMs, intervalMs,
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Runs a one-off task after the given delay.
+   */
+  public ScheduledFuture<?> schedule(Runnable task, long delayMs) {
+    return executor.schedule(guarded(task, "scheduled task"), delayMs, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Runs a reconnect after the given delay plus random jitter. The attempt runs on the reconnect
+   * pool, not on the scheduler. If the global reconnect cap is reached when the delay expires, the
+   * attempt is postponed instead of blocking a thread.
+   *
+   * @param coinPair  coin pair being reconnected, used for logging
+   * @param delayMs   base delay before the attempt
+   * @param reconnect the reconnect attempt
+   */
+  public void scheduleReconnect(String coinPair, long delayMs, Runnable reconnect) {
+    executor.schedule(() -> submitReconnect(coinPair, reconnect), withJitter(delayMs),
+        TimeUnit.MILLISECONDS);
+  }
+
+  private void submitReconnect(String coinPair, Runnable reconnect) {
+    if (!reconnectPermits.tryAcquire()) {
+      log.debug("Reconnect cap of {} reached, postponing reconnect for {}",
+          maxConcurrentReconnects, coinPair);
+      scheduleReconnect(coinPair, RECONNECT_PERMIT_RETRY_MS, reconnect);
+      return;
+    }
+    try {
+      reconnectExecutor.execute(() -> runReconnect(coinPair, reconnect));
+    } catch (RejectedExecutionException e) {
+      // Shutting down
+      reconnectPermits.release();
+    }
+  }
+
+  private void runReconnect(String coinPair, Runnable reconnect) {
+    try {
+      reconnect.run();
+    } catch (Exception e) {
+      log.error("Reconnect for {} failed: {}", coinPair, e.getMessage(), e);
+    } finally {
+      reconnectPermits.release();
+    }
+  }
+
+  long withJitter(long delayMs) {
+    if (jitterRatio <= 0) {
+      return delayMs;
+    }
+    long jitter = (long) (delayMs * jitterRatio * ThreadLocalRandom.current().nextDouble());
+    return delayMs + jitter;
+  }
+
+  private static ThreadFactory daemonThreads(String namePrefix) {
+    var threadCounter = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, namePrefix + threadCounter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  private static Runnable guarded(Runnable task, String description) {
+    return () -> {
+      try {
+        task.run();
+      } catch (Exception e) {
+        // An exception would silently cancel a periodic task
+        log.error("Error in WebSocket {}: {}", description, e.getMessage(), e);
+      }
+    };
+  }
+
+  @Override
+  public void destroy() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+    if (reconnectExecutor != null) {
+      reconnectExecutor.shutdownNow();
+    }
+  }
+}
@@ -1,12 +1,18 @@
 package ch.kekelidze.krakentrader.backtester.service;
 
 import ch.kekelidze.krakentrader.backtester.service.dto.BacktestResult;
+import ch.kekelidze.krakentrader.backtester.service.dto.TradeLog;
+import ch.kekelidze.krakentrader.backtester.util.PerformanceMetrics;
+import ch.kekelidze.krakentrader.backtester.util.PruningPolicy;
+import ch.kekelidze.krakentrader.backtester.util.SimulationClock;
+import ch.kekelidze.krakentrader.backtester.util.SimulationProgress;
 import ch.kekelidze.krakentrader.backtester.util.TimeFrameAdjustmentUtils;
 import ch.kekelidze.krakentrader.indicator.analyser.AtrAnalyser;
 import ch.kekelidze.krakentrader.indicator.configuration.StrategyParameters;
 import ch.kekelidze.krakentrader.optimize.util.StrategySelector;
 import ch.kekelidze.krakentrader.strategy.Strategy;
 import ch.kekelidze.krakentrader.strategy.dto.EvaluationContext;
+import ch.kekelidze.krakentrader.trade.util.CapitalAllocation;
 import ch.kekelidze.krakentrader.trade.util.TradingCircuitBreaker;
 import jakarta.annotation.PostConstruct;
 import java.util.ArrayList;
@@ -22,8 +28,6 @@ import org.ta4j.core.Bar;
 @RequiredArgsConstructor
 public class BackTesterService {
 
-  private static final int PERIODS_PER_YEAR = 365 * 24;
-
   private final StrategySelector strategySelector;
   private final AtrAnalyser atrAnalyser;
   private final TradingCircuitBreaker circuitBreaker;
@@ -39,39 +43,72 @@ public class BackTesterService {
     log.info("BackTester Configuration:");
     log.info("  - Trade cooldown: {} minutes", tradeCooldownMinutes);
     log.info("  - Simulated trading fee: {}%", simulatedTradingFee * 100);
-    log.info("  - Circuit breaker protection enabled");
+    log.info("  - Circuit breaker simulated on request, isolated per simulation");
   }
 
   public BacktestResult runSimulation(EvaluationContext context, double initialCapital) {
+    return runSimulation(context, initialCapital, false);
+  }
+
+  /**
+   * Runs the best strategy of the coin with its saved parameters.
+   *
+   * @param simulateCircuitBreaker whether losing trades trip a circuit breaker that halts the
+   *                               simulation like the live trader, off for optimization so the
+   *                               fitness only depends on the strategy
+   */
+  public BacktestResult runSimulation(EvaluationContext context, double initialCapital,
+      boolean simulateCircuitBreaker) {
     var coin = context.getSymbol();
     Strategy strategy = strategySelector.getBestStrategyForCoin(coin);
-    return runSimulation(context, strategy, strategy.getStrategyParameters(coin), initialCapital);
+    return runSimulation(context, strategy, strategy.getStrategyParameters(coin), initialCapital,
+        PruningPolicy.NONE, simulateCircuitBreaker);
   }
 
   public BacktestResult runSimulation(EvaluationContext context,
       StrategyParameters strategyParameters, double initialCapital) {
+    return runSimulation(context, strategyParameters, initialCapital, PruningPolicy.NONE);
+  }
+
+  /**
+   * Runs the best strategy of the coin with the given parameters and stops early once the pruning
+   * policy considers the backtest hopeless.
+   */
+  public BacktestResult runSimulation(EvaluationContext context,
+      StrategyParameters strategyParameters, double initialCapital, PruningPolicy pruningPolicy) {
     Strategy strategy = strategySelector.getBestStrategyForCoin(context.getSymbol());
-    return runSimulation(context, strategy, strategyParameters, initialCapital);
+    return runSimulation(context, strategy, strategyParameters, initialCapital, pruningPolicy,
+        false);
   }
 
   public BacktestResult runSimulation(EvaluationContext context, String strategyName,
       StrategyParameters strategyParameters, double initialCapital) {
     Strategy strategy = strategySelector.getStrategy(strategyName);
-    return runSimulation(context, strategy, strategyParameters, initialCapital);
+    return runSimulation(context, strategy, strategyParameters, initialCapital,
+        PruningPolicy.NONE, false);
   }
 
   private BacktestResult runSimulation(EvaluationContext context, Strategy strategy,
-      StrategyParameters params, double initialCapital) {
+      StrategyParameters params, double initialCapital, PruningPolicy pruningPolicy,
+      boolean simulateCircuitBreaker) {
     // Simulate trades using parameters
     boolean inPosition = false;
     double currentCapital = initialCapital;
     int wins = 0;
     int trades = 0;
     double entryPrice = 0;
+    double entryEquity = 0;
+    long entryTimestamp = 0;
     double positionSize = 0;
     long lastTradeTimestamp = 0;
+    var tradeLog = new TradeLog();
 
     String coinPair = context.getSymbol();
+    // Each simulation has its own circuit breaker on simulated time, so simulations of the same
+    // or different coins can run concurrently without affecting each other. Without trade results
+    // it never trips
+    var simulationClock = new SimulationClock();
+    var circuitBreaker = this.circuitBreaker.isolatedCopy(simulationClock);
 
     // For drawdown calculation
     List<Double> equityCurve = new ArrayList<>();
@@ -81,8 +118,26 @@ public class BackTesterService {
 
     var data = context.getBars();
     var minBars = adjustedParameters.minimumCandles();
+    boolean pruned = false;
+    double equityPeak = initialCapital;
     for (int i = minBars; i < data.size(); i++) {
+      if (pruningPolicy != PruningPolicy.NONE) {
+        double equity = equityCurve.isEmpty() ? initialCapital : equityCurve.getLast();
+        equityPeak = Math.max(equityPeak, equity);
+        int tradesSoFar = trades;
+        int winsSoFar = wins;
+        var progress = new SimulationProgress(i, minBars, data.size(), trades,
+            (equityPeak - equity) / equityPeak * 100,
+            () -> buildResult(equityCurve, tradesSoFar, winsSoFar, equity, tradeLog, false));
+        if (pruningPolicy.shouldPrune(progress)) {
+          log.debug("Pruned simulation of {} at bar {} of {}", coinPair, i, data.size());
+          pruned = true;
+          break;
+        }
+      }
+
       long currentSimulatedTime = data.get(i).getEndTime().toInstant().toEpochMilli();
+      simulationClock.setInstant(data.get(i).getEndTime().toInstant());
       if (!circuitBreaker.canTrade(coinPair)) {
         var circuitState = circuitBreaker.getDetailedState(coinPair);
         log.debug(
@@ -130,9 +185,11 @@ public class BackTesterService {
       if (!inPosition && buySignal) {
         trades++;
         entryPrice = currentPrice;
+        entryEquity = currentCapital;
+        entryTimestamp = currentSimulatedTime;
         inPosition = true;
-        positionSize = calculateAdaptivePositionSize(coinPair, sublist, entryPrice, currentCapital,
-            adjustedParameters);
+        positionSize = calculateAdaptivePositionSize(circuitBreaker, coinPair, sublist, entryPrice,
+            currentCapital, adjustedParameters);
         currentCapital -= positionSize * entryPrice;
         log.debug("BUY {} at: {} on {}", positionSize, entryPrice, data.get(i).getEndTime());
       } else if (inPosition && (sellSignal || i == data.size() - 1)) {
@@ -143,6 +200,11 @@ public class BackTesterService {
         if (profit > 0) {
           wins++;
         }
+        if (simulateCircuitBreaker) {
+          circuitBreaker.recordTradeResult(coinPair, profit);
+        }
+        tradeLog.add(entryTimestamp, currentSimulatedTime,
+            positionSize * (currentPrice - entryPrice) / entryEquity);
         log.debug("SELL at: {} on {} | Profit: {}%", currentPrice, data.get(i).getEndTime(),
             profit);
       }
@@ -158,20 +220,28 @@ public class BackTesterService {
       }
     }
 
-    // Calculate maximum drawdown from equity curve
-    double maxDrawdown = calculateMaxDrawdown(equityCurve);
+    // A pruned simulation may still hold a position, its result is valued at the last price
+    double capital = pruned && !equityCurve.isEmpty() ? equityCurve.getLast() : currentCapital;
+    return buildResult(equityCurve, trades, wins, capital, tradeLog, pruned);
+  }
 
-    var periodicReturns = calculatePeriodicReturns(equityCurve);
-    double sharpeRatio = calculateSharpe(periodicReturns);
+  private static BacktestResult buildResult(List<Double> equityCurve, int trades, int wins,
+      double capital, TradeLog tradeLog, boolean pruned) {
+    // Calculate metrics from the equity curve
+    double[] equity = equityCurve.stream().mapToDouble(Double::doubleValue).toArray();
+    double maxDrawdown = PerformanceMetrics.maxDrawdown(equity, equity.length);
+    double sharpeRatio = PerformanceMetrics.sharpeRatio(equity, equity.length);
 
-    // Calculate metrics
     return BacktestResult.builder()
-        .totalProfit(getMeanReturn(periodicReturns) * PERIODS_PER_YEAR * 100)
+        .totalProfit(PerformanceMetrics.meanReturn(equity, equity.length)
+            * PerformanceMetrics.PERIODS_PER_YEAR * 100)
         .totalTrades(trades)
         .sharpeRatio(sharpeRatio)
         .winRate(trades > 0 ? wins / (double) trades : 0)
         .maxDrawdown(maxDrawdown)
-        .capital(currentCapital)
+        .capital(capital)
+        .tradeLog(tradeLog)
+        .pruned(pruned)
         .build();
   }
 
@@ -207,40 +277,27 @@ public class BackTesterService {
   /**
    * Calculates position size as a percentage of capital based on market volatility
    *
+   * @param circuitBreaker   Circuit breaker of the running simulation
    * @param data             Recent price bars
    * @param availableCapital Available capital for position
    * @param params           Strategy parameters
    * @return Recommended position size as percentage of capital
    */
-  private double calculateAdaptivePositionSize(String coinPair, List<Bar> data, double entryPrice,
-      double availableCapital, StrategyParameters params) {
+  private double calculateAdaptivePositionSize(TradingCircuitBreaker circuitBreaker,
+      String coinPair, List<Bar> data, double entryPrice, double availableCapital,
+      StrategyParameters params) {
     // Calculate ATR as percentage of price
     double atr = atrAnalyser.calculateATR(data, params.atrPeriod());
     double currentPrice = data.getLast().getClosePrice().doubleValue();
     double atrPercent = (atr / currentPrice) * 100;
-    var lowerBound = 2.0;
-    var upperBound = 12.0;
-
-    // Base position size (percentage of capital)
-    double basePositionSize = 0.5; // Default 60% of capital
 
     // Reduce position size if circuit breaker is in test mode
     var circuitState = circuitBreaker.getCircuitState(coinPair);
     double circuitAdjustment =
         (circuitState == TradingCircuitBreaker.CircuitState.HALF_OPEN) ? 0.5 : 1.0;
 
-    double capitalPercentage;
     // Adjust position size based on volatility
-    if (atrPercent < lowerBound) {
-      // Low volatility - can take larger position
-      capitalPercentage = Math.min(basePositionSize * 1.5, 1.0);
-    } else if (atrPercent > upperBound) {
-      // High volatility - reduce position size
-      capitalPercentage = basePositionSize * 0.5;
-    } else {
-      // Normal volatility - use base size
-      capitalPercentage = basePositionSize;
-    }
+    double capitalPercentage = CapitalAllocation.volatilityAdjustedFraction(atrPercent);
 
     // Apply circuit breaker adjustment
     capitalPercentage *= circuitAdjustment;
@@ -251,97 +308,4 @@ public class BackTesterService {
 
     return availableCapital * feeAdjustedCapitalPercentage / entryPrice;
   }
-
-  /**
-   * Calculates periodic returns from an equity curve
-   *
-   * @param equityCurve List of equity values at each time point
-   * @return List of periodic returns
-   */
-  private List<Double> calculatePeriodicReturns(List<Double> equityCurve) {
-    List<Double> returns = new ArrayList<>();
-
-    // Skip the first entry as we need previous value to calculate return
-    for (int i = 1; i < equityCurve.size(); i++) {
-      // Simple return calculation: (current - previous) / previous
-      double previousEquity = equityCurve.get(i - 1);
-      double currentEquity = equityCurve.get(i);
-
-      if (previousEquity != 0) {
-        double periodicReturn = (currentEquity - previousEquity) / previousEquity;
-        returns.add(periodicReturn);
-      }
-    }
-
-    return returns;
-  }
-
-  /**
-   * Calculates Sharpe ratio based on periodic returns
-   *
-   * @param periodicReturns List of returns for each period
-   * @return Sharpe ratio
-   */
-  private double calculateSharpe(List<Double> periodicReturns) {
-    double meanReturn = getMeanReturn(periodicReturns);
-
-    // Calculate standard deviation of returns
-    double sumSquaredDiff = 0.0;
-    for (Double ret : periodicReturns) {
-      double diff = ret - meanReturn;
-      sumSquaredDiff += diff * diff;
-    }
-    double stdDev = Math.sqrt(sumSquaredDiff / periodicReturns.size());
-
-    // Avoid division by zero
-    if (stdDev == 0) {
-      return 0.0;
-    }
-
-    double annualizedMean = meanReturn * PERIODS_PER_YEAR;
-    double annualizedStdDev = stdDev * Math.sqrt(PERIODS_PER_YEAR);
-
-    // Add risk-free rate if you want (classic Sharpe ratio)
-    double riskFreeRate = 0.02;
-    double annualizedExcessReturn = annualizedMean - riskFreeRate;
-
-    return annualizedExcessReturn / annualizedStdDev;
-  }
-
-  private static double getMeanReturn(List<Double> periodicReturns) {
-    if (periodicReturns.isEmpty()) {
-      return 0.0;
-    }
-
-    // Calculate mean return
-    double sumReturns = 0.0;
-    for (Double ret : periodicReturns) {
-      sumReturns += ret;
-    }
-    return sumReturns / periodicReturns.size();
-  }
-
-  private double calculateMaxDrawdown(List<Double> equityCurve) {
-    if (equityCurve.isEmpty()) {
-      return 0;
-    }
-
-    double maxDrawdown = 0;
-    double peak = equityCurve.getFirst();
-
-    for (double value : equityCurve) {
-      if (value > peak) {
-        peak = value; // New peak
-      } else {
-        // Calculate current drawdown
-        double currentDrawdown = (peak - value) / peak * 100;
-        if (currentDrawdown > maxDrawdown) {
-          maxDrawdown = currentDrawdown;
-        }
-      }
-    }
-
-    return maxDrawdown;
-  }
-
 }
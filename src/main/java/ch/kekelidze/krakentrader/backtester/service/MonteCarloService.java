@@ -0,0 +1,184 @@
+package ch.kekelidze.krakentrader.backtester.service;
+
+import ch.kekelidze.krakentrader.backtester.service.dto.MonteCarloResult;
+import ch.kekelidze.krakentrader.backtester.service.dto.MonteCarloResult.Distribution;
+import ch.kekelidze.krakentrader.backtester.service.dto.MonteCarloResult.PercentileBand;
+import ch.kekelidze.krakentrader.backtester.service.dto.TradeLog;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Tests how much a backtest depends on the order and selection of its trades. The trade returns
+ * are resampled with replacement into many sequences of the same length, either trade by trade or
+ * in blocks of consecutive trades to keep streaks of wins and losses together, and every sequence
+ * is compounded into an equity path.
+ * <p>
+ * Sequences are simulated in fixed size chunks on a thread pool. Every chunk gets its own random
+ * generator split from the seeded root generator in chunk order, so a seed gives the same result
+ * for any number of threads.
+ */
+@Slf4j
+@Service
+public class MonteCarloService {
+
+  private static final int CHUNK_SIZE = 1024;
+  private static final int BAND_POINTS = 20;
+
+  @Value("${backtesting.monte-carlo.simulations:10000}")
+  int simulations;
+
+  // Consecutive trades drawn together, 1 resamples single trades
+  @Value("${backtesting.monte-carlo.block-size:1}")
+  int blockSize;
+
+  // Threads resampling at the same time, 0 uses all available processors
+  @Value("${backtesting.monte-carlo.parallelism:0}")
+  int parallelism;
+
+  @Value("${backtesting.monte-carlo.seed:42}")
+  long seed;
+
+  public MonteCarloResult simulate(TradeLog tradeLog) {
+    return simulate(tradeLog.equityReturns(), simulations, blockSize, seed);
+  }
+
+  /**
+   * Resamples the given trade returns.
+   *
+   * @param returns     trade returns as fraction of the equity at entry
+   * @param simulations number of sequences to simulate
+   * @param blockSize   consecutive trades drawn together, 1 or less for the plain bootstrap
+   * @param seed        seed of the random generator
+   * @return return and drawdown distributions of the sequences
+   */
+  public MonteCarloResult simulate(double[] returns, int simulations, int blockSize, long seed) {
+    if (simulations <= 0) {
+      throw new IllegalArgumentException("Number of simulations must be positive: " + simulations);
+    }
+    int trades = returns.length;
+    int block = Math.max(1, Math.min(blockSize, trades));
+    if (trades == 0) {
+      var empty = new Distribution(0, 0, 0, 0, 0, 0);
+      return MonteCarloResult.builder().simulations(simulations).blockSize(block)
+          .totalReturn(empty).maxDrawdown(empty).equityBands(List.of()).build();
+    }
+
+    long start = System.currentTimeMillis();
+    var bandTrades = bandTrades(trades);
+    var finalReturns = new double[simulations];
+    var drawdowns = new double[simulations];
+    var bandReturns = new double[bandTrades.length][simulations];
+
+    int chunks = (simulations + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    int numThreads = Math.min(parallelism > 0 ? parallelism
+        : Runtime.getRuntime().availableProcessors(), chunks);
+    var random = new SplittableRandom(seed);
+    try (ExecutorService executor = Executors.newFixedThreadPool(numThreads)) {
+      var futures = new ArrayList<CompletableFuture<Void>>(chunks);
+      for (int chunk = 0; chunk < chunks; chunk++) {
+        var chunkRandom = random.split();
+        int from = chunk * CHUNK_SIZE;
+        int to = Math.min(from + CHUNK_SIZE, simulations);
+        futures.add(CompletableFuture.runAsync(() -> resample(returns, block, bandTrades,
+            chunkRandom, from, to, finalReturns, drawdowns, bandReturns), executor));
+      }
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    }
+
+    int losses = 0;
+    for (double finalReturn : finalReturns) {
+      if (finalReturn < 0) {
+        losses++;
+      }
+    }
+    var equityBands = new ArrayList<PercentileBand>(bandTrades.length);
+    for (int band = 0; band < bandTrades.length; band++) {
+      var values = bandReturns[band];
+      Arrays.sort(values);
+      equityBands.add(new PercentileBand(bandTrades[band], percentile(values, 5),
+          percentile(values, 25), percentile(values, 50), percentile(values, 75),
+          percentile(values, 95)));
+    }
+
+    var result = MonteCarloResult.builder()
+        .simulations(simulations)
+        .trades(trades)
+        .blockSize(block)
+        .totalReturn(distribution(finalReturns))
+        .maxDrawdown(distribution(drawdowns))
+        .probabilityOfLoss(losses / (double) simulations)
+        .equityBands(equityBands)
+        .build();
+    log.debug("Resampled {} trades {} times on {} threads in {} ms", trades, simulations,
+        numThreads, System.currentTimeMillis() - start);
+    return result;
+  }
+
+  private static void resample(double[] returns, int block, int[] bandTrades,
+      SplittableRandom random, int from, int to, double[] finalReturns, double[] drawdowns,
+      double[][] bandReturns) {
+    int trades = returns.length;
+    int blockStarts = trades - block + 1;
+    for (int simulation = from; simulation < to; simulation++) {
+      double equity = 1;
+      double peak = 1;
+      double maxDrawdown = 0;
+      int band = 0;
+      int trade = 0;
+      while (trade < trades) {
+        int blockStart = random.nextInt(blockStarts);
+        for (int i = blockStart; i < blockStart + block && trade < trades; i++) {
+          // A loss can not take more than the whole equity
+          equity = Math.max(0, equity * (1 + returns[i]));
+          if (equity > peak) {
+            peak = equity;
+          } else {
+            maxDrawdown = Math.max(maxDrawdown, (peak - equity) / peak);
+          }
+          trade++;
+          if (trade == bandTrades[band]) {
+            bandReturns[band][simulation] = (equity - 1) * 100;
+            band = Math.min(band + 1, bandTrades.length - 1);
+          }
+        }
+      }
+      finalReturns[simulation] = (equity - 1) * 100;
+      drawdowns[simulation] = maxDrawdown * 100;
+    }
+  }
+
+  /**
+   * Trade counts at which the equity bands are taken, evenly spread and ending at the last trade.
+   */
+  private static int[] bandTrades(int trades) {
+    int points = Math.min(BAND_POINTS, trades);
+    var bandTrades = new int[points];
+    for (int point = 0; point < points; point++) {
+      bandTrades[point] = (int) Math.ceil((point + 1) * trades / (double) points);
+    }
+    return bandTrades;
+  }
+
+  private static Distribution distribution(double[] values) {
+    double sum = 0;
+    for (double value : values) {
+      sum += value;
+    }
+    Arrays.sort(values);
+    return new Distribution(sum / values.length, percentile(values, 5), percentile(values, 25),
+        percentile(values, 50), percentile(values, 75), percentile(values, 95));
+  }
+
+  private static double percentile(double[] sortedValues, double percentile) {
+    int index = (int) Math.round(percentile / 100 * (sortedValues.length - 1));
+    return sortedValues[index];
+  }
+}
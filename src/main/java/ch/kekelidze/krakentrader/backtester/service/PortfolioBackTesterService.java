@@ -0,0 +1,320 @@
+package ch.kekelidze.krakentrader.backtester.service;
+
+import ch.kekelidze.krakentrader.backtester.service.dto.PortfolioBacktestResult;
+import ch.kekelidze.krakentrader.backtester.util.PerformanceMetrics;
+import ch.kekelidze.krakentrader.backtester.util.SimulationClock;
+import ch.kekelidze.krakentrader.backtester.util.TimeFrameAdjustmentUtils;
+import ch.kekelidze.krakentrader.indicator.analyser.AtrAnalyser;
+import ch.kekelidze.krakentrader.indicator.cache.IndicatorCache;
+import ch.kekelidze.krakentrader.indicator.cache.IndicatorCache.IncrementalSeries;
+import ch.kekelidze.krakentrader.indicator.configuration.StrategyParameters;
+import ch.kekelidze.krakentrader.optimize.util.StrategySelector;
+import ch.kekelidze.krakentrader.strategy.Strategy;
+import ch.kekelidze.krakentrader.strategy.dto.EvaluationContext;
+import ch.kekelidze.krakentrader.trade.util.CapitalAllocation;
+import ch.kekelidze.krakentrader.trade.util.TradingCircuitBreaker;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.ta4j.core.Bar;
+
+/**
+ * Simulates several coins trading from one shared capital, the way {@code TradeService} trades
+ * live.
+ * <p>
+ * The candles of all coins are merged by end time into a single event stream with a k-way merge,
+ * so the whole history is processed in one pass in chronological order. End times and close prices
+ * are copied into primitive arrays up front and the portfolio equity is sampled into a primitive
+ * array once per timestamp. Buys use the live allocation rules from {@link CapitalAllocation}: the
+ * free capital is split across the coins not in trade and orders respect the minimum order volume.
+ * <p>
+ * Every coin history is registered with {@link IndicatorCache#shareSeriesIncrementally(List)}, so
+ * indicators that support it advance one bar at a time over the whole history instead of being
+ * recomputed on every window. They are then warmed up over the whole history instead of the last
+ * {@code minimumCandles} candles the per coin backtest and the live trader see, so signals and
+ * results differ from theirs. Disabling {@code backtesting.portfolio.incremental-indicators}
+ * evaluates every window on its own, slower but comparable.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PortfolioBackTesterService {
+
+  private static final int MINUTES_PER_YEAR = 365 * 24 * 60;
+
+  private final StrategySelector strategySelector;
+  private final AtrAnalyser atrAnalyser;
+  private final TradingCircuitBreaker circuitBreaker;
+  private final IndicatorCache indicatorCache;
+
+  @Value("${trading.cooldown.minutes:15}")
+  int tradeCooldownMinutes;
+
+  @Value("${backtesting.trading-fee:0.0026}")
+  double simulatedTradingFee;
+
+  @Value("${backtesting.portfolio.incremental-indicators:true}")
+  boolean incrementalIndicators;
+
+  /**
+   * Runs the best strategy of every coin on the shared capital.
+   *
+   * @param barsByCoin          candles per coin, sorted by end time
+   * @param period              candle period in minutes
+   * @param initialCapital      capital shared by all coins
+   * @param minimumOrderVolumes minimum order volume per coin, coins without an entry have none
+   * @return portfolio level result
+   */
+  public PortfolioBacktestResult runSimulation(Map<String, List<Bar>> barsByCoin, int period,
+      double initialCapital, Map<String, Double> minimumOrderVolumes) {
+    var coins = barsByCoin.keySet().toArray(String[]::new);
+    var simulation = new Simulation(coins, period, initialCapital);
+    for (int c = 0; c < coins.length; c++) {
+      var strategy = strategySelector.getBestStrategyForCoin(coins[c]);
+      simulation.addCoin(c, barsByCoin.get(coins[c]), strategy,
+          TimeFrameAdjustmentUtils.adjustTimeFrame(strategy.getStrategyParameters(coins[c]),
+              period),
+          minimumOrderVolumes.getOrDefault(coins[c], 0.0));
+    }
+    long start = System.currentTimeMillis();
+    var scopes = new ArrayList<IncrementalSeries>(coins.length);
+    PortfolioBacktestResult result;
+    try {
+      if (incrementalIndicators) {
+        for (String coin : coins) {
+          scopes.add(indicatorCache.shareSeriesIncrementally(barsByCoin.get(coin)));
+        }
+      }
+      result = simulation.run();
+    } finally {
+      scopes.forEach(IncrementalSeries::close);
+    }
+    log.info("Simulated {} coins with {} bars in {} ms: {}", coins.length, result.processedBars(),
+        System.currentTimeMillis() - start, result);
+    return result;
+  }
+
+  /**
+   * State of one portfolio simulation, indexed by coin.
+   */
+  private class Simulation {
+
+    private final String[] coins;
+    private final int period;
+    private final double initialCapital;
+    private final SimulationClock clock = new SimulationClock();
+    private final TradingCircuitBreaker coinCircuitBreaker;
+
+    private final List<Bar>[] bars;
+    private final long[][] endTimes;
+    private final double[][] closePrices;
+    private final Strategy[] strategies;
+    private final StrategyParameters[] parameters;
+    private final double[] minimumOrderVolumes;
+
+    private final int[] cursors;
+    private final double[] lastClose;
+    private final boolean[] inPosition;
+    private final double[] entryPrices;
+    private final double[] positionSizes;
+    private final long[] lastTradeTimes;
+    private final int[] tradesPerCoin;
+
+    private double cash;
+    private int coinsNotInTrade;
+    private int closedTrades;
+    private int wins;
+    private double[] equity = new double[1024];
+    private int equitySamples;
+
+    @SuppressWarnings("unchecked")
+    Simulation(String[] coins, int period, double initialCapital) {
+      this.coins = coins;
+      this.period = period;
+      this.initialCapital = initialCapital;
+      this.coinCircuitBreaker = circuitBreaker.isolatedCopy(clock);
+      int n = coins.length;
+      bars = new List[n];
+      endTimes = new long[n][];
+      closePrices = new double[n][];
+      strategies = new Strategy[n];
+      parameters = new StrategyParameters[n];
+      minimumOrderVolumes = new double[n];
+      cursors = new int[n];
+      lastClose = new double[n];
+      inPosition = new boolean[n];
+      entryPrices = new double[n];
+      positionSizes = new double[n];
+      lastTradeTimes = new long[n];
+      tradesPerCoin = new int[n];
+      cash = initialCapital;
+      coinsNotInTrade = n;
+    }
+
+    void addCoin(int c, List<Bar> coinBars, Strategy strategy, StrategyParameters params,
+        double minimumOrderVolume) {
+      bars[c] = coinBars;
+      endTimes[c] = new long[coinBars.size()];
+      closePrices[c] = new double[coinBars.size()];
+      for (int i = 0; i < coinBars.size(); i++) {
+        var bar = coinBars.get(i);
+        endTimes[c][i] = bar.getEndTime().toInstant().toEpochMilli();
+        closePrices[c][i] = bar.getClosePrice().doubleValue();
+      }
+      strategies[c] = strategy;
+      parameters[c] = params;
+      minimumOrderVolumes[c] = minimumOrderVolume;
+    }
+
+    PortfolioBacktestResult run() {
+      // k-way merge: the queue holds each coin once, keyed by the end time of its next bar
+      var queue = new PriorityQueue<Integer>(Math.max(1, coins.length),
+          Comparator.<Integer>comparingLong(c -> endTimes[c][cursors[c]])
+              .thenComparingInt(c -> c));
+      for (int c = 0; c < coins.length; c++) {
+        if (endTimes[c].length > 0) {
+          queue.add(c);
+        }
+      }
+
+      long processedBars = 0;
+      long currentTime = Long.MIN_VALUE;
+      while (!queue.isEmpty()) {
+        int c = queue.poll();
+        int i = cursors[c];
+        long time = endTimes[c][i];
+        if (time != currentTime) {
+          if (currentTime != Long.MIN_VALUE) {
+            sampleEquity();
+          }
+          currentTime = time;
+          clock.setInstant(Instant.ofEpochMilli(time));
+        }
+        lastClose[c] = closePrices[c][i];
+        if (i >= parameters[c].minimumCandles()) {
+          processBar(c, i, time);
+        }
+        processedBars++;
+        if (++cursors[c] < endTimes[c].length) {
+          queue.add(c);
+        }
+      }
+      if (currentTime != Long.MIN_VALUE) {
+        sampleEquity();
+      }
+
+      var perCoin = new LinkedHashMap<String, Integer>();
+      int totalTrades = 0;
+      for (int c = 0; c < coins.length; c++) {
+        perCoin.put(coins[c], tradesPerCoin[c]);
+        totalTrades += tradesPerCoin[c];
+      }
+      double finalEquity = equitySamples > 0 ? equity[equitySamples - 1] : initialCapital;
+      return PortfolioBacktestResult.builder()
+          .totalReturn((finalEquity - initialCapital) / initialCapital * 100)
+          .sharpeRatio(PerformanceMetrics.sharpeRatio(equity, equitySamples,
+              MINUTES_PER_YEAR / period))
+          .maxDrawdown(PerformanceMetrics.maxDrawdown(equity, equitySamples))
+          .totalTrades(totalTrades)
+          .closedTrades(closedTrades)
+          .winRate(closedTrades > 0 ? wins / (double) closedTrades : 0)
+          .finalEquity(finalEquity)
+          .processedBars(processedBars)
+          .tradesPerCoin(perCoin)
+          .incrementalIndicators(incrementalIndicators)
+          .build();
+    }
+
+    private void processBar(int c, int i, long time) {
+      var coin = coins[c];
+      if (!coinCircuitBreaker.canTrade(coin)) {
+        return;
+      }
+      if (lastTradeTimes[c] != 0
+          && time - lastTradeTimes[c] < tradeCooldownMinutes * 60_000L) {
+        return;
+      }
+
+      var params = parameters[c];
+      var window = bars[c].subList(i - params.minimumCandles(), i);
+      var evaluationContext = EvaluationContext.builder().symbol(coin).bars(window).build();
+      var strategy = strategies[c];
+      boolean buySignal = strategy.shouldBuy(evaluationContext, params);
+      boolean sellSignal = inPosition[c]
+          && strategy.shouldSell(evaluationContext, entryPrices[c], params);
+      if (buySignal && sellSignal) {
+        return;
+      }
+
+      double price = closePrices[c][i];
+      if (!inPosition[c] && buySignal) {
+        buy(c, window, price, time);
+      } else if (inPosition[c] && (sellSignal || i == endTimes[c].length - 1)) {
+        sell(c, price, time);
+      }
+    }
+
+    private void buy(int c, List<Bar> window, double price, long time) {
+      double minVolume = minimumOrderVolumes[c];
+      double allocation = CapitalAllocation.allocate(cash, coinsNotInTrade, minVolume * price);
+      double atrPercent = atrAnalyser.calculateATR(window, parameters[c].atrPeriod()) / price * 100;
+      double fraction = CapitalAllocation.volatilityAdjustedFraction(atrPercent)
+          * (1 - simulatedTradingFee * 2);
+      double positionSize = Math.max(allocation * fraction / price, minVolume);
+      double cost = positionSize * price * (1 + simulatedTradingFee);
+      if (cost > cash || positionSize <= 0) {
+        // The exchange would reject the order for insufficient funds
+        return;
+      }
+      cash -= cost;
+      inPosition[c] = true;
+      entryPrices[c] = cost / positionSize;
+      positionSizes[c] = positionSize;
+      coinsNotInTrade--;
+      recordTrade(c, time);
+    }
+
+    private void sell(int c, double price, long time) {
+      double proceeds = positionSizes[c] * price * (1 - simulatedTradingFee);
+      double cost = positionSizes[c] * entryPrices[c];
+      double profit = (proceeds - cost) / cost * 100;
+      cash += proceeds;
+      inPosition[c] = false;
+      positionSizes[c] = 0;
+      coinsNotInTrade++;
+      closedTrades++;
+      if (profit > 0) {
+        wins++;
+      }
+      coinCircuitBreaker.recordTradeResult(coins[c], profit);
+      recordTrade(c, time);
+    }
+
+    private void recordTrade(int c, long time) {
+      tradesPerCoin[c]++;
+      lastTradeTimes[c] = time;
+    }
+
+    private void sampleEquity() {
+      double value = cash;
+      for (int c = 0; c < coins.length; c++) {
+        if (inPosition[c]) {
+          value += positionSizes[c] * lastClose[c];
+        }
+      }
+      if (equitySamples == equity.length) {
+        equity = Arrays.copyOf(equity, equity.length * 2);
+      }
+      equity[equitySamples++] = value;
+    }
+  }
+}
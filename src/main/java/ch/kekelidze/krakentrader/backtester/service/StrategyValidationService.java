@@ -0,0 +1,215 @@
+package ch.kekelidze.krakentrader.backtester.service;
+
+import ch.kekelidze.krakentrader.api.HistoricalDataService;
+import ch.kekelidze.krakentrader.backtester.service.dto.BacktestResult;
+import ch.kekelidze.krakentrader.backtester.service.dto.PortfolioBacktestResult;
+import ch.kekelidze.krakentrader.strategy.dto.EvaluationContext;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZonedDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.ta4j.core.Bar;
+
+/**
+ * Backtests the best strategy of several coins concurrently on a bounded thread pool.
+ * <p>
+ * Every finished coin is appended to a progress file right away, one line per coin. A run that is
+ * interrupted can be resumed with the same progress file, coins already in the file are not
+ * simulated again.
+ * <p>
+ * {@link #validatePortfolio} additionally runs all coins together on one shared capital.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StrategyValidationService {
+
+  private static final String FIELD_SEPARATOR = ";";
+
+  private final HistoricalDataService historicalDataService;
+  private final BackTesterService backTesterService;
+  private final PortfolioBackTesterService portfolioBackTesterService;
+
+  // Number of coins simulated at the same time, 0 uses all available processors
+  @Value("${backtesting.validation.parallelism:0}")
+  int parallelism;
+
+  // Losing trades trip a circuit breaker like in the live trader
+  @Value("${backtesting.validation.simulate-circuit-breaker:true}")
+  boolean simulateCircuitBreaker;
+
+  /**
+   * Loads the candles of the coins between the given dates, to be validated per coin with
+   * {@link #validate} and together with {@link #validatePortfolio}.
+   *
+   * @param coins     coins to load
+   * @param period    candle period in minutes
+   * @param startDate first candle end time included
+   * @param endDate   last candle end time included
+   * @return candles per coin in the order of the given coins
+   */
+  public Map<String, List<Bar>> loadBars(List<String> coins, int period,
+      ZonedDateTime startDate, ZonedDateTime endDate) {
+    var historicalData = historicalDataService.queryHistoricalData(coins, period);
+    var barsByCoin = new LinkedHashMap<String, List<Bar>>();
+    coins.forEach(coin -> barsByCoin.put(coin,
+        filterBars(historicalData.get(coin), startDate, endDate)));
+    return barsByCoin;
+  }
+
+  /**
+   * Validates every coin on its own candles.
+   *
+   * @param barsByCoin     candles per coin, see {@link #loadBars}
+   * @param period         candle period in minutes
+   * @param initialCapital capital of every simulation
+   * @param progressFile   file the results are appended to and resumed from
+   * @return results per coin in the order of the given coins
+   */
+  public Map<String, BacktestResult> validate(Map<String, List<Bar>> barsByCoin, int period,
+      double initialCapital, Path progressFile) {
+    var coins = List.copyOf(barsByCoin.keySet());
+    var results = new ConcurrentHashMap<>(loadProgress(progressFile));
+    var pendingCoins = coins.stream().filter(coin -> !results.containsKey(coin)).toList();
+    if (!results.isEmpty()) {
+      log.info("Resuming validation from {}, {} of {} coins already done", progressFile,
+          coins.size() - pendingCoins.size(), coins.size());
+    }
+
+    if (!pendingCoins.isEmpty()) {
+      int numThreads = Math.min(parallelism > 0 ? parallelism
+          : Runtime.getRuntime().availableProcessors(), pendingCoins.size());
+      var completed = new AtomicInteger(coins.size() - pendingCoins.size());
+      long start = System.currentTimeMillis();
+      log.info("Validating {} coins on {} threads", pendingCoins.size(), numThreads);
+
+      // The executor is closed first, so running coins finish before the progress file is closed
+      try (var progressWriter = openProgressFile(progressFile);
+          ExecutorService executor = Executors.newFixedThreadPool(numThreads)) {
+        List<CompletableFuture<Void>> futures = pendingCoins.stream()
+            .map(coin -> CompletableFuture.supplyAsync(() -> {
+              var bars = barsByCoin.get(coin);
+              log.info("Validating strategy for {} on {} candles", coin, bars.size());
+              var evaluationContext = EvaluationContext.builder()
+                  .symbol(coin)
+                  .period(period)
+                  .bars(bars)
+                  .build();
+              return backTesterService.runSimulation(evaluationContext, initialCapital,
+                  simulateCircuitBreaker);
+            }, executor)
+            .thenAccept(result -> {
+              results.put(coin, result);
+              appendProgress(progressWriter, coin, result);
+              log.info("[{}/{}] Trade result for {} after {} s: {}", completed.incrementAndGet(),
+                  coins.size(), coin, (System.currentTimeMillis() - start) / 1000, result);
+            }))
+            .toList();
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+      } catch (IOException e) {
+        throw new UncheckedIOException("Failed to write validation progress " + progressFile, e);
+      }
+    }
+
+    var orderedResults = new LinkedHashMap<String, BacktestResult>();
+    coins.forEach(coin -> orderedResults.put(coin, results.get(coin)));
+    return orderedResults;
+  }
+
+  /**
+   * Backtests the coins together on one shared capital.
+   *
+   * @param barsByCoin          candles per coin, see {@link #loadBars}
+   * @param period              candle period in minutes
+   * @param initialCapital      capital shared by all coins
+   * @param minimumOrderVolumes minimum order volume per coin, coins without an entry have none
+   * @return portfolio level result
+   */
+  public PortfolioBacktestResult validatePortfolio(Map<String, List<Bar>> barsByCoin, int period,
+      double initialCapital, Map<String, Double> minimumOrderVolumes) {
+    log.info("Validating portfolio of {} coins", barsByCoin.size());
+    return portfolioBackTesterService.runSimulation(barsByCoin, period, initialCapital,
+        minimumOrderVolumes);
+  }
+
+  private static List<Bar> filterBars(List<Bar> bars, ZonedDateTime startDate,
+      ZonedDateTime endDate) {
+    return bars.stream()
+        .filter(bar -> !bar.getEndTime().isBefore(startDate))
+        .filter(bar -> !bar.getEndTime().isAfter(endDate))
+        .toList();
+  }
+
+  private static BufferedWriter openProgressFile(Path progressFile) throws IOException {
+    if (progressFile.getParent() != null) {
+      Files.createDirectories(progressFile.getParent());
+    }
+    return Files.newBufferedWriter(progressFile, StandardCharsets.UTF_8,
+        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+  }
+
+  private static void appendProgress(BufferedWriter writer, String coin, BacktestResult result) {
+    var line = String.join(FIELD_SEPARATOR, coin,
+        Double.toString(result.totalProfit()),
+        Integer.toString(result.totalTrades()),
+        Double.toString(result.sharpeRatio()),
+        Double.toString(result.maxDrawdown()),
+        Double.toString(result.winRate()),
+        Double.toString(result.capital()));
+    // Lines are flushed one by one so an interrupted run loses at most the running coins
+    synchronized (writer) {
+      try {
+        writer.write(line);
+        writer.newLine();
+        writer.flush();
+      } catch (IOException e) {
+        throw new UncheckedIOException("Failed to record validation result of " + coin, e);
+      }
+    }
+  }
+
+  static Map<String, BacktestResult> loadProgress(Path progressFile) {
+    var results = new LinkedHashMap<String, BacktestResult>();
+    if (!Files.exists(progressFile)) {
+      return results;
+    }
+    try {
+      for (String line : Files.readAllLines(progressFile, StandardCharsets.UTF_8)) {
+        var fields = line.split(FIELD_SEPARATOR);
+        try {
+          results.put(fields[0], BacktestResult.builder()
+              .totalProfit(Double.parseDouble(fields[1]))
+              .totalTrades(Integer.parseInt(fields[2]))
+              .sharpeRatio(Double.parseDouble(fields[3]))
+              .maxDrawdown(Double.parseDouble(fields[4]))
+              .winRate(Double.parseDouble(fields[5]))
+              .capital(Double.parseDouble(fields[6]))
+              .build());
+        } catch (RuntimeException e) {
+          // A line cut off by an interrupted write, the coin is simulated again
+          log.warn("Skipping incomplete validation progress line: {}", line);
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read validation progress " + progressFile, e);
+    }
+    return results;
+  }
+}
@@ -2,8 +2,14 @@ package ch.kekelidze.krakentrader.backtester.service.dto;
 
 import lombok.Builder;
 
+/**
+ * Aggregate result of a backtest. The trade log is only set by a simulation, results restored from
+ * a report do not have one. A pruned result covers only the bars simulated before a pruning policy
+ * stopped the backtest, its capital includes the open position at the last simulated price.
+ */
 @Builder
 public record BacktestResult(double totalProfit, int totalTrades, double sharpeRatio,
-                             double maxDrawdown, double winRate, double capital) {
+                             double maxDrawdown, double winRate, double capital,
+                             TradeLog tradeLog, boolean pruned) {
 
 }
@@ -0,0 +1,32 @@
+package ch.kekelidze.krakentrader.backtester.service.dto;
+
+import java.util.List;
+import lombok.Builder;
+
+/**
+ * Distributions of a Monte Carlo resampling of backtest trades. Returns and drawdowns are in
+ * percent of the starting equity.
+ *
+ * @param simulations       number of resampled trade sequences
+ * @param trades            trades per sequence, the number of trades of the backtest
+ * @param blockSize         length of the resampled blocks, 1 for the plain bootstrap
+ * @param totalReturn       distribution of the compounded return
+ * @param maxDrawdown       distribution of the largest drawdown
+ * @param probabilityOfLoss share of sequences ending below the starting equity
+ * @param equityBands       return percentiles after a growing number of trades
+ */
+@Builder
+public record MonteCarloResult(int simulations, int trades, int blockSize,
+                               Distribution totalReturn, Distribution maxDrawdown,
+                               double probabilityOfLoss, List<PercentileBand> equityBands) {
+
+  public record Distribution(double mean, double p5, double p25, double p50, double p75,
+                             double p95) {
+
+  }
+
+  public record PercentileBand(int trade, double p5, double p25, double p50, double p75,
+                               double p95) {
+
+  }
+}
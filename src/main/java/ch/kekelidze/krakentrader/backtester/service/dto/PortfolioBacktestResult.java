@@ -0,0 +1,27 @@
+package ch.kekelidze.krakentrader.backtester.service.dto;
+
+import java.util.Map;
+import lombok.Builder;
+
+/**
+ * Result of a simulation of several coins sharing one capital. Sharpe ratio and drawdown are
+ * computed from the portfolio equity, sampled once per candle timestamp.
+ *
+ * @param totalReturn           return of the portfolio equity in percent
+ * @param totalTrades           executed buy and sell orders
+ * @param closedTrades          positions opened and closed again
+ * @param winRate               share of closed positions with a profit
+ * @param processedBars         candles of all coins processed
+ * @param tradesPerCoin         executed orders per coin
+ * @param incrementalIndicators whether indicators were warmed up over the whole history instead
+ *                              of each window, the results are then not comparable to those of
+ *                              the per coin backtest
+ */
+@Builder
+public record PortfolioBacktestResult(double totalReturn, double sharpeRatio, double maxDrawdown,
+                                      int totalTrades, int closedTrades, double winRate,
+                                      double finalEquity, long processedBars,
+                                      Map<String, Integer> tradesPerCoin,
+                                      boolean incrementalIndicators) {
+
+}
@@ -0,0 +1,66 @@
+package ch.kekelidze.krakentrader.backtester.service.dto;
+
+import java.util.Arrays;
+
+/**
+ * Closed trades of a backtest in primitive arrays, compact enough to keep with every result and to
+ * resample many times. A trade's return is relative to the equity when the position was opened, so
+ * the returns of consecutive trades compound to the equity curve of the backtest.
+ */
+public final class TradeLog {
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  private long[] entryTimes = new long[INITIAL_CAPACITY];
+  private long[] exitTimes = new long[INITIAL_CAPACITY];
+  private double[] returns = new double[INITIAL_CAPACITY];
+  private int size;
+
+  /**
+   * Appends a closed trade.
+   *
+   * @param entryTime    epoch millis the position was opened
+   * @param exitTime     epoch millis the position was closed
+   * @param equityReturn profit of the trade as fraction of the equity at entry, e.g. 0.01 for 1%
+   */
+  public void add(long entryTime, long exitTime, double equityReturn) {
+    if (size == returns.length) {
+      int capacity = size * 2;
+      entryTimes = Arrays.copyOf(entryTimes, capacity);
+      exitTimes = Arrays.copyOf(exitTimes, capacity);
+      returns = Arrays.copyOf(returns, capacity);
+    }
+    entryTimes[size] = entryTime;
+    exitTimes[size] = exitTime;
+    returns[size] = equityReturn;
+    size++;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public long entryTime(int trade) {
+    return entryTimes[trade];
+  }
+
+  public long exitTime(int trade) {
+    return exitTimes[trade];
+  }
+
+  public double equityReturn(int trade) {
+    return returns[trade];
+  }
+
+  /**
+   * @return copy of the trade returns in trade order
+   */
+  public double[] equityReturns() {
+    return Arrays.copyOf(returns, size);
+  }
+
+  @Override
+  public String toString() {
+    return "TradeLog[trades=" + size + "]";
+  }
+}
@@ -0,0 +1,95 @@
+package ch.kekelidze.krakentrader.backtester.util;
+
+/**
+ * Performance metrics computed from an equity curve sampled once per period. The curve is a
+ * primitive array, so long portfolio simulations do not box every sample.
+ */
+public final class PerformanceMetrics {
+
+  public static final int PERIODS_PER_YEAR = 365 * 24;
+  private static final double RISK_FREE_RATE = 0.02;
+
+  private PerformanceMetrics() {
+  }
+
+  /**
+   * Mean of the returns between consecutive samples, periods starting at zero equity are skipped.
+   *
+   * @param equity equity curve
+   * @param length number of valid samples in the array
+   */
+  public static double meanReturn(double[] equity, int length) {
+    double sum = 0;
+    int count = 0;
+    for (int i = 1; i < length; i++) {
+      if (equity[i - 1] != 0) {
+        sum += (equity[i] - equity[i - 1]) / equity[i - 1];
+        count++;
+      }
+    }
+    return count == 0 ? 0.0 : sum / count;
+  }
+
+  /**
+   * Annualized Sharpe ratio of hourly periodic returns with a 2% risk-free rate.
+   *
+   * @param equity equity curve
+   * @param length number of valid samples in the array
+   */
+  public static double sharpeRatio(double[] equity, int length) {
+    return sharpeRatio(equity, length, PERIODS_PER_YEAR);
+  }
+
+  /**
+   * Annualized Sharpe ratio of the periodic returns with a 2% risk-free rate.
+   *
+   * @param equity         equity curve
+   * @param length         number of valid samples in the array
+   * @param periodsPerYear number of samples per year
+   */
+  public static double sharpeRatio(double[] equity, int length, int periodsPerYear) {
+    double meanReturn = meanReturn(equity, length);
+    double sumSquaredDiff = 0;
+    int count = 0;
+    for (int i = 1; i < length; i++) {
+      if (equity[i - 1] != 0) {
+        double diff = (equity[i] - equity[i - 1]) / equity[i - 1] - meanReturn;
+        sumSquaredDiff += diff * diff;
+        count++;
+      }
+    }
+    double stdDev = Math.sqrt(sumSquaredDiff / count);
+    if (stdDev == 0) {
+      return 0.0;
+    }
+    double annualizedMean = meanReturn * periodsPerYear;
+    double annualizedStdDev = stdDev * Math.sqrt(periodsPerYear);
+    return (annualizedMean - RISK_FREE_RATE) / annualizedStdDev;
+  }
+
+  /**
+   * Largest decline from a running peak in percent.
+   *
+   * @param equity equity curve
+   * @param length number of valid samples in the array
+   */
+  public static double maxDrawdown(double[] equity, int length) {
+    if (length == 0) {
+      return 0;
+    }
+    double maxDrawdown = 0;
+    double peak = equity[0];
+    for (int i = 0; i < length; i++) {
+      double value = equity[i];
+      if (value > peak) {
+        peak = value;
+      } else {
+        double currentDrawdown = (peak - value) / peak * 100;
+        if (currentDrawdown > maxDrawdown) {
+          maxDrawdown = currentDrawdown;
+        }
+      }
+    }
+    return maxDrawdown;
+  }
+}
@@ -0,0 +1,48 @@
+package ch.kekelidze.krakentrader.backtester.util;
+
+import ch.kekelidze.krakentrader.backtester.service.dto.BacktestResult;
+import java.util.function.Predicate;
+
+/**
+ * Decides whether a backtest is hopeless and can stop before the last bar. A pruned backtest
+ * returns the result of the bars simulated so far, flagged as {@link BacktestResult#pruned()}.
+ */
+@FunctionalInterface
+public interface PruningPolicy {
+
+  PruningPolicy NONE = progress -> false;
+
+  /**
+   * Called before every bar, expensive checks should only run at a checkpoint.
+   *
+   * @param progress state of the running backtest
+   * @return true to stop the backtest
+   */
+  boolean shouldPrune(SimulationProgress progress);
+
+  default PruningPolicy or(PruningPolicy other) {
+    return progress -> shouldPrune(progress) || other.shouldPrune(progress);
+  }
+
+  /**
+   * Stops as soon as the drawdown exceeds the given percentage.
+   */
+  static PruningPolicy maxDrawdown(double maxDrawdownPercent) {
+    return progress -> progress.drawdown() > maxDrawdownPercent;
+  }
+
+  /**
+   * Stops at the checkpoint if there were fewer trades than required by then.
+   */
+  static PruningPolicy minTrades(int minTrades, double checkpoint) {
+    return progress -> progress.isCheckpoint(checkpoint) && progress.trades() < minTrades;
+  }
+
+  /**
+   * Stops at the checkpoint if the result of the bars simulated so far is hopeless.
+   */
+  static PruningPolicy partialResult(double checkpoint, Predicate<BacktestResult> hopeless) {
+    return progress -> progress.isCheckpoint(checkpoint)
+        && hopeless.test(progress.partialResult().get());
+  }
+}
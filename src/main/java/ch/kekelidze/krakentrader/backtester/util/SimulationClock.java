@@ -0,0 +1,44 @@
+package ch.kekelidze.krakentrader.backtester.util;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+
+/**
+ * Clock of a single simulation, advanced to the end time of each bar so time based rules such as
+ * the circuit breaker timeout follow historical time instead of the wall clock.
+ */
+public class SimulationClock extends Clock {
+
+  private final ZoneId zone;
+  private Instant instant = Instant.EPOCH;
+
+  public SimulationClock() {
+    this(ZoneId.systemDefault());
+  }
+
+  private SimulationClock(ZoneId zone) {
+    this.zone = zone;
+  }
+
+  public void setInstant(Instant instant) {
+    this.instant = instant;
+  }
+
+  @Override
+  public Instant instant() {
+    return instant;
+  }
+
+  @Override
+  public ZoneId getZone() {
+    return zone;
+  }
+
+  @Override
+  public Clock withZone(ZoneId zone) {
+    var clock = new SimulationClock(zone);
+    clock.instant = instant;
+    return clock;
+  }
+}
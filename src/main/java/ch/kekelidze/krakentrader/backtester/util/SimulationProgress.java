@@ -0,0 +1,26 @@
+package ch.kekelidze.krakentrader.backtester.util;
+
+import ch.kekelidze.krakentrader.backtester.service.dto.BacktestResult;
+import java.util.function.Supplier;
+
+/**
+ * State of a running backtest before a bar is simulated, handed to a {@link PruningPolicy}.
+ *
+ * @param bar           index of the bar about to be simulated
+ * @param firstBar      index of the first simulated bar, the bars before it are warm-up
+ * @param totalBars     number of bars of the backtest
+ * @param trades        trades so far, buys and sells
+ * @param drawdown      current decline from the equity peak in percent
+ * @param partialResult computes the result of the bars simulated so far, expensive
+ */
+public record SimulationProgress(int bar, int firstBar, int totalBars, int trades,
+                                 double drawdown, Supplier<BacktestResult> partialResult) {
+
+  /**
+   * @param fraction share of the bars, e.g. 0.5 for the middle of the backtest
+   * @return whether this is the one bar at which the given share of the bars is reached
+   */
+  public boolean isCheckpoint(double fraction) {
+    return bar == Math.max(firstBar, (int) (totalBars * fraction));
+  }
+}
@@ -0,0 +1,32 @@
+package ch.kekelidze.krakentrader.batch;
+
+import ch.kekelidze.krakentrader.optimize.service.StrategyOptimizationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.stereotype.Component;
+
+/**
+ * Optimizes the coin of a partition and saves its best strategy. A coin that fails fails its
+ * partition only, the checkpoint it left behind lets the restarted partition resume it.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CoinOptimizationTasklet implements Tasklet {
+
+  private final StrategyOptimizationService optimizationService;
+
+  @Override
+  public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) {
+    var partition = contribution.getStepExecution().getExecutionContext();
+    var coinPair = partition.getString(CoinPartitioner.COIN_KEY);
+    int period = partition.getInt(CoinPartitioner.PERIOD_KEY);
+    log.info("Starting optimization partition of {}", coinPair);
+    optimizationService.optimizeCoinPair(coinPair, period);
+    return RepeatStatus.FINISHED;
+  }
+}
@@ -0,0 +1,37 @@
+package ch.kekelidze.krakentrader.batch;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+
+/**
+ * Splits an optimization run into one partition per coin. A partition is named after its coin, so
+ * a restarted run finds the partitions of the coins that already completed.
+ */
+@RequiredArgsConstructor
+public class CoinPartitioner implements Partitioner {
+
+  public static final String COIN_KEY = "coin";
+  public static final String PERIOD_KEY = "period";
+
+  private final List<String> coins;
+  private final int period;
+
+  /**
+   * Returns a partition per coin, the grid size is ignored.
+   */
+  @Override
+  public Map<String, ExecutionContext> partition(int gridSize) {
+    var partitions = new LinkedHashMap<String, ExecutionContext>();
+    for (String coin : coins) {
+      var context = new ExecutionContext();
+      context.putString(COIN_KEY, coin);
+      context.putInt(PERIOD_KEY, period);
+      partitions.put(coin, context);
+    }
+    return partitions;
+  }
+}
@@ -0,0 +1,30 @@
+package ch.kekelidze.krakentrader.batch;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.JobExecutionContext;
+import org.springframework.scheduling.quartz.QuartzJobBean;
+
+/**
+ * Quartz job launching the strategy optimization of the night. A night that is still running
+ * delays the next one instead of overlapping it.
+ */
+@Slf4j
+@DisallowConcurrentExecution
+public class NightlyOptimizationJob extends QuartzJobBean {
+
+  // Injected by the job factory when Quartz creates the job
+  @Setter
+  private OptimizationJobLauncher optimizationJobLauncher;
+
+  @Override
+  protected void executeInternal(JobExecutionContext context) {
+    var runDate = LocalDate.ofInstant(context.getScheduledFireTime().toInstant(),
+        ZoneId.systemDefault());
+    log.info("Starting nightly optimization of {}", runDate);
+    optimizationJobLauncher.launchNightly(runDate);
+  }
+}
@@ -0,0 +1,80 @@
+package ch.kekelidze.krakentrader.batch;
+
+import java.util.List;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.job.DefaultJobParametersValidator;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.support.transaction.ResourcelessTransactionManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+
+/**
+ * Strategy optimization as a Spring Batch job. The manager step partitions the coins of the run,
+ * every coin is optimized by a worker step on the task executor. The job repository stores the
+ * status of every partition: launched again with the same parameters after a failure, the job
+ * only runs the partitions that did not complete.
+ */
+@Configuration
+public class OptimizationJobConfig {
+
+  public static final String JOB_NAME = "strategyOptimizationJob";
+  public static final String COINS_PARAMETER = "coins";
+  public static final String PERIOD_PARAMETER = "period";
+  // Makes every nightly run a new job instance, a run of the same day restarts it
+  public static final String RUN_DATE_PARAMETER = "runDate";
+
+  // Coins optimized at the same time, their backtests share the threads of the scheduler
+  @Value("${optimization.batch.concurrency:2}")
+  int concurrency;
+
+  @Bean
+  public Job strategyOptimizationJob(JobRepository jobRepository, Step strategyOptimizationStep) {
+    return new JobBuilder(JOB_NAME, jobRepository)
+        .validator(new DefaultJobParametersValidator(
+            new String[]{COINS_PARAMETER, PERIOD_PARAMETER, RUN_DATE_PARAMETER}, new String[0]))
+        .start(strategyOptimizationStep)
+        .build();
+  }
+
+  @Bean
+  public Step strategyOptimizationStep(JobRepository jobRepository, Partitioner coinPartitioner,
+      Step coinOptimizationStep) {
+    return new StepBuilder("strategyOptimizationStep", jobRepository)
+        .partitioner(coinOptimizationStep.getName(), coinPartitioner)
+        .step(coinOptimizationStep)
+        .taskExecutor(optimizationTaskExecutor())
+        .build();
+  }
+
+  @Bean
+  public Step coinOptimizationStep(JobRepository jobRepository,
+      CoinOptimizationTasklet coinOptimizationTasklet) {
+    // A coin runs for hours, its parameters are saved in their own transaction instead of one
+    // spanning the whole optimization
+    return new StepBuilder("coinOptimizationStep", jobRepository)
+        .tasklet(coinOptimizationTasklet, new ResourcelessTransactionManager())
+        .build();
+  }
+
+  @Bean
+  @StepScope
+  public Partitioner coinPartitioner(@Value("#{jobParameters['coins']}") String coins,
+      @Value("#{jobParameters['period']}") Long period) {
+    return new CoinPartitioner(List.of(coins.split(",")), period.intValue());
+  }
+
+  // Not a bean, so it isn't picked up as the application task executor
+  private TaskExecutor optimizationTaskExecutor() {
+    var taskExecutor = new SimpleAsyncTaskExecutor("optimization-batch-");
+    taskExecutor.setConcurrencyLimit(Math.max(1, concurrency));
+    return taskExecutor;
+  }
+}
@@ -0,0 +1,78 @@
+package ch.kekelidze.krakentrader.batch;
+
+import static ch.kekelidze.krakentrader.batch.OptimizationJobConfig.COINS_PARAMETER;
+import static ch.kekelidze.krakentrader.batch.OptimizationJobConfig.PERIOD_PARAMETER;
+import static ch.kekelidze.krakentrader.batch.OptimizationJobConfig.RUN_DATE_PARAMETER;
+
+import java.time.LocalDate;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecutionException;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
+import org.springframework.batch.core.repository.JobInstanceAlreadyCompleteException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Launches the strategy optimization job. A run is identified by its coins, period and run date:
+ * launching a run that failed restarts its unfinished partitions, launching a completed run does
+ * nothing.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OptimizationJobLauncher {
+
+  private final JobLauncher jobLauncher;
+  private final Job strategyOptimizationJob;
+
+  @Value("${optimization.batch.coins:}")
+  String coins;
+
+  @Value("${optimization.batch.period:60}")
+  int period;
+
+  /**
+   * Optimizes the configured coins for the night of the run date.
+   */
+  public BatchStatus launchNightly(LocalDate runDate) {
+    if (coins.isBlank()) {
+      log.warn("No coins configured for the nightly optimization, set optimization.batch.coins");
+      return BatchStatus.ABANDONED;
+    }
+    return launch(List.of(coins.split(",")), period, runDate);
+  }
+
+  /**
+   * Runs the optimization job and returns its status once it stopped.
+   */
+  public BatchStatus launch(List<String> coinPairs, int period, LocalDate runDate) {
+    var parameters = new JobParametersBuilder()
+        .addString(COINS_PARAMETER, String.join(",", coinPairs))
+        .addLong(PERIOD_PARAMETER, (long) period)
+        .addLocalDate(RUN_DATE_PARAMETER, runDate)
+        .toJobParameters();
+    try {
+      log.info("Launching optimization of {} coins for {}", coinPairs.size(), runDate);
+      var execution = jobLauncher.run(strategyOptimizationJob, parameters);
+      log.info("Optimization of {} for {} finished with status {}", coinPairs, runDate,
+          execution.getStatus());
+      return execution.getStatus();
+    } catch (JobInstanceAlreadyCompleteException e) {
+      log.info("Optimization of {} for {} already completed", coinPairs, runDate);
+      return BatchStatus.COMPLETED;
+    } catch (JobExecutionAlreadyRunningException e) {
+      log.warn("Optimization of {} for {} is still running", coinPairs, runDate);
+      return BatchStatus.STARTED;
+    } catch (JobExecutionException e) {
+      log.error("Failed to launch optimization of {} for {}: {}", coinPairs, runDate,
+          e.getMessage(), e);
+      return BatchStatus.FAILED;
+    }
+  }
+}
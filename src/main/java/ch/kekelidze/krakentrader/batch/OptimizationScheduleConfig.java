@@ -0,0 +1,40 @@
+package ch.kekelidze.krakentrader.batch;
+
+import org.quartz.CronScheduleBuilder;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers the nightly strategy optimization with the Quartz scheduler of Spring Boot.
+ */
+@Configuration
+public class OptimizationScheduleConfig {
+
+  // Quartz cron expression, with seconds
+  @Value("${optimization.batch.cron:0 0 2 * * ?}")
+  String cron;
+
+  @Bean
+  public JobDetail nightlyOptimizationJobDetail() {
+    return JobBuilder.newJob(NightlyOptimizationJob.class)
+        .withIdentity("nightlyOptimization")
+        .storeDurably()
+        .build();
+  }
+
+  @Bean
+  public Trigger nightlyOptimizationTrigger(JobDetail nightlyOptimizationJobDetail) {
+    // A run delayed by the previous night starts as soon as that one is done
+    return TriggerBuilder.newTrigger()
+        .forJob(nightlyOptimizationJobDetail)
+        .withIdentity("nightlyOptimizationTrigger")
+        .withSchedule(CronScheduleBuilder.cronSchedule(cron)
+            .withMisfireHandlingInstructionFireAndProceed())
+        .build();
+  }
+}
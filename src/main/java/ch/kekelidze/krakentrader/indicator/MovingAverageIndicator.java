@@ -1,8 +1,10 @@
 package ch.kekelidze.krakentrader.indicator;
 
+import ch.kekelidze.krakentrader.indicator.cache.IndicatorCache;
 import ch.kekelidze.krakentrader.indicator.configuration.StrategyParameters;
 import ch.kekelidze.krakentrader.strategy.dto.EvaluationContext;
 import java.util.List;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import org.ta4j.core.Bar;
@@ -13,36 +15,29 @@ import org.ta4j.core.indicators.helpers.ClosePriceIndicator;
 
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class MovingAverageIndicator implements Indicator {
 
+  private final IndicatorCache indicatorCache;
+
   @Override
   public boolean isBuySignal(EvaluationContext context, StrategyParameters params) {
     var data = context.getBars();
     var movingAverage = calculateMovingAverage(data, params.movingAverageBuyShortPeriod(),
         params.movingAverageBuyLongPeriod());
-    var maShort = movingAverage.maShort();
-    var maLong = movingAverage.maLong();
-    var endIndex = movingAverage.endIndex();
 
-    return endIndex > 0 &&
-        maShort.getValue(endIndex).isGreaterThan(maLong.getValue(endIndex)) &&
-        maShort.getValue(endIndex - 1).isLessThanOrEqual(maLong.getValue(endIndex - 1));
+    return movingAverage.maShort() > movingAverage.maLong() &&
+        movingAverage.previousMaShort() <= movingAverage.previousMaLong();
   }
 
   public boolean isMa50Below100(List<Bar> data) {
     var movingAverage = calculateMovingAverage(data, 50, 100);
-    var ma50 = movingAverage.maShort();
-    var ma100 = movingAverage.maLong();
-    var endIndex = movingAverage.endIndex();
-    return ma50.getValue(endIndex).isLessThan(ma100.getValue(endIndex));
+    return movingAverage.maShort() < movingAverage.maLong();
   }
 
   public boolean isMa100Below200(List<Bar> data) {
     var movingAverage = calculateMovingAverage(data, 100, 200);
-    var ma100 = movingAverage.maShort();
-    var ma200 = movingAverage.maLong();
-    var endIndex = movingAverage.endIndex();
-    return ma100.getValue(endIndex).isLessThan(ma200.getValue(endIndex));
+    return movingAverage.maShort() < movingAverage.maLong();
   }
 
   @Override
@@ -51,47 +46,73 @@ public class MovingAverageIndicator implements Indicator {
     var data = context.getBars();
     var movingAverage = calculateMovingAverage(data, params.movingAverageSellShortPeriod(),
         params.movingAverageSellLongPeriod());
-    var maShort = movingAverage.maShort();
-    var maLong = movingAverage.maLong();
-    var endIndex = movingAverage.endIndex();
 
-    return endIndex > 0 &&
-        maLong.getValue(endIndex).isGreaterThan(maShort.getValue(endIndex)) &&
-        maLong.getValue(endIndex - 1).isLessThanOrEqual(maShort.getValue(endIndex - 1));
+    return movingAverage.maLong() > movingAverage.maShort() &&
+        movingAverage.previousMaLong() <= movingAverage.previousMaShort();
 
   }
 
   public boolean isMa50GreaterThan100(List<Bar> data) {
     var movingAverage = calculateMovingAverage(data, 50, 100);
-    var ma50 = movingAverage.maShort();
-    var ma100 = movingAverage.maLong();
-    var endIndex = movingAverage.endIndex();
-    return ma50.getValue(endIndex).isGreaterThan(ma100.getValue(endIndex));
+    return movingAverage.maShort() > movingAverage.maLong();
   }
 
   public boolean isMa100GreaterThan200(List<Bar> data) {
     var movingAverage = calculateMovingAverage(data, 100, 200);
-    var ma100 = movingAverage.maShort();
-    var ma200 = movingAverage.maLong();
-    var endIndex = movingAverage.endIndex();
-    return ma100.getValue(endIndex).isGreaterThan(ma200.getValue(endIndex));
+    return movingAverage.maShort() > movingAverage.maLong();
   }
 
   public MovingAverage calculateMovingAverage(List<Bar> data, int shortPeriod, int longPeriod) {
     if (data.isEmpty()) {
       throw new IllegalArgumentException("No data available for the given coin and period.");
     }
+    var key = "ema:" + shortPeriod + ":" + longPeriod;
+    var seriesWindow = indicatorCache.findSeriesWindow(data);
+    if (seriesWindow != null) {
+      EmaPair emaPair = seriesWindow.series().getOrCreate(key, series -> {
+        var closePrice = new ClosePriceIndicator(series);
+        return new EmaPair(new EMAIndicator(closePrice, shortPeriod),
+            new EMAIndicator(closePrice, longPeriod));
+      });
+      return emaPair.valuesAt(seriesWindow.endIndex());
+    }
+    return indicatorCache.getOrCompute(data, key,
+        () -> computeMovingAverage(data, shortPeriod, longPeriod));
+  }
+
+  private static MovingAverage computeMovingAverage(List<Bar> data, int shortPeriod,
+      int longPeriod) {
     BarSeries series = new BaseBarSeriesBuilder().withBars(data).build();
     ClosePriceIndicator closePrice = new ClosePriceIndicator(series);
-    EMAIndicator maShort = new EMAIndicator(closePrice, shortPeriod);
-    EMAIndicator maLong = new EMAIndicator(closePrice, longPeriod);
+    var emaPair = new EmaPair(new EMAIndicator(closePrice, shortPeriod),
+        new EMAIndicator(closePrice, longPeriod));
     int endIndex = series.getEndIndex();
-    log.debug("MA short: {}, MA long: {}, Closing Time: {}", maShort.getValue(endIndex),
-        maLong.getValue(endIndex), data.get(endIndex).getEndTime());
-    return new MovingAverage(maShort, maLong, endIndex);
+    var movingAverage = emaPair.valuesAt(endIndex);
+    log.debug("MA short: {}, MA long: {}, Closing Time: {}", movingAverage.maShort(),
+        movingAverage.maLong(), data.get(endIndex).getEndTime());
+    return movingAverage;
+  }
+
+  /**
+   * Short and long EMA at the last candle and at the one before it. Only the values are kept, so
+   * memoizing them holds neither the bar series nor the indicators. The previous values are NaN
+   * for a single candle, so no crossover is detected on it.
+   */
+  public record MovingAverage(double maShort, double maLong, double previousMaShort,
+      double previousMaLong) {
+
   }
 
-  public record MovingAverage(EMAIndicator maShort, EMAIndicator maLong, int endIndex) {
+  private record EmaPair(EMAIndicator maShort, EMAIndicator maLong) {
 
+    MovingAverage valuesAt(int endIndex) {
+      return new MovingAverage(maShort.getValue(endIndex).doubleValue(),
+          maLong.getValue(endIndex).doubleValue(), valueAt(maShort, endIndex - 1),
+          valueAt(maLong, endIndex - 1));
+    }
+
+    private static double valueAt(EMAIndicator ema, int index) {
+      return index < 0 ? Double.NaN : ema.getValue(index).doubleValue();
+    }
   }
 }
@@ -1,9 +1,11 @@
 package ch.kekelidze.krakentrader.indicator;
 
+import ch.kekelidze.krakentrader.indicator.cache.IndicatorCache;
 import ch.kekelidze.krakentrader.indicator.configuration.StrategyParameters;
 import ch.kekelidze.krakentrader.strategy.dto.EvaluationContext;
 import java.util.ArrayList;
 import java.util.List;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import org.ta4j.core.Bar;
@@ -14,8 +16,11 @@ import org.ta4j.core.indicators.helpers.ClosePriceIndicator;
 
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class RsiIndicator implements Indicator {
 
+  private final IndicatorCache indicatorCache;
+
   @Override
   public boolean isBuySignal(EvaluationContext context, StrategyParameters params) {
     var data = context.getBars();
@@ -77,6 +82,17 @@ public class RsiIndicator implements Indicator {
     if (pricePeriods.isEmpty()) {
       throw new IllegalArgumentException("No data available for the given coin and period.");
     }
+    var seriesWindow = indicatorCache.findSeriesWindow(pricePeriods);
+    if (seriesWindow != null) {
+      RSIIndicator rsi = seriesWindow.series().getOrCreate("rsi:" + periods,
+          series -> new RSIIndicator(new ClosePriceIndicator(series), periods));
+      return rsi.getValue(seriesWindow.endIndex()).doubleValue();
+    }
+    return indicatorCache.getOrCompute(pricePeriods, "rsi:" + periods,
+        () -> computeRSI(pricePeriods, periods));
+  }
+
+  private static double computeRSI(List<Bar> pricePeriods, int periods) {
     BarSeries series = new BaseBarSeriesBuilder().withBars(pricePeriods).build();
     ClosePriceIndicator closePrice = new ClosePriceIndicator(series);
     RSIIndicator rsi = new RSIIndicator(closePrice, periods);
@@ -1,12 +1,18 @@
 package ch.kekelidze.krakentrader.indicator.analyser;
 
+import ch.kekelidze.krakentrader.indicator.cache.IndicatorCache;
 import java.util.List;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import org.ta4j.core.Bar;
+import org.ta4j.core.indicators.ATRIndicator;
 
 @Component
+@RequiredArgsConstructor
 public class AtrAnalyser {
 
+  private final IndicatorCache indicatorCache;
+
   /**
    * Calculates the Average True Range (ATR) using an exponential moving average, which is the more
    * standard approach used in trading.
@@ -16,6 +22,16 @@ public class AtrAnalyser {
    * @return The ATR value based on exponential moving average
    */
   public double calculateATR(List<Bar> data, int period) {
+    var seriesWindow = indicatorCache.findSeriesWindow(data);
+    if (seriesWindow != null) {
+      ATRIndicator atr = seriesWindow.series().getOrCreate("atr:" + period,
+          series -> new ATRIndicator(series, period));
+      return atr.getValue(seriesWindow.endIndex()).doubleValue();
+    }
+    return indicatorCache.getOrCompute(data, "atr:" + period, () -> computeATR(data, period));
+  }
+
+  private static double computeATR(List<Bar> data, int period) {
     // Get the initial ATR using SMA for the first 'period' bars
     double initialSum = 0;
     for (int i = 1; i < period; i++) {
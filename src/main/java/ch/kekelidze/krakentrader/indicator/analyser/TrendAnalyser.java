@@ -39,11 +39,10 @@ public class TrendAnalyser {
   public boolean isDowntrend(List<Bar> data, String symbol, StrategyParameters params) {
     var ma20ma50 = movingAverageIndicator.calculateMovingAverage(data,
         params.movingAverageBuyShortPeriod(), params.movingAverageBuyLongPeriod());
-    var endIndex = ma20ma50.endIndex();
-    var ma20 = ma20ma50.maShort().getValue(endIndex);
-    var ma50 = ma20ma50.maLong().getValue(endIndex);
+    var ma20 = ma20ma50.maShort();
+    var ma50 = ma20ma50.maLong();
     log.debug("Downtrend '{}' - MA20: {}, MA50: {}", symbol, ma20, ma50);
-    return ma20.isLessThan(ma50);
+    return ma20 < ma50;
   }
 
   public boolean hasBullishDivergence(EvaluationContext context, StrategyParameters params) {
@@ -0,0 +1,260 @@
+package ch.kekelidze.krakentrader.indicator.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.ta4j.core.Bar;
+import org.ta4j.core.BarSeries;
+import org.ta4j.core.BaseBarSeriesBuilder;
+
+/**
+ * Memoizes indicator values of candle lists that are evaluated by several strategy engines.
+ * <p>
+ * The market data bus registers a candle list with {@link #share(List)} before it hands the same
+ * list to every engine. Indicators computed on a shared list are stored per list identity, so a
+ * value the engines have in common, e.g. the RSI or ATR of the same period, is computed once per
+ * candle update. Lists are held by weak keys and drop out of the cache as soon as the dispatch is
+ * over.
+ * <p>
+ * Backtests evaluate windows of one long candle history, {@code bars.subList(i - n, i)} for every
+ * bar. A history registered with {@link #shareSeries(List)} memoizes the values of such windows by
+ * their position in the history, so the same window evaluated again, e.g. by another parameter set
+ * with the same indicator period or by an overlapping walk-forward window, reuses the value. Values
+ * of lists that were never shared are computed directly and not stored, so plain backtests and
+ * single strategy runs are not affected.
+ * <p>
+ * A history walked bar by bar in a single pass, as in the portfolio backtest, can instead be
+ * registered with {@link #shareSeriesIncrementally(List)}. Indicators that support it build their
+ * ta4j indicator once over the whole history and read it at the window's last bar, so each bar
+ * costs one incremental step instead of a computation over the full window.
+ */
+@Slf4j
+@Component
+public class IndicatorCache {
+
+  private static final int MAX_SHARED_SERIES = 1024;
+  private static final int MAX_WINDOW_VALUES = 500_000;
+
+  private final Cache<List<Bar>, Map<String, Object>> sharedSeries = Caffeine.newBuilder()
+      .weakKeys()
+      .maximumSize(MAX_SHARED_SERIES)
+      .build();
+
+  private final List<SeriesScope> seriesScopes = new CopyOnWriteArrayList<>();
+  // Bounded by count only, so window values must stay small, e.g. doubles instead of indicators
+  private final Cache<WindowKey, Object> windowValues = Caffeine.newBuilder()
+      .maximumSize(MAX_WINDOW_VALUES)
+      .build();
+
+  private final List<IncrementalSeries> incrementalSeries = new CopyOnWriteArrayList<>();
+
+  /**
+   * Registers a candle list whose indicator values should be memoized.
+   *
+   * @param bars candle list handed to several consumers, compared by identity
+   */
+  public void share(List<Bar> bars) {
+    sharedSeries.get(bars, key -> new ConcurrentHashMap<>());
+  }
+
+  /**
+   * Registers a candle history whose windows should be memoized until the returned scope is
+   * closed.
+   *
+   * @param series candle history, windows are recognized by the identity of their first and last
+   *               bar
+   * @return scope to close once the history is no longer evaluated
+   */
+  public SeriesScope shareSeries(List<Bar> series) {
+    var scope = new SeriesScope(series);
+    seriesScopes.add(scope);
+    log.debug("Memoizing indicator windows of {} candles", series.size());
+    return scope;
+  }
+
+  /**
+   * Registers a candle history that is evaluated window by window in chronological order until the
+   * returned scope is closed. Values read through {@link #findSeriesWindow(List)} include the
+   * history before the window, so smoothed indicators such as the RSI or the EMA are better warmed
+   * up than on the window alone. The registration is only visible to the calling thread, because
+   * ta4j indicators are not thread safe.
+   *
+   * @param series candle history sorted by end time, windows are recognized by the identity of
+   *               their last bar
+   * @return scope to close once the history is no longer evaluated
+   */
+  public IncrementalSeries shareSeriesIncrementally(List<Bar> series) {
+    var scope = new IncrementalSeries(series);
+    incrementalSeries.add(scope);
+    log.debug("Evaluating indicators incrementally over {} candles", series.size());
+    return scope;
+  }
+
+  /**
+   * Locates a window in a history registered by the current thread with
+   * {@link #shareSeriesIncrementally(List)}.
+   *
+   * @param bars window of candles
+   * @return the history and the index of the window's last bar in it, null if the window is not
+   * part of such a history
+   */
+  public SeriesWindow findSeriesWindow(List<Bar> bars) {
+    if (incrementalSeries.isEmpty() || bars.isEmpty()) {
+      return null;
+    }
+    for (var scope : incrementalSeries) {
+      if (scope.owner != Thread.currentThread()) {
+        continue;
+      }
+      Integer end = scope.positions.get(bars.getLast());
+      if (end != null) {
+        return new SeriesWindow(scope, end);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the memoized value of an indicator for a shared candle list or a window of a shared
+   * history, computing it on the first request. The value is computed without caching if neither
+   * applies.
+   *
+   * @param bars       the candle list the indicator is calculated on
+   * @param key        indicator name including all parameters that influence the value
+   * @param calculator computes the value on a cache miss
+   * @return the indicator value
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T getOrCompute(List<Bar> bars, String key, Supplier<T> calculator) {
+    var values = sharedSeries.getIfPresent(bars);
+    if (values == null) {
+      return getOrComputeWindow(bars, key, calculator);
+    }
+    var value = (T) values.get(key);
+    if (value == null) {
+      // Not computed inside the map, indicators may depend on other memoized indicators
+      value = calculator.get();
+      var existing = (T) values.putIfAbsent(key, value);
+      if (existing != null) {
+        value = existing;
+      } else {
+        log.trace("Memoized {} for shared series ending at {}", key, bars.getLast().getEndTime());
+      }
+    }
+    return value;
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> T getOrComputeWindow(List<Bar> bars, String key, Supplier<T> calculator) {
+    var windowKey = windowKey(bars, key);
+    if (windowKey == null) {
+      return calculator.get();
+    }
+    var value = (T) windowValues.getIfPresent(windowKey);
+    if (value == null) {
+      // Not computed inside the cache either, indicators may depend on other memoized indicators
+      value = calculator.get();
+      windowValues.put(windowKey, value);
+    }
+    return value;
+  }
+
+  private WindowKey windowKey(List<Bar> bars, String key) {
+    if (seriesScopes.isEmpty() || bars.isEmpty()) {
+      return null;
+    }
+    for (var scope : seriesScopes) {
+      Integer start = scope.positions.get(bars.getFirst());
+      if (start == null) {
+        continue;
+      }
+      Integer end = scope.positions.get(bars.getLast());
+      if (end != null && end == start + bars.size() - 1) {
+        return new WindowKey(scope, start, bars.size(), key);
+      }
+    }
+    return null;
+  }
+
+  private record WindowKey(SeriesScope scope, int start, int size, String key) {
+
+  }
+
+  /**
+   * Window of an incrementally evaluated history.
+   *
+   * @param series   the history
+   * @param endIndex index of the window's last bar in the history
+   */
+  public record SeriesWindow(IncrementalSeries series, int endIndex) {
+
+  }
+
+  /**
+   * A candle history evaluated incrementally, holding one ta4j indicator per key over the whole
+   * history.
+   */
+  public final class IncrementalSeries implements AutoCloseable {
+
+    private final Thread owner = Thread.currentThread();
+    private final Map<Bar, Integer> positions;
+    private final BarSeries barSeries;
+    private final Map<String, Object> indicators = new HashMap<>();
+
+    private IncrementalSeries(List<Bar> series) {
+      positions = new IdentityHashMap<>(series.size());
+      for (int i = 0; i < series.size(); i++) {
+        positions.put(series.get(i), i);
+      }
+      barSeries = new BaseBarSeriesBuilder().withBars(series).build();
+    }
+
+    /**
+     * Returns the indicator built over the whole history for the key, creating it on first use.
+     *
+     * @param key     indicator name including all parameters that influence the value
+     * @param factory builds the indicator on the history
+     * @return the indicator, read it at {@link SeriesWindow#endIndex()}
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getOrCreate(String key, Function<BarSeries, T> factory) {
+      return (T) indicators.computeIfAbsent(key, ignored -> factory.apply(barSeries));
+    }
+
+    @Override
+    public void close() {
+      incrementalSeries.remove(this);
+    }
+  }
+
+  /**
+   * A registered candle history, closing it drops the memoized values of its windows.
+   */
+  public final class SeriesScope implements AutoCloseable {
+
+    // Written only in the constructor, so concurrent lookups need no locking
+    private final Map<Bar, Integer> positions;
+
+    private SeriesScope(List<Bar> series) {
+      positions = new IdentityHashMap<>(series.size());
+      for (int i = 0; i < series.size(); i++) {
+        positions.put(series.get(i), i);
+      }
+    }
+
+    @Override
+    public void close() {
+      seriesScopes.remove(this);
+      windowValues.asMap().keySet().removeIf(windowKey -> windowKey.scope() == this);
+    }
+  }
+}
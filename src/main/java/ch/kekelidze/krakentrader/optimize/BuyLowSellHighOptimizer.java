@@ -3,6 +3,7 @@ package ch.kekelidze.krakentrader.optimize;
 import ch.kekelidze.krakentrader.backtester.service.BackTesterService;
 import ch.kekelidze.krakentrader.indicator.configuration.StrategyParameters;
 import ch.kekelidze.krakentrader.optimize.service.DataMassageService;
+import ch.kekelidze.krakentrader.optimize.util.OptimizationScheduler;
 import io.jenetics.Genotype;
 import io.jenetics.IntegerChromosome;
 import io.jenetics.IntegerGene;
@@ -15,8 +16,8 @@ import org.springframework.stereotype.Component;
 public class BuyLowSellHighOptimizer extends GeneticOptimizer {
 
   public BuyLowSellHighOptimizer(BackTesterService backTesterService,
-      DataMassageService dataMassageService) {
-    super(backTesterService, dataMassageService);
+      DataMassageService dataMassageService, OptimizationScheduler optimizationScheduler) {
+    super(backTesterService, dataMassageService, optimizationScheduler);
   }
 
   protected Codec<StrategyParameters, IntegerGene> createParameterCodec() {
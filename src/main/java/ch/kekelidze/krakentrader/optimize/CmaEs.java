@@ -0,0 +1,298 @@
+package ch.kekelidze.krakentrader.optimize;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * State of one (mu/mu_w, lambda) CMA-ES run maximizing a function on the unit cube
+ * {@code [0, 1]^n}, following Hansen's "The CMA Evolution Strategy: A Tutorial".
+ * <p>
+ * {@link #ask()} samples a generation from the current normal distribution and {@link #tell} moves
+ * the mean, step size and covariance matrix towards the best half of it. Samples outside the cube
+ * are evaluated at their nearest point inside it and ranked with a penalty proportional to the
+ * squared distance, so the distribution is pulled back inside the bounds.
+ */
+final class CmaEs {
+
+  // Penalty per squared distance outside the unit cube, in units of fitness
+  private static final double BOUND_PENALTY = 10.0;
+  private static final double MAX_CONDITION = 1e14;
+
+  private final int n;
+  private final int lambda;
+  private final int mu;
+  private final double[] weights;
+  private final double mueff;
+  private final double cc;
+  private final double cs;
+  private final double c1;
+  private final double cmu;
+  private final double damps;
+  private final double chiN;
+  private final SplittableRandom random;
+
+  private final double[] mean;
+  private double sigma;
+  private final double[][] c;
+  private final double[][] b;
+  private final double[] d;
+  private final double[] pc;
+  private final double[] ps;
+  private int generation;
+
+  // Steps of the last generation in the coordinates of the distribution, x = mean + sigma * y
+  private double[][] steps;
+
+  CmaEs(double[] initialMean, double initialSigma, int lambda, SplittableRandom random) {
+    this.n = initialMean.length;
+    this.lambda = lambda;
+    this.mu = lambda / 2;
+    this.random = random;
+
+    weights = new double[mu];
+    double sum = 0;
+    for (int i = 0; i < mu; i++) {
+      weights[i] = Math.log(mu + 0.5) - Math.log(i + 1);
+      sum += weights[i];
+    }
+    double sumSquares = 0;
+    for (int i = 0; i < mu; i++) {
+      weights[i] /= sum;
+      sumSquares += weights[i] * weights[i];
+    }
+    mueff = 1 / sumSquares;
+
+    cc = (4 + mueff / n) / (n + 4 + 2 * mueff / n);
+    cs = (mueff + 2) / (n + mueff + 5);
+    c1 = 2 / ((n + 1.3) * (n + 1.3) + mueff);
+    cmu = Math.min(1 - c1, 2 * (mueff - 2 + 1 / mueff) / ((n + 2) * (n + 2) + mueff));
+    damps = 1 + 2 * Math.max(0, Math.sqrt((mueff - 1) / (n + 1)) - 1) + cs;
+    chiN = Math.sqrt(n) * (1 - 1.0 / (4 * n) + 1.0 / (21.0 * n * n));
+
+    mean = initialMean.clone();
+    sigma = initialSigma;
+    c = new double[n][n];
+    b = new double[n][n];
+    d = new double[n];
+    for (int i = 0; i < n; i++) {
+      c[i][i] = 1;
+      b[i][i] = 1;
+      d[i] = 1;
+    }
+    pc = new double[n];
+    ps = new double[n];
+  }
+
+  /**
+   * Default population size for {@code n} dimensions.
+   */
+  static int defaultLambda(int n) {
+    return 4 + (int) Math.floor(3 * Math.log(n));
+  }
+
+  /**
+   * Samples the next generation, the points may lie outside the unit cube.
+   */
+  double[][] ask() {
+    steps = new double[lambda][n];
+    var points = new double[lambda][n];
+    var z = new double[n];
+    for (int k = 0; k < lambda; k++) {
+      for (int i = 0; i < n; i++) {
+        z[i] = d[i] * random.nextGaussian();
+      }
+      for (int i = 0; i < n; i++) {
+        double step = 0;
+        for (int j = 0; j < n; j++) {
+          step += b[i][j] * z[j];
+        }
+        steps[k][i] = step;
+        points[k][i] = mean[i] + sigma * step;
+      }
+    }
+    return points;
+  }
+
+  /**
+   * Updates the distribution with the fitness of the points returned by the last {@link #ask()},
+   * each evaluated at {@link #clamp its nearest point} in the unit cube.
+   */
+  void tell(double[][] points, double[] fitness) {
+    var penalized = new double[lambda];
+    for (int k = 0; k < lambda; k++) {
+      penalized[k] = fitness[k] - BOUND_PENALTY * squaredDistanceOutside(points[k]);
+    }
+    var ranking = IntStream.range(0, lambda).boxed()
+        .sorted(Comparator.comparingDouble((Integer k) -> penalized[k]).reversed())
+        .mapToInt(Integer::intValue)
+        .toArray();
+
+    // Weighted mean of the best mu steps
+    var meanStep = new double[n];
+    for (int i = 0; i < mu; i++) {
+      var step = steps[ranking[i]];
+      for (int j = 0; j < n; j++) {
+        meanStep[j] += weights[i] * step[j];
+      }
+    }
+    for (int j = 0; j < n; j++) {
+      mean[j] += sigma * meanStep[j];
+    }
+
+    // Evolution path of the step size uses C^(-1/2) * meanStep = B * D^(-1) * B^T * meanStep
+    var whitened = new double[n];
+    for (int i = 0; i < n; i++) {
+      double sum = 0;
+      for (int j = 0; j < n; j++) {
+        sum += b[j][i] * meanStep[j];
+      }
+      whitened[i] = sum / d[i];
+    }
+    double psFactor = Math.sqrt(cs * (2 - cs) * mueff);
+    for (int i = 0; i < n; i++) {
+      double sum = 0;
+      for (int j = 0; j < n; j++) {
+        sum += b[i][j] * whitened[j];
+      }
+      ps[i] = (1 - cs) * ps[i] + psFactor * sum;
+    }
+    generation++;
+    double psNorm = norm(ps);
+    boolean hsig = psNorm / Math.sqrt(1 - Math.pow(1 - cs, 2.0 * generation)) / chiN
+        < 1.4 + 2.0 / (n + 1);
+
+    double pcFactor = hsig ? Math.sqrt(cc * (2 - cc) * mueff) : 0;
+    for (int i = 0; i < n; i++) {
+      pc[i] = (1 - cc) * pc[i] + pcFactor * meanStep[i];
+    }
+
+    // Rank-one update from the evolution path and rank-mu update from the best steps
+    double oldWeight = 1 - c1 - cmu + (hsig ? 0 : c1 * cc * (2 - cc));
+    for (int i = 0; i < n; i++) {
+      for (int j = 0; j <= i; j++) {
+        double rankMu = 0;
+        for (int k = 0; k < mu; k++) {
+          var step = steps[ranking[k]];
+          rankMu += weights[k] * step[i] * step[j];
+        }
+        c[i][j] = oldWeight * c[i][j] + c1 * pc[i] * pc[j] + cmu * rankMu;
+        c[j][i] = c[i][j];
+      }
+    }
+
+    sigma *= Math.exp((cs / damps) * (psNorm / chiN - 1));
+    // On a plateau the ranking carries no information, widen the search instead of shrinking it
+    if (penalized[ranking[0]] == penalized[ranking[(int) Math.ceil(0.7 * lambda) - 1]]) {
+      sigma *= Math.exp(0.2 + cs / damps);
+    }
+
+    decompose();
+  }
+
+  /**
+   * Whether the distribution has collapsed below {@code tolerance} in every coordinate or become
+   * numerically degenerate, in which case a restart is more useful than further generations.
+   */
+  boolean hasConverged(double tolerance) {
+    double maxD = Arrays.stream(d).max().orElse(0);
+    double minD = Arrays.stream(d).min().orElse(0);
+    return sigma * maxD < tolerance || minD <= 0 || (maxD / minD) * (maxD / minD) > MAX_CONDITION
+        || !Double.isFinite(sigma);
+  }
+
+  int lambda() {
+    return lambda;
+  }
+
+  double[] mean() {
+    return mean.clone();
+  }
+
+  static double[] clamp(double[] point) {
+    var clamped = new double[point.length];
+    for (int i = 0; i < point.length; i++) {
+      clamped[i] = Math.max(0, Math.min(1, point[i]));
+    }
+    return clamped;
+  }
+
+  private static double squaredDistanceOutside(double[] point) {
+    double sum = 0;
+    for (double value : point) {
+      double outside = value < 0 ? -value : value > 1 ? value - 1 : 0;
+      sum += outside * outside;
+    }
+    return sum;
+  }
+
+  private static double norm(double[] vector) {
+    double sum = 0;
+    for (double value : vector) {
+      sum += value * value;
+    }
+    return Math.sqrt(sum);
+  }
+
+  /**
+   * Eigendecomposition C = B * diag(D^2) * B^T with cyclic Jacobi rotations. The matrix has at most
+   * a few dozen rows and every generation costs a full backtest per sample, so the simple method
+   * is fast enough to run after every generation.
+   */
+  private void decompose() {
+    var a = new double[n][];
+    for (int i = 0; i < n; i++) {
+      a[i] = c[i].clone();
+      Arrays.fill(b[i], 0);
+      b[i][i] = 1;
+    }
+    for (int sweep = 0; sweep < 50; sweep++) {
+      double offDiagonal = 0;
+      for (int p = 0; p < n; p++) {
+        for (int q = p + 1; q < n; q++) {
+          offDiagonal += a[p][q] * a[p][q];
+        }
+      }
+      if (offDiagonal < 1e-22) {
+        break;
+      }
+      for (int p = 0; p < n; p++) {
+        for (int q = p + 1; q < n; q++) {
+          if (Math.abs(a[p][q]) < 1e-300) {
+            continue;
+          }
+          double theta = (a[q][q] - a[p][p]) / (2 * a[p][q]);
+          double t = Math.signum(theta) / (Math.abs(theta) + Math.sqrt(theta * theta + 1));
+          if (theta == 0) {
+            t = 1;
+          }
+          double cos = 1 / Math.sqrt(t * t + 1);
+          double sin = t * cos;
+          for (int k = 0; k < n; k++) {
+            double akp = a[k][p];
+            double akq = a[k][q];
+            a[k][p] = cos * akp - sin * akq;
+            a[k][q] = sin * akp + cos * akq;
+          }
+          for (int k = 0; k < n; k++) {
+            double apk = a[p][k];
+            double aqk = a[q][k];
+            a[p][k] = cos * apk - sin * aqk;
+            a[q][k] = sin * apk + cos * aqk;
+          }
+          for (int k = 0; k < n; k++) {
+            double bkp = b[k][p];
+            double bkq = b[k][q];
+            b[k][p] = cos * bkp - sin * bkq;
+            b[k][q] = sin * bkp + cos * bkq;
+          }
+        }
+      }
+    }
+    for (int i = 0; i < n; i++) {
+      // Rounding can leave tiny negative eigenvalues
+      d[i] = Math.sqrt(Math.max(a[i][i], 1e-20));
+    }
+  }
+}
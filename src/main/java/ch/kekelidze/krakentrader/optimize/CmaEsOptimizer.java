@@ -0,0 +1,195 @@
+package ch.kekelidze.krakentrader.optimize;
+
+import ch.kekelidze.krakentrader.backtester.service.BackTesterService;
+import ch.kekelidze.krakentrader.backtester.service.dto.BacktestResult;
+import ch.kekelidze.krakentrader.indicator.configuration.StrategyParameters;
+import ch.kekelidze.krakentrader.optimize.model.OptimizationResult;
+import ch.kekelidze.krakentrader.optimize.util.OptimizationScheduler;
+import ch.kekelidze.krakentrader.optimize.util.StrategySelector;
+import ch.kekelidze.krakentrader.strategy.dto.EvaluationContext;
+import io.jenetics.DoubleChromosome;
+import io.jenetics.DoubleGene;
+import io.jenetics.Genotype;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.DoubleConsumer;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * CMA-ES search over the continuous parameter space of {@link MultiStrategyOptimizer}, with the
+ * same bounds, strategies and fitness.
+ * <p>
+ * The parameters are scaled to the unit cube so every bound has the same initial step size. Every
+ * generation is backtested in parallel. When a run converges the search restarts from a random
+ * point with twice the population (IPOP-CMA-ES), which explores more broadly until the evaluation
+ * budget of the strategy is used.
+ */
+@Slf4j
+@Component("cmaEsOptimizer")
+public class CmaEsOptimizer implements Optimizer {
+
+  private final BackTesterService backTesterService;
+  private final StrategySelector strategySelector;
+  private final MultiStrategyOptimizer parameterSpace;
+  private final OptimizationScheduler optimizationScheduler;
+
+  // Backtests per strategy over all restarts
+  @Value("${optimization.cma-es.max-evaluations:750}")
+  int maxEvaluations;
+
+  // Initial step size as share of the parameter ranges
+  @Value("${optimization.cma-es.initial-sigma:0.3}")
+  double initialSigma;
+
+  // A run is restarted once its steps are below this share of the parameter ranges
+  @Value("${optimization.cma-es.tolerance:0.001}")
+  double tolerance;
+
+  @Value("${optimization.cma-es.seed:42}")
+  long seed;
+
+  @Value("${paper.trading.initial.balance:1000}")
+  double initialBalance;
+
+  public CmaEsOptimizer(BackTesterService backTesterService, StrategySelector strategySelector,
+      MultiStrategyOptimizer parameterSpace, OptimizationScheduler optimizationScheduler) {
+    this.backTesterService = backTesterService;
+    this.strategySelector = strategySelector;
+    this.parameterSpace = parameterSpace;
+    this.optimizationScheduler = optimizationScheduler;
+  }
+
+  @Override
+  public StrategyParameters optimizeParameters(EvaluationContext context) {
+    var result = optimize(context);
+    if (result.strategyName() != null) {
+      strategySelector.setBestStrategyForCoin(context.getSymbol(), result.strategyName());
+    }
+    return result.parameters();
+  }
+
+  @Override
+  public OptimizationResult optimize(EvaluationContext context) {
+    var coinPair = context.getSymbol();
+    String bestStrategy = null;
+    StrategyParameters bestParameters = null;
+    double bestFitness = Double.NEGATIVE_INFINITY;
+
+    for (String strategyName : parameterSpace.getAvailableStrategies()) {
+      log.debug("Testing strategy {} for coin pair {}", strategyName, coinPair);
+      var params = optimizeStrategy(context, strategyName, fitness -> {
+      });
+      BacktestResult backtestResult = backTesterService.runSimulation(
+          context, strategyName, params, initialBalance);
+      double fitness = backtestResult.sharpeRatio() * (1 + backtestResult.winRate());
+      log.debug("Strategy {} for {} achieved fitness: {}", strategyName, coinPair, fitness);
+      if (bestStrategy == null || fitness > bestFitness) {
+        bestStrategy = strategyName;
+        bestParameters = params;
+        bestFitness = fitness;
+      }
+    }
+
+    if (bestStrategy == null) {
+      log.warn("No optimal strategy found for {}. Using default strategy.", coinPair);
+      return new OptimizationResult(null, StrategyParameters.builder().build());
+    }
+    log.debug("Best strategy for {} is {} with fitness: {}", coinPair, bestStrategy, bestFitness);
+    return new OptimizationResult(bestStrategy, bestParameters);
+  }
+
+  /**
+   * Optimizes the parameters of one strategy with restarting CMA-ES.
+   *
+   * @param fitnessListener receives the fitness of every backtest, possibly from several threads
+   *                        at once
+   */
+  public StrategyParameters optimizeStrategy(EvaluationContext context, String strategyName,
+      DoubleConsumer fitnessListener) {
+    var bounds = bounds();
+    int n = bounds.length;
+    var random = new SplittableRandom(seed);
+
+    int evaluations = 0;
+    int restarts = 0;
+    int lambda = CmaEs.defaultLambda(n);
+    boolean budgetUsed = false;
+    double[] best = new double[n];
+    Arrays.fill(best, 0.5);
+    double bestFitness = Double.NEGATIVE_INFINITY;
+    while (!budgetUsed && evaluations < maxEvaluations) {
+      // The first run starts in the middle of the bounds, restarts at a random point
+      var start = new double[n];
+      for (int i = 0; i < n; i++) {
+        start[i] = restarts == 0 ? 0.5 : random.nextDouble();
+      }
+      var cmaEs = new CmaEs(start, initialSigma, lambda, random.split());
+      while (evaluations < maxEvaluations && !cmaEs.hasConverged(tolerance)) {
+        var points = cmaEs.ask();
+        // A generation that exceeds the budget is skipped, a partial one can't be ranked
+        if (evaluations + points.length > maxEvaluations && evaluations > 0) {
+          budgetUsed = true;
+          break;
+        }
+        var fitness = evaluate(context, strategyName, bounds, points);
+        evaluations += points.length;
+        for (int k = 0; k < points.length; k++) {
+          fitnessListener.accept(fitness[k]);
+          if (fitness[k] > bestFitness) {
+            bestFitness = fitness[k];
+            best = CmaEs.clamp(points[k]);
+          }
+        }
+        cmaEs.tell(points, fitness);
+      }
+      log.debug("CMA-ES run {} of {} for {} with population {} ended after {} backtests, "
+          + "best fitness {}", restarts, strategyName, context.getSymbol(), lambda, evaluations,
+          bestFitness);
+      restarts++;
+      lambda *= 2;
+    }
+
+    return parameterSpace.getStrategyParameters(genotype(bounds, best));
+  }
+
+  private double[] evaluate(EvaluationContext context, String strategyName, double[][] bounds,
+      double[][] points) {
+    List<Supplier<Double>> tasks = new ArrayList<>(points.length);
+    for (var point : points) {
+      var genotype = genotype(bounds, CmaEs.clamp(point));
+      tasks.add(() -> GeneticOptimizer.validFitness(parameterSpace.fitnessFunction(
+          context.getSymbol(), context.getPeriod(), strategyName, context.getBars(), genotype)));
+    }
+    return optimizationScheduler.invokeAll(tasks).stream().mapToDouble(Double::doubleValue)
+        .toArray();
+  }
+
+  private double[][] bounds() {
+    var genotype = parameterSpace.createGenotypeFactory().newInstance();
+    return IntStream.range(0, genotype.length())
+        .mapToObj(i -> genotype.get(i).gene())
+        .map(gene -> new double[]{gene.min(), gene.max()})
+        .toArray(double[][]::new);
+  }
+
+  /**
+   * Maps a point of the unit cube to the genes, the upper bound is exclusive like in the genetic
+   * optimizer.
+   */
+  private static Genotype<DoubleGene> genotype(double[][] bounds, double[] point) {
+    var chromosomes = new ArrayList<DoubleChromosome>(bounds.length);
+    for (int i = 0; i < bounds.length; i++) {
+      double min = bounds[i][0];
+      double max = bounds[i][1];
+      double value = Math.min(min + point[i] * (max - min), Math.nextDown(max));
+      chromosomes.add(DoubleChromosome.of(DoubleGene.of(value, min, max)));
+    }
+    return Genotype.of(chromosomes);
+  }
+}
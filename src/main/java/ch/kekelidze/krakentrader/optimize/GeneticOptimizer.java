@@ -4,8 +4,10 @@ import static io.jenetics.engine.Limits.bySteadyFitness;
 
 import ch.kekelidze.krakentrader.backtester.service.BackTesterService;
 import ch.kekelidze.krakentrader.backtester.service.dto.BacktestResult;
+import ch.kekelidze.krakentrader.backtester.util.PruningPolicy;
 import ch.kekelidze.krakentrader.indicator.configuration.StrategyParameters;
 import ch.kekelidze.krakentrader.optimize.service.DataMassageService;
+import ch.kekelidze.krakentrader.optimize.util.OptimizationScheduler;
 import ch.kekelidze.krakentrader.strategy.dto.EvaluationContext;
 import io.jenetics.EliteSelector;
 import io.jenetics.Genotype;
@@ -19,9 +21,21 @@ import io.jenetics.TournamentSelector;
 import io.jenetics.engine.Codec;
 import io.jenetics.engine.Engine;
 import io.jenetics.engine.EvolutionResult;
+import io.jenetics.engine.EvolutionStart;
 import io.jenetics.engine.EvolutionStatistics;
 import io.jenetics.stat.DoubleMomentStatistics;
+import io.jenetics.util.ISeq;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -32,6 +46,10 @@ public class GeneticOptimizer implements Optimizer {
 
   private static final int STEADY_FITNESS_GENERATIONS = 10;
   private static final int MAX_GENERATIONS = 20;
+  // Ranks a pruned candidate below a complete backtest with the same partial result
+  private static final double PRUNED_PENALTY = 1.0;
+  // Fitness of a candidate whose backtest failed
+  static final double FAILED_FITNESS = -100.0;
 
   @Value("${optimization.use-multi-regime:false}")
   private boolean useMultiRegime;
@@ -39,13 +57,48 @@ public class GeneticOptimizer implements Optimizer {
   @Value("${paper.trading.initial.balance:1000}")
   private double initialBalance;
 
+  @Value("${optimization.pruning.enabled:true}")
+  boolean pruningEnabled;
+
+  // Candidates are stopped once their drawdown exceeds this percentage
+  @Value("${optimization.pruning.max-drawdown:50}")
+  double pruningMaxDrawdown;
+
+  // Share of the bars after which trade count and partial fitness are checked
+  @Value("${optimization.pruning.checkpoint:0.5}")
+  double pruningCheckpoint;
+
+  @Value("${optimization.pruning.min-trades:2}")
+  int pruningMinTrades;
+
+  // A candidate whose partial fitness is this far below the worst survivor is stopped
+  @Value("${optimization.pruning.fitness-margin:0.5}")
+  double pruningFitnessMargin;
+
+  // Number of populations evolving in parallel, 1 runs a single population
+  @Value("${optimization.islands.count:1}")
+  int islands;
+
+  @Value("${optimization.islands.population-size:50}")
+  int islandPopulationSize;
+
+  // Generations between migrations
+  @Value("${optimization.islands.migration-interval:5}")
+  int migrationInterval;
+
+  // Best phenotypes every island sends to the next one on each migration
+  @Value("${optimization.islands.migrants:2}")
+  int migrants;
+
   protected BackTesterService backTesterService;
   protected DataMassageService dataMassageService;
+  protected OptimizationScheduler optimizationScheduler;
 
   public GeneticOptimizer(BackTesterService backTesterService,
-      DataMassageService dataMassageService) {
+      DataMassageService dataMassageService, OptimizationScheduler optimizationScheduler) {
     this.backTesterService = backTesterService;
     this.dataMassageService = dataMassageService;
+    this.optimizationScheduler = optimizationScheduler;
   }
 
   @Override
@@ -57,29 +110,52 @@ public class GeneticOptimizer implements Optimizer {
 
     Codec<StrategyParameters, IntegerGene> codec = createParameterCodec();
 
-    Engine<IntegerGene, Double> engine = Engine.builder(
-            genotype -> fitness(context, genotype), codec)
-        .populationSize(50)
-        .optimize(Optimize.MAXIMUM)
-        .offspringSelector(new TournamentSelector<>(5))
-        .survivorsSelector(new EliteSelector<>())
-        .alterers(
-            new Mutator<>(0.2), // Add Mutator for genetic diversity
-            new SinglePointCrossover<>(0.7) // Include crossover for better exploration
-        )
-        .build();
-
-    final EvolutionStatistics<Double, DoubleMomentStatistics> statistics =
-        EvolutionStatistics.ofNumber();
+    // Worst fitness of the last generation, candidates that are clearly worse are stopped early
+    var worstSurvivorFitness = new AtomicReference<>(Double.NEGATIVE_INFINITY);
+    var evaluations = new AtomicInteger();
+    var prunedEvaluations = new AtomicInteger();
+    // Pruned and failed candidates don't lower the threshold, otherwise it drops every generation
+    Set<StrategyParameters> discarded = ConcurrentHashMap.newKeySet();
+
+    Function<StrategyParameters, Double> fitnessFunction = params -> {
+      var pruningPolicy = pruningPolicy(worstSurvivorFitness.get());
+      var result = fitness(context, params, pruningPolicy);
+      evaluations.incrementAndGet();
+      if (result.pruned()) {
+        prunedEvaluations.incrementAndGet();
+      }
+      if (result.pruned() || result.fitness() == FAILED_FITNESS) {
+        discarded.add(params);
+      }
+      return result.fitness();
+    };
 
-    Phenotype<IntegerGene, Double> best = engine.stream()
-        .limit(bySteadyFitness(STEADY_FITNESS_GENERATIONS))
-        .limit(MAX_GENERATIONS)
-        .peek(evolutionResult -> {
-          statistics.accept(evolutionResult);
-          log.debug("Statistics for {}: {}", coinPair, statistics);
-        })
-        .collect(EvolutionResult.toBestPhenotype());
+    Phenotype<IntegerGene, Double> best;
+    if (islands > 1) {
+      best = evolveIslands(coinPair, fitnessFunction, codec, worstSurvivorFitness, discarded,
+          evaluations, prunedEvaluations);
+    } else {
+      Engine<IntegerGene, Double> engine = buildEngine(fitnessFunction, codec, 50)
+          .executor(optimizationScheduler.executor())
+          .build();
+
+      final EvolutionStatistics<Double, DoubleMomentStatistics> statistics =
+          EvolutionStatistics.ofNumber();
+
+      best = engine.stream()
+          .limit(bySteadyFitness(STEADY_FITNESS_GENERATIONS))
+          .limit(MAX_GENERATIONS)
+          .peek(evolutionResult -> {
+            statistics.accept(evolutionResult);
+            worstSurvivorFitness.set(worstSurvivorFitness(evolutionResult.population().stream(),
+                codec, discarded));
+            log.debug("Generation {} of {}: pruned {} of {} evaluations",
+                evolutionResult.generation(), coinPair, prunedEvaluations.getAndSet(0),
+                evaluations.getAndSet(0));
+            log.debug("Statistics for {}: {}", coinPair, statistics);
+          })
+          .collect(EvolutionResult.toBestPhenotype());
+    }
 
     Genotype<IntegerGene> genotype = best.genotype();
     StrategyParameters optimalParams = codec.decode(genotype);
@@ -89,6 +165,101 @@ public class GeneticOptimizer implements Optimizer {
     return optimalParams;
   }
 
+  private Engine.Builder<IntegerGene, Double> buildEngine(
+      Function<StrategyParameters, Double> fitnessFunction,
+      Codec<StrategyParameters, IntegerGene> codec, int populationSize) {
+    return Engine.builder(fitnessFunction, codec)
+        .populationSize(populationSize)
+        .optimize(Optimize.MAXIMUM)
+        .offspringSelector(new TournamentSelector<>(5))
+        .survivorsSelector(new EliteSelector<>())
+        .alterers(
+            new Mutator<>(0.2), // Add Mutator for genetic diversity
+            new SinglePointCrossover<>(0.7) // Include crossover for better exploration
+        );
+  }
+
+  /**
+   * Island model: {@code islands} populations evolve independently, each as one task, and
+   * every {@code migrationInterval} generations the best {@code migrants} of every island replace
+   * the worst of the next island in a ring. Islands explore different regions of the parameter
+   * space between migrations, so the search converges later than one large population while the
+   * islands need no synchronization within an epoch.
+   */
+  private Phenotype<IntegerGene, Double> evolveIslands(String coinPair,
+      Function<StrategyParameters, Double> fitnessFunction,
+      Codec<StrategyParameters, IntegerGene> codec, AtomicReference<Double> worstSurvivorFitness,
+      Set<StrategyParameters> discarded, AtomicInteger evaluations,
+      AtomicInteger prunedEvaluations) {
+    // Every island evaluates its population in its own task
+    var engines = IntStream.range(0, islands)
+        .mapToObj(island -> buildEngine(fitnessFunction, codec, islandPopulationSize)
+            .executor(Runnable::run)
+            .build())
+        .toList();
+
+    List<EvolutionStart<IntegerGene, Double>> starts = null;
+    Phenotype<IntegerGene, Double> best = null;
+    long generation = 0;
+    long steadyGenerations = 0;
+    while (generation < MAX_GENERATIONS && steadyGenerations < STEADY_FITNESS_GENERATIONS) {
+      long epoch = Math.min(Math.max(1, migrationInterval), MAX_GENERATIONS - generation);
+      var epochStarts = starts;
+      List<Supplier<EvolutionResult<IntegerGene, Double>>> tasks = IntStream.range(0, islands)
+          .<Supplier<EvolutionResult<IntegerGene, Double>>>mapToObj(island -> () -> {
+            var engine = engines.get(island);
+            var stream = epochStarts == null
+                ? engine.stream() : engine.stream(epochStarts.get(island));
+            return stream.limit(epoch).reduce((previous, last) -> last).orElseThrow();
+          })
+          .toList();
+      var results = optimizationScheduler.invokeAll(tasks);
+      generation += epoch;
+
+      var epochBest = results.stream()
+          .map(EvolutionResult::bestPhenotype)
+          .max(Comparator.comparing(Phenotype::fitness))
+          .orElseThrow();
+      if (best == null || epochBest.fitness() > best.fitness()) {
+        best = epochBest;
+        steadyGenerations = 0;
+      } else {
+        steadyGenerations += epoch;
+      }
+      // The weakest island sets the bar, so pruning is not stricter than with one population
+      worstSurvivorFitness.set(worstSurvivorFitness(results.stream()
+          .flatMap(result -> result.population().stream()), codec, discarded));
+      log.debug("Generation {} of {} on {} islands: best {}, pruned {} of {} evaluations",
+          generation, coinPair, islands, best.fitness(), prunedEvaluations.getAndSet(0),
+          evaluations.getAndSet(0));
+
+      starts = migrate(results);
+    }
+    return best;
+  }
+
+  /**
+   * Replaces the worst phenotypes of every island with the best of the previous island in the
+   * ring. The migrants keep their fitness, so they are not evaluated again.
+   */
+  private List<EvolutionStart<IntegerGene, Double>> migrate(
+      List<EvolutionResult<IntegerGene, Double>> results) {
+    Comparator<Phenotype<IntegerGene, Double>> byFitness =
+        Comparator.comparing(Phenotype::fitness, Comparator.reverseOrder());
+    var starts = new ArrayList<EvolutionStart<IntegerGene, Double>>(results.size());
+    for (int island = 0; island < results.size(); island++) {
+      var population = results.get(island).population();
+      var source = results.get((island + results.size() - 1) % results.size()).population();
+      int count = Math.min(migrants, population.size());
+      var migrated = Stream.concat(
+              population.stream().sorted(byFitness).limit(population.size() - count),
+              source.stream().sorted(byFitness).limit(count))
+          .collect(ISeq.toISeq());
+      starts.add(EvolutionStart.of(migrated, results.get(island).generation()));
+    }
+    return starts;
+  }
+
   // Default implementation of parameter codec creation - can be overridden by subclasses
   protected Codec<StrategyParameters, IntegerGene> createParameterCodec() {
     // Create chromosome for each parameter with min/max values
@@ -155,16 +326,18 @@ public class GeneticOptimizer implements Optimizer {
   }
 
   // Fitness function (Sharpe Ratio)
-  private Double fitness(EvaluationContext context, StrategyParameters params) {
+  private Evaluation fitness(EvaluationContext context, StrategyParameters params,
+      PruningPolicy pruningPolicy) {
     if (useMultiRegime) {
-      return multiRegimeFitness(context, params);
+      return multiRegimeFitness(context, params, pruningPolicy);
     } else {
-      return singlePeriodFitness(context, params);
+      return singlePeriodFitness(context, params, pruningPolicy);
     }
   }
 
   // Multi-regime fitness evaluation
-  private Double multiRegimeFitness(EvaluationContext context, StrategyParameters params) {
+  private Evaluation multiRegimeFitness(EvaluationContext context, StrategyParameters params,
+      PruningPolicy pruningPolicy) {
     var coinPair = context.getSymbol();
     var period = context.getPeriod();
     var historicalData = context.getBars();
@@ -174,12 +347,14 @@ public class GeneticOptimizer implements Optimizer {
     // Store results for each regime
     double totalFitness = 0;
     double worstFitness = Double.MAX_VALUE;
+    boolean pruned = false;
 
     for (EvaluationContext evaluationContext : regimeContexts) {
       try {
         // Run simulation for this regime
         BacktestResult result = backTesterService.runSimulation(evaluationContext, params,
-            initialBalance);
+            initialBalance, pruningPolicy);
+        pruned |= result.pruned();
 
         // Calculate fitness for this regime
         double regimeFitness = calculateFitness(result);
@@ -194,7 +369,7 @@ public class GeneticOptimizer implements Optimizer {
             regimeFitness);
       } catch (Exception e) {
         log.error("Error in fitness evaluation for regime {}: {}", coinPair, e.getMessage());
-        return -100.0; // Penalty for failed evaluations
+        return new Evaluation(FAILED_FITNESS, false); // Penalty for failed evaluations
       }
     }
 
@@ -206,29 +381,96 @@ public class GeneticOptimizer implements Optimizer {
     log.trace("Parameters fitness summary for {} - Average: {}, Worst: {}, Combined: {}",
         coinPair, averageFitness, worstFitness, combinedFitness);
 
-    return combinedFitness;
+    return new Evaluation(combinedFitness, pruned);
   }
 
   // Single-period fitness evaluation
-  private Double singlePeriodFitness(EvaluationContext context, StrategyParameters params) {
+  private Evaluation singlePeriodFitness(EvaluationContext context, StrategyParameters params,
+      PruningPolicy pruningPolicy) {
     var coinPair = context.getSymbol();
     try {
       // Run simulation for the entire period
-      BacktestResult result = backTesterService.runSimulation(context, params, initialBalance);
+      BacktestResult result = backTesterService.runSimulation(context, params, initialBalance,
+          pruningPolicy);
 
       // Calculate fitness for this period
       double fitness = calculateFitness(result);
 
       log.trace("Single-period fitness for {}: {}", coinPair, fitness);
 
-      return fitness;
+      return new Evaluation(fitness, result.pruned());
     } catch (Exception e) {
       log.error("Error in fitness evaluation for {}: {}", coinPair, e.getMessage());
-      return -100.0; // Penalty for failed evaluations
+      return new Evaluation(FAILED_FITNESS, false); // Penalty for failed evaluations
     }
   }
 
-  private double calculateFitness(BacktestResult result) {
+  /**
+   * Stops backtests that can no longer compete: drawdown beyond the cap, too few trades by the
+   * checkpoint, or a partial fitness at the checkpoint clearly below the worst survivor of the
+   * last generation.
+   */
+  private PruningPolicy pruningPolicy(double worstSurvivorFitness) {
+    if (!pruningEnabled) {
+      return PruningPolicy.NONE;
+    }
+    var policy = PruningPolicy.maxDrawdown(pruningMaxDrawdown)
+        .or(PruningPolicy.minTrades(pruningMinTrades, pruningCheckpoint));
+    if (Double.isInfinite(worstSurvivorFitness)) {
+      // The first generation has no survivors to compare with
+      return policy;
+    }
+    return policy.or(PruningPolicy.partialResult(pruningCheckpoint,
+        partial -> sharpeWinRateFitness(partial)
+            < worstSurvivorFitness - pruningFitnessMargin));
+  }
+
+  /**
+   * Worst fitness of the population among the candidates whose backtest completed. A pruned
+   * candidate only has the penalized fitness of a partial backtest and a failed one the failure
+   * penalty, both would let the threshold fall with every generation.
+   */
+  static double worstSurvivorFitness(Stream<Phenotype<IntegerGene, Double>> population,
+      Codec<StrategyParameters, IntegerGene> codec, Set<StrategyParameters> discarded) {
+    return population
+        .filter(phenotype -> !discarded.contains(codec.decode(phenotype.genotype())))
+        .mapToDouble(Phenotype::fitness)
+        .min()
+        .orElse(Double.NEGATIVE_INFINITY);
+  }
+
+  /**
+   * Backtests the parameters on the context and returns their fitness, the shared evaluation of
+   * the optimizers that need neither pruning nor regimes.
+   *
+   * @return the fitness, {@link #FAILED_FITNESS} if the backtest fails or has no Sharpe ratio
+   */
+  static double backtestFitness(BackTesterService backTesterService, EvaluationContext context,
+      StrategyParameters params, double initialBalance) {
+    try {
+      return validFitness(calculateFitness(
+          backTesterService.runSimulation(context, params, initialBalance)));
+    } catch (Exception e) {
+      log.error("Error in fitness evaluation for {}: {}", context.getSymbol(), e.getMessage());
+      return FAILED_FITNESS;
+    }
+  }
+
+  /**
+   * Maps a NaN fitness to {@link #FAILED_FITNESS}. A backtest without returns has no Sharpe ratio
+   * and must not outrank real candidates.
+   */
+  static double validFitness(double fitness) {
+    return Double.isNaN(fitness) ? FAILED_FITNESS : fitness;
+  }
+
+  static double calculateFitness(BacktestResult result) {
+    double fitness = sharpeWinRateFitness(result);
+    // A pruned result only covers the bars before the backtest was stopped
+    return result.pruned() ? fitness - PRUNED_PENALTY : fitness;
+  }
+
+  private static double sharpeWinRateFitness(BacktestResult result) {
     double sharpeRatio = result.sharpeRatio();
     double winRate = result.winRate();
 
@@ -253,4 +495,8 @@ public class GeneticOptimizer implements Optimizer {
       }
     }
   }
-}
\ No newline at end of file
+
+  private record Evaluation(double fitness, boolean pruned) {
+
+  }
+}
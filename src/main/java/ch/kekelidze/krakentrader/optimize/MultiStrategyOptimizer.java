@@ -5,7 +5,18 @@ import static io.jenetics.engine.Limits.bySteadyFitness;
 import ch.kekelidze.krakentrader.api.HistoricalDataService;
 import ch.kekelidze.krakentrader.backtester.service.BackTesterService;
 import ch.kekelidze.krakentrader.backtester.service.dto.BacktestResult;
+import ch.kekelidze.krakentrader.indicator.cache.IndicatorCache;
 import ch.kekelidze.krakentrader.indicator.configuration.StrategyParameters;
+import ch.kekelidze.krakentrader.optimize.checkpoint.OptimizationCheckpoint;
+import ch.kekelidze.krakentrader.optimize.checkpoint.OptimizationCheckpoint.Individual;
+import ch.kekelidze.krakentrader.optimize.checkpoint.OptimizationCheckpoint.Population;
+import ch.kekelidze.krakentrader.optimize.checkpoint.OptimizationCheckpoint.StrategyResult;
+import ch.kekelidze.krakentrader.optimize.checkpoint.OptimizationCheckpointService;
+import ch.kekelidze.krakentrader.optimize.distributed.EvaluationCoordinator;
+import ch.kekelidze.krakentrader.optimize.model.OptimizationResult;
+import ch.kekelidze.krakentrader.optimize.service.WarmStartService;
+import ch.kekelidze.krakentrader.optimize.service.WarmStartService.WarmStart;
+import ch.kekelidze.krakentrader.optimize.util.OptimizationScheduler;
 import ch.kekelidze.krakentrader.optimize.util.StrategySelector;
 import ch.kekelidze.krakentrader.strategy.dto.EvaluationContext;
 import io.jenetics.DoubleChromosome;
@@ -13,19 +24,30 @@ import io.jenetics.DoubleGene;
 import io.jenetics.Genotype;
 import io.jenetics.Mutator;
 import io.jenetics.Optimize;
+import io.jenetics.Phenotype;
 import io.jenetics.SinglePointCrossover;
 import io.jenetics.TournamentSelector;
 import io.jenetics.engine.Engine;
 import io.jenetics.engine.EvolutionResult;
+import io.jenetics.engine.EvolutionStart;
 import io.jenetics.engine.EvolutionStatistics;
 import io.jenetics.stat.DoubleMomentStatistics;
 import io.jenetics.util.Factory;
+import io.jenetics.util.ISeq;
+import io.jenetics.util.RandomRegistry;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleConsumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+import java.util.stream.IntStream;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.ta4j.core.Bar;
 
@@ -36,8 +58,14 @@ public class MultiStrategyOptimizer implements Optimizer {
 
   private final BackTesterService backTesterService;
   private final StrategySelector strategySelector;
+  private final IndicatorCache indicatorCache;
+  private final OptimizationScheduler optimizationScheduler;
+  private final EvaluationCoordinator evaluationCoordinator;
+  private final OptimizationCheckpointService checkpointService;
+  private final WarmStartService warmStartService;
 
   private static final double initialBalance = 1000;
+  private static final int POPULATION_SIZE = 50;
   private static final int STEADY_FITNESS_GENERATIONS = 10;
   private static final int MAX_GENERATIONS = 15;
 
@@ -50,75 +78,310 @@ public class MultiStrategyOptimizer implements Optimizer {
       "buyLowSellHighStrategy"
   );
 
-  private final Map<String, OptimizationResult> bestResultsPerCoin = new ConcurrentHashMap<>();
+  private final Map<String, StrategyResult> bestResultsPerCoin = new ConcurrentHashMap<>();
+
+  // Generations every strategy runs before it can be cancelled
+  @Value("${optimization.tournament.min-generations:5}")
+  int minGenerations;
+
+  // A strategy whose best fitness is this far below the leading strategy is cancelled
+  @Value("${optimization.tournament.cancel-margin:1.0}")
+  double cancelMargin;
+
+  // Share of a warm started population made up of the seeds and their neighbours
+  @Value("${optimization.warm-start.seed-share:0.5}")
+  double warmStartSeedShare;
+
+  // Standard deviation of the neighbours of a seed as share of the parameter ranges
+  @Value("${optimization.warm-start.neighbourhood:0.05}")
+  double warmStartNeighbourhood;
+
+  // A warm started population begins close to the optimum and stops sooner without improvement
+  @Value("${optimization.warm-start.steady-generations:5}")
+  int warmStartSteadyGenerations;
 
   @Override
   public StrategyParameters optimizeParameters(EvaluationContext context) {
     String coinPair = context.getSymbol();
+    var checkpoint = checkpointService.load(context);
 
-    // Track the best results for this coin pair
-    OptimizationResult bestResult = null;
-
-    for (String strategyName : availableStrategies) {
-      log.debug("Testing strategy {} for coin pair {}", strategyName, coinPair);
-
-      // Create a fitness function specific to this strategy
-      Engine<DoubleGene, Double> engine = Engine
-          .builder(
-              (Genotype<DoubleGene> genotype) -> fitnessFunction(coinPair, context.getPeriod(),
-                  strategyName, context.getBars(), genotype),
-              createGenotypeFactory())
-          .populationSize(50)
-          .selector(new TournamentSelector<>(3))
-          .alterers(
-              new Mutator<>(0.1),
-              new SinglePointCrossover<>(0.6)
-          )
-          .optimize(Optimize.MAXIMUM)
-          .build();
+    if (checkpoint.getResult() != null) {
+      log.info("Optimization of {} was completed before the restart", coinPair);
+      return storeBestResult(coinPair, checkpoint.getResult());
+    }
+
+    var bestResult = optimizeStrategies(context, checkpoint);
+
+    // Store the best results for this coin pair
+    if (bestResult != null) {
+      checkpoint.setResult(bestResult);
+      checkpointService.save(checkpoint);
+      return storeBestResult(coinPair, bestResult);
+    } else {
+      log.warn("No optimal strategy found for {}. Using default strategy.", coinPair);
+      return StrategyParameters.builder().build(); // Default parameters
+    }
+  }
 
-      final EvolutionStatistics<Double, DoubleMomentStatistics> statistics =
-          EvolutionStatistics.ofNumber();
-      Genotype<DoubleGene> bestGenotype = engine.stream()
-          .limit(bySteadyFitness(STEADY_FITNESS_GENERATIONS))
-          .limit(MAX_GENERATIONS)
-          .peek(evolutionResult -> {
-            statistics.accept(evolutionResult);
-            log.debug("Statistics: {}", statistics);
+  @Override
+  public OptimizationResult optimize(EvaluationContext context) {
+    // Other histories of the coin may be optimized at the same time, so the progress is only kept
+    // in memory
+    var bestResult = optimizeStrategies(context, checkpointService.detached(context));
+    if (bestResult == null) {
+      log.warn("No optimal strategy found for {}. Using default strategy.", context.getSymbol());
+      return new OptimizationResult(null, StrategyParameters.builder().build());
+    }
+    return new OptimizationResult(bestResult.strategyName(), bestResult.parameters());
+  }
+
+  /**
+   * Optimizes all strategies on the context as a tournament, resuming the strategies of the
+   * checkpoint.
+   *
+   * @return the result of the best strategy, null if no strategy was optimized
+   */
+  private StrategyResult optimizeStrategies(EvaluationContext context,
+      OptimizationCheckpoint checkpoint) {
+    String coinPair = context.getSymbol();
+
+    // Resumed strategies compete with the fitness they reached before the restart
+    var tournament = new Tournament(coinPair);
+    checkpoint.getCompletedStrategies().values()
+        .forEach(result -> tournament.record(result.strategyName(), result.fitness()));
+    checkpoint.getPopulations()
+        .forEach((strategyName, population) -> tournament.record(strategyName,
+            population.bestFitness()));
+
+    // Track the best results for this coin pair
+    StrategyResult bestResult = null;
+
+    // All strategies backtest the same bars, so they share the indicator windows of the history
+    try (var ignored = indicatorCache.shareSeries(context.getBars())) {
+      List<Supplier<StrategyResult>> tasks = availableStrategies.stream()
+          .<Supplier<StrategyResult>>map(strategyName -> () -> {
+            var completed = checkpoint.getCompletedStrategies().get(strategyName);
+            return completed != null
+                ? completed : optimizeInTournament(context, strategyName, tournament, checkpoint);
           })
-          .collect(EvolutionResult.toBestGenotype());
+          .toList();
 
-      // Extract the best parameters for this strategy
-      StrategyParameters params = getStrategyParameters(bestGenotype);
+      for (var result : optimizationScheduler.invokeAll(tasks)) {
+        // Check if this strategy is better than previous ones
+        if (bestResult == null || result.fitness() > bestResult.fitness()) {
+          bestResult = result;
+        }
+      }
+    }
+    return bestResult;
+  }
+
+  private StrategyParameters storeBestResult(String coinPair, StrategyResult bestResult) {
+    log.debug("Best strategy for {} is {} with fitness: {}",
+        coinPair, bestResult.strategyName(), bestResult.fitness());
+    bestResultsPerCoin.put(coinPair, bestResult);
+    strategySelector.setBestStrategyForCoin(coinPair, bestResult.strategyName());
+    return bestResult.parameters();
+  }
 
-      // Run a backtest with the optimized parameters to get the final result
-      BacktestResult backtestResult = backTesterService.runSimulation(
-          context, strategyName, params, initialBalance);
+  private StrategyResult optimizeInTournament(EvaluationContext context, String strategyName,
+      Tournament tournament, OptimizationCheckpoint checkpoint) {
+    String coinPair = context.getSymbol();
+    log.debug("Testing strategy {} for coin pair {}", strategyName, coinPair);
+
+    // Extract the best parameters for this strategy
+    var warmStart = warmStartService.prepare(context, strategyName);
+    StrategyParameters params = optimizeStrategy(context, strategyName, fitness -> {
+    }, result -> tournament.proceed(strategyName, result.generation(), result.bestFitness()),
+        checkpoint, warmStart);
+    // Everything in the cache was backtested on these bars, also before a restart
+    warmStartService.record(context, strategyName, checkpoint.fitnessCache(strategyName));
+
+    // Run a backtest with the optimized parameters to get the final result
+    BacktestResult backtestResult = backTesterService.runSimulation(
+        context, strategyName, params, initialBalance);
+
+    double fitness = backtestResult.sharpeRatio() * (1 + backtestResult.winRate());
+    log.debug("Strategy {} for {} achieved fitness: {}", strategyName, coinPair, fitness);
+    var result = new StrategyResult(strategyName, params, fitness);
+    checkpoint.completeStrategy(result);
+    checkpointService.save(checkpoint);
+    return result;
+  }
 
-      double fitness = backtestResult.sharpeRatio() * (1 + backtestResult.winRate());
+  /**
+   * Optimizes the parameters of one strategy with the genetic algorithm.
+   *
+   * @param fitnessListener receives the fitness of every evaluated genotype, possibly from several
+   *                        threads at once
+   */
+  public StrategyParameters optimizeStrategy(EvaluationContext context, String strategyName,
+      DoubleConsumer fitnessListener) {
+    return optimizeStrategy(context, strategyName, fitnessListener, result -> true, null,
+        WarmStart.NONE);
+  }
 
-      // Check if this strategy is better than previous ones
-      if (bestResult == null || fitness > bestResult.fitness()) {
-        bestResult = new OptimizationResult(strategyName, params, fitness);
+  /**
+   * Optimizes the parameters of one strategy with the genetic algorithm, resuming from the
+   * population and fitness cache of the checkpoint and saving both to it every few generations.
+   * A strategy without checkpointed population starts from the seeds of the warm start and their
+   * neighbours, the rest of the population is random. Parameter sets with a past evaluation are
+   * not backtested again.
+   */
+  private StrategyParameters optimizeStrategy(EvaluationContext context, String strategyName,
+      DoubleConsumer fitnessListener, Predicate<EvolutionResult<DoubleGene, Double>> proceed,
+      OptimizationCheckpoint checkpoint, WarmStart warmStart) {
+    // Several genotypes map to the same parameters, each parameter set is only backtested once
+    Map<StrategyParameters, Double> evaluated = checkpoint != null
+        ? checkpoint.fitnessCache(strategyName) : new ConcurrentHashMap<>();
+
+    // Create a fitness function specific to this strategy
+    Engine<DoubleGene, Double> engine = Engine
+        .builder(
+            (Genotype<DoubleGene> genotype) -> {
+              var params = getStrategyParameters(genotype);
+              Double fitness = evaluated.get(params);
+              if (fitness == null) {
+                fitness = warmStart.pastEvaluations().get(params);
+              }
+              if (fitness == null) {
+                fitness = fitnessFunction(context.getSymbol(), context.getPeriod(),
+                    strategyName, context.getBars(), genotype);
+                // A failed backtest is retried, e.g. after the coordinator lost its workers
+                if (fitness != GeneticOptimizer.FAILED_FITNESS) {
+                  evaluated.putIfAbsent(params, fitness);
+                }
+              }
+              fitnessListener.accept(fitness);
+              return fitness;
+            },
+            createGenotypeFactory())
+        .populationSize(POPULATION_SIZE)
+        .selector(new TournamentSelector<>(3))
+        .alterers(
+            new Mutator<>(0.1),
+            new SinglePointCrossover<>(0.6)
+        )
+        .optimize(Optimize.MAXIMUM)
+        .executor(optimizationScheduler.executor())
+        .build();
+
+    var population = checkpoint != null ? checkpoint.getPopulations().get(strategyName) : null;
+    var start = population != null ? evolutionStart(population) : null;
+    if (start != null) {
+      log.info("Resuming strategy {} for {} at generation {}", strategyName, context.getSymbol(),
+          start.generation());
+    }
+    long remainingGenerations = start != null
+        ? Math.max(1, MAX_GENERATIONS - population.generation()) : MAX_GENERATIONS;
+    var seeds = start == null ? seedPopulation(warmStart.seeds()) : List.<Genotype<DoubleGene>>of();
+    int steadyGenerations = !warmStart.seeds().isEmpty() && warmStartSteadyGenerations > 0
+        ? warmStartSteadyGenerations : STEADY_FITNESS_GENERATIONS;
+
+    final EvolutionStatistics<Double, DoubleMomentStatistics> statistics =
+        EvolutionStatistics.ofNumber();
+    var stream = start != null ? engine.stream(start)
+        : !seeds.isEmpty() ? engine.stream(seeds) : engine.stream();
+    Genotype<DoubleGene> bestGenotype = stream
+        .limit(bySteadyFitness(steadyGenerations))
+        .limit(proceed)
+        .limit(remainingGenerations)
+        .peek(evolutionResult -> {
+          statistics.accept(evolutionResult);
+          log.debug("Statistics: {}", statistics);
+          if (checkpoint != null && checkpointService.isDue(evolutionResult.generation())) {
+            checkpoint.updatePopulation(strategyName, population(evolutionResult));
+            checkpointService.save(checkpoint);
+          }
+        })
+        .collect(EvolutionResult.toBestGenotype());
+
+    return getStrategyParameters(bestGenotype);
+  }
+
+  private static Population population(EvolutionResult<DoubleGene, Double> evolutionResult) {
+    var individuals = evolutionResult.population().stream()
+        .map(phenotype -> new Individual(
+            IntStream.range(0, phenotype.genotype().length())
+                .mapToDouble(i -> phenotype.genotype().get(i).get(0).doubleValue())
+                .toArray(),
+            phenotype.generation(), phenotype.fitness()))
+        .toList();
+    return new Population(evolutionResult.generation(), individuals);
+  }
+
+  /**
+   * Rebuilds the evaluated population of the checkpoint, so the evolution continues with the next
+   * generation. Returns {@code null} if the population doesn't fit the current genotype.
+   */
+  private EvolutionStart<DoubleGene, Double> evolutionStart(Population population) {
+    var template = createGenotypeFactory().newInstance();
+    var phenotypes = new ArrayList<Phenotype<DoubleGene, Double>>();
+    for (Individual individual : population.individuals()) {
+      if (individual.genes().length != template.length()) {
+        log.warn("Ignoring checkpointed population of {} genes, the genotype has {}",
+            individual.genes().length, template.length());
+        return null;
       }
+      phenotypes.add(Phenotype.of(genotype(template, individual.genes()),
+          individual.generation(), individual.fitness()));
+    }
+    if (phenotypes.isEmpty()) {
+      return null;
+    }
+    return EvolutionStart.of(ISeq.of(phenotypes), population.generation() + 1);
+  }
 
-      log.debug("Strategy {} for {} achieved fitness: {}", strategyName, coinPair, fitness);
+  /**
+   * Returns the genotypes of the seeds followed by random neighbours of them, up to
+   * {@code warmStartSeedShare} of the population.
+   */
+  private List<Genotype<DoubleGene>> seedPopulation(List<StrategyParameters> seeds) {
+    if (seeds.isEmpty()) {
+      return List.of();
     }
+    var template = createGenotypeFactory().newInstance();
+    var seedGenotypes = seeds.stream().map(seed -> genotype(template, geneValues(seed))).toList();
+    int size = Math.min(POPULATION_SIZE,
+        Math.max(seedGenotypes.size(), (int) Math.round(POPULATION_SIZE * warmStartSeedShare)));
+    var genotypes = new ArrayList<>(seedGenotypes.subList(0, Math.min(size, seedGenotypes.size())));
+    var random = RandomRegistry.random();
+    while (genotypes.size() < size) {
+      var seed = seedGenotypes.get(genotypes.size() % seedGenotypes.size());
+      genotypes.add(neighbour(seed, random));
+    }
+    return genotypes;
+  }
 
-    // Store the best results for this coin pair
-    if (bestResult != null) {
-      log.debug("Best strategy for {} is {} with fitness: {}",
-          coinPair, bestResult.strategyName(), bestResult.fitness());
-      bestResultsPerCoin.put(coinPair, bestResult);
-      strategySelector.setBestStrategyForCoin(coinPair, bestResult.strategyName());
-      return bestResult.parameters();
-    } else {
-      log.warn("No optimal strategy found for {}. Using default strategy.", coinPair);
-      return StrategyParameters.builder().build(); // Default parameters
+  private Genotype<DoubleGene> neighbour(Genotype<DoubleGene> seed, RandomGenerator random) {
+    var values = new double[seed.length()];
+    for (int i = 0; i < values.length; i++) {
+      var gene = seed.get(i).get(0);
+      values[i] = gene.doubleValue()
+          + random.nextGaussian() * warmStartNeighbourhood * (gene.max() - gene.min());
+    }
+    return genotype(seed, values);
+  }
+
+  /**
+   * Builds a genotype with the bounds of the template, values outside are moved to the bounds.
+   */
+  private static Genotype<DoubleGene> genotype(Genotype<DoubleGene> template, double[] values) {
+    var chromosomes = new ArrayList<DoubleChromosome>(template.length());
+    for (int i = 0; i < template.length(); i++) {
+      var bounds = template.get(i).get(0);
+      // The upper bound of a gene is exclusive
+      double value = Math.clamp(values[i], bounds.min(), Math.nextDown(bounds.max()));
+      chromosomes.add(DoubleChromosome.of(DoubleGene.of(value, bounds.min(), bounds.max())));
     }
+    return Genotype.of(chromosomes);
   }
 
-  private double fitnessFunction(String coinPair, int period, String strategyName, List<Bar> data,
+  public List<String> getAvailableStrategies() {
+    return availableStrategies;
+  }
+
+  double fitnessFunction(String coinPair, int period, String strategyName, List<Bar> data,
       Genotype<DoubleGene> genotype) {
     // Extract parameters from genotype
     StrategyParameters params = getStrategyParameters(genotype);
@@ -131,20 +394,22 @@ public class MultiStrategyOptimizer implements Optimizer {
           .bars(data)
           .build();
 
-      // Run simulation with the specific strategy and parameters
-      BacktestResult result = backTesterService.runSimulation(
-          context, strategyName, params, initialBalance);
+      // Run simulation with the specific strategy and parameters, on a worker process if this
+      // process coordinates a distributed optimization
+      BacktestResult result = evaluationCoordinator.isRunning()
+          ? evaluationCoordinator.evaluate(context, strategyName, params, initialBalance)
+          : backTesterService.runSimulation(context, strategyName, params, initialBalance);
 
       // Return Sharpe ratio as fitness
       return result.sharpeRatio() * (1 + result.winRate());
     } catch (Exception e) {
       log.error("Error in fitness evaluation for {}, strategy {}: {}",
           coinPair, strategyName, e.getMessage());
-      return -100.0; // Severely penalize failed evaluations
+      return GeneticOptimizer.FAILED_FITNESS; // Severely penalize failed evaluations
     }
   }
 
-  private Factory<Genotype<DoubleGene>> createGenotypeFactory() {
+  Factory<Genotype<DoubleGene>> createGenotypeFactory() {
     return Genotype.of(
         // Moving average parameters
         DoubleChromosome.of(5, 50),   // movingAverageBuyShortPeriod
@@ -197,7 +462,45 @@ public class MultiStrategyOptimizer implements Optimizer {
     );
   }
 
-  private StrategyParameters getStrategyParameters(Genotype<DoubleGene> genotype) {
+  /**
+   * Returns the gene values of the parameters in the order of {@link #createGenotypeFactory()},
+   * the inverse of {@link #getStrategyParameters(Genotype)}.
+   */
+  static double[] geneValues(StrategyParameters params) {
+    return new double[]{
+        params.movingAverageBuyShortPeriod(),
+        params.movingAverageBuyLongPeriod(),
+        params.movingAverageSellShortPeriod(),
+        params.movingAverageSellLongPeriod(),
+        params.rsiPeriod(),
+        params.rsiBuyThreshold(),
+        params.rsiSellThreshold(),
+        params.macdFastPeriod(),
+        params.macdSlowPeriod(),
+        params.macdSignalPeriod(),
+        params.volumePeriod(),
+        params.aboveAverageThreshold(),
+        params.lossPercent(),
+        params.profitPercent(),
+        params.adxPeriod(),
+        params.adxBullishThreshold(),
+        params.adxBearishThreshold(),
+        params.volatilityPeriod(),
+        params.contractionThreshold(),
+        params.lowVolatilityThreshold(),
+        params.highVolatilityThreshold(),
+        params.mfiPeriod(),
+        params.mfiOverboughtThreshold(),
+        params.mfiOversoldThreshold(),
+        params.atrPeriod(),
+        params.atrThreshold(),
+        params.lookbackPeriod(),
+        params.supportResistancePeriod(),
+        params.supportResistanceThreshold()
+    };
+  }
+
+  StrategyParameters getStrategyParameters(Genotype<DoubleGene> genotype) {
     // Extract all period values to find the max
     int movingAverageBuyShortPeriod = genotype.get(0).get(0).intValue();
     int movingAverageBuyLongPeriod = genotype.get(1).get(0).intValue();
@@ -269,12 +572,37 @@ public class MultiStrategyOptimizer implements Optimizer {
         .build();
   }
 
-  private record OptimizationResult(
-      String strategyName,
-      StrategyParameters parameters,
-      double fitness
-  ) {
+  /**
+   * Best fitness of every strategy optimized concurrently for one coin. A strategy that has run
+   * {@code minGenerations} and is still clearly behind the leader stops at its next generation.
+   */
+  private class Tournament {
 
+    private final String coinPair;
+    private final Map<String, Double> bestFitness = new ConcurrentHashMap<>();
+
+    Tournament(String coinPair) {
+      this.coinPair = coinPair;
+    }
+
+    void record(String strategyName, double fitness) {
+      bestFitness.merge(strategyName, fitness, Math::max);
+    }
+
+    boolean proceed(String strategyName, long generation, double fitness) {
+      record(strategyName, fitness);
+      if (generation < minGenerations) {
+        return true;
+      }
+      double leader = bestFitness.values().stream().mapToDouble(Double::doubleValue).max()
+          .orElse(fitness);
+      if (fitness < leader - cancelMargin) {
+        log.debug("Cancelled strategy {} for {} after {} generations, fitness {} against {}",
+            strategyName, coinPair, generation, fitness, leader);
+        return false;
+      }
+      return true;
+    }
   }
 
   public Map<String, String> getBestStrategiesReport() {
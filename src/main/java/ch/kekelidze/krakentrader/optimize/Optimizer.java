@@ -1,9 +1,18 @@
 package ch.kekelidze.krakentrader.optimize;
 
 import ch.kekelidze.krakentrader.indicator.configuration.StrategyParameters;
+import ch.kekelidze.krakentrader.optimize.model.OptimizationResult;
 import ch.kekelidze.krakentrader.strategy.dto.EvaluationContext;
 
 public interface Optimizer {
 
   StrategyParameters optimizeParameters(EvaluationContext context);
+
+  /**
+   * Optimizes the context without storing the result as the best strategy of the coin or
+   * checkpointing it, so several histories of the same coin can be optimized concurrently.
+   */
+  default OptimizationResult optimize(EvaluationContext context) {
+    return new OptimizationResult(null, optimizeParameters(context));
+  }
 }
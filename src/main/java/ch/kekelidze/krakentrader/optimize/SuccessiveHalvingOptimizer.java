@@ -0,0 +1,141 @@
+package ch.kekelidze.krakentrader.optimize;
+
+import ch.kekelidze.krakentrader.backtester.service.BackTesterService;
+import ch.kekelidze.krakentrader.backtester.util.TimeFrameAdjustmentUtils;
+import ch.kekelidze.krakentrader.indicator.configuration.StrategyParameters;
+import ch.kekelidze.krakentrader.optimize.util.OptimizationScheduler;
+import ch.kekelidze.krakentrader.strategy.dto.EvaluationContext;
+import io.jenetics.IntegerGene;
+import io.jenetics.engine.Codec;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hyperband parameter search over the parameter space of {@link BuyLowSellHighOptimizer}.
+ * <p>
+ * Random candidates are first backtested on a short part of the history, the most recent candles.
+ * Only the best {@code 1 / eta} of them are promoted to an {@code eta} times longer history until
+ * the survivors are backtested on the full history. Every bracket trades the number of candidates
+ * against the history they start with, from many candidates on the shortest history to a few on
+ * the full history, and the brackets are repeated until the budget is used. The budget is counted
+ * in full history backtests, so most of it goes to the few promising candidates.
+ */
+@Slf4j
+@Component("successiveHalvingOptimizer")
+public class SuccessiveHalvingOptimizer implements Optimizer {
+
+  private final BackTesterService backTesterService;
+  private final GeneticOptimizer parameterSpace;
+  private final OptimizationScheduler optimizationScheduler;
+
+  // Factor by which the candidates are reduced and the history is extended on every promotion
+  @Value("${optimization.successive-halving.eta:3}")
+  int eta;
+
+  // History of the first rung of the most exploring bracket as share of the full history
+  @Value("${optimization.successive-halving.min-history-fraction:0.037}")
+  double minHistoryFraction;
+
+  // Total evaluation budget in full history backtests
+  @Value("${optimization.successive-halving.budget:100}")
+  double budget;
+
+  @Value("${paper.trading.initial.balance:1000}")
+  double initialBalance;
+
+  public SuccessiveHalvingOptimizer(BackTesterService backTesterService,
+      BuyLowSellHighOptimizer parameterSpace, OptimizationScheduler optimizationScheduler) {
+    this.backTesterService = backTesterService;
+    this.parameterSpace = parameterSpace;
+    this.optimizationScheduler = optimizationScheduler;
+  }
+
+  @Override
+  public StrategyParameters optimizeParameters(EvaluationContext context) {
+    var coinPair = context.getSymbol();
+    Codec<StrategyParameters, IntegerGene> codec = parameterSpace.createParameterCodec();
+    int maxBracket = (int) Math.floor(Math.log(1 / minHistoryFraction) / Math.log(eta) + 1e-9);
+
+    double spent = 0;
+    int sampled = 0;
+    Candidate best = null;
+    do {
+      for (int bracket = maxBracket; bracket >= 0 && (best == null || spent < budget);
+          bracket--) {
+        int candidates = (int) Math.ceil((maxBracket + 1.0) / (bracket + 1)
+            * Math.pow(eta, bracket));
+        List<StrategyParameters> rung = Stream.generate(
+                () -> codec.decode(codec.encoding().newInstance()))
+            .limit(candidates)
+            .toList();
+        sampled += candidates;
+
+        for (int promotion = 0; promotion <= bracket; promotion++) {
+          double historyFraction = Math.min(1, Math.pow(eta, promotion - bracket));
+          var results = evaluate(context, rung, historyFraction);
+          spent += rung.size() * historyFraction;
+          results.sort(Comparator.comparingDouble(Candidate::fitness).reversed());
+          log.trace("Bracket {} of {}: best of {} candidates on {} of the history: {}",
+              bracket, coinPair, results.size(), historyFraction,
+              results.getFirst().fitness());
+
+          if (promotion == bracket) {
+            // The last rung of a bracket is always backtested on the full history
+            var bracketBest = results.getFirst();
+            if (best == null || bracketBest.fitness() > best.fitness()) {
+              best = bracketBest;
+            }
+          } else {
+            rung = results.stream()
+                .limit(Math.max(1, results.size() / eta))
+                .map(Candidate::parameters)
+                .toList();
+          }
+        }
+      }
+    } while (spent < budget);
+
+    log.debug("Sampled {} candidates for {} with {} full history backtests", sampled, coinPair,
+        String.format("%.1f", spent));
+    log.debug("Optimal parameters found for {}: {}", coinPair, best.parameters());
+    log.debug("Best fitness for {}: {}", coinPair, best.fitness());
+    return best.parameters();
+  }
+
+  private List<Candidate> evaluate(EvaluationContext context, List<StrategyParameters> rung,
+      double historyFraction) {
+    List<Supplier<Candidate>> tasks = rung.stream()
+        .<Supplier<Candidate>>map(
+            params -> () -> new Candidate(params, fitness(context, params, historyFraction)))
+        .toList();
+    return new ArrayList<>(optimizationScheduler.invokeAll(tasks));
+  }
+
+  /**
+   * Backtests the most recent share of the history, preceded by the warm-up candles the
+   * parameters need, so the share of the history is actually traded.
+   */
+  private double fitness(EvaluationContext context, StrategyParameters params,
+      double historyFraction) {
+    var bars = context.getBars();
+    int traded = (int) Math.ceil(bars.size() * historyFraction);
+    int warmUp = TimeFrameAdjustmentUtils.adjustTimeFrame(params, context.getPeriod())
+        .minimumCandles();
+    var window = EvaluationContext.builder()
+        .symbol(context.getSymbol())
+        .period(context.getPeriod())
+        .bars(bars.subList(Math.max(0, bars.size() - traded - warmUp), bars.size()))
+        .build();
+    return GeneticOptimizer.backtestFitness(backTesterService, window, params, initialBalance);
+  }
+
+  private record Candidate(StrategyParameters parameters, double fitness) {
+
+  }
+}
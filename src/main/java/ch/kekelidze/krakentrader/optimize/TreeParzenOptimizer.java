@@ -0,0 +1,249 @@
+package ch.kekelidze.krakentrader.optimize;
+
+import ch.kekelidze.krakentrader.backtester.service.BackTesterService;
+import ch.kekelidze.krakentrader.indicator.configuration.StrategyParameters;
+import ch.kekelidze.krakentrader.optimize.util.OptimizationScheduler;
+import ch.kekelidze.krakentrader.strategy.dto.EvaluationContext;
+import io.jenetics.Genotype;
+import io.jenetics.IntegerChromosome;
+import io.jenetics.IntegerGene;
+import io.jenetics.engine.Codec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tree-structured Parzen estimator search over the parameter space of
+ * {@link BuyLowSellHighOptimizer}.
+ * <p>
+ * After a batch of random candidates, the evaluated candidates are split into the best
+ * {@code gamma} share and the rest, and a kernel density is fitted per parameter to each group.
+ * New candidates are drawn from the density of the good group and the one most likely to be good
+ * rather than bad is backtested. Every batch is proposed from the candidates evaluated so far and
+ * backtested in parallel, so the search needs a fraction of the backtests of the genetic
+ * optimizer. Proposals only depend on the seed, not on the number of threads.
+ */
+@Slf4j
+@Component("treeParzenOptimizer")
+public class TreeParzenOptimizer implements Optimizer {
+
+  // Weight of the uniform prior in every density, keeps the search from collapsing on one value
+  private static final double PRIOR_WEIGHT = 1.0;
+
+  private final BackTesterService backTesterService;
+  private final GeneticOptimizer parameterSpace;
+  private final OptimizationScheduler optimizationScheduler;
+
+  // Total number of backtests
+  @Value("${optimization.tpe.evaluations:150}")
+  int evaluations;
+
+  // Random candidates backtested before the densities are used
+  @Value("${optimization.tpe.initial-samples:24}")
+  int initialSamples;
+
+  // Candidates proposed and backtested together, 0 uses the threads of the scheduler
+  @Value("${optimization.tpe.batch-size:0}")
+  int batchSize;
+
+  // Candidates drawn from the good density for every proposal
+  @Value("${optimization.tpe.candidates:64}")
+  int candidates;
+
+  // Share of the evaluated candidates that forms the good group
+  @Value("${optimization.tpe.gamma:0.25}")
+  double gamma;
+
+  @Value("${optimization.tpe.seed:42}")
+  long seed;
+
+  @Value("${paper.trading.initial.balance:1000}")
+  double initialBalance;
+
+  public TreeParzenOptimizer(BackTesterService backTesterService,
+      BuyLowSellHighOptimizer parameterSpace, OptimizationScheduler optimizationScheduler) {
+    this.backTesterService = backTesterService;
+    this.parameterSpace = parameterSpace;
+    this.optimizationScheduler = optimizationScheduler;
+  }
+
+  @Override
+  public StrategyParameters optimizeParameters(EvaluationContext context) {
+    var coinPair = context.getSymbol();
+    Codec<StrategyParameters, IntegerGene> codec = parameterSpace.createParameterCodec();
+    var bounds = bounds(codec.encoding().newInstance());
+    int batch = batchSize > 0 ? batchSize : optimizationScheduler.getParallelism();
+
+    var random = new SplittableRandom(seed);
+    var observations = new ArrayList<Observation>(evaluations);
+    Set<List<Integer>> evaluated = new HashSet<>();
+    while (observations.size() < evaluations) {
+      int size = Math.min(batch, evaluations - observations.size());
+      var proposals = new ArrayList<int[]>(size);
+      for (int i = 0; i < size; i++) {
+        var proposal = observations.size() < initialSamples
+            ? sampleUniform(bounds, random)
+            : propose(bounds, observations, random);
+        // Duplicates would only repeat a backtest, draw a random candidate instead
+        for (int attempt = 0; attempt < 10 && !evaluated.add(key(proposal)); attempt++) {
+          proposal = sampleUniform(bounds, random);
+        }
+        proposals.add(proposal);
+      }
+
+      List<Supplier<Observation>> tasks = proposals.stream()
+          .<Supplier<Observation>>map(values -> () -> new Observation(values,
+              fitness(context, codec.decode(genotype(bounds, values)))))
+          .toList();
+      observations.addAll(optimizationScheduler.invokeAll(tasks));
+      log.trace("Evaluated {} of {} candidates for {}, best fitness {}", observations.size(),
+          evaluations, coinPair, best(observations).fitness());
+    }
+
+    var best = best(observations);
+    var optimalParams = codec.decode(genotype(bounds, best.values()));
+    log.debug("Optimal parameters found for {} after {} backtests: {}", coinPair,
+        observations.size(), optimalParams);
+    log.debug("Best fitness for {}: {}", coinPair, best.fitness());
+    return optimalParams;
+  }
+
+  /**
+   * Draws candidates from the density of the good group and returns the one with the highest
+   * ratio of good to bad density.
+   */
+  private int[] propose(int[][] bounds, List<Observation> observations, SplittableRandom random) {
+    var sorted = observations.stream()
+        .sorted(Comparator.comparingDouble(Observation::fitness).reversed())
+        .toList();
+    int goodCount = Math.max(1, (int) Math.ceil(sorted.size() * gamma));
+    var good = sorted.subList(0, goodCount);
+    var bad = sorted.subList(goodCount, sorted.size());
+
+    var goodDensities = new ParzenDensity[bounds.length];
+    var badDensities = new ParzenDensity[bounds.length];
+    for (int d = 0; d < bounds.length; d++) {
+      goodDensities[d] = new ParzenDensity(bounds[d][0], bounds[d][1], values(good, d));
+      badDensities[d] = new ParzenDensity(bounds[d][0], bounds[d][1], values(bad, d));
+    }
+
+    int[] best = null;
+    double bestScore = Double.NEGATIVE_INFINITY;
+    for (int c = 0; c < candidates; c++) {
+      var candidate = new int[bounds.length];
+      double score = 0;
+      for (int d = 0; d < bounds.length; d++) {
+        candidate[d] = goodDensities[d].sample(random);
+        score += Math.log(goodDensities[d].density(candidate[d]))
+            - Math.log(badDensities[d].density(candidate[d]));
+      }
+      if (score > bestScore) {
+        bestScore = score;
+        best = candidate;
+      }
+    }
+    return best;
+  }
+
+  private double fitness(EvaluationContext context, StrategyParameters params) {
+    return GeneticOptimizer.backtestFitness(backTesterService, context, params, initialBalance);
+  }
+
+  private static int[][] bounds(Genotype<IntegerGene> genotype) {
+    var bounds = new int[genotype.length()][];
+    for (int d = 0; d < genotype.length(); d++) {
+      var gene = genotype.get(d).gene();
+      bounds[d] = new int[]{gene.min(), gene.max()};
+    }
+    return bounds;
+  }
+
+  private static Genotype<IntegerGene> genotype(int[][] bounds, int[] values) {
+    var chromosomes = new ArrayList<IntegerChromosome>(bounds.length);
+    for (int d = 0; d < bounds.length; d++) {
+      chromosomes.add(IntegerChromosome.of(IntegerGene.of(values[d], bounds[d][0], bounds[d][1])));
+    }
+    return Genotype.of(chromosomes);
+  }
+
+  private static int[] sampleUniform(int[][] bounds, SplittableRandom random) {
+    var values = new int[bounds.length];
+    for (int d = 0; d < bounds.length; d++) {
+      values[d] = random.nextInt(bounds[d][0], bounds[d][1] + 1);
+    }
+    return values;
+  }
+
+  private static int[] values(List<Observation> observations, int dimension) {
+    return observations.stream().mapToInt(observation -> observation.values()[dimension])
+        .toArray();
+  }
+
+  private static List<Integer> key(int[] values) {
+    return Arrays.stream(values).boxed().toList();
+  }
+
+  private static Observation best(List<Observation> observations) {
+    return observations.stream().max(Comparator.comparingDouble(Observation::fitness))
+        .orElseThrow();
+  }
+
+  private record Observation(int[] values, double fitness) {
+
+  }
+
+  /**
+   * Mixture of a uniform prior over {@code [min, max]} and a Gaussian kernel on every observed
+   * value, with a bandwidth that shrinks as observations are added (Scott's rule).
+   */
+  static final class ParzenDensity {
+
+    private final int min;
+    private final int max;
+    private final int[] observed;
+    private final double bandwidth;
+
+    ParzenDensity(int min, int max, int[] observed) {
+      this.min = min;
+      this.max = max;
+      this.observed = observed;
+      int range = max - min;
+      double deviation = range / Math.sqrt(12);
+      if (observed.length > 1) {
+        double mean = Arrays.stream(observed).average().orElse(0);
+        double variance = Arrays.stream(observed).mapToDouble(v -> (v - mean) * (v - mean))
+            .sum() / (observed.length - 1);
+        // Identical observations would give a zero width kernel
+        deviation = Math.max(Math.sqrt(variance), range / 20.0);
+      }
+      this.bandwidth = Math.max(1, 1.06 * deviation * Math.pow(observed.length + 1, -0.2));
+    }
+
+    double density(int value) {
+      double kernels = 0;
+      for (int v : observed) {
+        double z = (value - v) / bandwidth;
+        kernels += Math.exp(-0.5 * z * z) / (bandwidth * Math.sqrt(2 * Math.PI));
+      }
+      return (PRIOR_WEIGHT / (max - min + 1) + kernels) / (PRIOR_WEIGHT + observed.length);
+    }
+
+    int sample(SplittableRandom random) {
+      if (observed.length == 0
+          || random.nextDouble() * (PRIOR_WEIGHT + observed.length) < PRIOR_WEIGHT) {
+        return random.nextInt(min, max + 1);
+      }
+      int center = observed[random.nextInt(observed.length)];
+      double value = center + random.nextGaussian() * bandwidth;
+      return (int) Math.max(min, Math.min(max, Math.round(value)));
+    }
+  }
+}
@@ -0,0 +1,90 @@
+package ch.kekelidze.krakentrader.optimize.checkpoint;
+
+import ch.kekelidze.krakentrader.indicator.configuration.StrategyParameters;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Progress of the strategy optimization of one coin: the best strategy once the coin is done, the
+ * result of every finished strategy, the last saved population of every running strategy and the
+ * fitness of the parameter sets evaluated so far. The strategies of a coin update it concurrently.
+ */
+@Getter
+@RequiredArgsConstructor
+public class OptimizationCheckpoint {
+
+  private final String symbol;
+  private final int period;
+  // Identifies the bars the fitness values were computed on
+  private final String datasetId;
+  private final Map<String, StrategyResult> completedStrategies = new ConcurrentHashMap<>();
+  private final Map<String, Population> populations = new ConcurrentHashMap<>();
+  private final Map<String, Map<StrategyParameters, Double>> fitnessCaches =
+      new ConcurrentHashMap<>();
+
+  @Setter
+  private volatile StrategyResult result;
+
+  // A detached checkpoint only lives in memory and is never written
+  @Setter(AccessLevel.PACKAGE)
+  private boolean detached;
+
+  /**
+   * Returns the fitness of the parameter sets evaluated for the strategy, to which new evaluations
+   * are added.
+   */
+  public Map<StrategyParameters, Double> fitnessCache(String strategyName) {
+    return fitnessCaches.computeIfAbsent(strategyName, name -> new ConcurrentHashMap<>());
+  }
+
+  public void updatePopulation(String strategyName, Population population) {
+    populations.put(strategyName, population);
+  }
+
+  /**
+   * Records the result of a strategy. Its population and fitness cache are no longer needed to
+   * resume.
+   */
+  public void completeStrategy(StrategyResult strategyResult) {
+    completedStrategies.put(strategyResult.strategyName(), strategyResult);
+    populations.remove(strategyResult.strategyName());
+    fitnessCaches.remove(strategyResult.strategyName());
+  }
+
+  public boolean isEmpty() {
+    return result == null && completedStrategies.isEmpty() && populations.isEmpty()
+        && fitnessCaches.values().stream().allMatch(Map::isEmpty);
+  }
+
+  public record StrategyResult(String strategyName, StrategyParameters parameters,
+                               double fitness) {
+
+  }
+
+  /**
+   * A population after the evolution of the given generation.
+   */
+  public record Population(long generation, List<Individual> individuals) {
+
+    public double bestFitness() {
+      return individuals.stream().mapToDouble(Individual::fitness).max()
+          .orElse(Double.NEGATIVE_INFINITY);
+    }
+  }
+
+  /**
+   * An evaluated member of a population.
+   *
+   * @param genes      the allele of every chromosome of the genotype
+   * @param generation the generation the individual was created in, which determines its age
+   * @param fitness    the fitness of the individual
+   */
+  public record Individual(double[] genes, long generation, double fitness) {
+
+  }
+}
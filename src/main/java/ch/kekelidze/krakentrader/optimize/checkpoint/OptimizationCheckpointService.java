@@ -0,0 +1,276 @@
+package ch.kekelidze.krakentrader.optimize.checkpoint;
+
+import ch.kekelidze.krakentrader.indicator.configuration.StrategyParameters;
+import ch.kekelidze.krakentrader.optimize.checkpoint.OptimizationCheckpoint.Individual;
+import ch.kekelidze.krakentrader.optimize.checkpoint.OptimizationCheckpoint.Population;
+import ch.kekelidze.krakentrader.optimize.checkpoint.OptimizationCheckpoint.StrategyResult;
+import ch.kekelidze.krakentrader.optimize.distributed.BarFile;
+import ch.kekelidze.krakentrader.optimize.util.ParameterVector;
+import ch.kekelidze.krakentrader.strategy.dto.EvaluationContext;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Writes the progress of long strategy optimizations to disk, so a run that crashes or is
+ * redeployed resumes where it stopped instead of starting over.
+ * <p>
+ * Every coin has its own checkpoint file. A checkpoint is only resumed for the same bars it was
+ * written for, a longer or shifted history starts the coin from scratch. File layout: magic,
+ * version, number of parameter values, symbol, period and dataset id, the coin result if the coin
+ * is done, the finished strategies, then per running strategy its generation and population and
+ * per strategy its cached fitness values. Parameter sets are written as their
+ * {@link ParameterVector}. The file is written to a temporary sibling and atomically moved in
+ * place.
+ */
+@Slf4j
+@Service
+public class OptimizationCheckpointService {
+
+  private static final int MAGIC = 0x4B43504B;
+  private static final int VERSION = 1;
+
+  @Value("${optimization.checkpoint.enabled:true}")
+  boolean enabled;
+
+  @Value("${optimization.checkpoint.dir:data/checkpoints}")
+  String checkpointDir;
+
+  // Generations of a strategy between two checkpoints
+  @Value("${optimization.checkpoint.interval-generations:5}")
+  int intervalGenerations;
+
+  /**
+   * Returns the checkpoint of the coin, or an empty checkpoint if there is none for these bars.
+   */
+  public OptimizationCheckpoint load(EvaluationContext context) {
+    var symbol = context.getSymbol();
+    var datasetId = BarFile.datasetId(symbol, context.getPeriod(), context.getBars());
+    var empty = new OptimizationCheckpoint(symbol, context.getPeriod(), datasetId);
+    if (!enabled) {
+      return empty;
+    }
+    var path = path(symbol, context.getPeriod());
+    if (!Files.exists(path)) {
+      return empty;
+    }
+    try {
+      var checkpoint = read(path);
+      if (!datasetId.equals(checkpoint.getDatasetId())) {
+        log.info("Ignoring checkpoint {} written for different bars of {}", path, symbol);
+        return empty;
+      }
+      log.info("Resuming {} from checkpoint: {} strategies finished, {} populations, "
+              + "{} cached evaluations", symbol, checkpoint.getCompletedStrategies().size(),
+          checkpoint.getPopulations().size(), checkpoint.getFitnessCaches().values().stream()
+              .mapToInt(Map::size).sum());
+      return checkpoint;
+    } catch (IOException | RuntimeException e) {
+      log.warn("Failed to read checkpoint {}, optimizing {} from scratch: {}", path, symbol,
+          e.getMessage());
+      return empty;
+    }
+  }
+
+  /**
+   * Returns an empty checkpoint that is never written, for a history optimized next to other
+   * histories of the same coin, e.g. the ranges of a walk-forward optimization.
+   */
+  public OptimizationCheckpoint detached(EvaluationContext context) {
+    var symbol = context.getSymbol();
+    var checkpoint = new OptimizationCheckpoint(symbol, context.getPeriod(),
+        BarFile.datasetId(symbol, context.getPeriod(), context.getBars()));
+    checkpoint.setDetached(true);
+    return checkpoint;
+  }
+
+  /**
+   * Returns whether a running strategy saves its population after the generation.
+   */
+  public boolean isDue(long generation) {
+    return enabled && intervalGenerations > 0 && generation % intervalGenerations == 0;
+  }
+
+  /**
+   * Writes the checkpoint. A failure is logged but doesn't stop the optimization.
+   */
+  public void save(OptimizationCheckpoint checkpoint) {
+    if (!enabled || checkpoint.isDetached()) {
+      return;
+    }
+    var path = path(checkpoint.getSymbol(), checkpoint.getPeriod());
+    // The strategies of a coin share the temporary file
+    synchronized (checkpoint) {
+      try {
+        write(checkpoint, path);
+        log.debug("Wrote checkpoint of {} to {}", checkpoint.getSymbol(), path);
+      } catch (IOException e) {
+        log.error("Failed to write checkpoint {}: {}", path, e.getMessage(), e);
+      }
+    }
+  }
+
+  /**
+   * Deletes the checkpoint of the coin once its result is stored.
+   */
+  public void delete(String symbol, int period) {
+    if (!enabled) {
+      return;
+    }
+    var path = path(symbol, period);
+    try {
+      if (Files.deleteIfExists(path)) {
+        log.debug("Deleted checkpoint {}", path);
+      }
+    } catch (IOException e) {
+      log.warn("Failed to delete checkpoint {}: {}", path, e.getMessage());
+    }
+  }
+
+  Path path(String symbol, int period) {
+    var safeSymbol = symbol.replaceAll("[^A-Za-z0-9]", "_");
+    return Path.of(checkpointDir, safeSymbol + "-" + period + ".ckpt");
+  }
+
+  void write(OptimizationCheckpoint checkpoint, Path path) throws IOException {
+    if (path.getParent() != null) {
+      Files.createDirectories(path.getParent());
+    }
+    var tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+    try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(ParameterVector.size());
+      out.writeUTF(checkpoint.getSymbol());
+      out.writeInt(checkpoint.getPeriod());
+      out.writeUTF(checkpoint.getDatasetId());
+
+      var result = checkpoint.getResult();
+      out.writeBoolean(result != null);
+      if (result != null) {
+        writeStrategyResult(out, result);
+      }
+
+      var completedStrategies = new ArrayList<>(checkpoint.getCompletedStrategies().values());
+      out.writeInt(completedStrategies.size());
+      for (StrategyResult strategyResult : completedStrategies) {
+        writeStrategyResult(out, strategyResult);
+      }
+
+      var populations = new HashMap<>(checkpoint.getPopulations());
+      out.writeInt(populations.size());
+      for (var entry : populations.entrySet()) {
+        var population = entry.getValue();
+        out.writeUTF(entry.getKey());
+        out.writeLong(population.generation());
+        out.writeInt(population.individuals().size());
+        for (Individual individual : population.individuals()) {
+          out.writeLong(individual.generation());
+          out.writeDouble(individual.fitness());
+          out.writeInt(individual.genes().length);
+          for (double gene : individual.genes()) {
+            out.writeDouble(gene);
+          }
+        }
+      }
+
+      var fitnessCaches = new HashMap<String, Map<StrategyParameters, Double>>();
+      checkpoint.getFitnessCaches().forEach((name, cache) -> fitnessCaches.put(name,
+          new HashMap<>(cache)));
+      out.writeInt(fitnessCaches.size());
+      for (var entry : fitnessCaches.entrySet()) {
+        out.writeUTF(entry.getKey());
+        out.writeInt(entry.getValue().size());
+        for (var evaluation : entry.getValue().entrySet()) {
+          writeParameters(out, evaluation.getKey());
+          out.writeDouble(evaluation.getValue());
+        }
+      }
+    }
+    Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  OptimizationCheckpoint read(Path path) throws IOException {
+    try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION
+          || in.readInt() != ParameterVector.size()) {
+        throw new IOException("unknown format");
+      }
+      var checkpoint = new OptimizationCheckpoint(in.readUTF(), in.readInt(), in.readUTF());
+      if (in.readBoolean()) {
+        checkpoint.setResult(readStrategyResult(in));
+      }
+
+      int completedStrategies = in.readInt();
+      for (int i = 0; i < completedStrategies; i++) {
+        checkpoint.completeStrategy(readStrategyResult(in));
+      }
+
+      int populations = in.readInt();
+      for (int i = 0; i < populations; i++) {
+        var strategyName = in.readUTF();
+        long generation = in.readLong();
+        int size = in.readInt();
+        var individuals = new ArrayList<Individual>(size);
+        for (int j = 0; j < size; j++) {
+          long individualGeneration = in.readLong();
+          double fitness = in.readDouble();
+          var genes = new double[in.readInt()];
+          for (int g = 0; g < genes.length; g++) {
+            genes[g] = in.readDouble();
+          }
+          individuals.add(new Individual(genes, individualGeneration, fitness));
+        }
+        checkpoint.updatePopulation(strategyName, new Population(generation, individuals));
+      }
+
+      int fitnessCaches = in.readInt();
+      for (int i = 0; i < fitnessCaches; i++) {
+        var cache = checkpoint.fitnessCache(in.readUTF());
+        int size = in.readInt();
+        for (int j = 0; j < size; j++) {
+          cache.put(readParameters(in), in.readDouble());
+        }
+      }
+      return checkpoint;
+    }
+  }
+
+  private static void writeStrategyResult(DataOutputStream out, StrategyResult result)
+      throws IOException {
+    out.writeUTF(result.strategyName());
+    writeParameters(out, result.parameters());
+    out.writeDouble(result.fitness());
+  }
+
+  private static StrategyResult readStrategyResult(DataInputStream in) throws IOException {
+    return new StrategyResult(in.readUTF(), readParameters(in), in.readDouble());
+  }
+
+  private static void writeParameters(DataOutputStream out, StrategyParameters parameters)
+      throws IOException {
+    for (double value : ParameterVector.toArray(parameters)) {
+      out.writeDouble(value);
+    }
+  }
+
+  private static StrategyParameters readParameters(DataInputStream in) throws IOException {
+    var values = new double[ParameterVector.size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = in.readDouble();
+    }
+    return ParameterVector.fromArray(values);
+  }
+}
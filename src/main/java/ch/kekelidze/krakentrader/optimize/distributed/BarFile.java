@@ -0,0 +1,133 @@
+package ch.kekelidze.krakentrader.optimize.distributed;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.ta4j.core.Bar;
+import org.ta4j.core.BaseBar;
+import org.ta4j.core.num.DecimalNum;
+
+/**
+ * Bar history of one dataset shared by the coordinator and the workers of a distributed
+ * optimization through a common directory.
+ * <p>
+ * File layout: magic, version, candle period in minutes, the symbol as length prefixed UTF-8 and
+ * the number of bars, then for each bar its end time in epoch seconds followed by open, high, low,
+ * close and volume as doubles, the same bar layout as the relay frames and the candle buffer
+ * snapshot. Workers memory-map the file instead of reading it through a stream.
+ *
+ * @param symbol the symbol of the bars
+ * @param period candle period in minutes
+ * @param bars   candles in chronological order
+ */
+public record BarFile(String symbol, int period, List<Bar> bars) {
+
+  private static final int MAGIC = 0x4B424152;
+  private static final int VERSION = 1;
+  private static final int BAR_BYTES = Long.BYTES + 5 * Double.BYTES;
+
+  /**
+   * Id of the dataset, also the name of its file. Bars with the same symbol, period, range and
+   * count map to the same id, so a history is published once however often it is evaluated.
+   */
+  public static String datasetId(String symbol, int period, List<Bar> bars) {
+    var safeSymbol = symbol.replaceAll("[^A-Za-z0-9]", "_");
+    if (bars.isEmpty()) {
+      return safeSymbol + "-" + period + "-empty.bars";
+    }
+    return "%s-%d-%d-%d-%d.bars".formatted(safeSymbol, period,
+        bars.getFirst().getEndTime().toEpochSecond(), bars.getLast().getEndTime().toEpochSecond(),
+        bars.size());
+  }
+
+  /**
+   * Writes the file to a temporary sibling and atomically moves it in place, so a worker never maps
+   * a partially written file.
+   */
+  public static void write(Path path, String symbol, int period, List<Bar> bars)
+      throws IOException {
+    if (path.getParent() != null) {
+      Files.createDirectories(path.getParent());
+    }
+    var symbolBytes = symbol.getBytes(StandardCharsets.UTF_8);
+    var buffer = ByteBuffer.allocate(4 * Integer.BYTES + Short.BYTES + symbolBytes.length
+        + Integer.BYTES + bars.size() * BAR_BYTES);
+    buffer.putInt(MAGIC);
+    buffer.putInt(VERSION);
+    buffer.putInt(period);
+    buffer.putShort((short) symbolBytes.length);
+    buffer.put(symbolBytes);
+    buffer.putInt(bars.size());
+    for (Bar bar : bars) {
+      buffer.putLong(bar.getEndTime().toEpochSecond());
+      buffer.putDouble(bar.getOpenPrice().doubleValue());
+      buffer.putDouble(bar.getHighPrice().doubleValue());
+      buffer.putDouble(bar.getLowPrice().doubleValue());
+      buffer.putDouble(bar.getClosePrice().doubleValue());
+      buffer.putDouble(bar.getVolume().doubleValue());
+    }
+    var tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+    Files.write(tempPath, buffer.array());
+    Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Memory-maps the file and decodes its bars.
+   *
+   * @throws IOException if the file can't be read or is not a bar file
+   */
+  public static BarFile map(Path path) throws IOException {
+    try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      try {
+        return decode(buffer);
+      } catch (RuntimeException e) {
+        throw new IOException("Malformed bar file " + path + ": " + e.getMessage(), e);
+      }
+    }
+  }
+
+  private static BarFile decode(ByteBuffer buffer) {
+    if (buffer.getInt() != MAGIC) {
+      throw new IllegalArgumentException("Not a bar file");
+    }
+    int version = buffer.getInt();
+    if (version != VERSION) {
+      throw new IllegalArgumentException("Unsupported bar file version " + version);
+    }
+    int period = buffer.getInt();
+    var symbolBytes = new byte[buffer.getShort()];
+    buffer.get(symbolBytes);
+    int barCount = buffer.getInt();
+    if (barCount < 0 || barCount * (long) BAR_BYTES != buffer.remaining()) {
+      throw new IllegalArgumentException("Bar count " + barCount + " does not match file size");
+    }
+    var timePeriod = Duration.ofMinutes(period);
+    var bars = new ArrayList<Bar>(barCount);
+    for (int i = 0; i < barCount; i++) {
+      bars.add(BaseBar.builder(DecimalNum::valueOf, Number.class)
+          .timePeriod(timePeriod)
+          .endTime(ZonedDateTime.ofInstant(Instant.ofEpochSecond(buffer.getLong()),
+              ZoneId.systemDefault()))
+          .openPrice(DecimalNum.valueOf(buffer.getDouble()))
+          .highPrice(DecimalNum.valueOf(buffer.getDouble()))
+          .lowPrice(DecimalNum.valueOf(buffer.getDouble()))
+          .closePrice(DecimalNum.valueOf(buffer.getDouble()))
+          .volume(DecimalNum.valueOf(buffer.getDouble()))
+          .build());
+    }
+    return new BarFile(new String(symbolBytes, StandardCharsets.UTF_8), period, bars);
+  }
+}
@@ -0,0 +1,342 @@
+package ch.kekelidze.krakentrader.optimize.distributed;
+
+import ch.kekelidze.krakentrader.backtester.service.dto.BacktestResult;
+import ch.kekelidze.krakentrader.indicator.configuration.StrategyParameters;
+import ch.kekelidze.krakentrader.optimize.distributed.EvaluationFrame.Batch;
+import ch.kekelidze.krakentrader.optimize.distributed.EvaluationFrame.Hello;
+import ch.kekelidze.krakentrader.optimize.distributed.EvaluationFrame.Results;
+import ch.kekelidze.krakentrader.strategy.dto.EvaluationContext;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Hands the backtests of an optimization out to {@link EvaluationWorker} processes.
+ * <p>
+ * Every history is published once as a {@link BarFile} in a data directory shared with the
+ * workers, a batch only carries its dataset id and parameter sets. Backtests requested
+ * concurrently, e.g. by the generations of several coins and strategies, are queued and every
+ * worker connection takes up to {@code batch-size} queued backtests of the same dataset and
+ * strategy at once. A worker that disconnects or does not answer within the timeout is dropped and
+ * its batch is put back at the head of the queue for the remaining workers, until a backtest was
+ * lost with {@code max-attempts} workers and fails instead.
+ */
+@Slf4j
+@Service
+public class EvaluationCoordinator implements DisposableBean {
+
+  private final LinkedBlockingDeque<PendingEvaluation> queue = new LinkedBlockingDeque<>();
+  private final List<WorkerConnection> connections = new CopyOnWriteArrayList<>();
+  private final Map<String, Boolean> publishedDatasets = new ConcurrentHashMap<>();
+  private final AtomicLong batchIds = new AtomicLong();
+
+  @Value("${optimization.distributed.bind-address:127.0.0.1}")
+  String bindAddress;
+
+  @Value("${optimization.distributed.port:7711}")
+  int port;
+
+  @Value("${optimization.distributed.data-dir:data/optimization}")
+  String dataDir;
+
+  // Backtests sent to a worker at once
+  @Value("${optimization.distributed.batch-size:16}")
+  int batchSize;
+
+  // A worker that does not return a batch within this time is considered lost
+  @Value("${optimization.distributed.worker-timeout-seconds:600}")
+  int workerTimeoutSeconds;
+
+  // A backtest whose batch was lost with this many workers, e.g. because it kills them, fails
+  @Value("${optimization.distributed.max-attempts:3}")
+  int maxAttempts;
+
+  // A backtest not returned within this time, including its time in the queue, fails
+  @Value("${optimization.distributed.evaluation-timeout-seconds:3600}")
+  int evaluationTimeoutSeconds;
+
+  private volatile ServerSocket serverSocket;
+  private volatile boolean stopped;
+
+  /**
+   * Starts accepting workers. Backtests requested before the first worker connects stay queued.
+   */
+  public synchronized void start() throws IOException {
+    if (serverSocket != null) {
+      return;
+    }
+    serverSocket = new ServerSocket(port, 50, InetAddress.getByName(bindAddress));
+    var acceptThread = new Thread(this::acceptLoop, "evaluation-coordinator-accept");
+    acceptThread.setDaemon(true);
+    acceptThread.start();
+    log.info("Evaluation coordinator listening on {}, sharing datasets in {}",
+        serverSocket.getLocalSocketAddress(), dataDir);
+  }
+
+  public boolean isRunning() {
+    var socket = serverSocket;
+    return socket != null && !socket.isClosed();
+  }
+
+  /**
+   * Returns the port the coordinator listens on, which differs from the configured one if it was 0.
+   */
+  public int getLocalPort() {
+    var socket = serverSocket;
+    return socket != null ? socket.getLocalPort() : -1;
+  }
+
+  public int getWorkerCount() {
+    return connections.size();
+  }
+
+  /**
+   * Backtests the strategy with the parameters on a worker, blocking until a worker returned the
+   * result or the evaluation timeout elapsed.
+   *
+   * @return the result without trade log
+   * @throws CompletionException if the backtest failed on the worker, was lost with
+   *                             {@code max-attempts} workers, timed out or the coordinator was
+   *                             stopped
+   */
+  public BacktestResult evaluate(EvaluationContext context, String strategyName,
+      StrategyParameters parameters, double initialCapital) {
+    if (stopped) {
+      throw new IllegalStateException("Evaluation coordinator stopped");
+    }
+    var evaluation = new PendingEvaluation(publish(context), strategyName, initialCapital,
+        parameters, new CompletableFuture<>(), new AtomicInteger());
+    queue.add(evaluation);
+    // Stopped while queueing, the queue may already have been drained
+    if (stopped && queue.remove(evaluation)) {
+      throw new IllegalStateException("Evaluation coordinator stopped");
+    }
+    try {
+      return evaluation.result().orTimeout(evaluationTimeoutSeconds, TimeUnit.SECONDS).join();
+    } catch (CompletionException e) {
+      // Timed out while still queued
+      queue.remove(evaluation);
+      throw e;
+    }
+  }
+
+  /**
+   * Writes the bars of the context to the shared data directory unless they were published before.
+   *
+   * @return the dataset id
+   */
+  String publish(EvaluationContext context) {
+    var datasetId = BarFile.datasetId(context.getSymbol(), context.getPeriod(), context.getBars());
+    publishedDatasets.computeIfAbsent(datasetId, id -> {
+      try {
+        var path = Path.of(dataDir, id);
+        if (!Files.exists(path)) {
+          BarFile.write(path, context.getSymbol(), context.getPeriod(), context.getBars());
+          log.debug("Published {} bars of {} as {}", context.getBars().size(),
+              context.getSymbol(), id);
+        }
+        return true;
+      } catch (IOException e) {
+        throw new UncheckedIOException("Failed to publish dataset " + id, e);
+      }
+    });
+    return datasetId;
+  }
+
+  private void acceptLoop() {
+    while (!serverSocket.isClosed()) {
+      try {
+        var socket = serverSocket.accept();
+        var connection = new WorkerConnection(socket);
+        var thread = new Thread(connection::run, "evaluation-worker-" + socket.getPort());
+        thread.setDaemon(true);
+        thread.start();
+      } catch (IOException e) {
+        if (!serverSocket.isClosed()) {
+          log.error("Failed to accept evaluation worker: {}", e.getMessage(), e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Takes the next queued backtest and up to {@code batchSize - 1} further queued backtests of the
+   * same dataset, strategy and capital.
+   */
+  private List<PendingEvaluation> takeBatch() throws InterruptedException {
+    var first = queue.take();
+    var batch = new ArrayList<PendingEvaluation>(batchSize);
+    batch.add(first);
+    var iterator = queue.iterator();
+    while (batch.size() < batchSize && iterator.hasNext()) {
+      var next = iterator.next();
+      if (next.sameBatch(first)) {
+        iterator.remove();
+        batch.add(next);
+      }
+    }
+    return batch;
+  }
+
+  private void requeue(List<PendingEvaluation> batch) {
+    if (stopped) {
+      var failure = new IllegalStateException("Evaluation coordinator stopped");
+      batch.forEach(evaluation -> evaluation.result().completeExceptionally(failure));
+      return;
+    }
+    var retries = new ArrayList<PendingEvaluation>(batch.size());
+    for (var evaluation : batch) {
+      if (evaluation.result().isDone()) {
+        continue;
+      }
+      int attempts = evaluation.attempts().incrementAndGet();
+      if (attempts >= maxAttempts) {
+        log.warn("Backtest of {} on {} lost with {} workers, failing it", evaluation.strategyName(),
+            evaluation.datasetId(), attempts);
+        evaluation.result().completeExceptionally(new IllegalStateException("Backtest of "
+            + evaluation.strategyName() + " lost with " + attempts + " workers"));
+      } else {
+        retries.add(evaluation);
+      }
+    }
+    Collections.reverse(retries);
+    retries.forEach(queue::addFirst);
+  }
+
+  @Override
+  public void destroy() {
+    stopped = true;
+    var socket = serverSocket;
+    if (socket != null) {
+      try {
+        socket.close();
+      } catch (IOException e) {
+        log.warn("Error closing evaluation coordinator: {}", e.getMessage());
+      }
+      connections.forEach(WorkerConnection::close);
+      connections.clear();
+      log.info("Evaluation coordinator stopped");
+    }
+    var failure = new IllegalStateException("Evaluation coordinator stopped");
+    PendingEvaluation pending;
+    while ((pending = queue.poll()) != null) {
+      pending.result().completeExceptionally(failure);
+    }
+  }
+
+  private record PendingEvaluation(String datasetId, String strategyName, double initialCapital,
+                                   StrategyParameters parameters,
+                                   CompletableFuture<BacktestResult> result,
+                                   AtomicInteger attempts) {
+
+    boolean sameBatch(PendingEvaluation other) {
+      return datasetId.equals(other.datasetId) && strategyName.equals(other.strategyName)
+          && initialCapital == other.initialCapital;
+    }
+  }
+
+  private class WorkerConnection {
+
+    private final Socket socket;
+    private volatile boolean closed;
+    private volatile Thread thread;
+    private String worker;
+
+    WorkerConnection(Socket socket) {
+      this.socket = socket;
+      this.worker = String.valueOf(socket.getRemoteSocketAddress());
+    }
+
+    void run() {
+      thread = Thread.currentThread();
+      List<PendingEvaluation> batch = List.of();
+      try (socket) {
+        socket.setTcpNoDelay(true);
+        socket.setSoTimeout(workerTimeoutSeconds * 1000);
+        var in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        var out = new BufferedOutputStream(socket.getOutputStream());
+        if (!(EvaluationFrameCodec.read(in) instanceof Hello hello)) {
+          log.warn("Rejecting evaluation worker {}: expected hello", worker);
+          return;
+        }
+        worker = hello.worker();
+        connections.add(this);
+        log.info("Evaluation worker {} connected, {} workers", worker, connections.size());
+        while (!closed) {
+          batch = takeBatch();
+          long batchId = batchIds.incrementAndGet();
+          var first = batch.getFirst();
+          out.write(EvaluationFrameCodec.encode(new Batch(batchId, first.datasetId(),
+              first.strategyName(), first.initialCapital(),
+              batch.stream().map(PendingEvaluation::parameters).toList())));
+          out.flush();
+
+          if (!(EvaluationFrameCodec.read(in) instanceof Results results)
+              || results.batchId() != batchId || results.results().size() != batch.size()) {
+            throw new IOException("Unexpected answer to batch " + batchId);
+          }
+          for (int i = 0; i < batch.size(); i++) {
+            var result = results.results().get(i);
+            if (result != null) {
+              batch.get(i).result().complete(result);
+            } else {
+              batch.get(i).result().completeExceptionally(new IllegalStateException(
+                  "Backtest of " + first.strategyName() + " failed on worker " + worker));
+            }
+          }
+          batch = List.of();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (IOException e) {
+        if (!closed) {
+          log.warn("Evaluation worker {} lost: {}", worker, e.getMessage());
+        }
+      } finally {
+        closed = true;
+        connections.remove(this);
+        if (!batch.isEmpty()) {
+          log.info("Re-queueing {} backtests of worker {}", batch.size(), worker);
+          requeue(batch);
+        }
+        log.info("Evaluation worker {} disconnected, {} workers", worker, connections.size());
+      }
+    }
+
+    void close() {
+      closed = true;
+      var connectionThread = thread;
+      if (connectionThread != null) {
+        connectionThread.interrupt();
+      }
+      try {
+        socket.close();
+      } catch (IOException e) {
+        log.debug("Error closing evaluation worker socket: {}", e.getMessage());
+      }
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package ch.kekelidze.krakentrader.optimize.distributed;
+
+import ch.kekelidze.krakentrader.backtester.service.dto.BacktestResult;
+import ch.kekelidze.krakentrader.indicator.configuration.StrategyParameters;
+import java.util.List;
+
+/**
+ * Decoded frame of the distributed evaluation protocol.
+ */
+public sealed interface EvaluationFrame {
+
+  EvaluationFrameType type();
+
+  /**
+   * @param worker name of the worker, used in the logs of the coordinator
+   */
+  record Hello(String worker) implements EvaluationFrame {
+
+    @Override
+    public EvaluationFrameType type() {
+      return EvaluationFrameType.HELLO;
+    }
+  }
+
+  /**
+   * @param id             id of the batch, repeated by its results
+   * @param datasetId      name of the {@link BarFile} in the shared data directory
+   * @param strategyName   strategy to backtest
+   * @param initialCapital capital every backtest starts with
+   * @param parameters     parameter sets to backtest
+   */
+  record Batch(long id, String datasetId, String strategyName, double initialCapital,
+               List<StrategyParameters> parameters) implements EvaluationFrame {
+
+    @Override
+    public EvaluationFrameType type() {
+      return EvaluationFrameType.BATCH;
+    }
+  }
+
+  /**
+   * @param batchId id of the evaluated batch
+   * @param results results without trade log in the order of the parameter sets, {@code null} for a
+   *                backtest that failed on the worker
+   */
+  record Results(long batchId, List<BacktestResult> results) implements EvaluationFrame {
+
+    @Override
+    public EvaluationFrameType type() {
+      return EvaluationFrameType.RESULTS;
+    }
+  }
+}
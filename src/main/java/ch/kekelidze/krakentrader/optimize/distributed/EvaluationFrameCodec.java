@@ -0,0 +1,196 @@
+package ch.kekelidze.krakentrader.optimize.distributed;
+
+import ch.kekelidze.krakentrader.backtester.service.dto.BacktestResult;
+import ch.kekelidze.krakentrader.indicator.configuration.StrategyParameters;
+import ch.kekelidze.krakentrader.optimize.distributed.EvaluationFrame.Batch;
+import ch.kekelidze.krakentrader.optimize.distributed.EvaluationFrame.Hello;
+import ch.kekelidze.krakentrader.optimize.distributed.EvaluationFrame.Results;
+import ch.kekelidze.krakentrader.optimize.util.ParameterVector;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Binary encoding of the distributed evaluation protocol.
+ * <p>
+ * Every frame starts with its payload length followed by the frame type. Strings are length
+ * prefixed UTF-8. A parameter set is the values of the {@link StrategyParameters} components in
+ * declaration order as doubles, preceded once per batch by the number of components, so a worker
+ * built from a different version of the parameters rejects the batch instead of misreading it. A
+ * result is a presence flag followed by its metrics, the trade log is not transferred.
+ */
+public final class EvaluationFrameCodec {
+
+  private static final int RESULT_BYTES = 1 + 5 * Double.BYTES + Integer.BYTES + 1;
+  // A batch of a thousand parameter sets is about 270 KB, anything far beyond is a corrupt stream
+  private static final int MAX_FRAME_BYTES = 16 << 20;
+
+  private EvaluationFrameCodec() {
+  }
+
+  /**
+   * Encodes the frame including its length prefix.
+   */
+  public static byte[] encode(EvaluationFrame frame) {
+    var payload = switch (frame) {
+      case Hello hello -> encodeHello(hello);
+      case Batch batch -> encodeBatch(batch);
+      case Results results -> encodeResults(results);
+    };
+    var buffer = ByteBuffer.allocate(Integer.BYTES + 1 + payload.length);
+    buffer.putInt(1 + payload.length);
+    buffer.put(frame.type().getCode());
+    buffer.put(payload);
+    return buffer.array();
+  }
+
+  /**
+   * Reads the next frame from the stream, blocking until it is complete.
+   *
+   * @throws java.io.EOFException if the stream ends
+   * @throws IOException          if the stream fails or the frame is malformed
+   */
+  public static EvaluationFrame read(DataInputStream in) throws IOException {
+    int payloadLength = in.readInt();
+    if (payloadLength < 1 || payloadLength > MAX_FRAME_BYTES) {
+      throw new IOException("Invalid evaluation frame length: " + payloadLength);
+    }
+    var payload = new byte[payloadLength];
+    in.readFully(payload);
+    try {
+      return decode(ByteBuffer.wrap(payload));
+    } catch (RuntimeException e) {
+      throw new IOException("Malformed evaluation frame: " + e.getMessage(), e);
+    }
+  }
+
+  static EvaluationFrame decode(ByteBuffer buffer) {
+    var frame = switch (EvaluationFrameType.fromCode(buffer.get())) {
+      case HELLO -> new Hello(getString(buffer));
+      case BATCH -> decodeBatch(buffer);
+      case RESULTS -> decodeResults(buffer);
+    };
+    if (buffer.hasRemaining()) {
+      throw new IllegalArgumentException(buffer.remaining() + " bytes after the frame");
+    }
+    return frame;
+  }
+
+  private static byte[] encodeHello(Hello hello) {
+    var worker = hello.worker().getBytes(StandardCharsets.UTF_8);
+    var buffer = ByteBuffer.allocate(Short.BYTES + worker.length);
+    putString(buffer, worker);
+    return buffer.array();
+  }
+
+  private static byte[] encodeBatch(Batch batch) {
+    var datasetId = batch.datasetId().getBytes(StandardCharsets.UTF_8);
+    var strategyName = batch.strategyName().getBytes(StandardCharsets.UTF_8);
+    var buffer = ByteBuffer.allocate(Long.BYTES + 2 * Short.BYTES + datasetId.length
+        + strategyName.length + Double.BYTES + Integer.BYTES + Short.BYTES
+        + batch.parameters().size() * ParameterVector.size() * Double.BYTES);
+    buffer.putLong(batch.id());
+    putString(buffer, datasetId);
+    putString(buffer, strategyName);
+    buffer.putDouble(batch.initialCapital());
+    buffer.putInt(batch.parameters().size());
+    buffer.putShort((short) ParameterVector.size());
+    for (StrategyParameters parameters : batch.parameters()) {
+      for (double value : ParameterVector.toArray(parameters)) {
+        buffer.putDouble(value);
+      }
+    }
+    return buffer.array();
+  }
+
+  private static Batch decodeBatch(ByteBuffer buffer) {
+    long id = buffer.getLong();
+    var datasetId = getString(buffer);
+    var strategyName = getString(buffer);
+    double initialCapital = buffer.getDouble();
+    int count = buffer.getInt();
+    int components = buffer.getShort();
+    if (components != ParameterVector.size()) {
+      throw new IllegalArgumentException("Parameter sets have " + components
+          + " components, expected " + ParameterVector.size());
+    }
+    if (count < 0 || count * (long) components * Double.BYTES != buffer.remaining()) {
+      throw new IllegalArgumentException("Parameter count " + count + " does not match frame size");
+    }
+    var parameters = new ArrayList<StrategyParameters>(count);
+    for (int i = 0; i < count; i++) {
+      var values = new double[components];
+      for (int c = 0; c < components; c++) {
+        values[c] = buffer.getDouble();
+      }
+      parameters.add(ParameterVector.fromArray(values));
+    }
+    return new Batch(id, datasetId, strategyName, initialCapital, parameters);
+  }
+
+  private static byte[] encodeResults(Results results) {
+    var buffer = ByteBuffer.allocate(Long.BYTES + Integer.BYTES
+        + results.results().size() * RESULT_BYTES);
+    buffer.putLong(results.batchId());
+    buffer.putInt(results.results().size());
+    for (BacktestResult result : results.results()) {
+      if (result == null) {
+        buffer.put((byte) 0);
+        continue;
+      }
+      buffer.put((byte) 1);
+      buffer.putDouble(result.totalProfit());
+      buffer.putInt(result.totalTrades());
+      buffer.putDouble(result.sharpeRatio());
+      buffer.putDouble(result.maxDrawdown());
+      buffer.putDouble(result.winRate());
+      buffer.putDouble(result.capital());
+      buffer.put((byte) (result.pruned() ? 1 : 0));
+    }
+    // Failed backtests take a single byte
+    return Arrays.copyOf(buffer.array(), buffer.position());
+  }
+
+  private static Results decodeResults(ByteBuffer buffer) {
+    long batchId = buffer.getLong();
+    int count = buffer.getInt();
+    if (count < 0 || count > buffer.remaining()) {
+      throw new IllegalArgumentException("Result count " + count + " does not match frame size");
+    }
+    var results = new ArrayList<BacktestResult>(count);
+    for (int i = 0; i < count; i++) {
+      if (buffer.get() == 0) {
+        results.add(null);
+        continue;
+      }
+      results.add(BacktestResult.builder()
+          .totalProfit(buffer.getDouble())
+          .totalTrades(buffer.getInt())
+          .sharpeRatio(buffer.getDouble())
+          .maxDrawdown(buffer.getDouble())
+          .winRate(buffer.getDouble())
+          .capital(buffer.getDouble())
+          .pruned(buffer.get() != 0)
+          .build());
+    }
+    return new Results(batchId, results);
+  }
+
+  private static void putString(ByteBuffer buffer, byte[] value) {
+    if (value.length > Short.MAX_VALUE) {
+      throw new IllegalArgumentException("String too long for an evaluation frame");
+    }
+    buffer.putShort((short) value.length);
+    buffer.put(value);
+  }
+
+  private static String getString(ByteBuffer buffer) {
+    var bytes = new byte[buffer.getShort()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,29 @@
+package ch.kekelidze.krakentrader.optimize.distributed;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Frame types of the distributed evaluation protocol.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum EvaluationFrameType {
+  // Sent once by a worker after connecting
+  HELLO((byte) 1),
+  // Parameter sets of one strategy to backtest on one dataset, sent by the coordinator
+  BATCH((byte) 2),
+  // Backtest results of a batch in the order of its parameter sets, sent by the worker
+  RESULTS((byte) 3);
+
+  private final byte code;
+
+  public static EvaluationFrameType fromCode(byte code) {
+    for (EvaluationFrameType type : values()) {
+      if (type.code == code) {
+        return type;
+      }
+    }
+    throw new IllegalArgumentException("Unknown evaluation frame type: " + code);
+  }
+}
@@ -0,0 +1,180 @@
+package ch.kekelidze.krakentrader.optimize.distributed;
+
+import ch.kekelidze.krakentrader.backtester.service.BackTesterService;
+import ch.kekelidze.krakentrader.backtester.service.dto.BacktestResult;
+import ch.kekelidze.krakentrader.indicator.cache.IndicatorCache;
+import ch.kekelidze.krakentrader.optimize.distributed.EvaluationFrame.Batch;
+import ch.kekelidze.krakentrader.optimize.distributed.EvaluationFrame.Hello;
+import ch.kekelidze.krakentrader.optimize.distributed.EvaluationFrame.Results;
+import ch.kekelidze.krakentrader.optimize.util.OptimizationScheduler;
+import ch.kekelidze.krakentrader.strategy.dto.EvaluationContext;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Backtests the batches of an {@link EvaluationCoordinator}.
+ * <p>
+ * The worker connects to the coordinator, memory-maps the {@link BarFile} of every batch from the
+ * shared data directory and backtests the parameter sets of the batch in parallel on the
+ * {@link OptimizationScheduler}. The most recently used datasets are kept, so the next batches of
+ * the same history skip the file. The connection is re-established after a delay whenever it
+ * drops, the coordinator re-queues the batch that was in progress.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EvaluationWorker implements DisposableBean {
+
+  private static final int CONNECT_TIMEOUT_MS = 5000;
+  private static final int CACHED_DATASETS = 16;
+
+  private final BackTesterService backTesterService;
+  private final IndicatorCache indicatorCache;
+  private final OptimizationScheduler optimizationScheduler;
+
+  private final Map<String, BarFile> datasets = new LinkedHashMap<>(CACHED_DATASETS, 0.75f,
+      true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, BarFile> eldest) {
+      return size() > CACHED_DATASETS;
+    }
+  };
+
+  @Value("${optimization.distributed.coordinator-host:127.0.0.1}")
+  String host;
+
+  @Value("${optimization.distributed.port:7711}")
+  int port;
+
+  @Value("${optimization.distributed.data-dir:data/optimization}")
+  String dataDir;
+
+  @Value("${optimization.distributed.reconnect-delay-ms:2000}")
+  long reconnectDelayMs;
+
+  private volatile boolean running;
+  private volatile Socket socket;
+
+  /**
+   * Evaluates batches of the coordinator until {@link #destroy()} is called, reconnecting whenever
+   * the connection drops. Blocks the calling thread.
+   */
+  public void run() {
+    running = true;
+    var name = ManagementFactory.getRuntimeMXBean().getName();
+    log.info("Evaluation worker {} serving coordinator {}:{} on {} threads", name, host, port,
+        optimizationScheduler.getParallelism());
+    while (running) {
+      try (var coordinatorSocket = new Socket()) {
+        socket = coordinatorSocket;
+        coordinatorSocket.setTcpNoDelay(true);
+        coordinatorSocket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MS);
+        var in = new DataInputStream(new BufferedInputStream(coordinatorSocket.getInputStream()));
+        var out = new BufferedOutputStream(coordinatorSocket.getOutputStream());
+        out.write(EvaluationFrameCodec.encode(new Hello(name)));
+        out.flush();
+        log.info("Connected to evaluation coordinator {}:{}", host, port);
+        while (running) {
+          if (!(EvaluationFrameCodec.read(in) instanceof Batch batch)) {
+            throw new IOException("Expected a batch from the coordinator");
+          }
+          out.write(EvaluationFrameCodec.encode(evaluate(batch)));
+          out.flush();
+        }
+      } catch (IOException e) {
+        if (running) {
+          log.warn("Evaluation coordinator connection lost: {}, retrying in {} ms",
+              e.getMessage(), reconnectDelayMs);
+        }
+      }
+      sleepBeforeReconnect();
+    }
+  }
+
+  Results evaluate(Batch batch) {
+    BarFile dataset;
+    try {
+      dataset = dataset(batch.datasetId());
+    } catch (IOException e) {
+      // Answered as failed, re-queueing would hand the batch to this worker again
+      log.error("Cannot map dataset {} from {}: {}", batch.datasetId(), dataDir, e.getMessage());
+      return new Results(batch.id(), Collections.nCopies(batch.parameters().size(), null));
+    }
+    var context = EvaluationContext.builder()
+        .symbol(dataset.symbol())
+        .period(dataset.period())
+        .bars(dataset.bars())
+        .build();
+    List<Supplier<BacktestResult>> tasks = batch.parameters().stream()
+        .<Supplier<BacktestResult>>map(parameters -> () -> {
+          try {
+            return backTesterService.runSimulation(context, batch.strategyName(), parameters,
+                batch.initialCapital());
+          } catch (Exception e) {
+            log.error("Backtest of {} on {} failed: {}", batch.strategyName(), batch.datasetId(),
+                e.getMessage());
+            return null;
+          }
+        })
+        .toList();
+    // All parameter sets of the batch backtest the same bars
+    try (var ignored = indicatorCache.shareSeries(dataset.bars())) {
+      var results = optimizationScheduler.invokeAll(tasks);
+      log.debug("Evaluated batch {} of {} on {}", batch.id(), batch.strategyName(),
+          batch.datasetId());
+      return new Results(batch.id(), results);
+    }
+  }
+
+  private BarFile dataset(String datasetId) throws IOException {
+    synchronized (datasets) {
+      var dataset = datasets.get(datasetId);
+      if (dataset == null) {
+        dataset = BarFile.map(Path.of(dataDir, datasetId));
+        datasets.put(datasetId, dataset);
+      }
+      return dataset;
+    }
+  }
+
+  private void sleepBeforeReconnect() {
+    if (!running) {
+      return;
+    }
+    try {
+      Thread.sleep(reconnectDelayMs);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      running = false;
+    }
+  }
+
+  @Override
+  public void destroy() {
+    running = false;
+    var coordinatorSocket = socket;
+    if (coordinatorSocket != null) {
+      try {
+        coordinatorSocket.close();
+      } catch (IOException e) {
+        log.debug("Error closing coordinator socket: {}", e.getMessage());
+      }
+    }
+  }
+}
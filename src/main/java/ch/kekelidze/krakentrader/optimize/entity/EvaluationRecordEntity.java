@@ -0,0 +1,64 @@
+package ch.kekelidze.krakentrader.optimize.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Fitness of a parameter set of a strategy, backtested by an optimization run on the bars of a coin
+ * from {@code datasetStart} to {@code datasetEnd}. Later runs on a longer history reuse it instead
+ * of backtesting the parameter set again.
+ */
+@Entity
+@Table(name = "optimization_evaluation", indexes = @Index(
+    name = "idx_optimization_evaluation_dataset",
+    columnList = "coin_pair, candle_period, strategy_name, dataset_start"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EvaluationRecordEntity {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "coin_pair", nullable = false)
+  private String coinPair;
+
+  @Column(name = "candle_period", nullable = false)
+  private int period;
+
+  @Column(name = "strategy_name", nullable = false)
+  private String strategyName;
+
+  // The parameter vector as comma separated values
+  @Column(name = "parameter_values", nullable = false, length = 1024)
+  private String parameters;
+
+  // End time of the first bar in epoch seconds
+  @Column(name = "dataset_start", nullable = false)
+  private long datasetStart;
+
+  // End time of the last bar in epoch seconds
+  @Column(name = "dataset_end", nullable = false)
+  private long datasetEnd;
+
+  @Column(name = "bar_count", nullable = false)
+  private int barCount;
+
+  @Column(name = "fitness", nullable = false)
+  private double fitness;
+
+  @Column(name = "evaluated_at", nullable = false)
+  private Instant evaluatedAt;
+}
@@ -0,0 +1,11 @@
+package ch.kekelidze.krakentrader.optimize.model;
+
+import ch.kekelidze.krakentrader.indicator.configuration.StrategyParameters;
+
+/**
+ * Parameters an optimizer found and the strategy they are optimized for, null if the optimizer
+ * does not choose the strategy and optimized the best strategy of the coin.
+ */
+public record OptimizationResult(String strategyName, StrategyParameters parameters) {
+
+}
@@ -0,0 +1,17 @@
+package ch.kekelidze.krakentrader.optimize.model;
+
+import lombok.Builder;
+
+/**
+ * Evaluations the genetic algorithm and CMA-ES need for one strategy of one coin. The target is
+ * the best fitness both optimizers reached, an optimizer that never reached it has -1 evaluations
+ * to target.
+ */
+@Builder
+public record OptimizerBenchmark(String coin, String strategyName, double target,
+                                 int geneticEvaluations, double geneticBestFitness,
+                                 int geneticEvaluationsToTarget, long geneticMillis,
+                                 int cmaEsEvaluations, double cmaEsBestFitness,
+                                 int cmaEsEvaluationsToTarget, long cmaEsMillis) {
+
+}
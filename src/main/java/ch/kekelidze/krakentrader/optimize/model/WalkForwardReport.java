@@ -0,0 +1,16 @@
+package ch.kekelidze.krakentrader.optimize.model;
+
+import java.util.List;
+import lombok.Builder;
+
+/**
+ * Out-of-sample performance of a walk-forward optimization, aggregated over all test windows.
+ * Returns are in percent, the out-of-sample return compounds the test windows in order.
+ */
+@Builder
+public record WalkForwardReport(String coin, List<WalkForwardWindow> windows,
+                                double outOfSampleReturn, double averageSharpeRatio,
+                                double worstDrawdown, int totalTrades, double winRate,
+                                int profitableWindows, double walkForwardEfficiency) {
+
+}
@@ -0,0 +1,19 @@
+package ch.kekelidze.krakentrader.optimize.model;
+
+import ch.kekelidze.krakentrader.backtester.service.dto.BacktestResult;
+import ch.kekelidze.krakentrader.indicator.configuration.StrategyParameters;
+import java.time.ZonedDateTime;
+import lombok.Builder;
+
+/**
+ * One walk-forward step: strategy and parameters optimized on the train range and validated on the
+ * test range that follows it.
+ */
+@Builder
+public record WalkForwardWindow(ZonedDateTime trainStart, ZonedDateTime testStart,
+                                ZonedDateTime testEnd, String strategyName,
+                                StrategyParameters parameters,
+                                BacktestResult inSample, BacktestResult outOfSample,
+                                double inSampleReturn, double outOfSampleReturn) {
+
+}
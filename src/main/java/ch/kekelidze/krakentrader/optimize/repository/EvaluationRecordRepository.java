@@ -0,0 +1,55 @@
+package ch.kekelidze.krakentrader.optimize.repository;
+
+import ch.kekelidze.krakentrader.optimize.entity.EvaluationRecordEntity;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository of the fitness values backtested by past optimization runs.
+ */
+@Repository
+public interface EvaluationRecordRepository extends JpaRepository<EvaluationRecordEntity, Long> {
+
+  /**
+   * Finds the evaluations of a strategy on histories that end no later than the given bar and
+   * overlap the given history by at least the given time span. A rolling history window starts a
+   * little later every run, so the histories don't have to start with the same bar.
+   *
+   * @param coinPair     the coin pair
+   * @param period       candle period in minutes
+   * @param strategyName the strategy
+   * @param datasetStart end time of the first bar in epoch seconds
+   * @param datasetEnd   latest end time of the last bar in epoch seconds
+   * @param minOverlap   minimum overlap of the histories in seconds
+   * @return the matching evaluations
+   */
+  @Query("select e from EvaluationRecordEntity e where e.coinPair = :coinPair"
+      + " and e.period = :period and e.strategyName = :strategyName"
+      + " and e.datasetEnd <= :datasetEnd"
+      + " and e.datasetEnd - e.datasetStart >= :minOverlap"
+      + " and e.datasetEnd - :datasetStart >= :minOverlap")
+  List<EvaluationRecordEntity> findReusable(@Param("coinPair") String coinPair,
+      @Param("period") int period, @Param("strategyName") String strategyName,
+      @Param("datasetStart") long datasetStart, @Param("datasetEnd") long datasetEnd,
+      @Param("minOverlap") long minOverlap);
+
+  /**
+   * Deletes the evaluations of a strategy on histories that overlap the history starting with the
+   * given bar by less than the given time span. Later histories start no earlier, so no later run
+   * can reuse them.
+   *
+   * @return the number of deleted evaluations
+   */
+  @Modifying
+  @Query("delete from EvaluationRecordEntity e where e.coinPair = :coinPair"
+      + " and e.period = :period and e.strategyName = :strategyName"
+      + " and (e.datasetEnd - e.datasetStart < :minOverlap"
+      + " or e.datasetEnd - :datasetStart < :minOverlap)")
+  int deleteStale(@Param("coinPair") String coinPair, @Param("period") int period,
+      @Param("strategyName") String strategyName, @Param("datasetStart") long datasetStart,
+      @Param("minOverlap") long minOverlap);
+}
@@ -0,0 +1,91 @@
+package ch.kekelidze.krakentrader.optimize.service;
+
+import ch.kekelidze.krakentrader.api.HistoricalDataService;
+import ch.kekelidze.krakentrader.optimize.CmaEsOptimizer;
+import ch.kekelidze.krakentrader.optimize.MultiStrategyOptimizer;
+import ch.kekelidze.krakentrader.optimize.model.OptimizerBenchmark;
+import ch.kekelidze.krakentrader.strategy.dto.EvaluationContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+/**
+ * Compares the genetic algorithm of {@link MultiStrategyOptimizer} with {@link CmaEsOptimizer} on
+ * the same history. Both optimizers search the same parameter space with the same fitness, so the
+ * number of backtests each needs to reach a common fitness is directly comparable.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OptimizerBenchmarkService {
+
+  private final MultiStrategyOptimizer geneticOptimizer;
+  private final CmaEsOptimizer cmaEsOptimizer;
+  private final HistoricalDataService historicalDataService;
+
+  public List<OptimizerBenchmark> benchmark(String coin, int period) {
+    var context = EvaluationContext.builder()
+        .symbol(coin)
+        .period(period)
+        .bars(historicalDataService.queryHistoricalData(List.of(coin), period).get(coin))
+        .build();
+    var benchmarks = new ArrayList<OptimizerBenchmark>();
+    for (String strategyName : geneticOptimizer.getAvailableStrategies()) {
+      benchmarks.add(benchmark(context, strategyName));
+    }
+    return benchmarks;
+  }
+
+  private OptimizerBenchmark benchmark(EvaluationContext context, String strategyName) {
+    var coin = context.getSymbol();
+    log.info("Benchmarking genetic algorithm on {} for {}", strategyName, coin);
+    List<Double> geneticTrace = Collections.synchronizedList(new ArrayList<>());
+    long start = System.currentTimeMillis();
+    geneticOptimizer.optimizeStrategy(context, strategyName, geneticTrace::add);
+    long geneticMillis = System.currentTimeMillis() - start;
+
+    log.info("Benchmarking CMA-ES on {} for {}", strategyName, coin);
+    List<Double> cmaEsTrace = Collections.synchronizedList(new ArrayList<>());
+    start = System.currentTimeMillis();
+    cmaEsOptimizer.optimizeStrategy(context, strategyName, cmaEsTrace::add);
+    long cmaEsMillis = System.currentTimeMillis() - start;
+
+    double geneticBest = best(geneticTrace);
+    double cmaEsBest = best(cmaEsTrace);
+    double target = Math.min(geneticBest, cmaEsBest);
+    var benchmark = OptimizerBenchmark.builder()
+        .coin(coin)
+        .strategyName(strategyName)
+        .target(target)
+        .geneticEvaluations(geneticTrace.size())
+        .geneticBestFitness(geneticBest)
+        .geneticEvaluationsToTarget(evaluationsToTarget(geneticTrace, target))
+        .geneticMillis(geneticMillis)
+        .cmaEsEvaluations(cmaEsTrace.size())
+        .cmaEsBestFitness(cmaEsBest)
+        .cmaEsEvaluationsToTarget(evaluationsToTarget(cmaEsTrace, target))
+        .cmaEsMillis(cmaEsMillis)
+        .build();
+    log.info("Benchmark of {} for {}: {}", strategyName, coin, benchmark);
+    return benchmark;
+  }
+
+  /**
+   * Number of evaluations until the fitness first reached the target, -1 if it never did.
+   */
+  static int evaluationsToTarget(List<Double> trace, double target) {
+    for (int i = 0; i < trace.size(); i++) {
+      if (trace.get(i) >= target) {
+        return i + 1;
+      }
+    }
+    return -1;
+  }
+
+  private static double best(List<Double> trace) {
+    return trace.stream().mapToDouble(Double::doubleValue).max().orElse(Double.NaN);
+  }
+}
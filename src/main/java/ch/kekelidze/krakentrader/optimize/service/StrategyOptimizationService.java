@@ -3,6 +3,8 @@ package ch.kekelidze.krakentrader.optimize.service;
 import ch.kekelidze.krakentrader.api.HistoricalDataService;
 import ch.kekelidze.krakentrader.indicator.configuration.StrategyParameters;
 import ch.kekelidze.krakentrader.optimize.MultiStrategyOptimizer;
+import ch.kekelidze.krakentrader.optimize.checkpoint.OptimizationCheckpointService;
+import ch.kekelidze.krakentrader.optimize.util.OptimizationScheduler;
 import ch.kekelidze.krakentrader.optimize.util.StrategySelector;
 import ch.kekelidze.krakentrader.strategy.dto.EvaluationContext;
 import ch.kekelidze.krakentrader.strategy.service.StrategyParametersService;
@@ -24,6 +26,8 @@ public class StrategyOptimizationService {
   private final StrategySelector strategySelector;
   private final HistoricalDataService historicalDataService;
   private final StrategyParametersService strategyParametersService;
+  private final OptimizationScheduler optimizationScheduler;
+  private final OptimizationCheckpointService checkpointService;
 
   // Map to store optimized parameters for each coin pair
   private final Map<String, StrategyParameters> optimizedParameters = new ConcurrentHashMap<>();
@@ -31,47 +35,53 @@ public class StrategyOptimizationService {
   public void optimizeCoinPairs(List<String> coinPairs, int period) {
     log.info("Starting optimization for {} coin pairs", coinPairs.size());
 
-    // Optimize each coin pair sequentially (or could be parallelized)
-    for (String coinPair : coinPairs) {
-      log.info("Optimizing strategy for: {}", coinPair);
-
-      // Create evaluation context with historical data for this coin
-      EvaluationContext context = EvaluationContext.builder()
-          .symbol(coinPair)
-          .period(period)
-          .bars(historicalDataService.queryHistoricalData(List.of(coinPair), period).get(coinPair))
-          .build();
-
-      // Optimize strategy for this coin
-      StrategyParameters params = optimizer.optimizeParameters(context);
-
-      // Store optimized parameters
-      optimizedParameters.put(coinPair, params);
-
-      log.info("Optimization completed for {}", coinPair);
-    }
+    // Coins, strategies and fitness evaluations share the threads of the scheduler. Coins that
+    // were checkpointed by an interrupted run resume where they stopped
+    optimizationScheduler.optimizeCoins(coinPairs, coinPair -> optimizeCoinPair(coinPair, period));
 
     // Get the best strategies report
     Map<String, String> bestStrategies = optimizer.getBestStrategiesReport();
 
-    // Save the best strategy and parameters for each coin pair to the database
-    for (String coinPair : coinPairs) {
-      String bestStrategy = bestStrategies.get(coinPair);
-      StrategyParameters params = optimizedParameters.get(coinPair);
-
-      if (bestStrategy != null && params != null) {
-        strategyParametersService.saveStrategyParameters(coinPair, bestStrategy, params);
-        log.info("Saved best strategy '{}' and parameters for {} to database", bestStrategy,
-            coinPair);
-      }
-    }
-
     // Print summary of best strategies
     log.info("Optimization complete. Best strategies per coin:");
     bestStrategies.forEach((coin, result) ->
         log.info("{}: {}", coin, result));
   }
 
+  /**
+   * Optimizes one coin and saves its best strategy and parameters to the database as soon as it is
+   * done.
+   */
+  public StrategyParameters optimizeCoinPair(String coinPair, int period) {
+    log.info("Optimizing strategy for: {}", coinPair);
+
+    // Create evaluation context with historical data for this coin
+    EvaluationContext context = EvaluationContext.builder()
+        .symbol(coinPair)
+        .period(period)
+        .bars(historicalDataService.queryHistoricalData(List.of(coinPair), period).get(coinPair))
+        .build();
+
+    // Optimize strategy for this coin
+    StrategyParameters params = optimizer.optimizeParameters(context);
+
+    // Store optimized parameters
+    optimizedParameters.put(coinPair, params);
+
+    // Save the bean name of the best strategy, the trader and the warm start look it up by name
+    String bestStrategy = strategySelector.getBestStrategiesMap().get(coinPair);
+    if (bestStrategy != null) {
+      strategyParametersService.saveStrategyParameters(coinPair, bestStrategy, params);
+      log.info("Saved best strategy '{}' and parameters for {} to database", bestStrategy,
+          coinPair);
+      // The next run starts the coin from scratch
+      checkpointService.delete(coinPair, period);
+    }
+
+    log.info("Optimization completed for {}", coinPair);
+    return params;
+  }
+
   public Map<String, String> getBestStrategiesMap() {
     return strategySelector.getBestStrategiesMap();
   }
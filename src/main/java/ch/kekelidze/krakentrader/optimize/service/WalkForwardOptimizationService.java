@@ -0,0 +1,219 @@
+package ch.kekelidze.krakentrader.optimize.service;
+
+import ch.kekelidze.krakentrader.api.HistoricalDataService;
+import ch.kekelidze.krakentrader.backtester.service.BackTesterService;
+import ch.kekelidze.krakentrader.backtester.service.dto.BacktestResult;
+import ch.kekelidze.krakentrader.backtester.util.TimeFrameAdjustmentUtils;
+import ch.kekelidze.krakentrader.indicator.cache.IndicatorCache;
+import ch.kekelidze.krakentrader.optimize.model.WalkForwardReport;
+import ch.kekelidze.krakentrader.optimize.model.WalkForwardWindow;
+import ch.kekelidze.krakentrader.optimize.util.OptimizationScheduler;
+import ch.kekelidze.krakentrader.optimize.util.OptimizerSelector;
+import ch.kekelidze.krakentrader.optimize.util.StrategySelector;
+import ch.kekelidze.krakentrader.strategy.dto.EvaluationContext;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.ta4j.core.Bar;
+
+/**
+ * Walk-forward optimization: the history is split into rolling train and test ranges, the
+ * parameters are optimized on every train range and validated on the test range right after it.
+ * <p>
+ * The train ranges are optimized concurrently on the {@link OptimizationScheduler}. The whole
+ * history is registered with the {@link IndicatorCache} for the duration of the run, so indicator
+ * windows shared by overlapping ranges and by parameter sets with the same periods are computed
+ * once. Every range backtests the strategy its optimization chose, the best strategy of the coin
+ * is neither read nor written while the ranges run.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WalkForwardOptimizationService {
+
+  private final OptimizerSelector optimizerSelector;
+  private final BackTesterService backTesterService;
+  private final HistoricalDataService historicalDataService;
+  private final IndicatorCache indicatorCache;
+  private final OptimizationScheduler optimizationScheduler;
+  private final StrategySelector strategySelector;
+
+  @Value("${optimization.walk-forward.train-days:90}")
+  int trainDays;
+
+  // Length of the test ranges, every step moves the train range forward by the same amount
+  @Value("${optimization.walk-forward.test-days:30}")
+  int testDays;
+
+  @Value("${paper.trading.initial.balance:1000}")
+  double initialCapital;
+
+  public WalkForwardReport optimize(String coin, int period, ZonedDateTime startDate,
+      ZonedDateTime endDate) {
+    var bars = historicalDataService.queryHistoricalData(List.of(coin), period).get(coin).stream()
+        .filter(bar -> !bar.getEndTime().isBefore(startDate) && bar.getEndTime().isBefore(endDate))
+        .toList();
+    return optimize(coin, period, bars);
+  }
+
+  WalkForwardReport optimize(String coin, int period, List<Bar> bars) {
+    var ranges = splitRanges(bars);
+    if (ranges.isEmpty()) {
+      log.warn("History of {} is too short for a {} day train and {} day test range", coin,
+          trainDays, testDays);
+      return aggregate(coin, List.of());
+    }
+
+    log.info("Walk-forward optimization of {} over {} ranges on {} threads", coin, ranges.size(),
+        optimizationScheduler.getParallelism());
+    long start = System.currentTimeMillis();
+
+    // Optimizers that don't choose the strategy optimize the best strategy of the coin
+    var coinStrategy = strategySelector.getBestStrategyNameForCoin(coin);
+    try (var ignored = indicatorCache.shareSeries(bars)) {
+      List<Supplier<WalkForwardWindow>> tasks = ranges.stream()
+          .<Supplier<WalkForwardWindow>>map(range -> () -> optimizeRange(coin, period, bars, range,
+              coinStrategy))
+          .toList();
+      var windows = optimizationScheduler.invokeAll(tasks);
+      var report = aggregate(coin, windows);
+      log.info("Walk-forward optimization of {} completed in {} s: {}", coin,
+          (System.currentTimeMillis() - start) / 1000, report);
+      return report;
+    }
+  }
+
+  private WalkForwardWindow optimizeRange(String coin, int period, List<Bar> bars, Range range,
+      String coinStrategy) {
+    var trainBars = bars.subList(range.trainFrom(), range.testFrom());
+    log.info("Optimizing {} on {} to {}", coin, trainBars.getFirst().getEndTime(),
+        trainBars.getLast().getEndTime());
+    var trainContext = EvaluationContext.builder().symbol(coin).period(period).bars(trainBars)
+        .build();
+    var result = optimizerSelector.getOptimizer().optimize(trainContext);
+    var strategyName = result.strategyName() != null ? result.strategyName() : coinStrategy;
+    var parameters = result.parameters();
+    var inSample = backTesterService.runSimulation(trainContext, strategyName, parameters,
+        initialCapital);
+
+    // The test range starts trading on its first bar, the candles before it are only warm-up
+    int warmUp = TimeFrameAdjustmentUtils.adjustTimeFrame(parameters, period).minimumCandles();
+    var testContext = EvaluationContext.builder().symbol(coin).period(period)
+        .bars(bars.subList(Math.max(0, range.testFrom() - warmUp), range.testTo()))
+        .build();
+    var outOfSample = backTesterService.runSimulation(testContext, strategyName, parameters,
+        initialCapital);
+
+    var window = WalkForwardWindow.builder()
+        .trainStart(trainBars.getFirst().getEndTime())
+        .testStart(bars.get(range.testFrom()).getEndTime())
+        .testEnd(bars.get(range.testTo() - 1).getEndTime())
+        .strategyName(strategyName)
+        .parameters(parameters)
+        .inSample(inSample)
+        .outOfSample(outOfSample)
+        .inSampleReturn(returnPercent(inSample))
+        .outOfSampleReturn(returnPercent(outOfSample))
+        .build();
+    log.info("Window {} to {} of {} with {}: in-sample {}%, out-of-sample {}%",
+        window.testStart(), window.testEnd(), coin, strategyName,
+        String.format("%.2f", window.inSampleReturn()),
+        String.format("%.2f", window.outOfSampleReturn()));
+    return window;
+  }
+
+  /**
+   * Splits the history into train ranges of {@code trainDays} each followed by a test range of
+   * {@code testDays}, moving forward by {@code testDays}. Only test ranges the history covers
+   * completely are used.
+   */
+  List<Range> splitRanges(List<Bar> bars) {
+    var ranges = new ArrayList<Range>();
+    if (bars.isEmpty()) {
+      return ranges;
+    }
+    var lastEndTime = bars.getLast().getEndTime();
+    for (var trainStart = bars.getFirst().getEndTime();
+        !trainStart.plusDays(trainDays + testDays).isAfter(lastEndTime);
+        trainStart = trainStart.plusDays(testDays)) {
+      var testStart = trainStart.plusDays(trainDays);
+      int trainFrom = firstIndexAtOrAfter(bars, trainStart);
+      int testFrom = firstIndexAtOrAfter(bars, testStart);
+      int testTo = firstIndexAtOrAfter(bars, testStart.plusDays(testDays));
+      // Gaps in the history can leave a range without candles
+      if (trainFrom < testFrom && testFrom < testTo) {
+        ranges.add(new Range(trainFrom, testFrom, testTo));
+      }
+    }
+    return ranges;
+  }
+
+  private static int firstIndexAtOrAfter(List<Bar> bars, ZonedDateTime time) {
+    int low = 0;
+    int high = bars.size();
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (bars.get(mid).getEndTime().isBefore(time)) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private double returnPercent(BacktestResult result) {
+    return (result.capital() - initialCapital) / initialCapital * 100;
+  }
+
+  private WalkForwardReport aggregate(String coin, List<WalkForwardWindow> windows) {
+    double compounded = 1;
+    double sharpeSum = 0;
+    double worstDrawdown = 0;
+    int totalTrades = 0;
+    double weightedWins = 0;
+    int profitableWindows = 0;
+    double inSampleSum = 0;
+    double outOfSampleSum = 0;
+    for (var window : windows) {
+      var outOfSample = window.outOfSample();
+      compounded *= 1 + window.outOfSampleReturn() / 100;
+      sharpeSum += outOfSample.sharpeRatio();
+      worstDrawdown = Math.max(worstDrawdown, outOfSample.maxDrawdown());
+      totalTrades += outOfSample.totalTrades();
+      weightedWins += outOfSample.winRate() * outOfSample.totalTrades();
+      if (window.outOfSampleReturn() > 0) {
+        profitableWindows++;
+      }
+      inSampleSum += window.inSampleReturn();
+      outOfSampleSum += window.outOfSampleReturn();
+    }
+    // Out-of-sample return per day relative to the in-sample return per day
+    double efficiency = inSampleSum > 0
+        ? (outOfSampleSum / testDays) / (inSampleSum / trainDays) : 0;
+    return WalkForwardReport.builder()
+        .coin(coin)
+        .windows(windows)
+        .outOfSampleReturn((compounded - 1) * 100)
+        .averageSharpeRatio(windows.isEmpty() ? 0 : sharpeSum / windows.size())
+        .worstDrawdown(worstDrawdown)
+        .totalTrades(totalTrades)
+        .winRate(totalTrades > 0 ? weightedWins / totalTrades : 0)
+        .profitableWindows(profitableWindows)
+        .walkForwardEfficiency(efficiency)
+        .build();
+  }
+
+  /**
+   * Bar indices of one step, the train range is {@code [trainFrom, testFrom)} and the test range
+   * {@code [testFrom, testTo)}.
+   */
+  record Range(int trainFrom, int testFrom, int testTo) {
+
+  }
+}
@@ -0,0 +1,164 @@
+package ch.kekelidze.krakentrader.optimize.service;
+
+import ch.kekelidze.krakentrader.indicator.configuration.StrategyParameters;
+import ch.kekelidze.krakentrader.optimize.entity.EvaluationRecordEntity;
+import ch.kekelidze.krakentrader.optimize.repository.EvaluationRecordRepository;
+import ch.kekelidze.krakentrader.optimize.util.ParameterVector;
+import ch.kekelidze.krakentrader.strategy.dto.EvaluationContext;
+import ch.kekelidze.krakentrader.strategy.service.StrategyParametersService;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Lets an optimization run start from the results of the previous runs of a coin instead of from
+ * scratch.
+ * <p>
+ * Every run stores the fitness of the parameter sets it backtested together with the range of bars
+ * they were backtested on. A later run reuses a stored fitness if its bars overlap at least
+ * {@code min-overlap-share} of the current history, e.g. the history of the last night while the
+ * current one has one more day, with or without the first day dropped from a rolling window. The
+ * stored fitness then approximates the fitness on the current history, the best parameter set is
+ * still backtested on the full history.
+ * The last saved parameters of the coin and the best stored evaluations seed the initial
+ * population.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WarmStartService {
+
+  private final StrategyParametersService strategyParametersService;
+  private final EvaluationRecordRepository evaluationRecordRepository;
+
+  @Value("${optimization.warm-start.enabled:true}")
+  boolean enabled;
+
+  // Share of the current bars a stored evaluation must have been backtested on to be reused
+  @Value("${optimization.warm-start.min-overlap-share:0.95}")
+  double minOverlapShare;
+
+  // Best stored evaluations of a strategy seeded into its initial population
+  @Value("${optimization.warm-start.seeds:5}")
+  int seeds;
+
+  /**
+   * Returns the seeds and reusable evaluations of a strategy for the bars of the context.
+   */
+  public WarmStart prepare(EvaluationContext context, String strategyName) {
+    var bars = context.getBars();
+    if (!enabled || bars.isEmpty()) {
+      return WarmStart.NONE;
+    }
+    var coinPair = context.getSymbol();
+    var records = evaluationRecordRepository.findReusable(coinPair, context.getPeriod(),
+        strategyName, bars.getFirst().getEndTime().toEpochSecond(),
+        bars.getLast().getEndTime().toEpochSecond(), minOverlap(context));
+
+    // A parameter set evaluated on several histories keeps the fitness of the most recent
+    var latest = new HashMap<StrategyParameters, EvaluationRecordEntity>();
+    for (EvaluationRecordEntity record : records) {
+      try {
+        latest.merge(parseParameters(record.getParameters()), record,
+            (first, second) -> first.getDatasetEnd() >= second.getDatasetEnd() ? first : second);
+      } catch (IllegalArgumentException e) {
+        log.debug("Skipping stored evaluation {} of other parameters: {}", record.getId(),
+            e.getMessage());
+      }
+    }
+    var pastEvaluations = new HashMap<StrategyParameters, Double>();
+    latest.forEach((parameters, record) -> pastEvaluations.put(parameters, record.getFitness()));
+
+    var seedParameters = new ArrayList<StrategyParameters>();
+    if (strategyName.equals(strategyParametersService.getStrategyName(coinPair).orElse(null))) {
+      strategyParametersService.getStrategyParameters(coinPair).ifPresent(seedParameters::add);
+    }
+    pastEvaluations.entrySet().stream()
+        .sorted(Map.Entry.<StrategyParameters, Double>comparingByValue().reversed())
+        .map(Map.Entry::getKey)
+        .filter(parameters -> !seedParameters.contains(parameters))
+        .limit(seeds)
+        .forEach(seedParameters::add);
+
+    if (!seedParameters.isEmpty()) {
+      log.info("Warm start of {} for {}: {} seeds, {} reusable evaluations", strategyName,
+          coinPair, seedParameters.size(), pastEvaluations.size());
+    }
+    return new WarmStart(seedParameters, pastEvaluations);
+  }
+
+  /**
+   * Stores the fitness values backtested on the bars of the context and deletes the stored ones
+   * no later run can reuse.
+   */
+  @Transactional
+  public void record(EvaluationContext context, String strategyName,
+      Map<StrategyParameters, Double> evaluations) {
+    var bars = context.getBars();
+    if (!enabled || bars.isEmpty()) {
+      return;
+    }
+    long datasetStart = bars.getFirst().getEndTime().toEpochSecond();
+    long datasetEnd = bars.getLast().getEndTime().toEpochSecond();
+    int deleted = evaluationRecordRepository.deleteStale(context.getSymbol(), context.getPeriod(),
+        strategyName, datasetStart, minOverlap(context));
+
+    var evaluatedAt = Instant.now();
+    var records = evaluations.entrySet().stream()
+        .map(evaluation -> EvaluationRecordEntity.builder()
+            .coinPair(context.getSymbol())
+            .period(context.getPeriod())
+            .strategyName(strategyName)
+            .parameters(formatParameters(evaluation.getKey()))
+            .datasetStart(datasetStart)
+            .datasetEnd(datasetEnd)
+            .barCount(bars.size())
+            .fitness(evaluation.getValue())
+            .evaluatedAt(evaluatedAt)
+            .build())
+        .toList();
+    evaluationRecordRepository.saveAll(records);
+    log.debug("Stored {} evaluations of {} for {}, deleted {} stale ones", records.size(),
+        strategyName, context.getSymbol(), deleted);
+  }
+
+  // Time span from the first to the last of the bars a stored evaluation must share
+  private long minOverlap(EvaluationContext context) {
+    long sharedBars = (long) Math.ceil(context.getBars().size() * minOverlapShare);
+    return Math.max(0, sharedBars - 1) * context.getPeriod() * 60;
+  }
+
+  static String formatParameters(StrategyParameters parameters) {
+    return Arrays.stream(ParameterVector.toArray(parameters))
+        .mapToObj(Double::toString)
+        .collect(Collectors.joining(","));
+  }
+
+  static StrategyParameters parseParameters(String values) {
+    return ParameterVector.fromArray(Arrays.stream(values.split(","))
+        .mapToDouble(Double::parseDouble)
+        .toArray());
+  }
+
+  /**
+   * Seeds of the initial population and the reusable fitness of past evaluations.
+   *
+   * @param seeds           the last saved parameters of the coin if they were found for the
+   *                        strategy, then the best stored evaluations
+   * @param pastEvaluations stored fitness per parameter set
+   */
+  public record WarmStart(List<StrategyParameters> seeds,
+                          Map<StrategyParameters, Double> pastEvaluations) {
+
+    public static final WarmStart NONE = new WarmStart(List.of(), Map.of());
+  }
+}
@@ -0,0 +1,132 @@
+package ch.kekelidze.krakentrader.optimize.util;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Single work-stealing pool shared by every level of an optimization run: coins, strategies or
+ * islands of a coin, and the fitness evaluations of their generations.
+ * <p>
+ * Nested work is forked into the same {@link ForkJoinPool}, and a task waiting for its subtasks
+ * executes queued subtasks instead of blocking its thread. A few coins therefore spread their
+ * evaluations over all threads, while many coins keep the pool busy without starting more threads
+ * than the configured parallelism.
+ */
+@Slf4j
+@Component
+public class OptimizationScheduler implements DisposableBean {
+
+  private final ForkJoinPool pool;
+  private final Map<String, CoinProgress> progress = new ConcurrentHashMap<>();
+
+  public OptimizationScheduler(@Value("${optimization.scheduler.parallelism:0}") int parallelism) {
+    int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    pool = new ForkJoinPool(threads, forkJoinPool -> {
+      var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+      thread.setName("optimization-" + thread.getPoolIndex());
+      return thread;
+    }, null, false);
+  }
+
+  /**
+   * Executor for the fitness evaluations of an optimizer, e.g. of a Jenetics engine.
+   */
+  public Executor executor() {
+    return pool;
+  }
+
+  public int getParallelism() {
+    return pool.getParallelism();
+  }
+
+  /**
+   * Runs the tasks in the pool and returns their results in order. Called from a task of the
+   * pool, the calling thread works on queued tasks while it waits.
+   */
+  public <T> List<T> invokeAll(List<? extends Supplier<T>> tasks) {
+    List<ForkJoinTask<T>> forked = tasks.stream()
+        .map(task -> pool.submit((Callable<T>) task::get))
+        .toList();
+    return forked.stream().map(ForkJoinTask::join).toList();
+  }
+
+  /**
+   * Optimizes every coin as a task of the pool and logs the progress of every coin.
+   *
+   * @param coins        coins to optimize
+   * @param optimization optimization of one coin
+   * @return the result of every coin in the order of the coins
+   */
+  public <T> Map<String, T> optimizeCoins(List<String> coins, Function<String, T> optimization) {
+    var queued = Instant.now();
+    coins.forEach(coin -> progress.put(coin, new CoinProgress(Status.QUEUED, queued, null)));
+    var completed = new AtomicInteger();
+    List<Supplier<T>> tasks = coins.stream()
+        .<Supplier<T>>map(coin -> () -> optimizeCoin(coin, optimization, completed, coins.size()))
+        .toList();
+    log.info("Optimizing {} coins on {} threads", coins.size(), getParallelism());
+    var results = invokeAll(tasks);
+
+    var resultsByCoin = new LinkedHashMap<String, T>();
+    for (int i = 0; i < coins.size(); i++) {
+      resultsByCoin.put(coins.get(i), results.get(i));
+    }
+    return resultsByCoin;
+  }
+
+  private <T> T optimizeCoin(String coin, Function<String, T> optimization,
+      AtomicInteger completed, int total) {
+    var started = Instant.now();
+    progress.put(coin, new CoinProgress(Status.RUNNING, started, null));
+    try {
+      T result = optimization.apply(coin);
+      progress.put(coin, new CoinProgress(Status.DONE, started, Instant.now()));
+      log.info("Optimized {} in {} s, {} of {} coins done", coin,
+          Duration.between(started, Instant.now()).toSeconds(), completed.incrementAndGet(), total);
+      return result;
+    } catch (RuntimeException e) {
+      progress.put(coin, new CoinProgress(Status.FAILED, started, Instant.now()));
+      log.error("Optimization of {} failed after {} s: {}", coin,
+          Duration.between(started, Instant.now()).toSeconds(), e.getMessage());
+      throw e;
+    }
+  }
+
+  /**
+   * Latest state of every coin optimized by this scheduler.
+   */
+  public Map<String, CoinProgress> getProgress() {
+    return Map.copyOf(progress);
+  }
+
+  @Override
+  public void destroy() {
+    pool.shutdownNow();
+  }
+
+  public enum Status {
+    QUEUED, RUNNING, DONE, FAILED
+  }
+
+  /**
+   * State of one coin, {@code finished} is {@code null} until it is done or failed.
+   */
+  public record CoinProgress(Status status, Instant started, Instant finished) {
+
+  }
+}
@@ -0,0 +1,34 @@
+package ch.kekelidze.krakentrader.optimize.util;
+
+import ch.kekelidze.krakentrader.optimize.Optimizer;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Picks the optimizer the optimization runners use by its bean name, e.g.
+ * {@code --optimization.optimizer=successiveHalvingOptimizer}.
+ */
+@Slf4j
+@Component
+public class OptimizerSelector {
+
+  private final Map<String, Optimizer> optimizers;
+
+  @Value("${optimization.optimizer:buyLowSellHighOptimizer}")
+  String optimizerName;
+
+  public OptimizerSelector(Map<String, Optimizer> optimizers) {
+    this.optimizers = optimizers;
+  }
+
+  public Optimizer getOptimizer() {
+    var optimizer = optimizers.get(optimizerName);
+    if (optimizer == null) {
+      throw new IllegalArgumentException("Optimizer not found: " + optimizerName
+          + ", available: " + optimizers.keySet());
+    }
+    return optimizer;
+  }
+}
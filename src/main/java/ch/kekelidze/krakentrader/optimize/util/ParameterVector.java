@@ -0,0 +1,70 @@
+package ch.kekelidze.krakentrader.optimize.util;
+
+import ch.kekelidze.krakentrader.indicator.configuration.StrategyParameters;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.RecordComponent;
+import java.util.Arrays;
+
+/**
+ * {@link StrategyParameters} as the values of its record components in declaration order, the
+ * form in which parameter sets are sent to workers and written to checkpoints. Integer components
+ * are truncated when a vector is turned back into parameters.
+ */
+public final class ParameterVector {
+
+  private static final RecordComponent[] COMPONENTS =
+      StrategyParameters.class.getRecordComponents();
+  private static final Constructor<StrategyParameters> CONSTRUCTOR = canonicalConstructor();
+
+  private ParameterVector() {
+  }
+
+  /**
+   * Returns the number of values of a parameter set. Writers store it, so a reader built from a
+   * different version of the parameters can reject the data instead of misreading it.
+   */
+  public static int size() {
+    return COMPONENTS.length;
+  }
+
+  public static double[] toArray(StrategyParameters parameters) {
+    var values = new double[COMPONENTS.length];
+    for (int i = 0; i < COMPONENTS.length; i++) {
+      try {
+        values[i] = ((Number) COMPONENTS[i].getAccessor().invoke(parameters)).doubleValue();
+      } catch (ReflectiveOperationException e) {
+        throw new IllegalStateException("Cannot read parameter " + COMPONENTS[i].getName(), e);
+      }
+    }
+    return values;
+  }
+
+  /**
+   * @throws IllegalArgumentException if the number of values does not match the parameters
+   */
+  public static StrategyParameters fromArray(double[] values) {
+    if (values.length != COMPONENTS.length) {
+      throw new IllegalArgumentException("Parameter sets have " + values.length
+          + " components, expected " + COMPONENTS.length);
+    }
+    var arguments = new Object[values.length];
+    for (int i = 0; i < values.length; i++) {
+      arguments[i] = COMPONENTS[i].getType() == int.class ? (Object) (int) values[i] : values[i];
+    }
+    try {
+      return CONSTRUCTOR.newInstance(arguments);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Cannot create strategy parameters", e);
+    }
+  }
+
+  private static Constructor<StrategyParameters> canonicalConstructor() {
+    var types = Arrays.stream(COMPONENTS).map(RecordComponent::getType)
+        .toArray(Class<?>[]::new);
+    try {
+      return StrategyParameters.class.getDeclaredConstructor(types);
+    } catch (NoSuchMethodException e) {
+      throw new IllegalStateException("Strategy parameters have no canonical constructor", e);
+    }
+  }
+}
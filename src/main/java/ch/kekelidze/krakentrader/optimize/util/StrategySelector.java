@@ -3,6 +3,7 @@ package ch.kekelidze.krakentrader.optimize.util;
 import ch.kekelidze.krakentrader.strategy.Strategy;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.RequiredArgsConstructor;
 
 @RequiredArgsConstructor
@@ -11,8 +12,8 @@ public class StrategySelector {
   private final Map<String, Strategy> strategies;
   private final Strategy defaultStrategy;
 
-  // Map to store best strategy per coin pair
-  private final Map<String, String> bestStrategyPerCoin = new HashMap<>();
+  // Best strategy per coin pair, written by the coins optimized concurrently
+  private final Map<String, String> bestStrategyPerCoin = new ConcurrentHashMap<>();
 
   public Strategy getStrategy(String strategyName) {
     if (!strategies.containsKey(strategyName)) {
@@ -22,10 +23,13 @@ public class StrategySelector {
   }
 
   public Strategy getBestStrategyForCoin(String coinPair) {
+    return getStrategy(getBestStrategyNameForCoin(coinPair));
+  }
+
+  public String getBestStrategyNameForCoin(String coinPair) {
     var defaultStrategyName = defaultStrategy.getClass()
         .getAnnotation(org.springframework.stereotype.Component.class).value();
-    String strategyName = bestStrategyPerCoin.getOrDefault(coinPair, defaultStrategyName);
-    return getStrategy(strategyName);
+    return bestStrategyPerCoin.getOrDefault(coinPair, defaultStrategyName);
   }
 
   public void setBestStrategyForCoin(String coinPair, String strategyName) {
@@ -59,9 +59,7 @@ public class MultiTimeFrameLowHighStrategy implements Strategy {
     var data = context.getBars();
     var rsiSignal = rsiIndicator.isBuySignal(context, params);
     var maSignal = calculateMovingAverage(context.getSymbol(), data.getLast().getEndTime(), params);
-    var endIndex = maSignal.endIndex();
-    var maBuySignal = maSignal.maShort().getValue(endIndex)
-        .isLessThan(data.getLast().getClosePrice());
+    var maBuySignal = maSignal.maShort() < data.getLast().getClosePrice().doubleValue();
     log.debug("RSI buy signal: {}, MA buy signal: {}", rsiSignal, maBuySignal);
     return rsiSignal && maBuySignal;
   }
@@ -72,10 +70,8 @@ public class MultiTimeFrameLowHighStrategy implements Strategy {
     var data = context.getBars();
     var rsiSignal = rsiIndicator.isSellSignal(context, entryPrice, params);
     var maSignal = calculateMovingAverage(context.getSymbol(), data.getLast().getEndTime(), params);
-    var endIndex = maSignal.endIndex();
     var riskManagementSignal = riskManagementIndicator.isSellSignal(context, entryPrice, params);
-    var maSellSignal = maSignal.maShort().getValue(endIndex)
-        .isGreaterThan(data.getLast().getClosePrice());
+    var maSellSignal = maSignal.maShort() > data.getLast().getClosePrice().doubleValue();
     log.debug("RSI sell signal: {}, MA sell signal: {}, Risk sell signal: {}", rsiSignal,
         maSellSignal, riskManagementSignal);
     return rsiSignal && maSellSignal || riskManagementSignal;
@@ -21,16 +21,36 @@ public class Portfolio {
 
   private final PortfolioPersistenceService portfolioPersistenceService;
   private final TradeStatePersistenceService tradeStatePersistenceService;
+  // Name of the strategy engine owning this slice, null for the main portfolio
+  private final String sliceName;
 
   @Autowired
   public Portfolio(PortfolioPersistenceService portfolioPersistenceService, 
                   TradeStatePersistenceService tradeStatePersistenceService) {
+    this(portfolioPersistenceService, tradeStatePersistenceService, null);
+  }
+
+  /**
+   * Creates a portfolio slice for one strategy engine sharing the account with other engines. The
+   * trade states of a slice are stored under their own keys, the capital of a slice is assigned at
+   * startup and only kept in memory since the account balance is shared by all slices.
+   */
+  public Portfolio(PortfolioPersistenceService portfolioPersistenceService,
+      TradeStatePersistenceService tradeStatePersistenceService, String sliceName) {
     this.portfolioPersistenceService = portfolioPersistenceService;
     this.tradeStatePersistenceService = tradeStatePersistenceService;
+    this.sliceName = sliceName;
+  }
+
+  public boolean isSlice() {
+    return sliceName != null;
   }
 
   @PostConstruct
   public void init() {
+    if (isSlice()) {
+      return;
+    }
     // Load total capital from database
     portfolioPersistenceService.loadPortfolioTotalCapital()
         .ifPresent(capital -> {
@@ -42,8 +62,9 @@ public class Portfolio {
   public TradeState getOrCreateTradeState(String coinPair) {
     return tradeStates.computeIfAbsent(coinPair, key -> {
       // Try to load from database first
-      return tradeStatePersistenceService.loadTradeState(key)
-          .orElseGet(() -> new TradeState(key));
+      var storageKey = TradeState.storageKey(sliceName, key);
+      return tradeStatePersistenceService.loadTradeState(storageKey)
+          .orElseGet(() -> new TradeState(key, storageKey));
     });
   }
 
@@ -53,12 +74,16 @@ public class Portfolio {
 
   public void setTotalCapital(double value) {
     totalCapital.set(value);
-    portfolioPersistenceService.savePortfolioTotalCapital(value);
+    if (!isSlice()) {
+      portfolioPersistenceService.savePortfolioTotalCapital(value);
+    }
   }
 
   public double addToTotalCapital(double amount) {
     double newValue = totalCapital.updateAndGet(current -> current + amount);
-    portfolioPersistenceService.savePortfolioTotalCapital(newValue);
+    if (!isSlice()) {
+      portfolioPersistenceService.savePortfolioTotalCapital(newValue);
+    }
     return newValue;
   }
 }
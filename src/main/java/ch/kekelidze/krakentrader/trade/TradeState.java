@@ -5,11 +5,20 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class TradeState {
 
+  private static final String SLICE_SEPARATOR = "|";
+
   public TradeState(final String coinPair) {
+    this(coinPair, coinPair);
+  }
+
+  public TradeState(final String coinPair, final String storageKey) {
     this.coinPair = coinPair;
+    this.storageKey = storageKey;
   }
 
   final String coinPair;
+  // Key the state is persisted under, portfolio slices prefix the coin pair with the slice name
+  final String storageKey;
   boolean inTrade;
   double entryPrice = 0;
   double positionSize = 0;
@@ -36,6 +45,29 @@ public class TradeState {
     return coinPair;
   }
 
+  public synchronized String getStorageKey() {
+    return storageKey;
+  }
+
+  /**
+   * Builds the storage key of a coin pair traded by a portfolio slice.
+   *
+   * @param sliceName name of the portfolio slice, null for the main portfolio
+   * @param coinPair  the coin pair
+   * @return the storage key, the plain coin pair for the main portfolio
+   */
+  public static String storageKey(String sliceName, String coinPair) {
+    return sliceName == null ? coinPair : sliceName + SLICE_SEPARATOR + coinPair;
+  }
+
+  /**
+   * Extracts the coin pair from a storage key created by {@link #storageKey(String, String)}.
+   */
+  public static String coinPairOf(String storageKey) {
+    int separator = storageKey.lastIndexOf(SLICE_SEPARATOR);
+    return separator < 0 ? storageKey : storageKey.substring(separator + 1);
+  }
+
   public synchronized void setInTrade(boolean inTrade) {
     if (inTrade == this.inTrade) {
       log.warn("Tried to set trade state to the same value for {}", coinPair);
@@ -67,6 +99,7 @@ public class TradeState {
   public synchronized String toString() {
     return "TradeState{" +
         "coinPair='" + coinPair + '\'' +
+        ", storageKey='" + storageKey + '\'' +
         ", inTrade=" + inTrade +
         ", entryPrice=" + entryPrice +
         ", positionSize=" + positionSize +
@@ -0,0 +1,143 @@
+package ch.kekelidze.krakentrader.trade.cluster;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Free quote currency shared by all nodes of a cluster.
+ * <p>
+ * The account balance is a single row in the shared database. A node reserves the estimated cost
+ * of an order with a conditional debit before it places the order, so two nodes can never spend
+ * the same capital, and settles the reservation with the actual cost once the order is filled.
+ * Reservations are kept apart from the available capital, so a resync with the exchange balance
+ * doesn't drop the reservations of orders that are not filled yet. When
+ * cluster mode is disabled the ledger is inactive and every node keeps its capital in its
+ * {@link ch.kekelidze.krakentrader.trade.Portfolio}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ClusterCapitalLedger {
+
+  private static final String CREATE_CAPITAL_TABLE_SQL = """
+      CREATE TABLE IF NOT EXISTS cluster_capital (
+          id INT PRIMARY KEY,
+          available DOUBLE NOT NULL,
+          reserved DOUBLE DEFAULT 0 NOT NULL)
+      """;
+  private static final int LEDGER_ID = 1;
+  private static final String SELECT_SQL = "SELECT available FROM cluster_capital WHERE id = ?";
+  private static final String INSERT_SQL =
+      "INSERT INTO cluster_capital (id, available) VALUES (?, ?)";
+  // Capital reserved for unfilled orders is still part of the exchange balance
+  private static final String RESET_SQL =
+      "UPDATE cluster_capital SET available = ? - reserved WHERE id = ?";
+  private static final String RESERVE_SQL = """
+      UPDATE cluster_capital SET available = available - ?, reserved = reserved + ?
+      WHERE id = ? AND available >= ?
+      """;
+  private static final String SETTLE_SQL = """
+      UPDATE cluster_capital SET available = available + ? + ?, reserved = reserved - ?
+      WHERE id = ?
+      """;
+  private static final String CREDIT_SQL =
+      "UPDATE cluster_capital SET available = available + ? WHERE id = ?";
+  // Trade states of portfolio slices are stored under slice-prefixed keys and not shared
+  private static final String COUNT_NOT_IN_TRADE_SQL = """
+      SELECT COUNT(*) FROM trade_state
+      WHERE in_trade = FALSE AND actively_traded = TRUE AND coin_pair NOT LIKE '%|%'
+      """;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Value("${cluster.enabled:false}")
+  boolean enabled;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Creates the ledger with the given balance unless another node already created it.
+   *
+   * @param capital the current account balance
+   */
+  public void initialize(double capital) {
+    jdbcTemplate.execute(CREATE_CAPITAL_TABLE_SQL);
+    try {
+      jdbcTemplate.update(INSERT_SQL, LEDGER_ID, capital);
+      log.info("Initialized shared cluster capital with {}", capital);
+    } catch (DuplicateKeyException e) {
+      log.info("Joined cluster with shared capital of {}", getAvailableCapital());
+    }
+  }
+
+  public double getAvailableCapital() {
+    var available = jdbcTemplate.queryForObject(SELECT_SQL, Double.class, LEDGER_ID);
+    return available != null ? available : 0;
+  }
+
+  /**
+   * Reserves the amount only if enough capital is available, atomically across all nodes.
+   *
+   * @param amount the amount to reserve
+   * @return true if the amount was reserved
+   */
+  public boolean tryReserve(double amount) {
+    boolean reserved = jdbcTemplate.update(RESERVE_SQL, amount, amount, LEDGER_ID, amount) == 1;
+    if (!reserved) {
+      log.info("Shared capital insufficient to reserve {}", amount);
+    }
+    return reserved;
+  }
+
+  /**
+   * Releases a reservation and books the actual amount of the filled order instead.
+   *
+   * @param reserved the amount reserved for the order
+   * @param amount   the amount to book, negative for the cost of a buy
+   * @return the available capital after the update
+   */
+  public double settle(double reserved, double amount) {
+    jdbcTemplate.update(SETTLE_SQL, reserved, amount, reserved, LEDGER_ID);
+    return getAvailableCapital();
+  }
+
+  /**
+   * Releases a reservation of an order that was not filled.
+   */
+  public void release(double reserved) {
+    settle(reserved, 0);
+  }
+
+  /**
+   * Credits the amount, a negative amount debits unconditionally.
+   *
+   * @return the available capital after the update
+   */
+  public double credit(double amount) {
+    jdbcTemplate.update(CREDIT_SQL, amount, LEDGER_ID);
+    return getAvailableCapital();
+  }
+
+  /**
+   * Replaces the available capital with the balance reported by the exchange, less the capital
+   * reserved for orders that are not settled yet.
+   */
+  public void resetAvailableCapital(double capital) {
+    jdbcTemplate.update(RESET_SQL, capital, LEDGER_ID);
+  }
+
+  /**
+   * Counts the actively traded coin pairs of the whole cluster that are not in a trade, so the
+   * even allocation is based on all pairs and not only on the pairs of this node.
+   */
+  public int countPairsNotInTrade() {
+    var count = jdbcTemplate.queryForObject(COUNT_NOT_IN_TRADE_SQL, Integer.class);
+    return count != null ? count : 0;
+  }
+}
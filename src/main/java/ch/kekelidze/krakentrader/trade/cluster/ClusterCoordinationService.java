@@ -0,0 +1,350 @@
+package ch.kekelidze.krakentrader.trade.cluster;
+
+import ch.kekelidze.krakentrader.trade.service.PersistenceWriteBehindService;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Partitions the configured coin pairs across the trader nodes of a cluster.
+ * <p>
+ * All nodes share one database, usually an H2 server, holding a heartbeat row per node and a lease
+ * row per coin pair. On every heartbeat a node determines the preferred owner of each pair with
+ * rendezvous hashing over the live nodes, acquires or renews the leases it should own and hands
+ * over the ones another live node should own. A lease that is not renewed expires, so the pairs of
+ * a failed node are taken over by the remaining nodes. A node only trades a pair while its local
+ * view of the lease is valid, so a node that cannot reach the database stops trading before
+ * another node can take the pair over. Lease expiry relies on the node clocks being synchronized.
+ * <p>
+ * The listener of an acquired pair loads its history and connects its feed, which can take longer
+ * than a lease. It runs on separate threads after all owned leases were renewed, and a pair whose
+ * listener fails is released again so it is retried on a later heartbeat.
+ */
+@Slf4j
+@Service
+public class ClusterCoordinationService implements DisposableBean {
+
+  private static final String CREATE_NODE_TABLE_SQL = """
+      CREATE TABLE IF NOT EXISTS cluster_node (
+          node_id VARCHAR(255) PRIMARY KEY,
+          heartbeat_at BIGINT NOT NULL)
+      """;
+  private static final String CREATE_LEASE_TABLE_SQL = """
+      CREATE TABLE IF NOT EXISTS pair_lease (
+          coin_pair VARCHAR(255) PRIMARY KEY,
+          node_id VARCHAR(255) NOT NULL,
+          expires_at BIGINT NOT NULL)
+      """;
+  private static final String HEARTBEAT_SQL =
+      "MERGE INTO cluster_node (node_id, heartbeat_at) KEY (node_id) VALUES (?, ?)";
+  private static final String LIVE_NODES_SQL =
+      "SELECT node_id FROM cluster_node WHERE heartbeat_at >= ?";
+  private static final String DELETE_NODE_SQL = "DELETE FROM cluster_node WHERE node_id = ?";
+  private static final String ACQUIRE_LEASE_SQL = """
+      UPDATE pair_lease SET node_id = ?, expires_at = ?
+      WHERE coin_pair = ? AND (node_id = ? OR expires_at < ?)
+      """;
+  private static final String INSERT_LEASE_SQL =
+      "INSERT INTO pair_lease (coin_pair, node_id, expires_at) VALUES (?, ?, ?)";
+  private static final String RENEW_LEASE_SQL =
+      "UPDATE pair_lease SET expires_at = ? WHERE coin_pair = ? AND node_id = ?";
+  private static final String RELEASE_LEASE_SQL =
+      "DELETE FROM pair_lease WHERE coin_pair = ? AND node_id = ?";
+
+  // Local expiry of the leases this node holds, checked before every trade
+  private final Map<String, Long> ownedLeases = new ConcurrentHashMap<>();
+  // Acquired pairs whose listener is still starting them, they are not handed over meanwhile
+  private final Set<String> pendingAcquisitions = ConcurrentHashMap.newKeySet();
+
+  private final JdbcTemplate jdbcTemplate;
+  private final PersistenceWriteBehindService writeBehindService;
+
+  @Value("${cluster.enabled:false}")
+  boolean enabled;
+
+  @Value("${cluster.node-id:}")
+  String nodeId;
+
+  @Value("${cluster.lease-seconds:30}")
+  long leaseSeconds;
+
+  @Value("${cluster.renew-interval-seconds:10}")
+  long renewIntervalSeconds;
+
+  // Pairs started at the same time after they were acquired
+  @Value("${cluster.acquisition-threads:4}")
+  int acquisitionThreads;
+
+  Clock clock = Clock.systemUTC();
+  // Runs the listener of acquired pairs, the lease scheduler replaces it with a thread pool
+  Executor acquisitionExecutor = Runnable::run;
+
+  private volatile List<String> coinPairs = List.of();
+  private volatile PairLeaseListener listener;
+  private ScheduledExecutorService leaseExecutor;
+  private ExecutorService acquisitionPool;
+
+  public ClusterCoordinationService(JdbcTemplate jdbcTemplate,
+      PersistenceWriteBehindService writeBehindService) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.writeBehindService = writeBehindService;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public String getNodeId() {
+    if (nodeId == null || nodeId.isBlank()) {
+      nodeId = defaultNodeId();
+    }
+    return nodeId;
+  }
+
+  /**
+   * Joins the cluster and starts competing for the leases of the given coin pairs.
+   *
+   * @param coinPairs all coin pairs traded by the cluster
+   * @param listener  notified when this node starts or stops owning a pair
+   */
+  public synchronized void start(List<String> coinPairs, PairLeaseListener listener) {
+    if (leaseExecutor != null) {
+      return;
+    }
+    register(coinPairs, listener);
+    createSchema();
+    leaseExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "cluster-lease");
+      thread.setDaemon(true);
+      return thread;
+    });
+    acquisitionPool = Executors.newFixedThreadPool(Math.max(1, acquisitionThreads), runnable -> {
+      Thread thread = new Thread(runnable, "cluster-acquisition");
+      thread.setDaemon(true);
+      return thread;
+    });
+    acquisitionExecutor = acquisitionPool;
+    leaseExecutor.scheduleWithFixedDelay(this::heartbeatQuietly, 0, renewIntervalSeconds,
+        TimeUnit.SECONDS);
+    log.info("Node {} joined the cluster for {} coin pairs, lease {} s, renewed every {} s",
+        getNodeId(), coinPairs.size(), leaseSeconds, renewIntervalSeconds);
+  }
+
+  void register(List<String> coinPairs, PairLeaseListener listener) {
+    this.coinPairs = List.copyOf(coinPairs);
+    this.listener = listener;
+  }
+
+  void createSchema() {
+    jdbcTemplate.execute(CREATE_NODE_TABLE_SQL);
+    jdbcTemplate.execute(CREATE_LEASE_TABLE_SQL);
+  }
+
+  /**
+   * Returns true if this node holds a lease for the pair that has not expired yet.
+   */
+  public boolean ownsPair(String coinPair) {
+    var expiresAt = ownedLeases.get(coinPair);
+    return expiresAt != null && expiresAt > clock.millis();
+  }
+
+  public Set<String> getOwnedPairs() {
+    return Set.copyOf(ownedLeases.keySet());
+  }
+
+  /**
+   * Publishes the node heartbeat and reconciles the leases of all coin pairs with the preferred
+   * assignment of the currently live nodes. Owned leases are renewed before new pairs are
+   * acquired.
+   */
+  synchronized void heartbeat() {
+    long now = clock.millis();
+    long leaseMs = TimeUnit.SECONDS.toMillis(leaseSeconds);
+    var self = getNodeId();
+    jdbcTemplate.update(HEARTBEAT_SQL, self, now);
+    var liveNodes = jdbcTemplate.queryForList(LIVE_NODES_SQL, String.class, now - leaseMs);
+
+    var preferredPairs = new ArrayList<String>();
+    for (String coinPair : coinPairs) {
+      boolean preferred = self.equals(rendezvousOwner(coinPair, liveNodes));
+      boolean owned = ownedLeases.containsKey(coinPair);
+      if (owned && (preferred || pendingAcquisitions.contains(coinPair))) {
+        renew(coinPair, now + leaseMs);
+      } else if (owned) {
+        release(coinPair);
+      } else if (preferred) {
+        preferredPairs.add(coinPair);
+      }
+    }
+    preferredPairs.forEach(coinPair -> acquire(coinPair, now, now + leaseMs));
+  }
+
+  private void acquire(String coinPair, long now, long expiresAt) {
+    var self = getNodeId();
+    boolean acquired = jdbcTemplate.update(ACQUIRE_LEASE_SQL, self, expiresAt, coinPair, self,
+        now) == 1;
+    if (!acquired) {
+      try {
+        acquired = jdbcTemplate.update(INSERT_LEASE_SQL, coinPair, self, expiresAt) == 1;
+      } catch (DuplicateKeyException e) {
+        // Still held by another node, it hands the pair over on its next heartbeat
+        log.debug("Lease for {} is still held by another node", coinPair);
+      }
+    }
+    if (acquired) {
+      ownedLeases.put(coinPair, expiresAt);
+      pendingAcquisitions.add(coinPair);
+      log.info("Node {} acquired the lease for {}", self, coinPair);
+      acquisitionExecutor.execute(() -> startPair(coinPair));
+    }
+  }
+
+  private void startPair(String coinPair) {
+    try {
+      var leaseListener = listener;
+      if (leaseListener != null) {
+        leaseListener.onPairAcquired(coinPair);
+      }
+    } catch (Exception e) {
+      log.error("Lease listener failed to start {}, releasing the lease: {}", coinPair,
+          e.getMessage(), e);
+      releaseFailedPair(coinPair);
+    } finally {
+      pendingAcquisitions.remove(coinPair);
+    }
+  }
+
+  private synchronized void releaseFailedPair(String coinPair) {
+    if (!ownedLeases.containsKey(coinPair)) {
+      return;
+    }
+    try {
+      release(coinPair);
+    } catch (Exception e) {
+      // The local lease is already gone, the lease in the database expires
+      log.error("Failed to release the lease for {}: {}", coinPair, e.getMessage(), e);
+    }
+  }
+
+  private void renew(String coinPair, long expiresAt) {
+    if (jdbcTemplate.update(RENEW_LEASE_SQL, expiresAt, coinPair, getNodeId()) == 1) {
+      ownedLeases.put(coinPair, expiresAt);
+      return;
+    }
+    log.warn("Node {} lost the lease for {}", getNodeId(), coinPair);
+    ownedLeases.remove(coinPair);
+    notifyReleased(coinPair);
+  }
+
+  private void release(String coinPair) {
+    // Trading is stopped and pending state flushed before another node may take over the pair
+    ownedLeases.remove(coinPair);
+    notifyReleased(coinPair);
+    writeBehindService.flush();
+    jdbcTemplate.update(RELEASE_LEASE_SQL, coinPair, getNodeId());
+    log.info("Node {} released the lease for {}", getNodeId(), coinPair);
+  }
+
+  private void notifyReleased(String coinPair) {
+    var leaseListener = listener;
+    if (leaseListener == null) {
+      return;
+    }
+    try {
+      leaseListener.onPairReleased(coinPair);
+    } catch (Exception e) {
+      log.error("Lease listener failed for {}: {}", coinPair, e.getMessage(), e);
+    }
+  }
+
+  private void heartbeatQuietly() {
+    try {
+      heartbeat();
+    } catch (Exception e) {
+      // Leases expire locally if the database stays unreachable, which stops trading the pairs
+      log.error("Cluster heartbeat failed for node {}: {}", getNodeId(), e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Picks the owner of a coin pair with rendezvous hashing: every node scores the pair and the
+   * highest score wins. Only the pairs of a joining or leaving node change their owner.
+   *
+   * @param coinPair the coin pair
+   * @param nodes    the live nodes
+   * @return the preferred owner, or null if there are no live nodes
+   */
+  static String rendezvousOwner(String coinPair, Collection<String> nodes) {
+    String owner = null;
+    long bestScore = Long.MIN_VALUE;
+    for (String node : nodes) {
+      long score = score(coinPair, node);
+      if (owner == null || score > bestScore || (score == bestScore && node.compareTo(owner) < 0)) {
+        owner = node;
+        bestScore = score;
+      }
+    }
+    return owner;
+  }
+
+  private static long score(String coinPair, String node) {
+    // FNV-1a over pair and node followed by a 64 bit finalizer for a uniform spread
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : (coinPair + '\u0000' + node).getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b;
+      hash *= 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+
+  private static String defaultNodeId() {
+    String host;
+    try {
+      host = InetAddress.getLocalHost().getHostName();
+    } catch (Exception e) {
+      host = "node";
+    }
+    return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+  }
+
+  @Override
+  public synchronized void destroy() {
+    if (leaseExecutor == null) {
+      return;
+    }
+    leaseExecutor.shutdownNow();
+    acquisitionPool.shutdownNow();
+    try {
+      for (String coinPair : new ArrayList<>(ownedLeases.keySet())) {
+        release(coinPair);
+      }
+      jdbcTemplate.update(DELETE_NODE_SQL, getNodeId());
+      log.info("Node {} left the cluster", getNodeId());
+    } catch (Exception e) {
+      log.error("Failed to leave the cluster cleanly: {}", e.getMessage(), e);
+    }
+  }
+}
@@ -0,0 +1,18 @@
+package ch.kekelidze.krakentrader.trade.cluster;
+
+/**
+ * Notified when this node gains or loses the lease of a coin pair.
+ */
+public interface PairLeaseListener {
+
+  /**
+   * The node acquired the lease and should start trading the pair.
+   */
+  void onPairAcquired(String coinPair);
+
+  /**
+   * The node lost or handed over the lease and must stop trading the pair. Called before a lease
+   * is released, so the pair is never traded by two nodes at the same time.
+   */
+  void onPairReleased(String coinPair);
+}
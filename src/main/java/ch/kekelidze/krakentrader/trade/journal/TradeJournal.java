@@ -0,0 +1,218 @@
+package ch.kekelidze.krakentrader.trade.journal;
+
+import static ch.kekelidze.krakentrader.trade.journal.TradeJournalFormat.MAX_COIN_PAIR_LENGTH;
+import static ch.kekelidze.krakentrader.trade.journal.TradeJournalFormat.RECORD_SIZE;
+
+import ch.kekelidze.krakentrader.trade.TradeOperationType;
+import ch.kekelidze.krakentrader.trade.TradeState;
+import ch.kekelidze.krakentrader.trade.util.TradingCircuitBreaker.CircuitBreakerState;
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneId;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Append-only, memory-mapped binary journal of order intents, fills, fees, capital changes and
+ * trade state snapshots.
+ * <p>
+ * Appends are serialized by a single lock that also assigns the sequence number, so the journal has
+ * exactly one writer. A record is a plain write into the mapped file and never touches the
+ * database; the operating system flushes the pages in the background and on shutdown they are
+ * forced to disk. The journal grows in fixed chunks and is limited to 2 GB (about 22 million
+ * records) per file.
+ * <p>
+ * The journal is disabled by default and only enabled by the {@code trader} profile, so other
+ * applications scanning this package never open or replay it. Appends are called on the order path
+ * and never throw, a record that cannot be written is logged and skipped.
+ */
+@Slf4j
+@Component
+public class TradeJournal implements DisposableBean {
+
+  private static final int MAPPING_CHUNK_SIZE = RECORD_SIZE * 65_536;
+
+  @Value("${trading.journal.enabled:false}")
+  private boolean enabled;
+
+  @Value("${trading.journal.path:data/journal/trade-journal.bin}")
+  private String journalPath;
+
+  @Value("${trading.standby.enabled:false}")
+  private boolean standbyEnabled;
+
+  private FileChannel channel;
+  private MappedByteBuffer buffer;
+  private int writePosition;
+  private long lastSequence;
+
+  @PostConstruct
+  public void openOnStartup() {
+    if (standbyEnabled) {
+      // Only the process holding the primary lease writes the journal, see StandbyReplicationService
+      log.info("Trade journal is opened once this process becomes primary");
+      return;
+    }
+    open();
+  }
+
+  public synchronized void open() {
+    if (!enabled) {
+      log.info("Trade journal disabled");
+      return;
+    }
+    if (buffer != null) {
+      return;
+    }
+    try {
+      var path = Path.of(journalPath);
+      if (path.getParent() != null) {
+        Files.createDirectories(path.getParent());
+      }
+      channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+          StandardOpenOption.WRITE);
+      map(Math.max(channel.size(), MAPPING_CHUNK_SIZE));
+      recoverWritePosition();
+      log.info("Opened trade journal {} with {} records", path, lastSequence);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to open trade journal " + journalPath, e);
+    }
+  }
+
+  public Path getJournalPath() {
+    return Path.of(journalPath);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public synchronized long getLastSequence() {
+    return lastSequence;
+  }
+
+  public long recordOrderIntent(TradeOperationType operationType, String coinPair, double price,
+      double volume) {
+    var type = operationType == TradeOperationType.BUY
+        ? TradeJournalEntryType.BUY_INTENT : TradeJournalEntryType.SELL_INTENT;
+    return append(type, coinPair, false, price, volume, 0, 0);
+  }
+
+  public long recordFill(TradeOperationType operationType, String coinPair, double price,
+      double volume, double fee) {
+    var type = operationType == TradeOperationType.BUY
+        ? TradeJournalEntryType.BUY_FILL : TradeJournalEntryType.SELL_FILL;
+    return append(type, coinPair, false, price, volume, fee, 0);
+  }
+
+  public long recordCapital(String coinPair, double totalCapital) {
+    return append(TradeJournalEntryType.CAPITAL, coinPair, false, 0, 0, 0, totalCapital);
+  }
+
+  /**
+   * Records an absolute trade state snapshot. Entry price and position size use the price and
+   * volume fields, the accumulated profit percentage is stored in the fee field.
+   */
+  public long recordTradeState(TradeState tradeState) {
+    return append(TradeJournalEntryType.TRADE_STATE, tradeState.getCoinPair(),
+        tradeState.isInTrade(), tradeState.getEntryPrice(), tradeState.getPositionSize(),
+        tradeState.getTotalProfit(), 0);
+  }
+
+  /**
+   * Records an absolute circuit breaker snapshot of a coin pair.
+   */
+  public long recordCircuitBreaker(String coinPair, CircuitBreakerState state) {
+    if (state == null) {
+      return 0;
+    }
+    var openedAt = state.getCircuitOpenedAt() == null ? 0
+        : state.getCircuitOpenedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    return append(TradeJournalEntryType.CIRCUIT_BREAKER, coinPair, false,
+        state.getState().ordinal(), state.getConsecutiveLosses(), state.getTotalLossPercent(),
+        openedAt);
+  }
+
+  /**
+   * Appends a record and returns its sequence number, or 0 if the journal is disabled or the
+   * record could not be written.
+   */
+  synchronized long append(TradeJournalEntryType type, String coinPair, boolean inTrade,
+      double price, double volume, double fee, double capital) {
+    if (buffer == null) {
+      return 0;
+    }
+    if (coinPair != null && coinPair.length() > MAX_COIN_PAIR_LENGTH) {
+      log.error("Coin pair {} exceeds {} characters, skipping {} journal record", coinPair,
+          MAX_COIN_PAIR_LENGTH, type);
+      return 0;
+    }
+    try {
+      ensureCapacity();
+    } catch (RuntimeException e) {
+      log.error("Failed to append {} journal record for {}: {}", type, coinPair, e.getMessage(),
+          e);
+      return 0;
+    }
+    long sequence = lastSequence + 1;
+    TradeJournalFormat.write(buffer, writePosition, sequence, System.currentTimeMillis(), type,
+        coinPair, inTrade, price, volume, fee, capital);
+    writePosition += RECORD_SIZE;
+    lastSequence = sequence;
+    return sequence;
+  }
+
+  private void ensureCapacity() {
+    if (writePosition + RECORD_SIZE <= buffer.capacity()) {
+      return;
+    }
+    long newSize = (long) buffer.capacity() + MAPPING_CHUNK_SIZE;
+    if (newSize > Integer.MAX_VALUE) {
+      throw new IllegalStateException("Trade journal is full, rotate " + journalPath);
+    }
+    try {
+      buffer.force();
+      map(newSize);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to grow trade journal " + journalPath, e);
+    }
+  }
+
+  private void map(long size) throws IOException {
+    buffer = channel.map(MapMode.READ_WRITE, 0, size);
+  }
+
+  private void recoverWritePosition() {
+    writePosition = 0;
+    lastSequence = 0;
+    while (writePosition + RECORD_SIZE <= buffer.capacity()) {
+      long sequence = TradeJournalFormat.readSequence(buffer, writePosition);
+      if (sequence != lastSequence + 1) {
+        break;
+      }
+      lastSequence = sequence;
+      writePosition += RECORD_SIZE;
+    }
+  }
+
+  @Override
+  public synchronized void destroy() throws IOException {
+    if (buffer != null) {
+      buffer.force();
+      buffer = null;
+    }
+    if (channel != null) {
+      channel.close();
+      log.info("Trade journal closed at sequence {}", lastSequence);
+    }
+  }
+}
@@ -0,0 +1,11 @@
+package ch.kekelidze.krakentrader.trade.journal;
+
+/**
+ * A single decoded trade journal record. The meaning of the numeric fields depends on the
+ * {@link TradeJournalEntryType}; unused fields are zero.
+ */
+public record TradeJournalEntry(long sequence, long timestamp, TradeJournalEntryType type,
+                                String coinPair, boolean inTrade, double price, double volume,
+                                double fee, double capital) {
+
+}
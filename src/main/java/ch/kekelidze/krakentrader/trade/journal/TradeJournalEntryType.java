@@ -0,0 +1,35 @@
+package ch.kekelidze.krakentrader.trade.journal;
+
+/**
+ * Types of records stored in the trade journal. The code is the on-disk representation and must
+ * never be changed for an existing type.
+ */
+public enum TradeJournalEntryType {
+  BUY_INTENT(1),      // Market buy about to be placed: price = last close, volume = requested size
+  SELL_INTENT(2),     // Market sell about to be placed: price = last close, volume = requested size
+  BUY_FILL(3),        // Executed buy: price, volume and fee as reported by the exchange
+  SELL_FILL(4),       // Executed sell: price, volume and fee as reported by the exchange
+  CAPITAL(5),         // Total capital after a change: capital
+  TRADE_STATE(6),     // Full trade state snapshot: price = entry, volume = position, fee = profit
+  CIRCUIT_BREAKER(7); // Circuit breaker snapshot: price = state ordinal, volume = consecutive
+                      // losses, fee = loss percent, capital = opened at epoch millis or 0
+
+  private final byte code;
+
+  TradeJournalEntryType(int code) {
+    this.code = (byte) code;
+  }
+
+  public byte getCode() {
+    return code;
+  }
+
+  public static TradeJournalEntryType fromCode(byte code) {
+    for (TradeJournalEntryType type : values()) {
+      if (type.code == code) {
+        return type;
+      }
+    }
+    throw new IllegalArgumentException("Unknown trade journal entry type: " + code);
+  }
+}
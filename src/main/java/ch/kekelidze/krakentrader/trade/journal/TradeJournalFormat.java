@@ -0,0 +1,86 @@
+package ch.kekelidze.krakentrader.trade.journal;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Binary layout of a trade journal record. Every record is 96 bytes:
+ * <pre>
+ *  0  long   sequence (written last with release semantics, 0 marks the end of the journal)
+ *  8  long   timestamp in epoch millis
+ * 16  byte   entry type code
+ * 17  byte   flags (bit 0: in trade)
+ * 18  byte   coin pair length
+ * 19  45B    coin pair (ASCII)
+ * 64  double price
+ * 72  double volume
+ * 80  double fee
+ * 88  double capital
+ * </pre>
+ */
+final class TradeJournalFormat {
+
+  static final int RECORD_SIZE = 96;
+  static final int MAX_COIN_PAIR_LENGTH = 45;
+
+  private static final int TIMESTAMP_OFFSET = 8;
+  private static final int TYPE_OFFSET = 16;
+  private static final int FLAGS_OFFSET = 17;
+  private static final int COIN_PAIR_LENGTH_OFFSET = 18;
+  private static final int COIN_PAIR_OFFSET = 19;
+  private static final int PRICE_OFFSET = 64;
+  private static final int VOLUME_OFFSET = 72;
+  private static final int FEE_OFFSET = 80;
+  private static final int CAPITAL_OFFSET = 88;
+
+  private static final byte IN_TRADE_FLAG = 1;
+
+  private static final VarHandle SEQUENCE_HANDLE =
+      MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+  private TradeJournalFormat() {
+  }
+
+  static void write(ByteBuffer buffer, int offset, long sequence, long timestamp,
+      TradeJournalEntryType type, String coinPair, boolean inTrade, double price, double volume,
+      double fee, double capital) {
+    buffer.putLong(offset + TIMESTAMP_OFFSET, timestamp);
+    buffer.put(offset + TYPE_OFFSET, type.getCode());
+    buffer.put(offset + FLAGS_OFFSET, inTrade ? IN_TRADE_FLAG : 0);
+    int length = coinPair == null ? 0 : coinPair.length();
+    buffer.put(offset + COIN_PAIR_LENGTH_OFFSET, (byte) length);
+    for (int i = 0; i < length; i++) {
+      buffer.put(offset + COIN_PAIR_OFFSET + i, (byte) coinPair.charAt(i));
+    }
+    buffer.putDouble(offset + PRICE_OFFSET, price);
+    buffer.putDouble(offset + VOLUME_OFFSET, volume);
+    buffer.putDouble(offset + FEE_OFFSET, fee);
+    buffer.putDouble(offset + CAPITAL_OFFSET, capital);
+    // Publishing the sequence last makes the record visible to readers only once it is complete
+    SEQUENCE_HANDLE.setRelease(buffer, offset, sequence);
+  }
+
+  static long readSequence(ByteBuffer buffer, int offset) {
+    return (long) SEQUENCE_HANDLE.getAcquire(buffer, offset);
+  }
+
+  static TradeJournalEntry read(ByteBuffer buffer, int offset, long sequence) {
+    int length = buffer.get(offset + COIN_PAIR_LENGTH_OFFSET);
+    char[] coinPair = new char[length];
+    for (int i = 0; i < length; i++) {
+      coinPair[i] = (char) buffer.get(offset + COIN_PAIR_OFFSET + i);
+    }
+    return new TradeJournalEntry(
+        sequence,
+        buffer.getLong(offset + TIMESTAMP_OFFSET),
+        TradeJournalEntryType.fromCode(buffer.get(offset + TYPE_OFFSET)),
+        new String(coinPair),
+        (buffer.get(offset + FLAGS_OFFSET) & IN_TRADE_FLAG) != 0,
+        buffer.getDouble(offset + PRICE_OFFSET),
+        buffer.getDouble(offset + VOLUME_OFFSET),
+        buffer.getDouble(offset + FEE_OFFSET),
+        buffer.getDouble(offset + CAPITAL_OFFSET));
+  }
+}
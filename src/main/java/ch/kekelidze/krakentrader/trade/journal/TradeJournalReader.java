@@ -0,0 +1,75 @@
+package ch.kekelidze.krakentrader.trade.journal;
+
+import static ch.kekelidze.krakentrader.trade.journal.TradeJournalFormat.RECORD_SIZE;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Sequential reader for the trade journal. The reader remembers its position, so repeated calls to
+ * {@link #poll(Consumer)} only return records appended since the previous call. This allows the
+ * journal to be tailed while another process is still writing it.
+ */
+public class TradeJournalReader implements AutoCloseable {
+
+  private final FileChannel channel;
+  private MappedByteBuffer buffer;
+  private int position;
+  private long lastSequence;
+
+  public TradeJournalReader(Path journalPath) throws IOException {
+    this.channel = FileChannel.open(journalPath, StandardOpenOption.READ);
+  }
+
+  /**
+   * Reads all complete records appended since the last call.
+   *
+   * @param consumer receives the records in sequence order
+   * @return number of records read
+   */
+  public int poll(Consumer<TradeJournalEntry> consumer) throws IOException {
+    long size = channel.size();
+    if (buffer == null || buffer.capacity() < size) {
+      buffer = channel.map(MapMode.READ_ONLY, 0, size);
+    }
+
+    int read = 0;
+    while (position + RECORD_SIZE <= buffer.capacity()) {
+      long sequence = TradeJournalFormat.readSequence(buffer, position);
+      if (sequence != lastSequence + 1) {
+        break;
+      }
+      consumer.accept(TradeJournalFormat.read(buffer, position, sequence));
+      lastSequence = sequence;
+      position += RECORD_SIZE;
+      read++;
+    }
+    return read;
+  }
+
+  public long getLastSequence() {
+    return lastSequence;
+  }
+
+  /**
+   * Reads a whole journal file from the beginning.
+   *
+   * @return number of records read
+   */
+  public static long readAll(Path journalPath, Consumer<TradeJournalEntry> consumer)
+      throws IOException {
+    try (var reader = new TradeJournalReader(journalPath)) {
+      return reader.poll(consumer);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+}
@@ -0,0 +1,95 @@
+package ch.kekelidze.krakentrader.trade.journal;
+
+import ch.kekelidze.krakentrader.trade.Portfolio;
+import ch.kekelidze.krakentrader.trade.service.TradeStatePersistenceService;
+import ch.kekelidze.krakentrader.trade.util.TradingCircuitBreaker;
+import ch.kekelidze.krakentrader.trade.util.TradingCircuitBreaker.CircuitState;
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rebuilds trade state, circuit breaker state and capital from the trade journal on startup. The
+ * journal is written before the database, so after a crash it may contain snapshots the write-behind
+ * layer never flushed.
+ */
+@Slf4j
+@Component
+public class TradeJournalRecovery {
+
+  private final TradeJournal tradeJournal;
+  private final Portfolio portfolio;
+  private final TradeStatePersistenceService tradeStatePersistenceService;
+  private final TradingCircuitBreaker circuitBreaker;
+
+  @Value("${trading.journal.replay-on-startup:true}")
+  boolean replayOnStartup;
+
+  public TradeJournalRecovery(TradeJournal tradeJournal, Portfolio portfolio,
+      TradeStatePersistenceService tradeStatePersistenceService,
+      TradingCircuitBreaker circuitBreaker) {
+    this.tradeJournal = tradeJournal;
+    this.portfolio = portfolio;
+    this.tradeStatePersistenceService = tradeStatePersistenceService;
+    this.circuitBreaker = circuitBreaker;
+  }
+
+  @PostConstruct
+  public void recover() {
+    if (!replayOnStartup || !tradeJournal.isEnabled()
+        || !Files.exists(tradeJournal.getJournalPath())) {
+      return;
+    }
+    try {
+      var replayer = new TradeJournalReplayer();
+      long start = System.currentTimeMillis();
+      TradeJournalReader.readAll(tradeJournal.getJournalPath(), replayer::apply);
+      apply(replayer);
+      log.info("Replayed {} journal records up to sequence {} in {} ms",
+          replayer.getAppliedEntries(), replayer.getLastSequence(),
+          System.currentTimeMillis() - start);
+    } catch (IOException e) {
+      log.error("Failed to replay trade journal {}: {}", tradeJournal.getJournalPath(),
+          e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Applies the folded journal records to the portfolio and the circuit breaker.
+   */
+  public void apply(TradeJournalReplayer replayer) {
+    replayer.getLatestTradeStates().forEach((coinPair, entry) -> {
+      var tradeState = portfolio.getOrCreateTradeState(coinPair);
+      if (tradeState.isInTrade() != entry.inTrade()) {
+        log.info("Restoring {} from journal: inTrade {} -> {}", coinPair,
+            tradeState.isInTrade(), entry.inTrade());
+        tradeState.setInTrade(entry.inTrade());
+      }
+      tradeState.setEntryPrice(entry.price());
+      tradeState.setPositionSize(entry.volume());
+      tradeState.setTotalProfit(entry.fee());
+      tradeStatePersistenceService.saveTradeState(tradeState);
+    });
+    replayer.getLatestCircuitBreakerStates().forEach((coinPair, entry) -> {
+      var openedAt = entry.capital() > 0
+          ? LocalDateTime.ofInstant(Instant.ofEpochMilli((long) entry.capital()),
+          ZoneId.systemDefault())
+          : null;
+      circuitBreaker.restoreState(coinPair, CircuitState.values()[(int) entry.price()],
+          (int) entry.volume(), entry.fee(), openedAt);
+    });
+    replayer.getLatestCapital().ifPresent(capital -> {
+      if (Double.compare(capital, portfolio.getTotalCapital()) != 0) {
+        log.info("Restoring total capital from journal: {} -> {}", portfolio.getTotalCapital(),
+            capital);
+        portfolio.setTotalCapital(capital);
+      }
+    });
+  }
+}
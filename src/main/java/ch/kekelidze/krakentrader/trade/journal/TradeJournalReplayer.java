@@ -0,0 +1,49 @@
+package ch.kekelidze.krakentrader.trade.journal;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.OptionalDouble;
+import lombok.Getter;
+
+/**
+ * Folds journal records into the latest trade state and circuit breaker state per coin pair and the
+ * latest total capital. Only absolute records ({@link TradeJournalEntryType#TRADE_STATE},
+ * {@link TradeJournalEntryType#CIRCUIT_BREAKER} and {@link TradeJournalEntryType#CAPITAL}) are
+ * used, so replaying the same records twice yields the same result.
+ */
+public class TradeJournalReplayer {
+
+  private final Map<String, TradeJournalEntry> latestTradeStates = new LinkedHashMap<>();
+  private final Map<String, TradeJournalEntry> latestCircuitBreakerStates = new LinkedHashMap<>();
+  private TradeJournalEntry latestCapital;
+  @Getter
+  private long lastSequence;
+  @Getter
+  private long appliedEntries;
+
+  public void apply(TradeJournalEntry entry) {
+    switch (entry.type()) {
+      case TRADE_STATE -> latestTradeStates.put(entry.coinPair(), entry);
+      case CIRCUIT_BREAKER -> latestCircuitBreakerStates.put(entry.coinPair(), entry);
+      case CAPITAL -> latestCapital = entry;
+      default -> {
+        // Intents and fills are kept for auditing and do not change the replayed state
+      }
+    }
+    lastSequence = entry.sequence();
+    appliedEntries++;
+  }
+
+  public Map<String, TradeJournalEntry> getLatestTradeStates() {
+    return latestTradeStates;
+  }
+
+  public Map<String, TradeJournalEntry> getLatestCircuitBreakerStates() {
+    return latestCircuitBreakerStates;
+  }
+
+  public OptionalDouble getLatestCapital() {
+    return latestCapital == null ? OptionalDouble.empty()
+        : OptionalDouble.of(latestCapital.capital());
+  }
+}
@@ -0,0 +1,174 @@
+package ch.kekelidze.krakentrader.trade.service;
+
+import ch.kekelidze.krakentrader.trade.entity.PortfolioEntity;
+import ch.kekelidze.krakentrader.trade.entity.TradeStateEntity;
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Asynchronous write-behind layer for trade state and portfolio capital.
+ * <p>
+ * Updates are coalesced per key (coin pair or portfolio id) so only the latest snapshot of each
+ * key is written. A single flusher thread writes all pending snapshots in JDBC batches on a short
+ * interval and once more on shutdown. Because there is only one writer and a flushed snapshot is
+ * removed only if it was not replaced in the meantime, a newer snapshot of a coin pair can never be
+ * overwritten by an older one.
+ */
+@Slf4j
+@Service
+public class PersistenceWriteBehindService implements DisposableBean {
+
+    private static final String MERGE_TRADE_STATE_SQL = """
+        MERGE INTO trade_state (coin_pair, in_trade, entry_price, position_size, total_profit,
+            actively_traded) KEY (coin_pair) VALUES (?, ?, ?, ?, ?, ?)
+        """;
+    private static final String MERGE_PORTFOLIO_SQL =
+        "MERGE INTO portfolio (id, total_capital) KEY (id) VALUES (?, ?)";
+
+    private final Map<String, TradeStateEntity> pendingTradeStates = new ConcurrentHashMap<>();
+    private final Map<Long, PortfolioEntity> pendingPortfolios = new ConcurrentHashMap<>();
+    private final Object flushLock = new Object();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ScheduledExecutorService flushExecutor;
+
+    @Value("${trading.persistence.flush-interval-ms:200}")
+    long flushIntervalMs;
+
+    public PersistenceWriteBehindService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "persistence-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        flushExecutor.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs,
+            TimeUnit.MILLISECONDS);
+        log.info("Write-behind persistence started with flush interval of {} ms", flushIntervalMs);
+    }
+
+    /**
+     * Queues a trade state snapshot, replacing any pending snapshot for the same coin pair.
+     *
+     * @param entity the snapshot to persist
+     */
+    public void enqueueTradeState(TradeStateEntity entity) {
+        pendingTradeStates.put(entity.getCoinPair(), entity);
+    }
+
+    /**
+     * Queues a portfolio snapshot, replacing any pending snapshot for the same portfolio id.
+     *
+     * @param entity the snapshot to persist
+     */
+    public void enqueuePortfolio(PortfolioEntity entity) {
+        pendingPortfolios.put(entity.getId(), entity);
+    }
+
+    /**
+     * Returns the pending trade state snapshot for a coin pair, so readers observe their own
+     * writes before they reach the database.
+     */
+    public Optional<TradeStateEntity> getPendingTradeState(String coinPair) {
+        return Optional.ofNullable(pendingTradeStates.get(coinPair));
+    }
+
+    /**
+     * Returns the pending portfolio snapshot for the given portfolio id.
+     */
+    public Optional<PortfolioEntity> getPendingPortfolio(Long portfolioId) {
+        return Optional.ofNullable(pendingPortfolios.get(portfolioId));
+    }
+
+    /**
+     * Writes all pending snapshots to the database in JDBC batches.
+     *
+     * @return number of rows written
+     */
+    public int flush() {
+        synchronized (flushLock) {
+            var tradeStates = new LinkedHashMap<>(pendingTradeStates);
+            var portfolios = new LinkedHashMap<>(pendingPortfolios);
+            if (tradeStates.isEmpty() && portfolios.isEmpty()) {
+                return 0;
+            }
+
+            if (!tradeStates.isEmpty()) {
+                jdbcTemplate.batchUpdate(MERGE_TRADE_STATE_SQL, toTradeStateRows(tradeStates));
+                // Only drop snapshots that were not replaced while the batch was running
+                tradeStates.forEach(pendingTradeStates::remove);
+            }
+            if (!portfolios.isEmpty()) {
+                jdbcTemplate.batchUpdate(MERGE_PORTFOLIO_SQL, toPortfolioRows(portfolios));
+                portfolios.forEach(pendingPortfolios::remove);
+            }
+
+            int written = tradeStates.size() + portfolios.size();
+            log.debug("Flushed {} trade states and {} portfolio snapshots", tradeStates.size(),
+                portfolios.size());
+            return written;
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            // Pending snapshots stay queued and are retried on the next interval
+            log.error("Failed to flush pending state to database: {}", e.getMessage(), e);
+        }
+    }
+
+    private static List<Object[]> toTradeStateRows(Map<String, TradeStateEntity> tradeStates) {
+        List<Object[]> rows = new ArrayList<>(tradeStates.size());
+        for (TradeStateEntity entity : tradeStates.values()) {
+            rows.add(new Object[]{
+                entity.getCoinPair(),
+                entity.isInTrade(),
+                entity.getEntryPrice(),
+                entity.getPositionSize(),
+                entity.getTotalProfit(),
+                entity.isActivelyTraded()
+            });
+        }
+        return rows;
+    }
+
+    private static List<Object[]> toPortfolioRows(Map<Long, PortfolioEntity> portfolios) {
+        List<Object[]> rows = new ArrayList<>(portfolios.size());
+        for (PortfolioEntity entity : portfolios.values()) {
+            rows.add(new Object[]{entity.getId(), entity.getTotalCapital()});
+        }
+        return rows;
+    }
+
+    @Override
+    public void destroy() {
+        flushExecutor.shutdown();
+        try {
+            flushExecutor.awaitTermination(flushIntervalMs * 5, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int written = flush();
+        log.info("Write-behind persistence stopped, flushed {} pending snapshots on shutdown",
+            written);
+    }
+}
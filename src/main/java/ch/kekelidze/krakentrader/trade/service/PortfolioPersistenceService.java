@@ -16,25 +16,28 @@ public class PortfolioPersistenceService {
     private static final Long PORTFOLIO_ID = 1L;
     
     private final PortfolioRepository portfolioRepository;
+    private final PersistenceWriteBehindService writeBehindService;
 
-    @Transactional
+    /**
+     * Queues the total capital for asynchronous persistence. Consecutive updates are coalesced,
+     * so only the latest value is written on the next flush.
+     */
     public void savePortfolioTotalCapital(double totalCapital) {
-        PortfolioEntity entity = portfolioRepository.findById(PORTFOLIO_ID)
-                .orElse(PortfolioEntity.builder().id(PORTFOLIO_ID).build());
-        
-        entity.setTotalCapital(totalCapital);
-        portfolioRepository.save(entity);
-        log.debug("Saved portfolio total capital to database: {}", totalCapital);
+        writeBehindService.enqueuePortfolio(
+            PortfolioEntity.builder().id(PORTFOLIO_ID).totalCapital(totalCapital).build());
+        log.debug("Queued portfolio total capital for persistence: {}", totalCapital);
     }
 
     @Transactional(readOnly = true)
     public Optional<Double> loadPortfolioTotalCapital() {
-        return portfolioRepository.findById(PORTFOLIO_ID)
+        return writeBehindService.getPendingPortfolio(PORTFOLIO_ID)
+                .or(() -> portfolioRepository.findById(PORTFOLIO_ID))
                 .map(PortfolioEntity::getTotalCapital);
     }
 
     @Transactional(readOnly = true)
     public boolean isPortfolioExists() {
-        return portfolioRepository.existsById(PORTFOLIO_ID);
+        return writeBehindService.getPendingPortfolio(PORTFOLIO_ID).isPresent()
+                || portfolioRepository.existsById(PORTFOLIO_ID);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,66 @@
+package ch.kekelidze.krakentrader.trade.service;
+
+import ch.kekelidze.krakentrader.api.rest.service.TradingApiService;
+import ch.kekelidze.krakentrader.indicator.analyser.AtrAnalyser;
+import ch.kekelidze.krakentrader.strategy.Strategy;
+import ch.kekelidze.krakentrader.trade.Portfolio;
+import ch.kekelidze.krakentrader.trade.cluster.ClusterCapitalLedger;
+import ch.kekelidze.krakentrader.trade.journal.TradeJournal;
+import ch.kekelidze.krakentrader.trade.util.TradingCircuitBreaker;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates strategy engines for running several strategies in one process. Each engine is a
+ * {@link TradeService} with its own strategy, cooldowns and {@link Portfolio} slice, while the
+ * exchange API, circuit breaker and persistence are shared.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TradeEngineFactory {
+
+  private final AtrAnalyser atrAnalyser;
+  private final PortfolioPersistenceService portfolioPersistenceService;
+  private final TradeStatePersistenceService tradeStatePersistenceService;
+  private final TradingApiService tradingApiService;
+  private final TradingCircuitBreaker circuitBreaker;
+  private final TradeJournal tradeJournal;
+  private final ClusterCapitalLedger capitalLedger;
+
+  @Value("${trading.cooldown.minutes:15}")
+  int tradeCooldownMinutes;
+
+  @Value("${trading.resync.minutes:60}")
+  int usdResyncIntervalMinutes;
+
+  /**
+   * Creates an engine trading the given coin pairs with its own portfolio slice.
+   *
+   * @param engineName name of the engine, used as the slice name of its trade states
+   * @param strategy   the strategy the engine executes
+   * @param capital    capital assigned to the slice
+   * @param coinPairs  coin pairs traded by the engine
+   * @return the engine, ready to be subscribed to the market data bus
+   */
+  public TradeService createEngine(String engineName, Strategy strategy, double capital,
+      String[] coinPairs) {
+    var slice = new Portfolio(portfolioPersistenceService, tradeStatePersistenceService,
+        engineName);
+    slice.setTotalCapital(capital);
+    for (String coinPair : coinPairs) {
+      slice.getOrCreateTradeState(coinPair).setActivelyTraded(true);
+    }
+
+    var engine = new TradeService(atrAnalyser, slice, tradeStatePersistenceService,
+        tradingApiService, circuitBreaker, tradeJournal, capitalLedger);
+    engine.tradeCooldownMinutes = tradeCooldownMinutes;
+    engine.usdResyncIntervalMinutes = usdResyncIntervalMinutes;
+    engine.setStrategy(strategy);
+    log.info("Created strategy engine {} with capital {} for {} coin pairs", engineName, capital,
+        coinPairs.length);
+    return engine;
+  }
+}
@@ -9,6 +9,9 @@ import ch.kekelidze.krakentrader.strategy.dto.EvaluationContext;
 import ch.kekelidze.krakentrader.trade.Portfolio;
 import ch.kekelidze.krakentrader.trade.TradeOperationType;
 import ch.kekelidze.krakentrader.trade.TradeState;
+import ch.kekelidze.krakentrader.trade.cluster.ClusterCapitalLedger;
+import ch.kekelidze.krakentrader.trade.journal.TradeJournal;
+import ch.kekelidze.krakentrader.trade.util.CapitalAllocation;
 import ch.kekelidze.krakentrader.trade.util.TradingCircuitBreaker;
 import jakarta.annotation.PostConstruct;
 import lombok.Getter;
@@ -42,6 +45,8 @@ public class TradeService {
   private final TradeStatePersistenceService tradeStatePersistenceService;
   private final TradingApiService tradingApiService;
   private final TradingCircuitBreaker circuitBreaker;
+  private final TradeJournal tradeJournal;
+  private final ClusterCapitalLedger capitalLedger;
   @Getter
   @Setter
   private Strategy strategy;
@@ -49,12 +54,16 @@ public class TradeService {
   public TradeService(AtrAnalyser atrAnalyser, Portfolio portfolio,
       TradeStatePersistenceService tradeStatePersistenceService,
       TradingApiService tradingApiService,
-      TradingCircuitBreaker circuitBreaker) {
+      TradingCircuitBreaker circuitBreaker,
+      TradeJournal tradeJournal,
+      ClusterCapitalLedger capitalLedger) {
     this.atrAnalyser = atrAnalyser;
     this.portfolio = portfolio;
     this.tradeStatePersistenceService = tradeStatePersistenceService;
     this.tradingApiService = tradingApiService;
     this.circuitBreaker = circuitBreaker;
+    this.tradeJournal = tradeJournal;
+    this.capitalLedger = capitalLedger;
   }
 
   @PostConstruct
@@ -71,6 +80,10 @@ public class TradeService {
    * @return true if USD balance resync is needed, false otherwise
    */
   private boolean isUsdResyncNeeded(String coinPair) {
+    if (portfolio.isSlice()) {
+      // The account balance is shared by all slices, a slice tracks its capital from its own fills
+      return false;
+    }
     long currentTime = System.currentTimeMillis();
     Long lastResyncTime = lastUsdResyncTimestamps.get(coinPair);
     
@@ -108,6 +121,9 @@ public class TradeService {
    * @return The number of coins not in trade and actively traded
    */
   int countCoinsNotInTrade() {
+    if (usesSharedCapital()) {
+      return capitalLedger.countPairsNotInTrade();
+    }
     int count = 0;
     var tradeStates = portfolio.getTradeStates().values();
     for (TradeState state : tradeStates) {
@@ -170,6 +186,8 @@ public class TradeService {
       double minVolume = tradingApiService.getMinimumOrderVolume(coinPair);
       // Calculate the minimum capital needed to meet the minimum order volume
       double minCapitalNeeded = minVolume * currentPrice;
+      double allocation = CapitalAllocation.allocate(totalCapital, coinsNotInTrade,
+          minCapitalNeeded);
 
       // If this is the only coin not in trade, use all available capital
       if (coinsNotInTrade <= 1) {
@@ -180,20 +198,14 @@ public class TradeService {
           log.warn("Insufficient capital ({} USD) to meet minimum order volume for {} ({} USD needed)",
                   totalCapital, coinPair, minCapitalNeeded);
         }
-
-        return totalCapital;
-      }
-
-      if (evenAllocation >= minCapitalNeeded) {
+      } else if (evenAllocation >= minCapitalNeeded) {
         log.info("Using even allocation of {} USD for {} (minimum needed: {} USD)",
                 evenAllocation, coinPair, minCapitalNeeded);
-        return evenAllocation;
+      } else {
+        log.info("Even allocation ({} USD) insufficient, using minimum needed ({} USD) for {}",
+                evenAllocation, minCapitalNeeded, coinPair);
       }
-
-      // Otherwise, use the minimum capital needed
-      log.info("Even allocation ({} USD) insufficient, using minimum needed ({} USD) for {}",
-              evenAllocation, minCapitalNeeded, coinPair);
-      return minCapitalNeeded;
+      return allocation;
     } catch (Exception e) {
       log.error("Failed to calculate allocation for {}: {}", coinPair, e.getMessage(), e);
       return evenAllocation;
@@ -204,7 +216,8 @@ public class TradeService {
       Strategy strategy) {
     var tradeState = portfolio.getOrCreateTradeState(coinPair);
     var currentPrice = data.getLast().getClosePrice().doubleValue();
-    double currentCapital = portfolio.getTotalCapital();
+    double currentCapital = usesSharedCapital()
+        ? capitalLedger.getAvailableCapital() : portfolio.getTotalCapital();
 
     if (currentCapital <= 0) {
       log.info("No capital available to trade {}", coinPair);
@@ -213,6 +226,7 @@ public class TradeService {
 
     var evaluationContext = EvaluationContext.builder().symbol(coinPair).bars(data).build();
     var inTrade = tradeState.isInTrade();
+    double reservedCapital = 0;
 
     try {
       var buySignal = strategy.shouldBuy(evaluationContext, params);
@@ -234,8 +248,22 @@ public class TradeService {
         var positionSize = calculateAdaptivePositionSize(coinPair, data, currentPrice,
             allocatedCapital, params);
 
+        if (usesSharedCapital()) {
+          // Reserve the capital cluster-wide before the order, the difference is booked after fill
+          reservedCapital = estimateOrderCost(coinPair, positionSize, currentPrice);
+          if (!capitalLedger.tryReserve(reservedCapital)) {
+            log.info("Shared capital is reserved by other nodes, skipping {} for {}",
+                TradeOperationType.BUY, coinPair);
+            return;
+          }
+        }
+
         // Place market buy order
+        tradeJournal.recordOrderIntent(TradeOperationType.BUY, coinPair, currentPrice,
+            positionSize);
         OrderResult orderResult = tradingApiService.placeMarketBuyOrder(coinPair, positionSize);
+        tradeJournal.recordFill(TradeOperationType.BUY, coinPair, orderResult.executedPrice(),
+            orderResult.volume(), orderResult.fee());
 
         // Set trade state with actual executed values
         tradeState.setInTrade(true);
@@ -248,10 +276,11 @@ public class TradeService {
 
         // Use actual executed volume from the order
         tradeState.setPositionSize(orderResult.volume());
-        tradeStatePersistenceService.saveTradeState(tradeState);
+        saveTradeState(tradeState);
 
         // Update capital (deduct the total cost including fees)
-        currentCapital = portfolio.addToTotalCapital(-totalCost);
+        currentCapital = updateCapital(coinPair, -totalCost, reservedCapital);
+        reservedCapital = 0;
 
         // Record trade timestamp for cooldown tracking
         recordTradeTimestamp(coinPair);
@@ -269,8 +298,12 @@ public class TradeService {
 
       } else if (inTrade && sellSignal) {
         // Place market sell order
+        tradeJournal.recordOrderIntent(TradeOperationType.SELL, coinPair, currentPrice,
+            tradeState.getPositionSize());
         OrderResult orderResult = tradingApiService.placeMarketSellOrder(coinPair,
             tradeState.getPositionSize());
+        tradeJournal.recordFill(TradeOperationType.SELL, coinPair, orderResult.executedPrice(),
+            orderResult.volume(), orderResult.fee());
 
         // Calculate actual proceeds (after fees)
         var executedPrice =
@@ -286,15 +319,16 @@ public class TradeService {
         tradeState.setInTrade(false);
         var totalProfit = tradeState.getTotalProfit();
         tradeState.setTotalProfit(totalProfit + profit);
-        tradeStatePersistenceService.saveTradeState(tradeState);
+        saveTradeState(tradeState);
 
         // Update capital (add the proceeds after fees)
-        currentCapital = portfolio.addToTotalCapital(totalProceeds);
+        currentCapital = updateCapital(coinPair, totalProceeds, 0);
 
         // Record trade timestamp for cooldown tracking
         recordTradeTimestamp(coinPair);
 
         circuitBreaker.recordTradeResult(coinPair, profit);
+        tradeJournal.recordCircuitBreaker(coinPair, circuitBreaker.getDetailedState(coinPair));
         var circuitState = circuitBreaker.getCircuitState(coinPair);
         log.info("{} {} {} at: {} | Fee: {} | Proceeds: {} | Profit: {}% | Circuit: {}",
             TradeOperationType.SELL,
@@ -311,6 +345,9 @@ public class TradeService {
       // Use the helper method to handle the error with appropriate logging
       TradeOperationType operationType = inTrade ? TradeOperationType.SELL : TradeOperationType.BUY;
       handleTradingError(coinPair, e, operationType);
+      if (reservedCapital > 0) {
+        capitalLedger.release(reservedCapital);
+      }
 
       var errorMessage = e.getMessage();
       if (errorMessage != null && errorMessage.contains("Insufficient funds")) {
@@ -336,13 +373,61 @@ public class TradeService {
       // If there was an error during buy, make sure we're not left in an inconsistent state
       if (!inTrade && tradeState.isInTrade()) {
         tradeState.setInTrade(false);
-        tradeStatePersistenceService.saveTradeState(tradeState);
+        saveTradeState(tradeState);
       }
     }
 
     log.info("Capital: {}", currentCapital);
   }
 
+  /**
+   * Journals the trade state snapshot before handing it to the persistence layer, so the state can
+   * be rebuilt from the journal if the process dies before the write-behind flush.
+   *
+   * @param tradeState The trade state to save
+   */
+  private void saveTradeState(TradeState tradeState) {
+    // The journal is keyed by coin pair, slices sharing a pair rely on the persistence layer only
+    if (!portfolio.isSlice()) {
+      tradeJournal.recordTradeState(tradeState);
+    }
+    tradeStatePersistenceService.saveTradeState(tradeState);
+  }
+
+  /**
+   * Books a capital change. In cluster mode the change goes to the shared ledger, where it
+   * replaces the reservation made before the order.
+   *
+   * @return the capital after the change
+   */
+  private double updateCapital(String coinPair, double amount, double reservedCapital) {
+    double capital;
+    if (usesSharedCapital()) {
+      capital = reservedCapital > 0
+          ? capitalLedger.settle(reservedCapital, amount) : capitalLedger.credit(amount);
+      portfolio.setTotalCapital(capital);
+    } else {
+      capital = portfolio.addToTotalCapital(amount);
+    }
+    recordCapital(coinPair, capital);
+    return capital;
+  }
+
+  private double estimateOrderCost(String coinPair, double positionSize, double price) {
+    double takerFeeRate = tradingApiService.getCoinTradingFee(coinPair);
+    return positionSize * price * (1 + takerFeeRate / 100);
+  }
+
+  private boolean usesSharedCapital() {
+    return capitalLedger.isEnabled() && !portfolio.isSlice();
+  }
+
+  private void recordCapital(String coinPair, double capital) {
+    if (!portfolio.isSlice()) {
+      tradeJournal.recordCapital(coinPair, capital);
+    }
+  }
+
   /**
    * Calculates position size as a percentage of capital based on market volatility
    *
@@ -357,24 +442,8 @@ public class TradeService {
     double atr = atrAnalyser.calculateATR(data, params.atrPeriod());
     double currentPrice = data.getLast().getClosePrice().doubleValue();
     double atrPercent = (atr / currentPrice) * 100;
-    var lowerBound = 2.0;
-    var upperBound = 12.0;
-
-    // Base position size (percentage of capital)
-    double basePositionSize = 0.5; // Default 50% of capital
-
-    double capitalPercentage;
     // Adjust position size based on volatility
-    if (atrPercent < lowerBound) {
-      // Low volatility - can take a larger position
-      capitalPercentage = Math.min(basePositionSize * 1.5, 1.0);
-    } else if (atrPercent > upperBound) {
-      // High volatility - reduce position size
-      capitalPercentage = basePositionSize * 0.5;
-    } else {
-      // Normal volatility - use base size
-      capitalPercentage = basePositionSize;
-    }
+    double capitalPercentage = CapitalAllocation.volatilityAdjustedFraction(atrPercent);
 
     // Account for round-trip fees
     double takerFeeRate = tradingApiService.getCoinTradingFee(coinPair);
@@ -456,19 +525,21 @@ public class TradeService {
       Double actualBalance = tradingApiService.getAssetBalance(baseAsset);
       log.info("Actual balance from Kraken for {}: {}", baseAsset, actualBalance);
       
-      // Update the trade state with the correct position size
+      // Update the trade state with the correct position size, a slice never claims more than
+      // it holds since the balance may belong to other slices as well
       double oldPositionSize = tradeState.getPositionSize();
-      tradeState.setPositionSize(actualBalance.doubleValue());
-      tradeStatePersistenceService.saveTradeState(tradeState);
+      tradeState.setPositionSize(portfolio.isSlice()
+          ? Math.min(oldPositionSize, actualBalance) : actualBalance.doubleValue());
+      saveTradeState(tradeState);
       
       log.info("Updated position size for {} from {} to {}", 
-          coinPair, oldPositionSize, actualBalance);
+          coinPair, oldPositionSize, tradeState.getPositionSize());
       
       // If the actual balance is zero or very small, we might need to reset the trade state
       if (actualBalance < 0.000001) {
         log.warn("Balance for {} is effectively zero. Resetting trade state.", coinPair);
         tradeState.setInTrade(false);
-        tradeStatePersistenceService.saveTradeState(tradeState);
+        saveTradeState(tradeState);
       }
     } catch (Exception e) {
       log.error("Error fetching balance from Kraken for {}: {}", baseAsset, e.getMessage());
@@ -517,11 +588,18 @@ public class TradeService {
       Double actualBalance = tradingApiService.getAssetBalance(quoteAsset);
       log.info("Actual balance from Kraken for {}: {}", quoteAsset, actualBalance);
       
-      // Update the portfolio's total capital with the correct balance
+      // Update the portfolio's total capital with the correct balance, a slice is only capped to
+      // the balance since the free capital is shared with the other slices
       double oldCapital = portfolio.getTotalCapital();
-      portfolio.setTotalCapital(actualBalance.doubleValue());
+      double newCapital = portfolio.isSlice()
+          ? Math.min(oldCapital, actualBalance) : actualBalance.doubleValue();
+      portfolio.setTotalCapital(newCapital);
+      if (usesSharedCapital()) {
+        capitalLedger.resetAvailableCapital(newCapital);
+      }
+      recordCapital(coinPair, newCapital);
       
-      log.info("Updated total capital from {} to {}", oldCapital, actualBalance);
+      log.info("Updated total capital from {} to {}", oldCapital, newCapital);
     } catch (Exception e) {
       log.error("Error fetching balance from Kraken for {}: {}", quoteAsset, e.getMessage());
       throw e;
@@ -16,23 +16,32 @@ import org.springframework.transaction.annotation.Transactional;
 public class TradeStatePersistenceService {
 
     private final TradeStateRepository tradeStateRepository;
+    private final PersistenceWriteBehindService writeBehindService;
 
-    @Transactional
+    /**
+     * Takes a snapshot of the trade state and queues it for asynchronous persistence. Snapshots of
+     * the same storage key are coalesced and written in order by the write-behind flusher.
+     */
     public void saveTradeState(TradeState tradeState) {
         TradeStateEntity entity = convertToEntity(tradeState);
-        tradeStateRepository.save(entity);
-        log.debug("Saved trade state to database for {}: {}", tradeState.getCoinPair(), tradeState);
+        writeBehindService.enqueueTradeState(entity);
+        log.debug("Queued trade state for persistence for {}: {}", tradeState.getCoinPair(), tradeState);
     }
 
+    /**
+     * Loads a trade state by its storage key, which is the plain coin pair for the main portfolio
+     * and the slice-prefixed coin pair for portfolio slices.
+     */
     @Transactional(readOnly = true)
-    public Optional<TradeState> loadTradeState(String coinPair) {
-        return tradeStateRepository.findById(coinPair)
+    public Optional<TradeState> loadTradeState(String storageKey) {
+        return writeBehindService.getPendingTradeState(storageKey)
+                .or(() -> tradeStateRepository.findById(storageKey))
                 .map(this::convertToTradeState);
     }
 
     private TradeStateEntity convertToEntity(TradeState tradeState) {
         return TradeStateEntity.builder()
-                .coinPair(tradeState.getCoinPair())
+                .coinPair(tradeState.getStorageKey())
                 .inTrade(tradeState.isInTrade())
                 .entryPrice(tradeState.getEntryPrice())
                 .positionSize(tradeState.getPositionSize())
@@ -42,7 +51,8 @@ public class TradeStatePersistenceService {
     }
 
     private TradeState convertToTradeState(TradeStateEntity entity) {
-        TradeState tradeState = new TradeState(entity.getCoinPair());
+        TradeState tradeState = new TradeState(TradeState.coinPairOf(entity.getCoinPair()),
+                entity.getCoinPair());
         tradeState.setInTrade(entity.isInTrade());
         tradeState.setEntryPrice(entity.getEntryPrice());
         tradeState.setPositionSize(entity.getPositionSize());
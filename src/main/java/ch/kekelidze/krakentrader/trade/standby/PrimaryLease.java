@@ -0,0 +1,82 @@
+package ch.kekelidze.krakentrader.trade.standby;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Lease deciding which of several trader processes is the primary. The lease is an exclusive lock
+ * on a file that the operating system releases as soon as the holding process dies, so a standby
+ * can take over without waiting for a lease to time out. The holder writes its process name into
+ * the file for operators.
+ */
+@Slf4j
+@Component
+public class PrimaryLease implements DisposableBean {
+
+  @Value("${trading.standby.lease-path:data/standby/primary.lock}")
+  String leasePath;
+
+  private FileChannel channel;
+  private FileLock lock;
+
+  /**
+   * Acquires the lease unless another process holds it.
+   *
+   * @return true if this process holds the lease
+   */
+  public synchronized boolean tryAcquire() throws IOException {
+    if (isHeld()) {
+      return true;
+    }
+    if (channel == null) {
+      var path = Path.of(leasePath);
+      if (path.getParent() != null) {
+        Files.createDirectories(path.getParent());
+      }
+      channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+    try {
+      lock = channel.tryLock();
+    } catch (OverlappingFileLockException e) {
+      // Held by another lease instance of this JVM
+      lock = null;
+    }
+    if (lock == null) {
+      return false;
+    }
+    var holder = ManagementFactory.getRuntimeMXBean().getName();
+    channel.truncate(0);
+    channel.write(ByteBuffer.wrap(holder.getBytes(StandardCharsets.UTF_8)), 0);
+    log.info("Acquired primary lease {} as {}", leasePath, holder);
+    return true;
+  }
+
+  public synchronized boolean isHeld() {
+    return lock != null && lock.isValid();
+  }
+
+  @Override
+  public synchronized void destroy() throws IOException {
+    if (lock != null && lock.isValid()) {
+      lock.release();
+      log.info("Released primary lease {}", leasePath);
+    }
+    lock = null;
+    if (channel != null) {
+      channel.close();
+      channel = null;
+    }
+  }
+}
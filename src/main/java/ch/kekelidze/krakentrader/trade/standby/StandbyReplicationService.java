@@ -0,0 +1,151 @@
+package ch.kekelidze.krakentrader.trade.standby;
+
+import ch.kekelidze.krakentrader.trade.journal.TradeJournal;
+import ch.kekelidze.krakentrader.trade.journal.TradeJournalReader;
+import ch.kekelidze.krakentrader.trade.journal.TradeJournalRecovery;
+import ch.kekelidze.krakentrader.trade.journal.TradeJournalReplayer;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs a trader process as primary or hot standby.
+ * <p>
+ * All processes compete for the {@link PrimaryLease}. The process holding it trades and writes the
+ * trade journal. A standby keeps its own market data feed, so its candle buffers and indicators are
+ * warm, but does not trade. It tails the journal of the primary and applies trade states, circuit
+ * breaker states and capital as they are written. Once the primary dies the lease is released, the
+ * standby applies the last records, opens the journal for writing and starts trading without
+ * reloading history or resyncing with the exchange.
+ */
+@Slf4j
+@Service
+public class StandbyReplicationService implements DisposableBean {
+
+  private final TradeJournal tradeJournal;
+  private final TradeJournalRecovery tradeJournalRecovery;
+  private final PrimaryLease primaryLease;
+
+  @Value("${trading.standby.enabled:false}")
+  boolean enabled;
+
+  @Value("${trading.standby.poll-interval-ms:500}")
+  long pollIntervalMs;
+
+  private volatile boolean active;
+  private Runnable takeoverCallback;
+  private TradeJournalReader journalReader;
+  private ScheduledExecutorService replicationExecutor;
+
+  public StandbyReplicationService(TradeJournal tradeJournal,
+      TradeJournalRecovery tradeJournalRecovery, PrimaryLease primaryLease) {
+    this.tradeJournal = tradeJournal;
+    this.tradeJournalRecovery = tradeJournalRecovery;
+    this.primaryLease = primaryLease;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Returns true if this process may trade, which is always the case without standby mode.
+   */
+  public boolean isActive() {
+    return !enabled || active;
+  }
+
+  /**
+   * Becomes primary if the lease is free, otherwise starts tailing the journal of the primary.
+   *
+   * @param onTakeover run once this process becomes primary
+   */
+  public synchronized void start(Runnable onTakeover) throws IOException {
+    if (!enabled || active || replicationExecutor != null) {
+      return;
+    }
+    this.takeoverCallback = onTakeover;
+    if (tryTakeOver()) {
+      return;
+    }
+    log.info("Running as hot standby, replicating {} every {} ms", tradeJournal.getJournalPath(),
+        pollIntervalMs);
+    replicationExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "standby-replication");
+      thread.setDaemon(true);
+      return thread;
+    });
+    replicationExecutor.scheduleWithFixedDelay(this::replicateQuietly, pollIntervalMs,
+        pollIntervalMs, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Applies the journal records written since the last call and takes over if the primary is gone.
+   */
+  synchronized void replicate() throws IOException {
+    if (active) {
+      return;
+    }
+    catchUp();
+    if (tryTakeOver() && replicationExecutor != null) {
+      replicationExecutor.shutdown();
+    }
+  }
+
+  private void catchUp() throws IOException {
+    if (journalReader == null) {
+      if (!Files.exists(tradeJournal.getJournalPath())) {
+        return;
+      }
+      journalReader = new TradeJournalReader(tradeJournal.getJournalPath());
+    }
+    var replayer = new TradeJournalReplayer();
+    if (journalReader.poll(replayer::apply) > 0) {
+      tradeJournalRecovery.apply(replayer);
+      log.debug("Replicated journal up to sequence {}", replayer.getLastSequence());
+    }
+  }
+
+  private boolean tryTakeOver() throws IOException {
+    if (!primaryLease.tryAcquire()) {
+      return false;
+    }
+    if (journalReader != null) {
+      // Records the previous primary appended after the last poll
+      catchUp();
+      journalReader.close();
+      journalReader = null;
+    }
+    tradeJournal.open();
+    active = true;
+    log.info("Process is primary, trading from journal sequence {}",
+        tradeJournal.getLastSequence());
+    takeoverCallback.run();
+    return true;
+  }
+
+  private void replicateQuietly() {
+    try {
+      replicate();
+    } catch (Exception e) {
+      log.error("Standby replication failed: {}", e.getMessage(), e);
+    }
+  }
+
+  @Override
+  public synchronized void destroy() throws IOException {
+    if (replicationExecutor != null) {
+      replicationExecutor.shutdownNow();
+    }
+    if (journalReader != null) {
+      journalReader.close();
+      journalReader = null;
+    }
+  }
+}
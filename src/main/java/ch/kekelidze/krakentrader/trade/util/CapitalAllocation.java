@@ -0,0 +1,49 @@
+package ch.kekelidze.krakentrader.trade.util;
+
+/**
+ * Capital allocation rules shared by live trading and the backtesters, so simulated and live
+ * position sizes follow the same logic.
+ */
+public final class CapitalAllocation {
+
+  private static final double BASE_CAPITAL_FRACTION = 0.5;
+  private static final double LOW_VOLATILITY_ATR_PERCENT = 2.0;
+  private static final double HIGH_VOLATILITY_ATR_PERCENT = 12.0;
+
+  private CapitalAllocation() {
+  }
+
+  /**
+   * Splits the capital evenly across the coins not in trade. The last coin not in trade gets all
+   * capital, a coin whose even share is below the minimum order gets the minimum order value.
+   *
+   * @param totalCapital     available capital
+   * @param coinsNotInTrade  actively traded coins without an open position
+   * @param minCapitalNeeded value of the minimum order volume at the current price
+   * @return capital allocated to the coin, may exceed the available capital
+   */
+  public static double allocate(double totalCapital, int coinsNotInTrade,
+      double minCapitalNeeded) {
+    if (coinsNotInTrade <= 1) {
+      return totalCapital;
+    }
+    double evenAllocation = totalCapital / coinsNotInTrade;
+    return Math.max(evenAllocation, minCapitalNeeded);
+  }
+
+  /**
+   * Fraction of the allocated capital to invest depending on the volatility, a larger position in
+   * calm markets and a smaller one in volatile markets.
+   *
+   * @param atrPercent average true range as percentage of the price
+   */
+  public static double volatilityAdjustedFraction(double atrPercent) {
+    if (atrPercent < LOW_VOLATILITY_ATR_PERCENT) {
+      return Math.min(BASE_CAPITAL_FRACTION * 1.5, 1.0);
+    }
+    if (atrPercent > HIGH_VOLATILITY_ATR_PERCENT) {
+      return BASE_CAPITAL_FRACTION * 0.5;
+    }
+    return BASE_CAPITAL_FRACTION;
+  }
+}
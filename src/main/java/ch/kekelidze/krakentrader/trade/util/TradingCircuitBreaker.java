@@ -6,6 +6,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.time.Clock;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.Map;
@@ -24,6 +25,7 @@ public class TradingCircuitBreaker {
 
   public static class CircuitBreakerState {
 
+    private final Clock clock;
     @Getter
     private CircuitState state = CircuitState.CLOSED;
     @Getter
@@ -37,10 +39,18 @@ public class TradingCircuitBreaker {
     @Getter
     private int testTradesInHalfOpen = 0;
 
+    public CircuitBreakerState() {
+      this(Clock.systemDefaultZone());
+    }
+
+    CircuitBreakerState(Clock clock) {
+      this.clock = clock;
+    }
+
     public void recordLoss(double lossPercent) {
       consecutiveLosses++;
       totalLossPercent += Math.abs(lossPercent);
-      lastFailure = LocalDateTime.now();
+      lastFailure = LocalDateTime.now(clock);
     }
 
     public void recordWin() {
@@ -51,7 +61,7 @@ public class TradingCircuitBreaker {
 
     public void openCircuit() {
       state = CircuitState.OPEN;
-      circuitOpenedAt = LocalDateTime.now();
+      circuitOpenedAt = LocalDateTime.now(clock);
       log.warn("Circuit breaker OPENED - trading halted due to excessive losses");
     }
 
@@ -73,6 +83,15 @@ public class TradingCircuitBreaker {
     public void incrementTestTrades() {
       testTradesInHalfOpen++;
     }
+
+    void restore(CircuitState state, int consecutiveLosses, double totalLossPercent,
+        LocalDateTime circuitOpenedAt) {
+      this.state = state;
+      this.consecutiveLosses = consecutiveLosses;
+      this.totalLossPercent = totalLossPercent;
+      this.circuitOpenedAt = circuitOpenedAt;
+      this.testTradesInHalfOpen = 0;
+    }
   }
 
   private final Map<String, CircuitBreakerState> coinPairStates = new ConcurrentHashMap<>();
@@ -89,6 +108,8 @@ public class TradingCircuitBreaker {
   @Value("${trading.circuit-breaker.test-trades-in-half-open}")
   private int testTradesInHalfOpen;
 
+  private Clock clock = Clock.systemDefaultZone();
+
   @PostConstruct
   public void logConfiguration() {
     log.info("Circuit Breaker Configuration:");
@@ -107,6 +128,20 @@ public class TradingCircuitBreaker {
     }
   }
 
+  /**
+   * Creates a circuit breaker with the same configuration but its own state and clock, so
+   * simulations can run concurrently on historical time
+   */
+  public TradingCircuitBreaker isolatedCopy(Clock clock) {
+    var copy = new TradingCircuitBreaker();
+    copy.maxConsecutiveLosses = maxConsecutiveLosses;
+    copy.maxLossPercentInPeriod = maxLossPercentInPeriod;
+    copy.circuitOpenMinutes = circuitOpenMinutes;
+    copy.testTradesInHalfOpen = testTradesInHalfOpen;
+    copy.clock = clock;
+    return copy;
+  }
+
   /**
    * Checks if trading is allowed for the given coin pair
    */
@@ -189,8 +224,18 @@ public class TradingCircuitBreaker {
     log.warn("Circuit breaker manually reset for {}", coinPair);
   }
 
+  /**
+   * Restores the state of a coin pair replicated from the trade journal
+   */
+  public void restoreState(String coinPair, CircuitState state, int consecutiveLosses,
+      double totalLossPercent, LocalDateTime circuitOpenedAt) {
+    getOrCreateState(coinPair).restore(state, consecutiveLosses, totalLossPercent,
+        circuitOpenedAt);
+    log.debug("Restored circuit state for {}: {}", coinPair, state);
+  }
+
   private CircuitBreakerState getOrCreateState(String coinPair) {
-    return coinPairStates.computeIfAbsent(coinPair, k -> new CircuitBreakerState());
+    return coinPairStates.computeIfAbsent(coinPair, k -> new CircuitBreakerState(clock));
   }
 
   private boolean shouldOpenCircuit(CircuitBreakerState state) {
@@ -205,7 +250,7 @@ public class TradingCircuitBreaker {
 
     long minutesSinceOpened = ChronoUnit.MINUTES.between(
         state.getCircuitOpenedAt(),
-        LocalDateTime.now()
+        LocalDateTime.now(clock)
     );
 
     return minutesSinceOpened >= circuitOpenMinutes;
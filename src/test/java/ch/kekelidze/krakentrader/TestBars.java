@@ -0,0 +1,75 @@
+package ch.kekelidze.krakentrader;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntToDoubleFunction;
+import org.ta4j.core.Bar;
+import org.ta4j.core.BaseBar;
+import org.ta4j.core.num.DecimalNum;
+
+/**
+ * Candles for tests. Unless given all prices, a bar opens at its close, ranges one above and below
+ * it and trades a volume of 10.
+ */
+public final class TestBars {
+
+  public static final ZonedDateTime START = ZonedDateTime.parse("2025-01-01T00:00:00Z");
+
+  private TestBars() {
+  }
+
+  public static Bar bar(ZonedDateTime endTime, Duration period, double open, double high,
+      double low, double close, double volume) {
+    return BaseBar.builder()
+        .timePeriod(period)
+        .endTime(endTime)
+        .openPrice(DecimalNum.valueOf(open))
+        .highPrice(DecimalNum.valueOf(high))
+        .lowPrice(DecimalNum.valueOf(low))
+        .closePrice(DecimalNum.valueOf(close))
+        .volume(DecimalNum.valueOf(volume))
+        .build();
+  }
+
+  public static Bar bar(ZonedDateTime endTime, Duration period, double close) {
+    return bar(endTime, period, close, close + 1, close - 1, close, 10);
+  }
+
+  public static Bar hourlyBar(ZonedDateTime endTime, double close) {
+    return bar(endTime, Duration.ofHours(1), close);
+  }
+
+  public static Bar hourlyBar(ZonedDateTime endTime) {
+    return hourlyBar(endTime, 100);
+  }
+
+  /**
+   * Returns consecutive bars of the period, the first ending one period after the start.
+   *
+   * @param close the close price of the bar at an index
+   */
+  public static List<Bar> bars(ZonedDateTime start, Duration period, int count,
+      IntToDoubleFunction close) {
+    var bars = new ArrayList<Bar>(count);
+    for (int i = 0; i < count; i++) {
+      bars.add(bar(start.plus(period.multipliedBy(i + 1)), period, close.applyAsDouble(i)));
+    }
+    return bars;
+  }
+
+  /**
+   * Returns consecutive bars of the period from {@link #START}.
+   */
+  public static List<Bar> bars(Duration period, int count, IntToDoubleFunction close) {
+    return bars(START, period, count, close);
+  }
+
+  /**
+   * Returns hourly bars from {@link #START} whose close cycles through 100, 101 and 102.
+   */
+  public static List<Bar> hourlyBars(int count) {
+    return bars(START, Duration.ofHours(1), count, i -> 100 + i % 3);
+  }
+}
@@ -12,12 +12,15 @@ import org.ta4j.core.Bar;
 import org.ta4j.core.BaseBar;
 import org.ta4j.core.num.DecimalNum;
 
+import java.io.IOException;
+import java.net.http.HttpRequest;
 import java.time.Duration;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -46,6 +49,9 @@ public class MarketDataServiceTest {
     void setUp() {
         // Create a mock Bar for testing
         ZonedDateTime now = ZonedDateTime.now(ZoneId.systemDefault());
+        marketDataService.maxConcurrentRequests = 2;
+        marketDataService.maxAttempts = 3;
+        marketDataService.retryDelayMs = 0;
         mockBar = BaseBar.builder()
                 .timePeriod(Duration.ofHours(1))
                 .endTime(now)
@@ -136,4 +142,75 @@ public class MarketDataServiceTest {
         assertEquals(1, result.get("XBTUSD").size());
         assertEquals(mockBar, result.get("XBTUSD").get(0));
     }
-}
\ No newline at end of file
+
+    @Test
+    void queryHistoricalData_shouldRetryFailedRequest() throws Exception {
+        // Arrange
+        MarketDataService spy = spy(marketDataService);
+        when(responseConverterUtils.getPriceBar(any(JSONArray.class), anyInt())).thenReturn(mockBar);
+        doThrow(new IOException("Connection reset"))
+            .doReturn(ohlcResponse("XBTUSD"))
+            .when(spy).send(any(), any());
+
+        // Act
+        Map<String, List<Bar>> result = spy.queryHistoricalData(List.of("XBTUSD"), 60);
+
+        // Assert
+        assertEquals(List.of(mockBar), result.get("XBTUSD"));
+        verify(spy, times(2)).send(any(), any());
+    }
+
+    @Test
+    void queryHistoricalData_shouldReturnEmptyList_whenAllAttemptsOfPairFail() throws Exception {
+        // Arrange
+        MarketDataService spy = spy(marketDataService);
+        when(responseConverterUtils.getPriceBar(any(JSONArray.class), anyInt()))
+            .thenReturn(mockBar);
+        doAnswer(invocation -> {
+            String pair = pairOf(invocation.getArgument(1));
+            return pair.equals("ETHUSD")
+                ? "{\"error\":[\"EGeneral:Too many requests\"]}"
+                : ohlcResponse(pair);
+        }).when(spy).send(any(), any());
+
+        // Act
+        Map<String, List<Bar>> result = spy.queryHistoricalData(List.of("XBTUSD", "ETHUSD"), 60);
+
+        // Assert
+        assertEquals(List.of(mockBar), result.get("XBTUSD"));
+        assertEquals(List.of(), result.get("ETHUSD"));
+    }
+
+    @Test
+    void queryHistoricalData_shouldBoundConcurrentRequests() throws Exception {
+        // Arrange
+        MarketDataService spy = spy(marketDataService);
+        when(responseConverterUtils.getPriceBar(any(JSONArray.class), anyInt())).thenReturn(mockBar);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        doAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            inFlight.decrementAndGet();
+            return ohlcResponse(pairOf(invocation.getArgument(1)));
+        }).when(spy).send(any(), any());
+        List<String> coins = List.of("XBTUSD", "ETHUSD", "SOLUSD", "ADAUSD", "DOTUSD", "XRPUSD");
+
+        // Act
+        Map<String, List<Bar>> result = spy.queryHistoricalData(coins, 60);
+
+        // Assert
+        assertEquals(coins.size(), result.size());
+        assertTrue(maxInFlight.get() <= 2, "Too many concurrent requests: " + maxInFlight.get());
+    }
+
+    private static String pairOf(HttpRequest request) {
+        String query = request.uri().getQuery();
+        return query.substring("pair=".length(), query.indexOf('&'));
+    }
+
+    private static String ohlcResponse(String pair) {
+        return "{\"error\":[],\"result\":{\"" + pair
+            + "\":[[1700000000,\"1\",\"1\",\"1\",\"1\",\"1\",\"1\",1]],\"last\":1700000000}}";
+    }
+}
@@ -2,6 +2,9 @@ package ch.kekelidze.krakentrader.api.websocket;
 
 import ch.kekelidze.krakentrader.api.HistoricalDataService;
 import ch.kekelidze.krakentrader.api.util.ResponseConverterUtils;
+import ch.kekelidze.krakentrader.api.websocket.bus.MarketDataBus;
+import ch.kekelidze.krakentrader.api.websocket.decoder.OhlcFrame;
+import ch.kekelidze.krakentrader.api.websocket.service.CandleGapBackfillService;
 import ch.kekelidze.krakentrader.api.websocket.service.KrakenWebSocketService;
 import ch.kekelidze.krakentrader.trade.service.TradeService;
 import jakarta.websocket.RemoteEndpoint;
@@ -14,6 +17,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.ta4j.core.Bar;
 import org.ta4j.core.BaseBar;
 import org.ta4j.core.num.DecimalNum;
@@ -29,10 +33,14 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
+import static ch.kekelidze.krakentrader.TestBars.hourlyBar;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -47,6 +55,9 @@ public class KrakenWebSocketClientTest {
     @Mock
     private TradeService tradeService;
 
+    @Mock
+    private MarketDataBus marketDataBus;
+
     @Mock
     private ResponseConverterUtils responseConverterUtils;
 
@@ -85,7 +96,7 @@ public class KrakenWebSocketClientTest {
             Method method = invocation.getMethod();
             if (method.getName().equals("initialize")) {
                 // Set the static fields using reflection
-                setStaticField(KrakenWebSocketClient.class, "tradeService", tradeService);
+                setStaticField(KrakenWebSocketClient.class, "marketDataBus", marketDataBus);
                 setStaticField(KrakenWebSocketClient.class, "responseConverterUtils", responseConverterUtils);
                 setStaticField(KrakenWebSocketClient.class, "webSocketService", webSocketService);
                 setStaticField(KrakenWebSocketClient.class, "SYMBOLS", List.of("XBTUSD"));
@@ -151,40 +162,6 @@ public class KrakenWebSocketClientTest {
         verify(mockAsyncRemote, times(1)).sendText(anyString());
     }
 
-    @Test
-    void isUpdateMessage_shouldReturnTrueForUpdateMessage() throws Exception {
-        // Use reflection to access the private method
-        Method method = KrakenWebSocketClient.class.getDeclaredMethod("isUpdateMessage", JSONObject.class);
-        method.setAccessible(true);
-        
-        // Create a JSON object that looks like an update message
-        JSONObject json = new JSONObject();
-        json.put("type", "update");
-        
-        // Call the method
-        boolean result = (boolean) method.invoke(client, json);
-        
-        // Verify the result
-        assertTrue(result);
-    }
-
-    @Test
-    void isUpdateMessage_shouldReturnFalseForNonUpdateMessage() throws Exception {
-        // Use reflection to access the private method
-        Method method = KrakenWebSocketClient.class.getDeclaredMethod("isUpdateMessage", JSONObject.class);
-        method.setAccessible(true);
-        
-        // Create a JSON object that doesn't look like an update message
-        JSONObject json = new JSONObject();
-        json.put("event", "subscriptionStatus");
-        
-        // Call the method
-        boolean result = (boolean) method.invoke(client, json);
-        
-        // Verify the result
-        assertFalse(result);
-    }
-
     @Test
     void enqueueNewBar_shouldAddBarToQueue() throws Exception {
         // Use reflection to access the private method
@@ -211,6 +188,45 @@ public class KrakenWebSocketClientTest {
         assertEquals(newBar, queue.getFirst());
     }
 
+    @Test
+    void processOhlcFrame_shouldBackfillGapOffTheMessageThread() throws Exception {
+        // Arrange
+        CandleGapBackfillService backfillService = mock(CandleGapBackfillService.class);
+        CompletableFuture<List<Bar>> backfill = new CompletableFuture<>();
+        when(backfillService.backfillAsync(eq("XBTUSD"), anyInt(), any(), any())).thenReturn(backfill);
+        setStaticField(KrakenWebSocketClient.class, "gapBackfillService", backfillService);
+        setStaticField(KrakenWebSocketClient.class, "PERIOD", 60);
+        Bar newBar = hourlyBar(mockBar.getEndTime().plusHours(3), 40000.0);
+        when(responseConverterUtils.getPriceBarFromOhlcFrame(any())).thenReturn(newBar);
+        OhlcFrame frame = new OhlcFrame();
+        ReflectionTestUtils.setField(frame, "symbol", "XBTUSD");
+        Method method = KrakenWebSocketClient.class.getDeclaredMethod("processOhlcFrame", OhlcFrame.class);
+        method.setAccessible(true);
+        Deque<Bar> queue = getPriceQueue();
+
+        try {
+            // Act
+            method.invoke(client, frame);
+
+            // Assert
+            verify(backfillService, never()).backfill(anyString(), anyInt(), any(), any());
+            assertEquals(2, queue.size());
+
+            // Act
+            backfill.complete(List.of(hourlyBar(mockBar.getEndTime().plusHours(1), 40000.0),
+                    hourlyBar(mockBar.getEndTime().plusHours(2), 40000.0)));
+
+            // Assert
+            List<Bar> merged = KrakenWebSocketClient.copyPriceQueues().get("XBTUSD");
+            assertEquals(4, merged.size());
+            for (int i = 0; i < merged.size(); i++) {
+                assertTrue(merged.get(i).getEndTime().isEqual(mockBar.getEndTime().plusHours(i)));
+            }
+        } finally {
+            setStaticField(KrakenWebSocketClient.class, "gapBackfillService", null);
+        }
+    }
+
     @Test
     void onError_shouldLogError() throws Exception {
         // Use reflection to access the private method
@@ -228,6 +244,13 @@ public class KrakenWebSocketClientTest {
         // No assertion needed - we're just verifying that the method doesn't throw an exception
     }
 
+    @SuppressWarnings("unchecked")
+    private static Deque<Bar> getPriceQueue() throws Exception {
+        Field priceQueueField = KrakenWebSocketClient.class.getDeclaredField("priceQueue");
+        priceQueueField.setAccessible(true);
+        return ((Map<String, Deque<Bar>>) priceQueueField.get(null)).get("XBTUSD");
+    }
+
     /**
      * Helper method to set a static field using reflection
      */
@@ -0,0 +1,89 @@
+package ch.kekelidze.krakentrader.api.websocket.bus;
+
+import ch.kekelidze.krakentrader.TestBars;
+import ch.kekelidze.krakentrader.indicator.cache.IndicatorCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ta4j.core.Bar;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for MarketDataBus
+ */
+public class MarketDataBusTest {
+
+    private IndicatorCache indicatorCache;
+    private MarketDataBus marketDataBus;
+
+    @BeforeEach
+    void setUp() {
+        indicatorCache = new IndicatorCache();
+        marketDataBus = new MarketDataBus(indicatorCache);
+    }
+
+    @Test
+    void publish_shouldDeliverSameCandlesToAllListeners() {
+        // Arrange
+        List<List<Bar>> received = new ArrayList<>();
+        marketDataBus.subscribe((symbol, candles) -> received.add(candles));
+        marketDataBus.subscribe((symbol, candles) -> received.add(candles));
+
+        // Act
+        marketDataBus.publish("XBTUSD", TestBars.bars(Duration.ofMinutes(1), 3, i -> 100 + i));
+
+        // Assert
+        assertEquals(2, received.size());
+        assertSame(received.get(0), received.get(1));
+        assertThrows(UnsupportedOperationException.class, () -> received.get(0).clear());
+        assertEquals(1, marketDataBus.getPublishedUpdates());
+    }
+
+    @Test
+    void publish_shouldShareIndicatorValues_whenSeveralListenersAreSubscribed() {
+        // Arrange
+        AtomicInteger computations = new AtomicInteger();
+        MarketDataListener listener = (symbol, candles) ->
+            indicatorCache.getOrCompute(candles, "rsi:14", computations::incrementAndGet);
+        marketDataBus.subscribe(listener);
+        marketDataBus.subscribe(listener);
+        marketDataBus.subscribe(listener);
+
+        // Act
+        marketDataBus.publish("XBTUSD", TestBars.bars(Duration.ofMinutes(1), 3, i -> 100 + i));
+
+        // Assert
+        assertEquals(1, computations.get());
+    }
+
+    @Test
+    void publish_shouldContinueWithOtherListeners_whenListenerFails() {
+        // Arrange
+        AtomicInteger deliveries = new AtomicInteger();
+        marketDataBus.subscribe((symbol, candles) -> {
+            throw new IllegalStateException("Strategy failed");
+        });
+        marketDataBus.subscribe((symbol, candles) -> deliveries.incrementAndGet());
+
+        // Act
+        marketDataBus.publish("XBTUSD", TestBars.bars(Duration.ofMinutes(1), 3, i -> 100 + i));
+
+        // Assert
+        assertEquals(1, deliveries.get());
+        assertEquals(1, marketDataBus.getListenerFailures());
+    }
+
+    @Test
+    void publish_shouldDropUpdate_whenNoListenerIsSubscribed() {
+        // Act
+        marketDataBus.publish("XBTUSD", TestBars.bars(Duration.ofMinutes(1), 3, i -> 100 + i));
+
+        // Assert
+        assertEquals(0, marketDataBus.getPublishedUpdates());
+    }
+}
@@ -0,0 +1,145 @@
+package ch.kekelidze.krakentrader.api.websocket.decoder;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for KrakenMessageDecoder
+ */
+public class KrakenMessageDecoderTest {
+
+    private static final String OHLC_UPDATE = """
+        {"channel":"ohlc","type":"update","timestamp":"2024-05-01T12:00:01.123456Z","data":[
+          {"symbol":"XBT/USD","open":63210.5,"high":63300.0,"low":63100.25,"close":63250.1,
+           "trades":42,"volume":1.23456789,"vwap":63222.123,
+           "interval_begin":"2024-05-01T11:00:00.000000000Z","interval":60,
+           "timestamp":"2024-05-01T12:00:00.000000Z"}]}
+        """;
+
+    private KrakenMessageDecoder decoder;
+
+    @BeforeEach
+    void setUp() {
+        decoder = new KrakenMessageDecoder();
+    }
+
+    @Test
+    void decode_shouldFillOhlcFrameFromUpdate() {
+        // Act
+        KrakenMessageType type = decoder.decode(OHLC_UPDATE);
+
+        // Assert
+        assertEquals(KrakenMessageType.OHLC, type);
+        assertTrue(decoder.isUpdate());
+        assertEquals(1, decoder.getFrameCount());
+        OhlcFrame frame = decoder.getOhlcFrame(0);
+        assertEquals("XBT/USD", frame.getSymbol());
+        assertEquals(63210.5, frame.getOpen());
+        assertEquals(63100.25, frame.getLow());
+        assertEquals(63250.1, frame.getClose());
+        assertEquals(1.23456789, frame.getVolume());
+        assertEquals(42, frame.getTrades());
+        assertEquals(60, frame.getInterval());
+        assertEquals(Instant.parse("2024-05-01T11:00:00Z").toEpochMilli(),
+            frame.getIntervalBeginMillis());
+        assertEquals(Instant.parse("2024-05-01T12:00:00Z").toEpochMilli(), frame.getEndMillis());
+    }
+
+    @Test
+    void decode_shouldReuseFramesAndSymbols() {
+        // Act
+        decoder.decode(OHLC_UPDATE);
+        OhlcFrame first = decoder.getOhlcFrame(0);
+        String firstSymbol = first.getSymbol();
+        decoder.decode(OHLC_UPDATE.replace("63250.1", "63260.4"));
+
+        // Assert
+        OhlcFrame second = decoder.getOhlcFrame(0);
+        assertSame(first, second);
+        assertSame(firstSymbol, second.getSymbol());
+        assertEquals(63260.4, second.getClose());
+    }
+
+    @Test
+    void decode_shouldRecognizeSnapshotAsNonUpdate() {
+        // Act
+        decoder.decode(OHLC_UPDATE.replace("\"update\"", "\"snapshot\""));
+
+        // Assert
+        assertFalse(decoder.isUpdate());
+    }
+
+    @Test
+    void decode_shouldRouteControlMessages() {
+        assertEquals(KrakenMessageType.PONG,
+            decoder.decode("{\"method\":\"pong\",\"time_in\":\"2024-05-01T12:00:00.000000Z\"}"));
+        assertEquals(KrakenMessageType.HEARTBEAT, decoder.decode("{\"channel\":\"heartbeat\"}"));
+        assertEquals(KrakenMessageType.STATUS, decoder.decode(
+            "{\"channel\":\"status\",\"type\":\"update\",\"data\":[{\"system\":\"online\"}]}"));
+        assertEquals(KrakenMessageType.OTHER, decoder.decode(
+            "{\"method\":\"subscribe\",\"result\":{\"channel\":\"ohlc\",\"symbol\":\"XBT/USD\"},\"success\":true}"));
+        assertEquals(0, decoder.getFrameCount());
+    }
+
+    @Test
+    void decode_shouldParseTickerAndTrades() {
+        // Act
+        KrakenMessageType tickerType = decoder.decode("""
+            {"channel":"ticker","type":"update","data":[{"symbol":"ETH/USD","bid":3000.1,
+             "bid_qty":2.5,"ask":3000.2,"ask_qty":1.0,"last":3000.15,"volume":1234.5,
+             "vwap":2990.0,"low":2950.0,"high":3050.0,"change":-12.5,"change_pct":-0.41}]}
+            """);
+        double bid = decoder.getTickerFrame(0).getBid();
+        double changePct = decoder.getTickerFrame(0).getChangePct();
+        KrakenMessageType tradeType = decoder.decode("""
+            {"channel":"trade","type":"update","data":[
+             {"symbol":"ETH/USD","side":"sell","price":3000.1,"qty":0.5,"ord_type":"market",
+              "trade_id":123456789,"timestamp":"2024-05-01T12:00:00.250000Z"},
+             {"symbol":"ETH/USD","side":"buy","price":3000.2,"qty":1.5,"ord_type":"limit",
+              "trade_id":123456790,"timestamp":"2024-05-01T14:00:00.5+02:00"}]}
+            """);
+
+        // Assert
+        assertEquals(KrakenMessageType.TICKER, tickerType);
+        assertEquals(3000.1, bid);
+        assertEquals(-0.41, changePct);
+        assertEquals(KrakenMessageType.TRADE, tradeType);
+        assertEquals(2, decoder.getFrameCount());
+        assertFalse(decoder.getTradeFrame(0).isBuy());
+        assertEquals(123456789L, decoder.getTradeFrame(0).getTradeId());
+        assertEquals(Instant.parse("2024-05-01T12:00:00.250Z").toEpochMilli(),
+            decoder.getTradeFrame(0).getTimestampMillis());
+        assertTrue(decoder.getTradeFrame(1).isBuy());
+        assertEquals(Instant.parse("2024-05-01T12:00:00.500Z").toEpochMilli(),
+            decoder.getTradeFrame(1).getTimestampMillis());
+    }
+
+    @Test
+    void decode_shouldParseNumbersLikeDoubleParse() {
+        String[] numbers = {"0.00001234", "123456789.123456789", "1e-8", "-42", "0.1", "99999.99999"};
+        for (String number : numbers) {
+            decoder.decode("{\"channel\":\"ticker\",\"type\":\"update\",\"data\":[{\"symbol\":\"X\",\"last\":"
+                + number + "}]}");
+            assertEquals(Double.parseDouble(number), decoder.getTickerFrame(0).getLast(), number);
+        }
+    }
+
+    @Test
+    void daysFromCivil_shouldMatchLocalDate() {
+        for (String date : new String[]{"1970-01-01", "2000-02-29", "2024-12-31", "1969-07-20"}) {
+            LocalDate localDate = LocalDate.parse(date);
+            assertEquals(localDate.toEpochDay(), KrakenMessageDecoder.daysFromCivil(
+                localDate.getYear(), localDate.getMonthValue(), localDate.getDayOfMonth()), date);
+        }
+    }
+
+    @Test
+    void decode_shouldRejectMalformedMessage() {
+        assertThrows(IllegalArgumentException.class, () -> decoder.decode("not json"));
+    }
+}
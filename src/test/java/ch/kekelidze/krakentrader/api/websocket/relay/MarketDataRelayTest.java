@@ -0,0 +1,141 @@
+package ch.kekelidze.krakentrader.api.websocket.relay;
+
+import ch.kekelidze.krakentrader.TestBars;
+import ch.kekelidze.krakentrader.api.websocket.KrakenWebSocketClient;
+import ch.kekelidze.krakentrader.api.websocket.bus.MarketDataBus;
+import ch.kekelidze.krakentrader.indicator.cache.IndicatorCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ta4j.core.Bar;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Loopback tests for MarketDataRelayServer and MarketDataRelayClient
+ */
+public class MarketDataRelayTest {
+
+    private static final int PERIOD = 5;
+    private static final ZonedDateTime START = ZonedDateTime.parse("2025-01-01T00:00:00Z");
+
+    private MarketDataBus publisherBus;
+    private MarketDataBus subscriberBus;
+    private MarketDataRelayServer server;
+    private MarketDataRelayClient client;
+    private final List<List<Bar>> received = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        publisherBus = new MarketDataBus(new IndicatorCache());
+        server = new MarketDataRelayServer(publisherBus);
+        server.port = 0;
+        server.maxPendingFrames = 16;
+        server.candleBufferSource = () -> Map.of("XBT/USD", bars(0, KrakenWebSocketClient.MAX_QUEUE_SIZE));
+        server.start(PERIOD);
+
+        subscriberBus = new MarketDataBus(new IndicatorCache());
+        subscriberBus.subscribe((symbol, candles) -> received.add(candles));
+        client = new MarketDataRelayClient(subscriberBus);
+        client.host = "127.0.0.1";
+        client.port = server.getLocalPort();
+        client.reconnectDelayMs = 50;
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.destroy();
+        server.destroy();
+    }
+
+    @Test
+    void subscriber_shouldReceiveSnapshotAndUpdates() {
+        // Arrange
+        client.start(List.of("XBT/USD"), PERIOD);
+        awaitTrue(() -> client.copyCandleBuffers().getOrDefault("XBT/USD", List.of()).size()
+            == KrakenWebSocketClient.MAX_QUEUE_SIZE);
+
+        // Act
+        publisherBus.publish("XBT/USD", bars(1, KrakenWebSocketClient.MAX_QUEUE_SIZE));
+
+        // Assert
+        awaitTrue(() -> !received.isEmpty());
+        List<Bar> candles = received.getFirst();
+        assertEquals(KrakenWebSocketClient.MAX_QUEUE_SIZE, candles.size());
+        assertTrue(candles.getLast().getEndTime()
+            .isEqual(endTime(KrakenWebSocketClient.MAX_QUEUE_SIZE)));
+        assertTrue(candles.getFirst().getEndTime().isEqual(endTime(1)));
+    }
+
+    @Test
+    void subscriber_shouldReplaceOpenCandle_whenUpdateHasSameEndTime() {
+        // Arrange
+        client.start(List.of("XBT/USD"), PERIOD);
+        awaitTrue(() -> server.getSubscriberCount() == 1
+            && client.copyCandleBuffers().containsKey("XBT/USD"));
+        List<Bar> updated = bars(0, KrakenWebSocketClient.MAX_QUEUE_SIZE);
+        int lastIndex = updated.size() - 1;
+        updated.set(lastIndex, bar(lastIndex, 999.0));
+
+        // Act
+        publisherBus.publish("XBT/USD", updated);
+
+        // Assert
+        awaitTrue(() -> !received.isEmpty());
+        List<Bar> candles = received.getFirst();
+        assertEquals(KrakenWebSocketClient.MAX_QUEUE_SIZE, candles.size());
+        assertEquals(999.0, candles.getLast().getClosePrice().doubleValue());
+    }
+
+    @Test
+    void applyFrame_shouldIgnoreFrames_whenPeriodDoesNotMatch() {
+        // Arrange
+        client.start(List.of("XBT/USD"), PERIOD);
+        RelayFrame frame = new RelayFrame(RelayFrameType.UPDATE, 60, "ETH/USD", bars(0, 1));
+
+        // Act
+        client.applyFrame(frame);
+
+        // Assert
+        assertFalse(client.copyCandleBuffers().containsKey("ETH/USD"));
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Condition not met within 5 seconds");
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("Interrupted while waiting");
+            }
+        }
+    }
+
+    private static List<Bar> bars(int from, int count) {
+        List<Bar> bars = new ArrayList<>();
+        for (int i = from; i < from + count; i++) {
+            bars.add(bar(i, 100 + i));
+        }
+        return bars;
+    }
+
+    private static Bar bar(int index, double close) {
+        return TestBars.bar(endTime(index), Duration.ofMinutes(PERIOD), close);
+    }
+
+    private static ZonedDateTime endTime(int index) {
+        return START.plusMinutes((long) PERIOD * (index + 1));
+    }
+}
@@ -0,0 +1,115 @@
+package ch.kekelidze.krakentrader.api.websocket.relay;
+
+import ch.kekelidze.krakentrader.TestBars;
+import org.junit.jupiter.api.Test;
+import org.ta4j.core.Bar;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for RelayFrameCodec
+ */
+public class RelayFrameCodecTest {
+
+    @Test
+    void encode_shouldRoundTripBars() throws IOException {
+        // Arrange
+        ZonedDateTime endTime = ZonedDateTime.parse("2025-01-01T00:05:00Z");
+        List<Bar> bars = List.of(bar(endTime, 100.5), bar(endTime.plusMinutes(5), 101.25));
+
+        // Act
+        byte[] encoded = RelayFrameCodec.encode(RelayFrameType.UPDATE, 5, "XBT/USD", bars);
+        RelayFrame frame = RelayFrameCodec.read(stream(encoded));
+
+        // Assert
+        assertEquals(RelayFrameType.UPDATE, frame.type());
+        assertEquals(5, frame.period());
+        assertEquals("XBT/USD", frame.symbol());
+        assertEquals(2, frame.bars().size());
+        Bar decoded = frame.bars().get(1);
+        assertTrue(decoded.getEndTime().isEqual(endTime.plusMinutes(5)));
+        assertEquals(Duration.ofMinutes(5), decoded.getTimePeriod());
+        assertEquals(100.75, decoded.getOpenPrice().doubleValue());
+        assertEquals(102.25, decoded.getHighPrice().doubleValue());
+        assertEquals(100.25, decoded.getLowPrice().doubleValue());
+        assertEquals(101.25, decoded.getClosePrice().doubleValue());
+        assertEquals(12.0, decoded.getVolume().doubleValue());
+    }
+
+    @Test
+    void encode_shouldUseFixedSizePerBar() {
+        // Arrange
+        ZonedDateTime endTime = ZonedDateTime.parse("2025-01-01T00:05:00Z");
+
+        // Act
+        byte[] oneBar = RelayFrameCodec.encode(RelayFrameType.UPDATE, 5, "XBT/USD",
+            List.of(bar(endTime, 100)));
+        byte[] twoBars = RelayFrameCodec.encode(RelayFrameType.UPDATE, 5, "XBT/USD",
+            List.of(bar(endTime, 100), bar(endTime.plusMinutes(5), 101)));
+
+        // Assert
+        assertEquals(RelayFrameCodec.BAR_BYTES, twoBars.length - oneBar.length);
+        assertEquals(48, RelayFrameCodec.BAR_BYTES);
+    }
+
+    @Test
+    void encodeSubscribe_shouldCarrySymbols() throws IOException {
+        // Act
+        RelayFrame frame = RelayFrameCodec.read(
+            stream(RelayFrameCodec.encodeSubscribe(List.of("XBT/USD", "ETH/USD"), 60)));
+
+        // Assert
+        assertEquals(RelayFrameType.SUBSCRIBE, frame.type());
+        assertEquals(60, frame.period());
+        assertEquals(List.of("XBT/USD", "ETH/USD"), frame.subscribedSymbols());
+        assertTrue(frame.bars().isEmpty());
+    }
+
+    @Test
+    void read_shouldReadConsecutiveFrames() throws IOException {
+        // Arrange
+        ZonedDateTime endTime = ZonedDateTime.parse("2025-01-01T00:05:00Z");
+        byte[] first = RelayFrameCodec.encode(RelayFrameType.SNAPSHOT, 5, "XBT/USD",
+            List.of(bar(endTime, 100)));
+        byte[] second = RelayFrameCodec.encode(RelayFrameType.UPDATE, 5, "ETH/USD",
+            List.of(bar(endTime, 3000)));
+        byte[] both = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, both, first.length, second.length);
+        DataInputStream in = stream(both);
+
+        // Act & Assert
+        assertEquals("XBT/USD", RelayFrameCodec.read(in).symbol());
+        assertEquals("ETH/USD", RelayFrameCodec.read(in).symbol());
+        assertThrows(EOFException.class, () -> RelayFrameCodec.read(in));
+    }
+
+    @Test
+    void read_shouldRejectFrame_whenBarCountDoesNotMatchLength() {
+        // Arrange
+        byte[] encoded = RelayFrameCodec.encode(RelayFrameType.UPDATE, 5, "XBT/USD",
+            List.of(bar(ZonedDateTime.parse("2025-01-01T00:05:00Z"), 100)));
+        // Claim two bars while the frame holds one
+        encoded[encoded.length - RelayFrameCodec.BAR_BYTES - 1] = 2;
+
+        // Act & Assert
+        assertThrows(IOException.class, () -> RelayFrameCodec.read(stream(encoded)));
+    }
+
+    private static DataInputStream stream(byte[] bytes) {
+        return new DataInputStream(new ByteArrayInputStream(bytes));
+    }
+
+    private static Bar bar(ZonedDateTime endTime, double close) {
+        return TestBars.bar(endTime, Duration.ofMinutes(5), close - 0.5, close + 1, close - 1, close,
+            12);
+    }
+}
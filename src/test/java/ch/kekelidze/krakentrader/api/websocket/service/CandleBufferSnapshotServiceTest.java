@@ -0,0 +1,116 @@
+package ch.kekelidze.krakentrader.api.websocket.service;
+
+import ch.kekelidze.krakentrader.api.HistoricalDataService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.ta4j.core.Bar;
+
+import java.nio.file.Path;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import static ch.kekelidze.krakentrader.TestBars.hourlyBar;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for CandleBufferSnapshotService
+ */
+@ExtendWith(MockitoExtension.class)
+public class CandleBufferSnapshotServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private HistoricalDataService historicalDataService;
+
+    private CandleBufferSnapshotService snapshotService;
+    private ZonedDateTime lastHour;
+
+    @BeforeEach
+    void setUp() {
+        snapshotService = new CandleBufferSnapshotService();
+        snapshotService.enabled = true;
+        snapshotService.snapshotPath = tempDir.resolve("candles.bin").toString();
+        snapshotService.snapshotIntervalSeconds = 60;
+        lastHour = ZonedDateTime.now(ZoneId.systemDefault()).truncatedTo(ChronoUnit.HOURS);
+    }
+
+    @Test
+    void readSnapshot_shouldRestoreWrittenBars() throws Exception {
+        // Arrange
+        snapshotService.writeSnapshot(Map.of("XBTUSD",
+            List.of(hourlyBar(lastHour.minusHours(1), 100), hourlyBar(lastHour, 101))), 60);
+
+        // Act
+        Map<String, List<Bar>> snapshot = snapshotService.readSnapshot(60);
+
+        // Assert
+        List<Bar> bars = snapshot.get("XBTUSD");
+        assertEquals(2, bars.size());
+        assertTrue(bars.get(1).getEndTime().isEqual(lastHour));
+        assertEquals(101.0, bars.get(1).getClosePrice().doubleValue());
+    }
+
+    @Test
+    void readSnapshot_shouldIgnoreSnapshotOfDifferentPeriod() throws Exception {
+        // Arrange
+        snapshotService.writeSnapshot(Map.of("XBTUSD", List.of(hourlyBar(lastHour, 100))), 15);
+
+        // Act & Assert
+        assertTrue(snapshotService.readSnapshot(60).isEmpty());
+    }
+
+    @Test
+    void loadHistory_shouldOnlyFetchGapForSnapshotSymbols() throws Exception {
+        // Arrange
+        snapshotService.writeSnapshot(Map.of("XBTUSD", List.of(
+            hourlyBar(lastHour.minusHours(2), 100), hourlyBar(lastHour.minusHours(1), 101))), 60);
+        when(historicalDataService.queryHistoricalDataSince(eq(List.of("XBTUSD")), eq(60), any()))
+            .thenReturn(Map.of("XBTUSD", List.of(hourlyBar(lastHour.minusHours(1), 102),
+                hourlyBar(lastHour, 103))));
+        when(historicalDataService.queryHistoricalData(List.of("ETHUSD"), 60))
+            .thenReturn(Map.of("ETHUSD", List.of(hourlyBar(lastHour, 50))));
+
+        // Act
+        Map<String, List<Bar>> history = snapshotService.loadHistory(List.of("XBTUSD", "ETHUSD"),
+            60, historicalDataService);
+
+        // Assert
+        List<Bar> xbtBars = history.get("XBTUSD");
+        assertEquals(3, xbtBars.size());
+        assertEquals(102.0, xbtBars.get(1).getClosePrice().doubleValue());
+        assertEquals(103.0, xbtBars.get(2).getClosePrice().doubleValue());
+        assertEquals(1, history.get("ETHUSD").size());
+        verify(historicalDataService, never()).queryHistoricalData(eq(List.of("XBTUSD")), anyInt());
+    }
+
+    @Test
+    void mergeGap_shouldSkipGapBarsOlderThanSnapshot() {
+        // Arrange
+        List<Bar> snapshotBars = List.of(hourlyBar(lastHour.minusHours(1), 100),
+            hourlyBar(lastHour, 101));
+        List<Bar> gapBars = List.of(hourlyBar(lastHour.minusHours(2), 90), hourlyBar(lastHour, 102),
+            hourlyBar(lastHour.plusHours(1), 103));
+
+        // Act
+        List<Bar> merged = CandleBufferSnapshotService.mergeGap(snapshotBars, gapBars);
+
+        // Assert
+        assertEquals(3, merged.size());
+        assertEquals(100.0, merged.get(0).getClosePrice().doubleValue());
+        assertEquals(102.0, merged.get(1).getClosePrice().doubleValue());
+        assertEquals(103.0, merged.get(2).getClosePrice().doubleValue());
+    }
+}
@@ -0,0 +1,96 @@
+package ch.kekelidze.krakentrader.api.websocket.service;
+
+import ch.kekelidze.krakentrader.api.HistoricalDataService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.ta4j.core.Bar;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import static ch.kekelidze.krakentrader.TestBars.hourlyBar;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for CandleGapBackfillService
+ */
+@ExtendWith(MockitoExtension.class)
+public class CandleGapBackfillServiceTest {
+
+    @Mock
+    private HistoricalDataService historicalDataService;
+
+    @InjectMocks
+    private CandleGapBackfillService backfillService;
+
+    private ZonedDateTime hour;
+
+    @BeforeEach
+    void setUp() {
+        hour = ZonedDateTime.now(ZoneId.systemDefault()).truncatedTo(ChronoUnit.HOURS);
+    }
+
+    @Test
+    void countMissingCandles_shouldReturnZeroForAdjacentBars() {
+        assertEquals(0, CandleGapBackfillService.countMissingCandles(hourlyBar(hour),
+            hourlyBar(hour.plusHours(1)), 60));
+        assertEquals(2, CandleGapBackfillService.countMissingCandles(hourlyBar(hour),
+            hourlyBar(hour.plusHours(3)), 60));
+    }
+
+    @Test
+    void backfill_shouldReturnOnlyCandlesInsideGap() {
+        // Arrange
+        when(historicalDataService.queryHistoricalDataSince(List.of("XBTUSD"), 60, hour))
+            .thenReturn(Map.of("XBTUSD", List.of(hourlyBar(hour.plusHours(1)),
+                hourlyBar(hour.plusHours(2)), hourlyBar(hour.plusHours(3)))));
+
+        // Act
+        List<Bar> gapBars = backfillService.backfill("XBTUSD", 60, hourlyBar(hour),
+            hourlyBar(hour.plusHours(3)));
+
+        // Assert
+        assertEquals(2, gapBars.size());
+        assertTrue(gapBars.get(0).getEndTime().isEqual(hour.plusHours(1)));
+        assertTrue(gapBars.get(1).getEndTime().isEqual(hour.plusHours(2)));
+        assertEquals(1, backfillService.getMetrics().gapsDetected());
+        assertEquals(2, backfillService.getMetrics().candlesBackfilled());
+    }
+
+    @Test
+    void backfill_shouldCountFailureAndReturnEmpty_whenServiceFails() {
+        // Arrange
+        when(historicalDataService.queryHistoricalDataSince(anyList(), anyInt(), any()))
+            .thenThrow(new RuntimeException("Kraken unavailable"));
+
+        // Act
+        List<Bar> gapBars = backfillService.backfill("XBTUSD", 60, hourlyBar(hour),
+            hourlyBar(hour.plusHours(2)));
+
+        // Assert
+        assertTrue(gapBars.isEmpty());
+        assertEquals(1, backfillService.getMetrics().backfillFailures());
+    }
+
+    @Test
+    void backfill_shouldNotQuery_whenThereIsNoGap() {
+        // Act
+        List<Bar> gapBars = backfillService.backfill("XBTUSD", 60, hourlyBar(hour),
+            hourlyBar(hour.plusHours(1)));
+
+        // Assert
+        assertTrue(gapBars.isEmpty());
+        verifyNoInteractions(historicalDataService);
+    }
+}
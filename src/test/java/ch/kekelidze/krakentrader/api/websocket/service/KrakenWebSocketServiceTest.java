@@ -4,11 +4,18 @@ import ch.kekelidze.krakentrader.api.HistoricalDataService;
 import ch.kekelidze.krakentrader.api.rest.service.TradingApiService;
 import ch.kekelidze.krakentrader.api.util.ResponseConverterUtils;
 import ch.kekelidze.krakentrader.api.websocket.KrakenWebSocketClient;
+import ch.kekelidze.krakentrader.api.websocket.bus.MarketDataBus;
+import ch.kekelidze.krakentrader.api.websocket.relay.MarketDataRelayClient;
+import ch.kekelidze.krakentrader.api.websocket.relay.MarketDataRelayServer;
 import ch.kekelidze.krakentrader.strategy.Strategy;
 import ch.kekelidze.krakentrader.trade.Portfolio;
+import ch.kekelidze.krakentrader.trade.cluster.ClusterCapitalLedger;
+import ch.kekelidze.krakentrader.trade.cluster.ClusterCoordinationService;
 import ch.kekelidze.krakentrader.trade.repository.TradeStateRepository;
+import ch.kekelidze.krakentrader.trade.service.TradeEngineFactory;
 import ch.kekelidze.krakentrader.trade.service.TradeService;
 import ch.kekelidze.krakentrader.trade.service.TradeStatePersistenceService;
+import ch.kekelidze.krakentrader.trade.standby.StandbyReplicationService;
 import jakarta.websocket.Session;
 import jakarta.websocket.WebSocketContainer;
 import org.junit.jupiter.api.BeforeEach;
@@ -19,10 +26,11 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.context.ApplicationContext;
 
 import java.lang.reflect.Field;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -67,6 +75,36 @@ public class KrakenWebSocketServiceTest {
     @Mock
     private TradeStateRepository tradeStateRepository;
 
+    @Mock
+    private CandleBufferSnapshotService candleBufferSnapshotService;
+
+    @Mock
+    private CandleGapBackfillService candleGapBackfillService;
+
+    @Mock
+    private WebSocketSchedulerService webSocketSchedulerService;
+
+    @Mock
+    private MarketDataBus marketDataBus;
+
+    @Mock
+    private TradeEngineFactory tradeEngineFactory;
+
+    @Mock
+    private MarketDataRelayServer marketDataRelayServer;
+
+    @Mock
+    private MarketDataRelayClient marketDataRelayClient;
+
+    @Mock
+    private ClusterCoordinationService clusterCoordinationService;
+
+    @Mock
+    private ClusterCapitalLedger clusterCapitalLedger;
+
+    @Mock
+    private StandbyReplicationService standbyReplicationService;
+
     @Mock
     private Session session;
 
@@ -86,7 +124,17 @@ public class KrakenWebSocketServiceTest {
             historicalDataService,
             applicationContext,
             tradeStatePersistenceService,
-            tradeStateRepository
+            tradeStateRepository,
+            candleBufferSnapshotService,
+            candleGapBackfillService,
+            webSocketSchedulerService,
+            marketDataBus,
+            tradeEngineFactory,
+            marketDataRelayServer,
+            marketDataRelayClient,
+            clusterCoordinationService,
+            clusterCapitalLedger,
+            standbyReplicationService
         );
         
         // Use reflection to set up the test environment
@@ -94,14 +142,14 @@ public class KrakenWebSocketServiceTest {
         // Set up activeSessions
         Field activeSessionsField = KrakenWebSocketService.class.getDeclaredField("activeSessions");
         activeSessionsField.setAccessible(true);
-        List<Session> activeSessions = new ArrayList<>();
+        List<Session> activeSessions = new CopyOnWriteArrayList<>();
         activeSessions.add(session);
         activeSessionsField.set(webSocketService, activeSessions);
         
         // Set up clientToCoinPairMap
         Field clientToCoinPairMapField = KrakenWebSocketService.class.getDeclaredField("clientToCoinPairMap");
         clientToCoinPairMapField.setAccessible(true);
-        Map<KrakenWebSocketClient, String> clientToCoinPairMap = new HashMap<>();
+        Map<KrakenWebSocketClient, String> clientToCoinPairMap = new ConcurrentHashMap<>();
         clientToCoinPairMap.put(webSocketClient, "XBTUSD");
         clientToCoinPairMapField.set(webSocketService, clientToCoinPairMap);
         
@@ -138,9 +186,55 @@ public class KrakenWebSocketServiceTest {
         verify(tradingApiService).getAssetBalance("USD");
         verify(portfolio).setTotalCapital(10000.0);
         verify(tradeService).setStrategy(strategy);
+        verify(marketDataBus).subscribe(any());
+        verifyNoInteractions(tradeEngineFactory);
         // Portfolio allocation is now calculated dynamically based on coins not in trade
     }
 
+    @Test
+    void startWebSocketClient_shouldCreateEnginePerStrategy_whenSeveralStrategiesAreGiven()
+        throws Exception {
+        // Arrange
+        String[] args = {"strategyA+strategyB", "XBTUSD,ETHUSD", "60"};
+        Strategy otherStrategy = mock(Strategy.class);
+        when(applicationContext.getBean("strategyA", Strategy.class)).thenReturn(strategy);
+        when(applicationContext.getBean("strategyB", Strategy.class)).thenReturn(otherStrategy);
+        when(tradingApiService.getAssetBalance("USD")).thenReturn(10000.0);
+        when(tradeEngineFactory.createEngine(anyString(), any(), anyDouble(), any()))
+            .thenReturn(mock(TradeService.class));
+
+        // Act - the connection itself cannot be established in a unit test
+        try {
+            webSocketService.startWebSocketClient(args);
+        } catch (Exception e) {
+            // Expected since we can't fully mock the WebSocket connection
+        }
+
+        // Assert
+        String[] coinPairs = {"XBTUSD", "ETHUSD"};
+        verify(tradeEngineFactory).createEngine("strategyA", strategy, 5000.0, coinPairs);
+        verify(tradeEngineFactory).createEngine("strategyB", otherStrategy, 5000.0, coinPairs);
+        verify(marketDataBus, times(2)).subscribe(any());
+        verify(tradeService, never()).setStrategy(any());
+    }
+
+    @Test
+    void startWebSocketClient_shouldReceiveFromRelay_whenRunningAsSubscriber() throws Exception {
+        // Arrange
+        String[] args = {"testStrategy", "XBTUSD,ETHUSD", "60"};
+        webSocketService.relayMode = "subscriber";
+        when(applicationContext.getBean("testStrategy", Strategy.class)).thenReturn(strategy);
+        when(tradingApiService.getAssetBalance("USD")).thenReturn(10000.0);
+
+        // Act
+        webSocketService.startWebSocketClient(args);
+
+        // Assert
+        verify(marketDataRelayClient).start(List.of("XBTUSD", "ETHUSD"), 60);
+        verify(marketDataBus).subscribe(any());
+        verifyNoInteractions(candleBufferSnapshotService, webSocketContainer);
+    }
+
     @Test
     void reconnectClient_shouldHandleReconnection() throws Exception {
         // Arrange - already set up in setUp()
@@ -154,6 +248,17 @@ public class KrakenWebSocketServiceTest {
         // In a real test, we would verify that the client was reconnected
     }
 
+    @Test
+    void reconnectClient_shouldScheduleOneReconnect_whenClientReportsFailureTwice() {
+        // Act
+        webSocketService.reconnectClient(webSocketClient);
+        webSocketService.reconnectClient(webSocketClient);
+
+        // Assert
+        verify(webSocketSchedulerService, times(1)).scheduleReconnect(eq("XBTUSD"), anyLong(),
+            any());
+    }
+
     @Test
     void destroy_shouldCloseAllSessions() throws Exception {
         // Act
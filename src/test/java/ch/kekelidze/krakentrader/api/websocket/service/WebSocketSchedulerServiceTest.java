@@ -0,0 +1,112 @@
+package ch.kekelidze.krakentrader.api.websocket.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for WebSocketSchedulerService
+ */
+public class WebSocketSchedulerServiceTest {
+
+    private WebSocketSchedulerService schedulerService;
+
+    @BeforeEach
+    void setUp() {
+        schedulerService = new WebSocketSchedulerService();
+        schedulerService.poolSize = 4;
+        schedulerService.maxConcurrentReconnects = 1;
+        schedulerService.jitterRatio = 0.2;
+        schedulerService.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        schedulerService.destroy();
+    }
+
+    @Test
+    void scheduleReconnect_shouldNeverExceedConcurrencyCap() throws Exception {
+        // Arrange
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(3);
+        Runnable reconnect = () -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            done.countDown();
+        };
+
+        // Act
+        schedulerService.scheduleReconnect("XBT/USD", 0, reconnect);
+        schedulerService.scheduleReconnect("ETH/USD", 0, reconnect);
+        schedulerService.scheduleReconnect("SOL/USD", 0, reconnect);
+
+        // Assert
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(1, maxRunning.get());
+    }
+
+    @Test
+    void withJitter_shouldStayWithinConfiguredRatio() {
+        for (int i = 0; i < 100; i++) {
+            long delay = schedulerService.withJitter(1000);
+            assertTrue(delay >= 1000 && delay <= 1200, "Unexpected delay " + delay);
+        }
+    }
+
+    @Test
+    void scheduleHeartbeat_shouldKeepRunningAfterFailure() throws Exception {
+        // Arrange
+        CountDownLatch runs = new CountDownLatch(2);
+
+        // Act
+        var task = schedulerService.scheduleHeartbeat(() -> {
+            runs.countDown();
+            throw new IllegalStateException("Session closed");
+        }, 10);
+
+        // Assert
+        assertTrue(runs.await(5, TimeUnit.SECONDS));
+        task.cancel(false);
+    }
+
+    @Test
+    void scheduleHeartbeat_shouldKeepRunningWhileReconnectBlocks() throws Exception {
+        // Arrange
+        schedulerService.destroy();
+        schedulerService.poolSize = 1;
+        schedulerService.start();
+        CountDownLatch reconnectStarted = new CountDownLatch(1);
+        CountDownLatch releaseReconnect = new CountDownLatch(1);
+        CountDownLatch heartbeats = new CountDownLatch(3);
+
+        // Act
+        schedulerService.scheduleReconnect("XBT/USD", 0, () -> {
+            reconnectStarted.countDown();
+            try {
+                releaseReconnect.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(reconnectStarted.await(5, TimeUnit.SECONDS));
+        var task = schedulerService.scheduleHeartbeat(heartbeats::countDown, 10);
+
+        // Assert
+        assertTrue(heartbeats.await(5, TimeUnit.SECONDS));
+        task.cancel(false);
+        releaseReconnect.countDown();
+    }
+}
@@ -0,0 +1,89 @@
+package ch.kekelidze.krakentrader.backtester.service;
+
+import ch.kekelidze.krakentrader.backtester.service.dto.MonteCarloResult;
+import ch.kekelidze.krakentrader.backtester.service.dto.TradeLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MonteCarloServiceTest {
+
+    private MonteCarloService monteCarloService;
+
+    @BeforeEach
+    void setUp() {
+        monteCarloService = new MonteCarloService();
+        monteCarloService.simulations = 5000;
+        monteCarloService.blockSize = 1;
+        monteCarloService.parallelism = 4;
+        monteCarloService.seed = 42;
+    }
+
+    @Test
+    void simulate_shouldBeReproducible_forAnyNumberOfThreads() {
+        // Arrange
+        double[] returns = {0.05, -0.02, 0.03, -0.04, 0.01, 0.02, -0.01};
+
+        // Act
+        MonteCarloResult parallel = monteCarloService.simulate(returns, 5000, 2, 7);
+        monteCarloService.parallelism = 1;
+        MonteCarloResult sequential = monteCarloService.simulate(returns, 5000, 2, 7);
+
+        // Assert
+        assertEquals(parallel, sequential);
+    }
+
+    @Test
+    void simulate_shouldMatchBacktest_whenAllTradesAreEqual() {
+        // Arrange
+        TradeLog tradeLog = new TradeLog();
+        for (int i = 0; i < 100; i++) {
+            tradeLog.add(i, i + 1, 0.01);
+        }
+
+        // Act
+        MonteCarloResult result = monteCarloService.simulate(tradeLog);
+
+        // Assert
+        double expectedReturn = (Math.pow(1.01, 100) - 1) * 100;
+        assertEquals(100, result.trades());
+        assertEquals(expectedReturn, result.totalReturn().p5(), 1e-9);
+        assertEquals(expectedReturn, result.totalReturn().p95(), 1e-9);
+        assertEquals(0, result.maxDrawdown().p95());
+        assertEquals(0, result.probabilityOfLoss());
+        assertEquals(20, result.equityBands().size());
+        assertEquals(100, result.equityBands().getLast().trade());
+        assertEquals(expectedReturn, result.equityBands().getLast().p50(), 1e-9);
+    }
+
+    @Test
+    void simulate_shouldProduceOrderedPercentiles() {
+        // Arrange
+        double[] returns = {0.08, -0.05, 0.02, -0.03, 0.04, -0.06, 0.05, 0.01, -0.02, 0.03};
+
+        // Act
+        MonteCarloResult result = monteCarloService.simulate(returns, 20_000, 3, 1);
+
+        // Assert
+        MonteCarloResult.Distribution totalReturn = result.totalReturn();
+        assertTrue(totalReturn.p5() < totalReturn.p25());
+        assertTrue(totalReturn.p25() <= totalReturn.p50());
+        assertTrue(totalReturn.p50() <= totalReturn.p75());
+        assertTrue(totalReturn.p75() < totalReturn.p95());
+        assertTrue(result.maxDrawdown().p5() >= 0);
+        assertTrue(result.probabilityOfLoss() > 0 && result.probabilityOfLoss() < 1);
+        assertEquals(3, result.blockSize());
+    }
+
+    @Test
+    void simulate_shouldReturnEmptyDistributions_whenThereAreNoTrades() {
+        // Act
+        MonteCarloResult result = monteCarloService.simulate(new TradeLog());
+
+        // Assert
+        assertEquals(0, result.trades());
+        assertEquals(0, result.totalReturn().p50());
+        assertTrue(result.equityBands().isEmpty());
+    }
+}
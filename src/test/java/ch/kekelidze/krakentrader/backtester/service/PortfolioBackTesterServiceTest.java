@@ -0,0 +1,163 @@
+package ch.kekelidze.krakentrader.backtester.service;
+
+import ch.kekelidze.krakentrader.backtester.service.dto.PortfolioBacktestResult;
+import ch.kekelidze.krakentrader.indicator.analyser.AtrAnalyser;
+import ch.kekelidze.krakentrader.indicator.cache.IndicatorCache;
+import ch.kekelidze.krakentrader.indicator.configuration.StrategyParameters;
+import ch.kekelidze.krakentrader.optimize.util.StrategySelector;
+import ch.kekelidze.krakentrader.strategy.Strategy;
+import ch.kekelidze.krakentrader.strategy.dto.EvaluationContext;
+import ch.kekelidze.krakentrader.trade.util.TradingCircuitBreaker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.ta4j.core.Bar;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static ch.kekelidze.krakentrader.TestBars.hourlyBar;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class PortfolioBackTesterServiceTest {
+
+    private static final ZonedDateTime START = ZonedDateTime.parse("2024-01-01T00:00:00Z");
+    private static final int PERIOD = 240;
+
+    @Mock
+    private StrategySelector strategySelector;
+
+    @Mock
+    private AtrAnalyser atrAnalyser;
+
+    @Mock
+    private Strategy strategy;
+
+    private PortfolioBackTesterService backTesterService;
+    private final IndicatorCache indicatorCache = new IndicatorCache();
+    private final List<ZonedDateTime> evaluatedTimes = new ArrayList<>();
+    private final List<Boolean> incrementalWindows = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        TradingCircuitBreaker circuitBreaker = new TradingCircuitBreaker();
+        ReflectionTestUtils.setField(circuitBreaker, "maxConsecutiveLosses", 3);
+        ReflectionTestUtils.setField(circuitBreaker, "maxLossPercentInPeriod", 10.0);
+        ReflectionTestUtils.setField(circuitBreaker, "circuitOpenMinutes", 60L);
+        ReflectionTestUtils.setField(circuitBreaker, "testTradesInHalfOpen", 1);
+        backTesterService = new PortfolioBackTesterService(strategySelector, atrAnalyser,
+            circuitBreaker, indicatorCache);
+        backTesterService.tradeCooldownMinutes = 0;
+        backTesterService.simulatedTradingFee = 0.0;
+        backTesterService.incrementalIndicators = true;
+
+        when(strategySelector.getBestStrategyForCoin(anyString())).thenReturn(strategy);
+        when(strategy.getStrategyParameters(anyString())).thenReturn(
+            StrategyParameters.builder().minimumCandles(1).atrPeriod(1).build());
+        when(atrAnalyser.calculateATR(anyList(), anyInt())).thenReturn(5.0);
+        // Buy after a close below 100, sell after a close above 110
+        when(strategy.shouldBuy(any(EvaluationContext.class), any(StrategyParameters.class)))
+            .thenAnswer(invocation -> {
+                List<Bar> window = invocation.<EvaluationContext>getArgument(0).getBars();
+                Bar last = window.getLast();
+                evaluatedTimes.add(last.getEndTime());
+                incrementalWindows.add(indicatorCache.findSeriesWindow(window) != null);
+                return last.getClosePrice().doubleValue() < 100;
+            });
+        lenient().when(strategy.shouldSell(any(EvaluationContext.class), anyDouble(),
+                any(StrategyParameters.class)))
+            .thenAnswer(invocation -> invocation.<EvaluationContext>getArgument(0).getBars()
+                .getLast().getClosePrice().doubleValue() > 110);
+    }
+
+    @Test
+    void runSimulation_shouldMergeCoinsChronologicallyAndShareCapital() {
+        // Arrange
+        Map<String, List<Bar>> barsByCoin = new LinkedHashMap<>();
+        barsByCoin.put("XBTUSD", bars(0, 100, 90, 100, 120, 120));
+        barsByCoin.put("ETHUSD", bars(30, 100, 95, 100, 115, 115));
+
+        // Act
+        PortfolioBacktestResult result = backTesterService.runSimulation(barsByCoin, PERIOD,
+            1000.0, Map.of());
+
+        // Assert
+        List<ZonedDateTime> sorted = new ArrayList<>(evaluatedTimes);
+        sorted.sort(null);
+        assertEquals(sorted, evaluatedTimes);
+        assertEquals(10, result.processedBars());
+        assertEquals(4, result.totalTrades());
+        assertEquals(2, result.closedTrades());
+        assertEquals(1.0, result.winRate());
+        assertEquals(Map.of("XBTUSD", 2, "ETHUSD", 2), result.tradesPerCoin());
+        // XBTUSD gets half of the capital, ETHUSD half of the rest as the last coin not in trade
+        // 1000 / 2 * 0.5 = 250 at 100 and 750 * 0.5 = 375 at 100, sold at 120 and 115
+        assertEquals(1000.0 + 250 * 0.2 + 375 * 0.15, result.finalEquity(), 1e-9);
+        assertTrue(result.maxDrawdown() >= 0);
+    }
+
+    @Test
+    void runSimulation_shouldSkipBuy_whenMinimumOrderIsNotAffordable() {
+        // Arrange
+        Map<String, List<Bar>> barsByCoin = new LinkedHashMap<>();
+        barsByCoin.put("XBTUSD", bars(0, 100, 90, 100, 120, 120));
+
+        // Act
+        PortfolioBacktestResult result = backTesterService.runSimulation(barsByCoin, PERIOD,
+            1000.0, Map.of("XBTUSD", 20.0));
+
+        // Assert
+        assertEquals(0, result.totalTrades());
+        assertEquals(1000.0, result.finalEquity());
+    }
+
+    @Test
+    void runSimulation_shouldEvaluateWindowsOnTheirOwn_whenIncrementalIndicatorsAreDisabled() {
+        // Arrange
+        Map<String, List<Bar>> barsByCoin = new LinkedHashMap<>();
+        barsByCoin.put("XBTUSD", bars(0, 100, 90, 100, 120, 120));
+        backTesterService.incrementalIndicators = false;
+
+        // Act
+        PortfolioBacktestResult result = backTesterService.runSimulation(barsByCoin, PERIOD,
+            1000.0, Map.of());
+
+        // Assert
+        assertFalse(result.incrementalIndicators());
+        assertFalse(incrementalWindows.isEmpty());
+        assertFalse(incrementalWindows.contains(true));
+    }
+
+    @Test
+    void runSimulation_shouldEvaluateWindowsIncrementally_whenEnabled() {
+        // Arrange
+        Map<String, List<Bar>> barsByCoin = new LinkedHashMap<>();
+        barsByCoin.put("XBTUSD", bars(0, 100, 90, 100, 120, 120));
+
+        // Act
+        PortfolioBacktestResult result = backTesterService.runSimulation(barsByCoin, PERIOD,
+            1000.0, Map.of());
+
+        // Assert
+        assertTrue(result.incrementalIndicators());
+        assertFalse(incrementalWindows.isEmpty());
+        assertFalse(incrementalWindows.contains(false));
+    }
+
+    private static List<Bar> bars(int offsetMinutes, double... closes) {
+        List<Bar> bars = new ArrayList<>();
+        for (int i = 0; i < closes.length; i++) {
+            bars.add(hourlyBar(START.plusHours(i + 1).plusMinutes(offsetMinutes), closes[i]));
+        }
+        return bars;
+    }
+}
@@ -0,0 +1,146 @@
+package ch.kekelidze.krakentrader.backtester.service;
+
+import ch.kekelidze.krakentrader.api.HistoricalDataService;
+import ch.kekelidze.krakentrader.backtester.service.dto.BacktestResult;
+import ch.kekelidze.krakentrader.backtester.service.dto.PortfolioBacktestResult;
+import ch.kekelidze.krakentrader.strategy.dto.EvaluationContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.ta4j.core.Bar;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static ch.kekelidze.krakentrader.TestBars.hourlyBar;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StrategyValidationServiceTest {
+
+    private static final ZonedDateTime START = ZonedDateTime.parse("2024-01-01T00:00:00Z");
+    private static final ZonedDateTime END = ZonedDateTime.parse("2025-01-01T00:00:00Z");
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private HistoricalDataService historicalDataService;
+
+    @Mock
+    private BackTesterService backTesterService;
+
+    @Mock
+    private PortfolioBackTesterService portfolioBackTesterService;
+
+    private StrategyValidationService validationService;
+    private Path progressFile;
+
+    @BeforeEach
+    void setUp() {
+        validationService = new StrategyValidationService(historicalDataService, backTesterService,
+            portfolioBackTesterService);
+        validationService.parallelism = 2;
+        validationService.simulateCircuitBreaker = true;
+        progressFile = tempDir.resolve("results/validation.progress");
+    }
+
+    @Test
+    void validate_shouldRunAllCoinsAndRecordProgress() throws Exception {
+        // Arrange
+        List<String> coins = List.of("XBTUSD", "ETHUSD", "SOLUSD");
+        Map<String, List<Bar>> barsByCoin = new LinkedHashMap<>();
+        coins.forEach(coin -> barsByCoin.put(coin, List.of()));
+        when(backTesterService.runSimulation(any(EvaluationContext.class), eq(100.0),
+            eq(true)))
+            .thenAnswer(invocation -> result(invocation.<EvaluationContext>getArgument(0)
+                .getSymbol().length()));
+
+        // Act
+        Map<String, BacktestResult> results = validationService.validate(barsByCoin, 60, 100.0,
+            progressFile);
+
+        // Assert
+        assertEquals(coins, List.copyOf(results.keySet()));
+        assertEquals(3, Files.readAllLines(progressFile).size());
+        assertEquals(results, StrategyValidationService.loadProgress(progressFile));
+    }
+
+    @Test
+    void validate_shouldOnlyRunMissingCoins_whenProgressExists() throws Exception {
+        // Arrange
+        Files.createDirectories(progressFile.getParent());
+        Files.writeString(progressFile, "XBTUSD;12.5;4;1.1;3.0;0.75;112.5\nETHUSD;1.0\n");
+        Map<String, List<Bar>> barsByCoin = new LinkedHashMap<>();
+        barsByCoin.put("XBTUSD", List.of());
+        barsByCoin.put("ETHUSD", List.of());
+        when(backTesterService.runSimulation(any(EvaluationContext.class), eq(100.0),
+            eq(true)))
+            .thenReturn(result(2));
+
+        // Act
+        Map<String, BacktestResult> results = validationService.validate(barsByCoin, 60, 100.0,
+            progressFile);
+
+        // Assert
+        verify(backTesterService, times(1)).runSimulation(any(EvaluationContext.class), eq(100.0),
+            eq(true));
+        assertEquals(4, results.get("XBTUSD").totalTrades());
+        assertEquals(112.5, results.get("XBTUSD").capital());
+        assertEquals(2, results.get("ETHUSD").totalTrades());
+    }
+
+    @Test
+    void loadBars_shouldFilterHistoriesByDate() {
+        // Arrange
+        Bar before = hourlyBar(START.minusHours(1));
+        Bar inside = hourlyBar(START.plusHours(1));
+        Bar after = hourlyBar(END.plusHours(1));
+        when(historicalDataService.queryHistoricalData(List.of("XBTUSD"), 60))
+            .thenReturn(Map.of("XBTUSD", List.of(before, inside, after)));
+
+        // Act
+        Map<String, List<Bar>> barsByCoin = validationService.loadBars(List.of("XBTUSD"), 60,
+            START, END);
+
+        // Assert
+        assertEquals(Map.of("XBTUSD", List.of(inside)), barsByCoin);
+    }
+
+    @Test
+    void validatePortfolio_shouldSimulateGivenHistoriesOnSharedCapital() {
+        // Arrange
+        Map<String, List<Bar>> barsByCoin = Map.of("XBTUSD", List.of(hourlyBar(START)));
+        PortfolioBacktestResult expected = PortfolioBacktestResult.builder().totalTrades(2).build();
+        when(portfolioBackTesterService.runSimulation(barsByCoin, 60, 200.0,
+            Map.of("XBTUSD", 0.001))).thenReturn(expected);
+
+        // Act
+        PortfolioBacktestResult result = validationService.validatePortfolio(barsByCoin, 60, 200.0,
+            Map.of("XBTUSD", 0.001));
+
+        // Assert
+        assertSame(expected, result);
+        verifyNoInteractions(historicalDataService);
+    }
+
+    private static BacktestResult result(int trades) {
+        return BacktestResult.builder()
+            .totalProfit(trades * 1.5)
+            .totalTrades(trades)
+            .sharpeRatio(0.5)
+            .maxDrawdown(2.0)
+            .winRate(0.5)
+            .capital(100.0 + trades)
+            .build();
+    }
+}
@@ -0,0 +1,72 @@
+package ch.kekelidze.krakentrader.backtester.util;
+
+import ch.kekelidze.krakentrader.backtester.service.dto.BacktestResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PruningPolicyTest {
+
+    @Test
+    void maxDrawdown_shouldPrune_whenDrawdownExceedsCap() {
+        // Arrange
+        PruningPolicy policy = PruningPolicy.maxDrawdown(30);
+
+        // Act & Assert
+        assertFalse(policy.shouldPrune(progress(10, 0, 30.0, null)));
+        assertTrue(policy.shouldPrune(progress(10, 0, 30.1, null)));
+    }
+
+    @Test
+    void minTrades_shouldOnlyPruneAtCheckpoint() {
+        // Arrange
+        PruningPolicy policy = PruningPolicy.minTrades(2, 0.5);
+
+        // Act & Assert
+        assertFalse(policy.shouldPrune(progress(49, 0, 0, null)));
+        assertTrue(policy.shouldPrune(progress(50, 1, 0, null)));
+        assertFalse(policy.shouldPrune(progress(50, 2, 0, null)));
+        assertFalse(policy.shouldPrune(progress(51, 0, 0, null)));
+    }
+
+    @Test
+    void partialResult_shouldComputeResultOnlyAtCheckpoint() {
+        // Arrange
+        AtomicInteger computations = new AtomicInteger();
+        BacktestResult losing = BacktestResult.builder().sharpeRatio(-2).build();
+        PruningPolicy policy = PruningPolicy.partialResult(0.5, result -> result.sharpeRatio() < -1);
+
+        // Act
+        boolean beforeCheckpoint = policy.shouldPrune(progress(40, 4, 0, () -> {
+            computations.incrementAndGet();
+            return losing;
+        }));
+        boolean atCheckpoint = policy.shouldPrune(progress(50, 4, 0, () -> {
+            computations.incrementAndGet();
+            return losing;
+        }));
+
+        // Assert
+        assertFalse(beforeCheckpoint);
+        assertTrue(atCheckpoint);
+        assertEquals(1, computations.get());
+    }
+
+    @Test
+    void isCheckpoint_shouldUseFirstBar_whenCheckpointIsInWarmUp() {
+        // Arrange
+        SimulationProgress progress = new SimulationProgress(30, 30, 100, 0, 0, null);
+
+        // Act & Assert
+        assertTrue(progress.isCheckpoint(0.1));
+        assertTrue(PruningPolicy.NONE.or(PruningPolicy.minTrades(1, 0.1)).shouldPrune(progress));
+    }
+
+    private static SimulationProgress progress(int bar, int trades, double drawdown,
+                                               Supplier<BacktestResult> partial) {
+        return new SimulationProgress(bar, 10, 100, trades, drawdown, partial);
+    }
+}
@@ -0,0 +1,62 @@
+package ch.kekelidze.krakentrader.batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ch.kekelidze.krakentrader.optimize.service.StrategyOptimizationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+@ExtendWith(MockitoExtension.class)
+public class CoinOptimizationTaskletTest {
+
+  @Mock
+  private StrategyOptimizationService optimizationService;
+
+  @InjectMocks
+  private CoinOptimizationTasklet tasklet;
+
+  private StepContribution contribution;
+  private ChunkContext chunkContext;
+
+  @BeforeEach
+  void setUp() {
+    var stepExecution = MetaDataInstanceFactory.createStepExecution("coinOptimizationStep:XBT/USD",
+        1L);
+    stepExecution.getExecutionContext().putString(CoinPartitioner.COIN_KEY, "XBT/USD");
+    stepExecution.getExecutionContext().putInt(CoinPartitioner.PERIOD_KEY, 60);
+    contribution = new StepContribution(stepExecution);
+    chunkContext = new ChunkContext(new StepContext(stepExecution));
+  }
+
+  @Test
+  void execute_shouldOptimizeCoinOfPartition() {
+    // Act
+    var status = tasklet.execute(contribution, chunkContext);
+
+    // Assert
+    assertEquals(RepeatStatus.FINISHED, status);
+    verify(optimizationService).optimizeCoinPair("XBT/USD", 60);
+  }
+
+  @Test
+  void execute_shouldFailPartitionOfFailedCoin() {
+    // Arrange
+    when(optimizationService.optimizeCoinPair("XBT/USD", 60))
+        .thenThrow(new IllegalStateException("no history"));
+
+    // Act & Assert
+    assertThrows(IllegalStateException.class, () -> tasklet.execute(contribution, chunkContext));
+  }
+}
@@ -0,0 +1,24 @@
+package ch.kekelidze.krakentrader.batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class CoinPartitionerTest {
+
+  @Test
+  void partition_shouldCreatePartitionNamedAfterEveryCoin() {
+    // Arrange
+    var partitioner = new CoinPartitioner(List.of("XBT/USD", "ETH/USD", "SOL/USD"), 60);
+
+    // Act
+    var partitions = partitioner.partition(1);
+
+    // Assert
+    assertEquals(List.of("XBT/USD", "ETH/USD", "SOL/USD"), List.copyOf(partitions.keySet()));
+    var partition = partitions.get("ETH/USD");
+    assertEquals("ETH/USD", partition.getString(CoinPartitioner.COIN_KEY));
+    assertEquals(60, partition.getInt(CoinPartitioner.PERIOD_KEY));
+  }
+}
@@ -0,0 +1,186 @@
+package ch.kekelidze.krakentrader.indicator.cache;
+
+import ch.kekelidze.krakentrader.TestBars;
+import ch.kekelidze.krakentrader.indicator.MovingAverageIndicator;
+import ch.kekelidze.krakentrader.indicator.analyser.AtrAnalyser;
+import org.junit.jupiter.api.Test;
+import org.ta4j.core.Bar;
+import org.ta4j.core.BaseBarSeriesBuilder;
+import org.ta4j.core.indicators.ATRIndicator;
+import org.ta4j.core.indicators.EMAIndicator;
+import org.ta4j.core.indicators.helpers.ClosePriceIndicator;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for IndicatorCache
+ */
+public class IndicatorCacheTest {
+
+    private final IndicatorCache indicatorCache = new IndicatorCache();
+
+    @Test
+    void getOrCompute_shouldComputeOnce_whenSeriesIsShared() {
+        // Arrange
+        List<Bar> bars = List.of(bar());
+        indicatorCache.share(bars);
+        AtomicInteger computations = new AtomicInteger();
+
+        // Act
+        double first = indicatorCache.getOrCompute(bars, "atr:14", () -> {
+            computations.incrementAndGet();
+            return 1.5;
+        });
+        double second = indicatorCache.getOrCompute(bars, "atr:14", () -> {
+            computations.incrementAndGet();
+            return 2.5;
+        });
+
+        // Assert
+        assertEquals(1.5, first);
+        assertEquals(1.5, second);
+        assertEquals(1, computations.get());
+    }
+
+    @Test
+    void getOrCompute_shouldKeepValuesPerKey() {
+        // Arrange
+        List<Bar> bars = List.of(bar());
+        indicatorCache.share(bars);
+
+        // Act
+        double rsi14 = indicatorCache.getOrCompute(bars, "rsi:14", () -> 30.0);
+        double rsi7 = indicatorCache.getOrCompute(bars, "rsi:7", () -> 25.0);
+
+        // Assert
+        assertEquals(30.0, rsi14);
+        assertEquals(25.0, rsi7);
+    }
+
+    @Test
+    void getOrCompute_shouldNotCache_whenSeriesIsNotShared() {
+        // Arrange
+        List<Bar> shared = new ArrayList<>(List.of(bar()));
+        List<Bar> equalButNotShared = new ArrayList<>(shared);
+        indicatorCache.share(shared);
+        AtomicInteger computations = new AtomicInteger();
+
+        // Act
+        indicatorCache.getOrCompute(equalButNotShared, "rsi:14", computations::incrementAndGet);
+        indicatorCache.getOrCompute(equalButNotShared, "rsi:14", computations::incrementAndGet);
+
+        // Assert
+        assertEquals(2, computations.get());
+    }
+
+    @Test
+    void getOrCompute_shouldReuseWindowValues_whenHistoryIsShared() {
+        // Arrange
+        List<Bar> history = List.of(bar(), bar(), bar(), bar());
+        AtomicInteger computations = new AtomicInteger();
+
+        try (var ignored = indicatorCache.shareSeries(history)) {
+            // Act
+            indicatorCache.getOrCompute(history.subList(1, 3), "rsi:14",
+                computations::incrementAndGet);
+            indicatorCache.getOrCompute(history.subList(0, 4).subList(1, 3), "rsi:14",
+                computations::incrementAndGet);
+            indicatorCache.getOrCompute(history.subList(1, 4), "rsi:14",
+                computations::incrementAndGet);
+
+            // Assert
+            assertEquals(2, computations.get());
+        }
+    }
+
+    @Test
+    void getOrCompute_shouldNotCacheWindows_whenScopeIsClosed() {
+        // Arrange
+        List<Bar> history = List.of(bar(), bar(), bar());
+        indicatorCache.shareSeries(history).close();
+        AtomicInteger computations = new AtomicInteger();
+
+        // Act
+        indicatorCache.getOrCompute(history.subList(0, 2), "atr:14", computations::incrementAndGet);
+        indicatorCache.getOrCompute(history.subList(0, 2), "atr:14", computations::incrementAndGet);
+
+        // Assert
+        assertEquals(2, computations.get());
+    }
+
+    @Test
+    void findSeriesWindow_shouldLocateWindowOnlyOnRegisteringThread() throws Exception {
+        // Arrange
+        List<Bar> history = TestBars.bars(Duration.ofMinutes(1), 50, i -> 100 + i % 7);
+
+        try (var scope = indicatorCache.shareSeriesIncrementally(history)) {
+            // Act
+            IndicatorCache.SeriesWindow window = indicatorCache.findSeriesWindow(history.subList(10, 30));
+            IndicatorCache.SeriesWindow otherThread = CompletableFuture.supplyAsync(
+                () -> indicatorCache.findSeriesWindow(history.subList(10, 30))).get();
+
+            // Assert
+            assertSame(scope, window.series());
+            assertEquals(29, window.endIndex());
+            assertNull(otherThread);
+        }
+        assertNull(indicatorCache.findSeriesWindow(history.subList(10, 30)));
+    }
+
+    @Test
+    void calculateATR_shouldReadIndicatorOverWholeHistory_whenHistoryIsIncremental() {
+        // Arrange
+        List<Bar> history = TestBars.bars(Duration.ofMinutes(1), 60, i -> 100 + i % 7);
+        AtrAnalyser atrAnalyser = new AtrAnalyser(indicatorCache);
+        ATRIndicator expected = new ATRIndicator(new BaseBarSeriesBuilder().withBars(history).build(), 14);
+
+        try (var ignored = indicatorCache.shareSeriesIncrementally(history)) {
+            for (int i = 30; i <= history.size(); i++) {
+                // Act
+                double atr = atrAnalyser.calculateATR(history.subList(i - 30, i), 14);
+
+                // Assert
+                assertEquals(expected.getValue(i - 1).doubleValue(), atr, 1e-9);
+            }
+        }
+    }
+
+    @Test
+    void calculateMovingAverage_shouldMemoizeEmaValuesOfWindow_whenHistoryIsShared() {
+        // Arrange
+        List<Bar> history = TestBars.bars(Duration.ofMinutes(1), 60, i -> 100 + i % 7);
+        MovingAverageIndicator movingAverageIndicator = new MovingAverageIndicator(indicatorCache);
+        List<Bar> window = history.subList(20, 50);
+        ClosePriceIndicator closePrice = new ClosePriceIndicator(
+            new BaseBarSeriesBuilder().withBars(window).build());
+        EMAIndicator expectedShort = new EMAIndicator(closePrice, 5);
+        EMAIndicator expectedLong = new EMAIndicator(closePrice, 10);
+
+        try (var ignored = indicatorCache.shareSeries(history)) {
+            // Act
+            MovingAverageIndicator.MovingAverage movingAverage =
+                movingAverageIndicator.calculateMovingAverage(window, 5, 10);
+            MovingAverageIndicator.MovingAverage memoized =
+                movingAverageIndicator.calculateMovingAverage(history.subList(20, 50), 5, 10);
+
+            // Assert
+            assertEquals(expectedShort.getValue(29).doubleValue(), movingAverage.maShort(), 1e-9);
+            assertEquals(expectedLong.getValue(29).doubleValue(), movingAverage.maLong(), 1e-9);
+            assertEquals(expectedShort.getValue(28).doubleValue(), movingAverage.previousMaShort(),
+                1e-9);
+            assertEquals(expectedLong.getValue(28).doubleValue(), movingAverage.previousMaLong(),
+                1e-9);
+            assertSame(movingAverage, memoized);
+        }
+    }
+
+    private static Bar bar() {
+        return TestBars.bar(TestBars.START.plusMinutes(1), Duration.ofMinutes(1), 100);
+    }
+}
@@ -0,0 +1,55 @@
+package ch.kekelidze.krakentrader.optimize;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+public class CmaEsTest {
+
+  @Test
+  void tell_shouldConvergeToOptimumInsideAndOnTheBounds() {
+    // Arrange
+    // The first five coordinates peak at 0.3, the others beyond the upper bound
+    int n = 10;
+    var initialMean = new double[n];
+    Arrays.fill(initialMean, 0.5);
+    var cmaEs = new CmaEs(initialMean, 0.3, CmaEs.defaultLambda(n), new SplittableRandom(42));
+
+    // Act
+    int generations = 0;
+    while (!cmaEs.hasConverged(1e-6) && generations < 1000) {
+      var points = cmaEs.ask();
+      var fitness = new double[points.length];
+      for (int k = 0; k < points.length; k++) {
+        var x = CmaEs.clamp(points[k]);
+        for (int i = 0; i < n; i++) {
+          double distance = x[i] - (i < 5 ? 0.3 : 1.2);
+          fitness[k] -= distance * distance;
+        }
+      }
+      cmaEs.tell(points, fitness);
+      generations++;
+    }
+
+    // Assert
+    assertTrue(generations < 1000);
+    var mean = cmaEs.mean();
+    for (int i = 0; i < n; i++) {
+      assertEquals(i < 5 ? 0.3 : 1.0, mean[i], 1e-4);
+    }
+  }
+
+  @Test
+  void clamp_shouldMovePointsIntoTheUnitCube() {
+    // Act
+    var clamped = CmaEs.clamp(new double[]{-0.5, 0.25, 1.5});
+
+    // Assert
+    assertEquals(0.0, clamped[0]);
+    assertEquals(0.25, clamped[1]);
+    assertEquals(1.0, clamped[2]);
+  }
+}
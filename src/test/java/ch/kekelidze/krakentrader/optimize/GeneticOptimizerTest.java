@@ -0,0 +1,119 @@
+package ch.kekelidze.krakentrader.optimize;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.when;
+
+import ch.kekelidze.krakentrader.backtester.service.BackTesterService;
+import ch.kekelidze.krakentrader.backtester.service.dto.BacktestResult;
+import ch.kekelidze.krakentrader.backtester.util.PruningPolicy;
+import ch.kekelidze.krakentrader.backtester.util.SimulationProgress;
+import ch.kekelidze.krakentrader.indicator.configuration.StrategyParameters;
+import ch.kekelidze.krakentrader.optimize.util.OptimizationScheduler;
+import ch.kekelidze.krakentrader.strategy.dto.EvaluationContext;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class GeneticOptimizerTest {
+
+  @Mock
+  private BackTesterService backTesterService;
+
+  @Test
+  void optimizeParameters_shouldEvolveIslandsOnSchedulerThreads() {
+    // Arrange
+    var optimizer = new BuyLowSellHighOptimizer(backTesterService, null,
+        new OptimizationScheduler(3));
+    optimizer.islands = 3;
+    optimizer.islandPopulationSize = 10;
+    optimizer.migrationInterval = 2;
+    optimizer.migrants = 2;
+
+    // Candidates with a higher RSI buy threshold are better
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+    when(backTesterService.runSimulation(any(EvaluationContext.class),
+        any(StrategyParameters.class), anyDouble(), any(PruningPolicy.class)))
+        .thenAnswer(invocation -> {
+          threads.add(Thread.currentThread().getName());
+          StrategyParameters params = invocation.getArgument(1);
+          return BacktestResult.builder()
+              .sharpeRatio(params.rsiBuyThreshold() / 10.0)
+              .winRate(0.5)
+              .build();
+        });
+    EvaluationContext context = EvaluationContext.builder()
+        .symbol("XBTUSD")
+        .period(60)
+        .bars(List.of())
+        .build();
+
+    // Act
+    StrategyParameters best = optimizer.optimizeParameters(context);
+
+    // Assert
+    assertTrue(threads.stream().allMatch(thread -> thread.startsWith("optimization-")));
+    // The RSI buy threshold ranges from 30 to 50
+    assertTrue(best.rsiBuyThreshold() >= 47);
+  }
+
+  @Test
+  void optimizeParameters_shouldNotLowerPruningThresholdWithPrunedAndFailedCandidates() {
+    // Arrange
+    var optimizer = new BuyLowSellHighOptimizer(backTesterService, null,
+        new OptimizationScheduler(2));
+    optimizer.pruningEnabled = true;
+    optimizer.pruningMaxDrawdown = 50;
+    optimizer.pruningCheckpoint = 0.5;
+    optimizer.pruningMinTrades = 2;
+    optimizer.pruningFitnessMargin = 0.5;
+
+    // Completed backtests score between 4.5 and 7.5, odd RSI buy thresholds fail
+    var lastPolicy = new AtomicReference<PruningPolicy>();
+    when(backTesterService.runSimulation(any(EvaluationContext.class),
+        any(StrategyParameters.class), anyDouble(), any(PruningPolicy.class)))
+        .thenAnswer(invocation -> {
+          StrategyParameters params = invocation.getArgument(1);
+          PruningPolicy policy = invocation.getArgument(3);
+          lastPolicy.set(policy);
+          if (params.rsiBuyThreshold() % 2 == 1) {
+            throw new IllegalStateException("backtest failed");
+          }
+          double sharpeRatio = params.rsiBuyThreshold() / 10.0;
+          return result(sharpeRatio, policy.shouldPrune(checkpoint(sharpeRatio)));
+        });
+    EvaluationContext context = EvaluationContext.builder()
+        .symbol("XBTUSD")
+        .period(60)
+        .bars(List.of())
+        .build();
+
+    // Act
+    optimizer.optimizeParameters(context);
+
+    // Assert
+    // A candidate far below every completed backtest is still pruned in the last generation
+    assertNotNull(lastPolicy.get());
+    assertTrue(lastPolicy.get().shouldPrune(checkpoint(2.0)));
+  }
+
+  private static SimulationProgress checkpoint(double sharpeRatio) {
+    return new SimulationProgress(50, 0, 100, 10, 0, () -> result(sharpeRatio, false));
+  }
+
+  private static BacktestResult result(double sharpeRatio, boolean pruned) {
+    return BacktestResult.builder()
+        .sharpeRatio(sharpeRatio)
+        .winRate(0.5)
+        .pruned(pruned)
+        .build();
+  }
+}
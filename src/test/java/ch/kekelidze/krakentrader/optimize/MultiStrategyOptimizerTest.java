@@ -0,0 +1,219 @@
+package ch.kekelidze.krakentrader.optimize;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import ch.kekelidze.krakentrader.backtester.service.BackTesterService;
+import ch.kekelidze.krakentrader.backtester.service.dto.BacktestResult;
+import ch.kekelidze.krakentrader.indicator.cache.IndicatorCache;
+import ch.kekelidze.krakentrader.indicator.configuration.StrategyParameters;
+import ch.kekelidze.krakentrader.optimize.checkpoint.OptimizationCheckpoint.StrategyResult;
+import ch.kekelidze.krakentrader.optimize.checkpoint.OptimizationCheckpointService;
+import ch.kekelidze.krakentrader.optimize.distributed.EvaluationCoordinator;
+import ch.kekelidze.krakentrader.optimize.service.WarmStartService;
+import ch.kekelidze.krakentrader.optimize.service.WarmStartService.WarmStart;
+import ch.kekelidze.krakentrader.optimize.util.OptimizationScheduler;
+import ch.kekelidze.krakentrader.optimize.util.StrategySelector;
+import ch.kekelidze.krakentrader.strategy.dto.EvaluationContext;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+public class MultiStrategyOptimizerTest {
+
+  private static final String WINNER = "multiIndexMomentum";
+
+  @TempDir
+  Path checkpointDir;
+
+  @Mock
+  private BackTesterService backTesterService;
+
+  @Mock
+  private StrategySelector strategySelector;
+
+  @Mock
+  private IndicatorCache indicatorCache;
+
+  @Mock
+  private EvaluationCoordinator evaluationCoordinator;
+
+  @Mock
+  private WarmStartService warmStartService;
+
+  private OptimizationCheckpointService checkpointService;
+  private MultiStrategyOptimizer optimizer;
+  private EvaluationContext context;
+
+  @BeforeEach
+  void setUp() {
+    checkpointService = new OptimizationCheckpointService();
+    optimizer = new MultiStrategyOptimizer(backTesterService, strategySelector, indicatorCache,
+        new OptimizationScheduler(2), evaluationCoordinator, checkpointService, warmStartService);
+    optimizer.minGenerations = 2;
+    optimizer.cancelMargin = 1.0;
+    optimizer.warmStartSeedShare = 0.5;
+    optimizer.warmStartNeighbourhood = 0.05;
+    optimizer.warmStartSteadyGenerations = 5;
+    context = EvaluationContext.builder()
+        .symbol("XBTUSD")
+        .period(60)
+        .bars(List.of())
+        .build();
+  }
+
+  @Test
+  void optimizeParameters_shouldCancelHopelessStrategiesAndSelectTheLeader() {
+    // Arrange
+    when(warmStartService.prepare(any(EvaluationContext.class), anyString()))
+        .thenReturn(WarmStart.NONE);
+    Map<String, AtomicInteger> evaluations = new ConcurrentHashMap<>();
+    when(backTesterService.runSimulation(any(EvaluationContext.class), anyString(),
+        any(StrategyParameters.class), anyDouble())).thenAnswer(invocation -> {
+          String strategyName = invocation.getArgument(1);
+          evaluations.computeIfAbsent(strategyName, name -> new AtomicInteger()).incrementAndGet();
+          return BacktestResult.builder()
+              .sharpeRatio(WINNER.equals(strategyName) ? 2.0 : -5.0)
+              .winRate(0.5)
+              .build();
+        });
+
+    // Act
+    optimizer.optimizeParameters(context);
+
+    // Assert
+    verify(strategySelector).setBestStrategyForCoin("XBTUSD", WINNER);
+    verify(indicatorCache).shareSeries(context.getBars());
+    int winnerEvaluations = evaluations.get(WINNER).get();
+    for (String strategyName : optimizer.getAvailableStrategies()) {
+      if (!WINNER.equals(strategyName)) {
+        assertTrue(evaluations.get(strategyName).get() < winnerEvaluations,
+            strategyName + " should have been cancelled");
+      }
+    }
+  }
+
+  @Test
+  void optimizeParameters_shouldOnlyOptimizeStrategiesNotFinishedBeforeRestart() {
+    // Arrange
+    enableCheckpoints();
+    var checkpoint = checkpointService.load(context);
+    for (String strategyName : optimizer.getAvailableStrategies()) {
+      if (!WINNER.equals(strategyName)) {
+        checkpoint.completeStrategy(new StrategyResult(strategyName,
+            StrategyParameters.builder().build(), -1.0));
+      }
+    }
+    checkpointService.save(checkpoint);
+    when(warmStartService.prepare(context, WINNER)).thenReturn(WarmStart.NONE);
+    Map<String, AtomicInteger> evaluations = new ConcurrentHashMap<>();
+    when(backTesterService.runSimulation(any(EvaluationContext.class), anyString(),
+        any(StrategyParameters.class), anyDouble())).thenAnswer(invocation -> {
+          evaluations.computeIfAbsent(invocation.getArgument(1), name -> new AtomicInteger())
+              .incrementAndGet();
+          return BacktestResult.builder().sharpeRatio(2.0).winRate(0.5).build();
+        });
+
+    // Act
+    optimizer.optimizeParameters(context);
+
+    // Assert
+    assertEquals(Set.of(WINNER), evaluations.keySet());
+    verify(strategySelector).setBestStrategyForCoin("XBTUSD", WINNER);
+    assertEquals(WINNER, checkpointService.load(context).getResult().strategyName());
+  }
+
+  @Test
+  void optimizeParameters_shouldReturnResultOfCoinFinishedBeforeRestart() {
+    // Arrange
+    enableCheckpoints();
+    var parameters = StrategyParameters.builder().rsiPeriod(21).build();
+    var checkpoint = checkpointService.load(context);
+    checkpoint.setResult(new StrategyResult(WINNER, parameters, 3.0));
+    checkpointService.save(checkpoint);
+
+    // Act
+    var result = optimizer.optimizeParameters(context);
+
+    // Assert
+    assertEquals(parameters, result);
+    verify(strategySelector).setBestStrategyForCoin("XBTUSD", WINNER);
+    verifyNoInteractions(backTesterService);
+  }
+
+  @Test
+  void optimizeParameters_shouldSeedStoredParametersWithoutBacktestingThemAgain() {
+    // Arrange
+    var stored = optimizer.getStrategyParameters(optimizer.createGenotypeFactory().newInstance());
+    when(warmStartService.prepare(any(EvaluationContext.class), anyString()))
+        .thenAnswer(invocation -> WINNER.equals(invocation.getArgument(1))
+            ? new WarmStart(List.of(stored), Map.of(stored, 5.0)) : WarmStart.NONE);
+    when(backTesterService.runSimulation(any(EvaluationContext.class), anyString(),
+        any(StrategyParameters.class), anyDouble())).thenAnswer(invocation ->
+        BacktestResult.builder()
+            .sharpeRatio(WINNER.equals(invocation.getArgument(1)) ? 2.0 : -5.0)
+            .winRate(0.5)
+            .build());
+
+    // Act
+    var result = optimizer.optimizeParameters(context);
+
+    // Assert
+    assertEquals(stored, result);
+    // Only the final backtest of the best parameters, the search used the stored fitness
+    verify(backTesterService, times(1)).runSimulation(any(EvaluationContext.class), eq(WINNER),
+        eq(stored), anyDouble());
+    verify(warmStartService).record(eq(context), eq(WINNER), any());
+  }
+
+  @Test
+  void optimize_shouldReturnLeaderWithoutStoringOrCheckpointingIt() throws Exception {
+    // Arrange
+    enableCheckpoints();
+    when(warmStartService.prepare(any(EvaluationContext.class), anyString()))
+        .thenReturn(WarmStart.NONE);
+    when(backTesterService.runSimulation(any(EvaluationContext.class), anyString(),
+        any(StrategyParameters.class), anyDouble())).thenAnswer(invocation ->
+        BacktestResult.builder()
+            .sharpeRatio(WINNER.equals(invocation.getArgument(1)) ? 2.0 : -5.0)
+            .winRate(0.5)
+            .build());
+
+    // Act
+    var result = optimizer.optimize(context);
+
+    // Assert
+    assertEquals(WINNER, result.strategyName());
+    verify(strategySelector, never()).setBestStrategyForCoin(anyString(), anyString());
+    try (var files = Files.list(checkpointDir)) {
+      assertEquals(0, files.count());
+    }
+  }
+
+  private void enableCheckpoints() {
+    ReflectionTestUtils.setField(checkpointService, "enabled", true);
+    ReflectionTestUtils.setField(checkpointService, "checkpointDir", checkpointDir.toString());
+    ReflectionTestUtils.setField(checkpointService, "intervalGenerations", 1);
+  }
+}
@@ -0,0 +1,87 @@
+package ch.kekelidze.krakentrader.optimize;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.when;
+
+import ch.kekelidze.krakentrader.TestBars;
+import ch.kekelidze.krakentrader.backtester.service.BackTesterService;
+import ch.kekelidze.krakentrader.backtester.service.dto.BacktestResult;
+import ch.kekelidze.krakentrader.indicator.configuration.StrategyParameters;
+import ch.kekelidze.krakentrader.optimize.util.OptimizationScheduler;
+import ch.kekelidze.krakentrader.strategy.dto.EvaluationContext;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class SuccessiveHalvingOptimizerTest {
+
+  private static final int BARS = 1000;
+
+  @Mock
+  private BackTesterService backTesterService;
+
+  private SuccessiveHalvingOptimizer optimizer;
+  private final List<StrategyParameters> fullHistoryCandidates =
+      Collections.synchronizedList(new ArrayList<>());
+  private final List<Integer> evaluatedHistories = Collections.synchronizedList(new ArrayList<>());
+
+  @BeforeEach
+  void setUp() {
+    var scheduler = new OptimizationScheduler(2);
+    optimizer = new SuccessiveHalvingOptimizer(backTesterService,
+        new BuyLowSellHighOptimizer(backTesterService, null, scheduler), scheduler);
+    optimizer.eta = 3;
+    optimizer.minHistoryFraction = 0.037;
+    optimizer.budget = 10;
+    optimizer.initialBalance = 1000;
+
+    // Candidates with a higher RSI buy threshold are better
+    when(backTesterService.runSimulation(any(EvaluationContext.class),
+        any(StrategyParameters.class), anyDouble())).thenAnswer(invocation -> {
+          int size = invocation.<EvaluationContext>getArgument(0).getBars().size();
+          StrategyParameters params = invocation.getArgument(1);
+          evaluatedHistories.add(size);
+          if (size == BARS) {
+            fullHistoryCandidates.add(params);
+          }
+          return BacktestResult.builder()
+              .sharpeRatio(params.rsiBuyThreshold() / 10.0)
+              .winRate(0.5)
+              .build();
+        });
+  }
+
+  @Test
+  void optimizeParameters_shouldPromoteBestCandidatesToFullHistory() {
+    // Arrange
+    EvaluationContext context = EvaluationContext.builder()
+        .symbol("XBTUSD")
+        .period(240)
+        .bars(TestBars.bars(Duration.ofHours(1), BARS, i -> 100))
+        .build();
+
+    // Act
+    StrategyParameters best = optimizer.optimizeParameters(context);
+
+    // Assert
+    // Brackets of 27, 12 and 6 candidates until 10 full history backtests are spent
+    assertEquals(65, evaluatedHistories.size());
+    assertEquals(4, fullHistoryCandidates.size());
+    assertTrue(evaluatedHistories.stream().filter(size -> size < BARS).count() > 50);
+    StrategyParameters expected = fullHistoryCandidates.stream()
+        .max(Comparator.comparingDouble(StrategyParameters::rsiBuyThreshold))
+        .orElseThrow();
+    assertEquals(expected.rsiBuyThreshold(), best.rsiBuyThreshold());
+  }
+}
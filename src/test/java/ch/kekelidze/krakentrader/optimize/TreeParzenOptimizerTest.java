@@ -0,0 +1,93 @@
+package ch.kekelidze.krakentrader.optimize;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ch.kekelidze.krakentrader.backtester.service.BackTesterService;
+import ch.kekelidze.krakentrader.backtester.service.dto.BacktestResult;
+import ch.kekelidze.krakentrader.indicator.configuration.StrategyParameters;
+import ch.kekelidze.krakentrader.optimize.util.OptimizationScheduler;
+import ch.kekelidze.krakentrader.strategy.dto.EvaluationContext;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class TreeParzenOptimizerTest {
+
+  @Mock
+  private BackTesterService backTesterService;
+
+  private TreeParzenOptimizer optimizer;
+
+  @BeforeEach
+  void setUp() {
+    var scheduler = new OptimizationScheduler(2);
+    optimizer = new TreeParzenOptimizer(backTesterService,
+        new BuyLowSellHighOptimizer(backTesterService, null, scheduler), scheduler);
+    optimizer.evaluations = 60;
+    optimizer.initialSamples = 16;
+    optimizer.batchSize = 4;
+    optimizer.candidates = 64;
+    optimizer.gamma = 0.25;
+    optimizer.seed = 42;
+    optimizer.initialBalance = 1000;
+  }
+
+  @Test
+  void optimizeParameters_shouldConvergeWithinBudget() {
+    // Arrange
+    // The Sharpe ratio peaks at an RSI buy threshold of 45 and a long moving average of 70
+    when(backTesterService.runSimulation(any(EvaluationContext.class),
+        any(StrategyParameters.class), anyDouble())).thenAnswer(invocation -> {
+          StrategyParameters params = invocation.getArgument(1);
+          double distance = Math.abs(params.rsiBuyThreshold() - 45) / 20
+              + Math.abs(params.movingAverageBuyLongPeriod() - 70) / 60.0;
+          return BacktestResult.builder().sharpeRatio(-distance).winRate(0.5).build();
+        });
+    EvaluationContext context = EvaluationContext.builder()
+        .symbol("XBTUSD")
+        .period(60)
+        .bars(List.of())
+        .build();
+
+    // Act
+    StrategyParameters best = optimizer.optimizeParameters(context);
+
+    // Assert
+    verify(backTesterService, times(60)).runSimulation(any(EvaluationContext.class),
+        any(StrategyParameters.class), anyDouble());
+    assertTrue(Math.abs(best.rsiBuyThreshold() - 45) <= 2);
+    assertTrue(Math.abs(best.movingAverageBuyLongPeriod() - 70) <= 6);
+  }
+
+  @Test
+  void parzenDensity_shouldConcentrateAroundObservations() {
+    // Arrange
+    var density = new TreeParzenOptimizer.ParzenDensity(0, 100, new int[]{40, 42, 44});
+
+    // Act
+    double near = density.density(42);
+    double far = density.density(90);
+
+    // Assert
+    assertTrue(near > 10 * far);
+    assertEquals(1.0, sumOverRange(density), 0.05);
+  }
+
+  private static double sumOverRange(TreeParzenOptimizer.ParzenDensity density) {
+    double sum = 0;
+    for (int value = 0; value <= 100; value++) {
+      sum += density.density(value);
+    }
+    return sum;
+  }
+}
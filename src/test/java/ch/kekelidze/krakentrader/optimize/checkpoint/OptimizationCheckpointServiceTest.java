@@ -0,0 +1,121 @@
+package ch.kekelidze.krakentrader.optimize.checkpoint;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ch.kekelidze.krakentrader.TestBars;
+import ch.kekelidze.krakentrader.indicator.configuration.StrategyParameters;
+import ch.kekelidze.krakentrader.optimize.checkpoint.OptimizationCheckpoint.Individual;
+import ch.kekelidze.krakentrader.optimize.checkpoint.OptimizationCheckpoint.Population;
+import ch.kekelidze.krakentrader.optimize.checkpoint.OptimizationCheckpoint.StrategyResult;
+import ch.kekelidze.krakentrader.strategy.dto.EvaluationContext;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.ta4j.core.Bar;
+
+public class OptimizationCheckpointServiceTest {
+
+  @TempDir
+  Path checkpointDir;
+
+  private OptimizationCheckpointService checkpointService;
+
+  @BeforeEach
+  void setUp() {
+    checkpointService = new OptimizationCheckpointService();
+    checkpointService.enabled = true;
+    checkpointService.checkpointDir = checkpointDir.toString();
+    checkpointService.intervalGenerations = 5;
+  }
+
+  @Test
+  void load_shouldRestoreSavedProgress() {
+    // Arrange
+    var context = context(TestBars.hourlyBars(20));
+    var checkpoint = checkpointService.load(context);
+    var finished = StrategyParameters.builder().rsiPeriod(14).lossPercent(2.5).build();
+    checkpoint.completeStrategy(new StrategyResult("movingAverageScalper", finished, 1.2));
+    checkpoint.updatePopulation("multiIndexMomentum", new Population(10,
+        List.of(new Individual(new double[]{5.5, 120.0}, 8, 0.7))));
+    checkpoint.fitnessCache("multiIndexMomentum")
+        .put(StrategyParameters.builder().rsiPeriod(21).build(), 0.4);
+    checkpointService.save(checkpoint);
+
+    // Act
+    var loaded = checkpointService.load(context);
+
+    // Assert
+    assertEquals(Map.of("movingAverageScalper",
+            new StrategyResult("movingAverageScalper", finished, 1.2)),
+        loaded.getCompletedStrategies());
+    var population = loaded.getPopulations().get("multiIndexMomentum");
+    assertEquals(10, population.generation());
+    assertArrayEquals(new double[]{5.5, 120.0}, population.individuals().getFirst().genes());
+    assertEquals(8, population.individuals().getFirst().generation());
+    assertEquals(0.7, population.bestFitness());
+    assertEquals(Map.of(StrategyParameters.builder().rsiPeriod(21).build(), 0.4),
+        loaded.fitnessCache("multiIndexMomentum"));
+  }
+
+  @Test
+  void load_shouldIgnoreCheckpointOfDifferentBars() {
+    // Arrange
+    var checkpoint = checkpointService.load(context(TestBars.hourlyBars(20)));
+    checkpoint.setResult(new StrategyResult("multiIndexMomentum",
+        StrategyParameters.builder().build(), 1.0));
+    checkpointService.save(checkpoint);
+
+    // Act
+    var loaded = checkpointService.load(context(TestBars.hourlyBars(21)));
+
+    // Assert
+    assertTrue(loaded.isEmpty());
+  }
+
+  @Test
+  void save_shouldNotWriteDetachedCheckpoint() throws Exception {
+    // Arrange
+    var checkpoint = checkpointService.detached(context(TestBars.hourlyBars(20)));
+    checkpoint.setResult(new StrategyResult("multiIndexMomentum",
+        StrategyParameters.builder().build(), 1.0));
+
+    // Act
+    checkpointService.save(checkpoint);
+
+    // Assert
+    try (var files = Files.list(checkpointDir)) {
+      assertEquals(0, files.count());
+    }
+  }
+
+  @Test
+  void delete_shouldRemoveCheckpointOfCoin() {
+    // Arrange
+    var context = context(TestBars.hourlyBars(20));
+    var checkpoint = checkpointService.load(context);
+    checkpoint.fitnessCache("multiIndexMomentum").put(StrategyParameters.builder().build(), 0.1);
+    checkpointService.save(checkpoint);
+
+    // Act
+    checkpointService.delete("XBT/USD", 60);
+
+    // Assert
+    assertFalse(Files.exists(checkpointService.path("XBT/USD", 60)));
+    assertTrue(checkpointService.load(context).isEmpty());
+  }
+
+  private static EvaluationContext context(List<Bar> bars) {
+    return EvaluationContext.builder()
+        .symbol("XBT/USD")
+        .period(60)
+        .bars(bars)
+        .build();
+  }
+}
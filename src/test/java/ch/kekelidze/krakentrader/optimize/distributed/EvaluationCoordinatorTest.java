@@ -0,0 +1,207 @@
+package ch.kekelidze.krakentrader.optimize.distributed;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+
+import ch.kekelidze.krakentrader.TestBars;
+import ch.kekelidze.krakentrader.backtester.service.BackTesterService;
+import ch.kekelidze.krakentrader.backtester.service.dto.BacktestResult;
+import ch.kekelidze.krakentrader.indicator.cache.IndicatorCache;
+import ch.kekelidze.krakentrader.indicator.configuration.StrategyParameters;
+import ch.kekelidze.krakentrader.optimize.distributed.EvaluationFrame.Batch;
+import ch.kekelidze.krakentrader.optimize.distributed.EvaluationFrame.Hello;
+import ch.kekelidze.krakentrader.optimize.util.OptimizationScheduler;
+import ch.kekelidze.krakentrader.strategy.dto.EvaluationContext;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class EvaluationCoordinatorTest {
+
+  @TempDir
+  Path dataDir;
+
+  @Mock
+  private BackTesterService backTesterService;
+
+  private EvaluationCoordinator coordinator;
+  private final List<EvaluationWorker> workers = new ArrayList<>();
+  private OptimizationScheduler scheduler;
+  private EvaluationContext context;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    coordinator = new EvaluationCoordinator();
+    coordinator.bindAddress = "127.0.0.1";
+    coordinator.port = 0;
+    coordinator.dataDir = dataDir.toString();
+    coordinator.batchSize = 4;
+    coordinator.workerTimeoutSeconds = 10;
+    coordinator.maxAttempts = 2;
+    coordinator.evaluationTimeoutSeconds = 30;
+    coordinator.start();
+
+    // The Sharpe ratio echoes the RSI period and the bar count, so results can be matched, not
+    // every test reaches a worker
+    lenient().when(backTesterService.runSimulation(any(EvaluationContext.class), anyString(),
+        any(StrategyParameters.class), anyDouble())).thenAnswer(invocation -> {
+          EvaluationContext evaluated = invocation.getArgument(0);
+          StrategyParameters params = invocation.getArgument(2);
+          return BacktestResult.builder()
+              .sharpeRatio(params.rsiPeriod())
+              .totalTrades(evaluated.getBars().size())
+              .build();
+        });
+    scheduler = new OptimizationScheduler(4);
+    context = EvaluationContext.builder()
+        .symbol("XBT/USD")
+        .period(60)
+        .bars(TestBars.hourlyBars(50))
+        .build();
+  }
+
+  @AfterEach
+  void tearDown() {
+    workers.forEach(EvaluationWorker::destroy);
+    coordinator.destroy();
+    scheduler.destroy();
+  }
+
+  @Test
+  void evaluate_shouldBacktestBatchesOnWorkers() {
+    // Arrange
+    startWorker();
+    startWorker();
+    awaitTrue(() -> coordinator.getWorkerCount() == 2);
+
+    // Act
+    List<CompletableFuture<BacktestResult>> futures;
+    try (var optimization = Executors.newFixedThreadPool(8)) {
+      futures = IntStream.range(0, 40)
+          .mapToObj(i -> CompletableFuture.supplyAsync(() -> coordinator.evaluate(context,
+              "multiIndexMomentum", StrategyParameters.builder().rsiPeriod(i).build(), 1000),
+              optimization))
+          .toList();
+    }
+
+    // Assert
+    for (int i = 0; i < futures.size(); i++) {
+      var result = futures.get(i).join();
+      assertEquals(i, result.sharpeRatio());
+      assertEquals(50, result.totalTrades());
+    }
+  }
+
+  @Test
+  void evaluate_shouldRequeueBatchOfLostWorker() throws Exception {
+    // Arrange
+    try (var lostWorker = new Socket("127.0.0.1", coordinator.getLocalPort())) {
+      lostWorker.getOutputStream().write(EvaluationFrameCodec.encode(new Hello("lost")));
+      lostWorker.getOutputStream().flush();
+      awaitTrue(() -> coordinator.getWorkerCount() == 1);
+      var future = CompletableFuture.supplyAsync(() -> coordinator.evaluate(context,
+          "multiIndexMomentum", StrategyParameters.builder().rsiPeriod(14).build(), 1000));
+      var in = new DataInputStream(new BufferedInputStream(lostWorker.getInputStream()));
+      assertInstanceOf(Batch.class, EvaluationFrameCodec.read(in));
+
+      // Act
+      lostWorker.close();
+      startWorker();
+
+      // Assert
+      assertEquals(14, future.get().sharpeRatio());
+    }
+  }
+
+  @Test
+  void evaluate_shouldFailBacktest_whenItWasLostWithMaxAttemptsWorkers() throws Exception {
+    // Arrange
+    var future = CompletableFuture.supplyAsync(() -> coordinator.evaluate(context,
+        "multiIndexMomentum", StrategyParameters.builder().rsiPeriod(14).build(), 1000));
+
+    // Act
+    loseBatch("lost-1");
+    loseBatch("lost-2");
+
+    // Assert
+    var failure = assertThrows(ExecutionException.class, future::get);
+    assertInstanceOf(IllegalStateException.class, failure.getCause());
+  }
+
+  @Test
+  void evaluate_shouldFail_whenNoWorkerReturnsResultWithinTimeout() {
+    // Arrange
+    coordinator.evaluationTimeoutSeconds = 1;
+
+    // Act
+    var failure = assertThrows(CompletionException.class, () -> coordinator.evaluate(context,
+        "multiIndexMomentum", StrategyParameters.builder().rsiPeriod(14).build(), 1000));
+
+    // Assert
+    assertInstanceOf(TimeoutException.class, failure.getCause());
+  }
+
+  /**
+   * Connects a worker that takes the next batch and disconnects without answering.
+   */
+  private void loseBatch(String name) throws Exception {
+    try (var lostWorker = new Socket("127.0.0.1", coordinator.getLocalPort())) {
+      lostWorker.getOutputStream().write(EvaluationFrameCodec.encode(new Hello(name)));
+      lostWorker.getOutputStream().flush();
+      var in = new DataInputStream(new BufferedInputStream(lostWorker.getInputStream()));
+      assertInstanceOf(Batch.class, EvaluationFrameCodec.read(in));
+    }
+    awaitTrue(() -> coordinator.getWorkerCount() == 0);
+  }
+
+  private void startWorker() {
+    var worker = new EvaluationWorker(backTesterService, new IndicatorCache(), scheduler);
+    worker.host = "127.0.0.1";
+    worker.port = coordinator.getLocalPort();
+    worker.dataDir = dataDir.toString();
+    worker.reconnectDelayMs = 50;
+    workers.add(worker);
+    var thread = new Thread(worker::run, "evaluation-worker-test");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  private static void awaitTrue(BooleanSupplier condition) {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!condition.getAsBoolean()) {
+      if (System.currentTimeMillis() > deadline) {
+        fail("Condition not met within 5 seconds");
+      }
+      try {
+        Thread.sleep(10);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        fail("Interrupted");
+      }
+    }
+  }
+}
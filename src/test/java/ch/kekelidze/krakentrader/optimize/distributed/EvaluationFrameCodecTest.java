@@ -0,0 +1,122 @@
+package ch.kekelidze.krakentrader.optimize.distributed;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ch.kekelidze.krakentrader.TestBars;
+import ch.kekelidze.krakentrader.backtester.service.dto.BacktestResult;
+import ch.kekelidze.krakentrader.indicator.configuration.StrategyParameters;
+import ch.kekelidze.krakentrader.optimize.distributed.EvaluationFrame.Batch;
+import ch.kekelidze.krakentrader.optimize.distributed.EvaluationFrame.Results;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.ta4j.core.Bar;
+
+public class EvaluationFrameCodecTest {
+
+  @TempDir
+  Path dataDir;
+
+  @Test
+  void encode_shouldRoundTripBatch() throws IOException {
+    // Arrange
+    var parameters = StrategyParameters.builder()
+        .movingAverageBuyShortPeriod(9)
+        .rsiBuyThreshold(31.5)
+        .lossPercent(2.75)
+        .minimumCandles(150)
+        .build();
+    var batch = new Batch(7, "XBT_USD-60.bars", "multiIndexMomentum", 1000,
+        List.of(parameters, StrategyParameters.builder().build()));
+
+    // Act
+    var frame = EvaluationFrameCodec.read(stream(EvaluationFrameCodec.encode(batch)));
+
+    // Assert
+    assertEquals(batch, frame);
+  }
+
+  @Test
+  void encode_shouldRoundTripResultsWithFailedBacktests() throws IOException {
+    // Arrange
+    var result = BacktestResult.builder()
+        .totalProfit(12.5)
+        .totalTrades(4)
+        .sharpeRatio(1.25)
+        .maxDrawdown(3.5)
+        .winRate(0.75)
+        .capital(1125)
+        .pruned(true)
+        .build();
+    var results = new ArrayList<BacktestResult>();
+    results.add(result);
+    results.add(null);
+
+    // Act
+    var frame = (Results) EvaluationFrameCodec.read(
+        stream(EvaluationFrameCodec.encode(new Results(3, results))));
+
+    // Assert
+    assertEquals(3, frame.batchId());
+    assertEquals(result, frame.results().getFirst());
+    assertNull(frame.results().get(1));
+  }
+
+  @Test
+  void read_shouldRejectBatchOfDifferentParameterVersion() {
+    // Arrange
+    var encoded = EvaluationFrameCodec.encode(new Batch(1, "dataset", "strategy", 1000,
+        List.of()));
+    // The component count is the last field of an empty batch
+    ByteBuffer.wrap(encoded).putShort(encoded.length - Short.BYTES, (short) 3);
+
+    // Act & Assert
+    assertThrows(IOException.class, () -> EvaluationFrameCodec.read(stream(encoded)));
+  }
+
+  @Test
+  void barFile_shouldRoundTripThroughMappedFile() throws IOException {
+    // Arrange
+    var start = ZonedDateTime.parse("2025-01-01T01:00:00Z");
+    List<Bar> bars = List.of(bar(start, 100.5), bar(start.plusHours(1), 101.25));
+    var datasetId = BarFile.datasetId("XBT/USD", 60, bars);
+
+    // Act
+    BarFile.write(dataDir.resolve(datasetId), "XBT/USD", 60, bars);
+    var barFile = BarFile.map(dataDir.resolve(datasetId));
+
+    // Assert
+    assertTrue(datasetId.startsWith("XBT_USD-60-"));
+    assertEquals("XBT/USD", barFile.symbol());
+    assertEquals(60, barFile.period());
+    assertEquals(2, barFile.bars().size());
+    var decoded = barFile.bars().get(1);
+    assertTrue(decoded.getEndTime().isEqual(start.plusHours(1)));
+    assertEquals(Duration.ofHours(1), decoded.getTimePeriod());
+    assertEquals(100.75, decoded.getOpenPrice().doubleValue());
+    assertEquals(101.75, decoded.getHighPrice().doubleValue());
+    assertEquals(100.25, decoded.getLowPrice().doubleValue());
+    assertEquals(101.25, decoded.getClosePrice().doubleValue());
+    assertEquals(12.0, decoded.getVolume().doubleValue());
+  }
+
+  private static DataInputStream stream(byte[] frame) {
+    return new DataInputStream(new ByteArrayInputStream(frame));
+  }
+
+  private static Bar bar(ZonedDateTime endTime, double close) {
+    return TestBars.bar(endTime, Duration.ofHours(1), close - 0.5, close + 0.5, close - 1, close,
+        12);
+  }
+}
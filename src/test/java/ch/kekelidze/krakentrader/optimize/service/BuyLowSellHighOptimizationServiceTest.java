@@ -11,6 +11,8 @@ import static org.mockito.Mockito.when;
 import ch.kekelidze.krakentrader.api.HistoricalDataService;
 import ch.kekelidze.krakentrader.indicator.configuration.StrategyParameters;
 import ch.kekelidze.krakentrader.optimize.BuyLowSellHighOptimizer;
+import ch.kekelidze.krakentrader.optimize.util.OptimizationScheduler;
+import ch.kekelidze.krakentrader.optimize.util.OptimizerSelector;
 import ch.kekelidze.krakentrader.strategy.dto.EvaluationContext;
 import ch.kekelidze.krakentrader.strategy.service.StrategyParametersService;
 import java.time.Duration;
@@ -36,6 +38,9 @@ public class BuyLowSellHighOptimizationServiceTest {
   @Mock
   private BuyLowSellHighOptimizer optimizer;
 
+  @Mock
+  private OptimizerSelector optimizerSelector;
+
   @Mock
   private HistoricalDataService historicalDataService;
 
@@ -46,7 +51,9 @@ public class BuyLowSellHighOptimizationServiceTest {
 
   @BeforeEach
   void setUp() {
-    service = new BuyLowSellHighOptimizationService(optimizer, historicalDataService, strategyParametersService);
+    when(optimizerSelector.getOptimizer()).thenReturn(optimizer);
+    service = new BuyLowSellHighOptimizationService(optimizerSelector, historicalDataService,
+        strategyParametersService, new OptimizationScheduler(4));
   }
 
   @Test
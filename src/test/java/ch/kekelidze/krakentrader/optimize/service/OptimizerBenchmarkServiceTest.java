@@ -0,0 +1,80 @@
+package ch.kekelidze.krakentrader.optimize.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import ch.kekelidze.krakentrader.api.HistoricalDataService;
+import ch.kekelidze.krakentrader.optimize.CmaEsOptimizer;
+import ch.kekelidze.krakentrader.optimize.MultiStrategyOptimizer;
+import ch.kekelidze.krakentrader.strategy.dto.EvaluationContext;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleConsumer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
+
+@ExtendWith(MockitoExtension.class)
+public class OptimizerBenchmarkServiceTest {
+
+  @Mock
+  private MultiStrategyOptimizer geneticOptimizer;
+
+  @Mock
+  private CmaEsOptimizer cmaEsOptimizer;
+
+  @Mock
+  private HistoricalDataService historicalDataService;
+
+  @InjectMocks
+  private OptimizerBenchmarkService benchmarkService;
+
+  @Test
+  void benchmark_shouldCountEvaluationsToCommonTarget() {
+    // Arrange
+    when(historicalDataService.queryHistoricalData(List.of("XBTUSD"), 60))
+        .thenReturn(Map.of("XBTUSD", List.of()));
+    when(geneticOptimizer.getAvailableStrategies()).thenReturn(List.of("buyLowSellHighStrategy"));
+    when(geneticOptimizer.optimizeStrategy(any(EvaluationContext.class),
+        eq("buyLowSellHighStrategy"), any(DoubleConsumer.class)))
+        .thenAnswer(reportFitness(0.1, 0.5, 0.2, 0.9, 1.0, 0.8));
+    when(cmaEsOptimizer.optimizeStrategy(any(EvaluationContext.class),
+        eq("buyLowSellHighStrategy"), any(DoubleConsumer.class)))
+        .thenAnswer(reportFitness(0.3, 1.2, 1.4));
+
+    // Act
+    var benchmarks = benchmarkService.benchmark("XBTUSD", 60);
+
+    // Assert
+    assertEquals(1, benchmarks.size());
+    var benchmark = benchmarks.getFirst();
+    assertEquals(1.0, benchmark.target());
+    assertEquals(6, benchmark.geneticEvaluations());
+    assertEquals(5, benchmark.geneticEvaluationsToTarget());
+    assertEquals(3, benchmark.cmaEsEvaluations());
+    assertEquals(2, benchmark.cmaEsEvaluationsToTarget());
+    assertEquals(1.4, benchmark.cmaEsBestFitness());
+  }
+
+  @Test
+  void evaluationsToTarget_shouldReturnMinusOneWhenNeverReached() {
+    // Act & Assert
+    assertEquals(-1, OptimizerBenchmarkService.evaluationsToTarget(List.of(0.1, 0.2), 0.5));
+    assertEquals(1, OptimizerBenchmarkService.evaluationsToTarget(List.of(0.5, 0.2), 0.5));
+  }
+
+  private static Answer<Object> reportFitness(double... fitness) {
+    return invocation -> {
+      DoubleConsumer listener = invocation.getArgument(2);
+      for (double value : fitness) {
+        listener.accept(value);
+      }
+      return null;
+    };
+  }
+}
@@ -0,0 +1,94 @@
+package ch.kekelidze.krakentrader.optimize.service;
+
+import static ch.kekelidze.krakentrader.TestBars.hourlyBar;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ch.kekelidze.krakentrader.TestBars;
+import ch.kekelidze.krakentrader.api.HistoricalDataService;
+import ch.kekelidze.krakentrader.indicator.configuration.StrategyParameters;
+import ch.kekelidze.krakentrader.optimize.MultiStrategyOptimizer;
+import ch.kekelidze.krakentrader.optimize.checkpoint.OptimizationCheckpointService;
+import ch.kekelidze.krakentrader.optimize.repository.EvaluationRecordRepository;
+import ch.kekelidze.krakentrader.optimize.util.OptimizationScheduler;
+import ch.kekelidze.krakentrader.optimize.util.StrategySelector;
+import ch.kekelidze.krakentrader.strategy.dto.EvaluationContext;
+import ch.kekelidze.krakentrader.strategy.service.StrategyParametersService;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.ta4j.core.Bar;
+
+@ExtendWith(MockitoExtension.class)
+public class StrategyOptimizationServiceTest {
+
+  private static final String STRATEGY = "multiIndexMomentum";
+
+  @Mock
+  private MultiStrategyOptimizer optimizer;
+
+  @Mock
+  private HistoricalDataService historicalDataService;
+
+  @Mock
+  private StrategyParametersService strategyParametersService;
+
+  @Mock
+  private EvaluationRecordRepository evaluationRecordRepository;
+
+  private StrategySelector strategySelector;
+  private StrategyOptimizationService service;
+  private List<Bar> bars;
+
+  @BeforeEach
+  void setUp() {
+    strategySelector = new StrategySelector(Map.of(), null);
+    service = new StrategyOptimizationService(optimizer, strategySelector, historicalDataService,
+        strategyParametersService, new OptimizationScheduler(2),
+        new OptimizationCheckpointService());
+    bars = List.of(hourlyBar(TestBars.START.plusHours(1)));
+  }
+
+  @Test
+  void optimizeCoinPair_shouldSaveStrategyNameTheWarmStartMatches() {
+    // Arrange
+    var parameters = StrategyParameters.builder().rsiPeriod(14).build();
+    when(historicalDataService.queryHistoricalData(List.of("XBT/USD"), 60))
+        .thenReturn(Map.of("XBT/USD", bars));
+    when(optimizer.optimizeParameters(any(EvaluationContext.class))).thenAnswer(invocation -> {
+      strategySelector.setBestStrategyForCoin("XBT/USD", STRATEGY);
+      return parameters;
+    });
+
+    // Act
+    service.optimizeCoinPair("XBT/USD", 60);
+
+    // Assert
+    ArgumentCaptor<String> savedName = ArgumentCaptor.forClass(String.class);
+    verify(strategyParametersService).saveStrategyParameters(eq("XBT/USD"), savedName.capture(),
+        eq(parameters));
+    assertEquals(STRATEGY, savedName.getValue());
+
+    // The next run seeds the saved parameters of the strategy
+    when(strategyParametersService.getStrategyName("XBT/USD"))
+        .thenReturn(Optional.of(savedName.getValue()));
+    when(strategyParametersService.getStrategyParameters("XBT/USD"))
+        .thenReturn(Optional.of(parameters));
+    var warmStartService = new WarmStartService(strategyParametersService,
+        evaluationRecordRepository);
+    warmStartService.enabled = true;
+    warmStartService.minOverlapShare = 0.95;
+    warmStartService.seeds = 5;
+    var context = EvaluationContext.builder().symbol("XBT/USD").period(60).bars(bars).build();
+    assertEquals(List.of(parameters), warmStartService.prepare(context, STRATEGY).seeds());
+  }
+}
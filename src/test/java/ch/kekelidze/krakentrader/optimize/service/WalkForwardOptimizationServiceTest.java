@@ -0,0 +1,161 @@
+package ch.kekelidze.krakentrader.optimize.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+import ch.kekelidze.krakentrader.TestBars;
+import ch.kekelidze.krakentrader.api.HistoricalDataService;
+import ch.kekelidze.krakentrader.backtester.service.BackTesterService;
+import ch.kekelidze.krakentrader.backtester.service.dto.BacktestResult;
+import ch.kekelidze.krakentrader.indicator.cache.IndicatorCache;
+import ch.kekelidze.krakentrader.indicator.configuration.StrategyParameters;
+import ch.kekelidze.krakentrader.optimize.BuyLowSellHighOptimizer;
+import ch.kekelidze.krakentrader.optimize.model.OptimizationResult;
+import ch.kekelidze.krakentrader.optimize.model.WalkForwardReport;
+import ch.kekelidze.krakentrader.optimize.util.OptimizationScheduler;
+import ch.kekelidze.krakentrader.optimize.util.OptimizerSelector;
+import ch.kekelidze.krakentrader.optimize.util.StrategySelector;
+import ch.kekelidze.krakentrader.optimize.service.WalkForwardOptimizationService.Range;
+import ch.kekelidze.krakentrader.strategy.dto.EvaluationContext;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.ta4j.core.Bar;
+
+@ExtendWith(MockitoExtension.class)
+public class WalkForwardOptimizationServiceTest {
+
+  private static final ZonedDateTime START = ZonedDateTime.parse("2024-01-01T00:00:00Z");
+  private static final String STRATEGY = "buyLowSellHighStrategy";
+
+  @Mock
+  private BuyLowSellHighOptimizer optimizer;
+
+  @Mock
+  private OptimizerSelector optimizerSelector;
+
+  @Mock
+  private BackTesterService backTesterService;
+
+  @Mock
+  private HistoricalDataService historicalDataService;
+
+  @Mock
+  private StrategySelector strategySelector;
+
+  private WalkForwardOptimizationService service;
+
+  @BeforeEach
+  void setUp() {
+    lenient().when(optimizerSelector.getOptimizer()).thenReturn(optimizer);
+    service = new WalkForwardOptimizationService(optimizerSelector, backTesterService,
+        historicalDataService, new IndicatorCache(), new OptimizationScheduler(2),
+        strategySelector);
+    service.trainDays = 90;
+    service.testDays = 30;
+    service.initialCapital = 1000;
+  }
+
+  @Test
+  void splitRanges_shouldRollTestRangesForward() {
+    // Arrange
+    List<Bar> bars = TestBars.bars(START, Duration.ofHours(1), 160 * 24, i -> 100);
+
+    // Act
+    List<Range> ranges = service.splitRanges(bars);
+
+    // Assert
+    assertEquals(List.of(new Range(0, 2160, 2880), new Range(720, 2880, 3600)), ranges);
+  }
+
+  @Test
+  void optimize_shouldValidateEveryRangeOutOfSample() {
+    // Arrange
+    List<Bar> bars = TestBars.bars(START, Duration.ofHours(1), 160 * 24, i -> 100);
+    when(strategySelector.getBestStrategyNameForCoin("XBTUSD")).thenReturn(STRATEGY);
+    when(optimizer.optimize(any(EvaluationContext.class))).thenReturn(new OptimizationResult(null,
+        StrategyParameters.builder().minimumCandles(10).build()));
+    List<List<Bar>> testBars = Collections.synchronizedList(new ArrayList<>());
+    when(backTesterService.runSimulation(any(EvaluationContext.class), eq(STRATEGY),
+        any(StrategyParameters.class), anyDouble())).thenAnswer(invocation -> {
+          List<Bar> contextBars = invocation.<EvaluationContext>getArgument(0).getBars();
+          if (contextBars.size() == 90 * 24) {
+            return BacktestResult.builder().capital(1100).build();
+          }
+          testBars.add(contextBars);
+          return BacktestResult.builder().capital(1050).totalTrades(4).winRate(0.5).build();
+        });
+
+    // Act
+    WalkForwardReport report = service.optimize("XBTUSD", 240, bars);
+
+    // Assert
+    verify(optimizer, times(2)).optimize(any(EvaluationContext.class));
+    assertEquals(2, report.windows().size());
+    assertEquals(bars.get(2160).getEndTime(), report.windows().get(0).testStart());
+    assertEquals(bars.get(3599).getEndTime(), report.windows().get(1).testEnd());
+    // Test ranges include the warm-up candles the strategy needs before its first trade
+    assertEquals(2, testBars.size());
+    assertTrue(testBars.stream().anyMatch(list -> list.getFirst() == bars.get(2150)));
+    assertTrue(testBars.stream().allMatch(list -> list.size() == 30 * 24 + 10));
+    assertEquals((1.05 * 1.05 - 1) * 100, report.outOfSampleReturn(), 1e-9);
+    assertEquals(2, report.profitableWindows());
+    assertEquals(8, report.totalTrades());
+    assertEquals(0.5, report.winRate(), 1e-9);
+    // 5% in 30 days out of sample against 10% in 90 days in sample
+    assertEquals(1.5, report.walkForwardEfficiency(), 1e-9);
+  }
+
+  @Test
+  void optimize_shouldBacktestEveryRangeWithTheStrategyItsOptimizationChose() {
+    // Arrange
+    List<Bar> bars = TestBars.bars(START, Duration.ofHours(1), 160 * 24, i -> 100);
+    var parameters = StrategyParameters.builder().minimumCandles(10).build();
+    when(optimizer.optimize(any(EvaluationContext.class))).thenAnswer(invocation ->
+        new OptimizationResult(invocation.<EvaluationContext>getArgument(0).getBars().getFirst()
+            == bars.getFirst() ? "movingAverageScalper" : "multiIndexMomentum", parameters));
+    when(backTesterService.runSimulation(any(EvaluationContext.class), anyString(),
+        any(StrategyParameters.class), anyDouble()))
+        .thenReturn(BacktestResult.builder().capital(1000).build());
+
+    // Act
+    WalkForwardReport report = service.optimize("XBTUSD", 240, bars);
+
+    // Assert
+    assertEquals("movingAverageScalper", report.windows().get(0).strategyName());
+    assertEquals("multiIndexMomentum", report.windows().get(1).strategyName());
+    verify(backTesterService, times(2)).runSimulation(any(EvaluationContext.class),
+        eq("movingAverageScalper"), eq(parameters), anyDouble());
+    verify(backTesterService, times(2)).runSimulation(any(EvaluationContext.class),
+        eq("multiIndexMomentum"), eq(parameters), anyDouble());
+  }
+
+  @Test
+  void optimize_shouldReturnEmptyReport_whenHistoryIsTooShort() {
+    // Arrange
+    List<Bar> bars = TestBars.bars(START, Duration.ofHours(1), 100 * 24, i -> 100);
+
+    // Act
+    WalkForwardReport report = service.optimize("XBTUSD", 240, bars);
+
+    // Assert
+    assertTrue(report.windows().isEmpty());
+    assertEquals(0, report.outOfSampleReturn());
+    assertEquals(0, report.totalTrades());
+  }
+}
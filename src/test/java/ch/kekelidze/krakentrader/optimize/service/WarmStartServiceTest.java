@@ -0,0 +1,110 @@
+package ch.kekelidze.krakentrader.optimize.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ch.kekelidze.krakentrader.TestBars;
+import ch.kekelidze.krakentrader.indicator.configuration.StrategyParameters;
+import ch.kekelidze.krakentrader.optimize.entity.EvaluationRecordEntity;
+import ch.kekelidze.krakentrader.optimize.repository.EvaluationRecordRepository;
+import ch.kekelidze.krakentrader.strategy.dto.EvaluationContext;
+import ch.kekelidze.krakentrader.strategy.service.StrategyParametersService;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class WarmStartServiceTest {
+
+  private static final String STRATEGY = "multiIndexMomentum";
+
+  @Mock
+  private StrategyParametersService strategyParametersService;
+
+  @Mock
+  private EvaluationRecordRepository evaluationRecordRepository;
+
+  private WarmStartService warmStartService;
+  private EvaluationContext context;
+
+  @BeforeEach
+  void setUp() {
+    warmStartService = new WarmStartService(strategyParametersService,
+        evaluationRecordRepository);
+    warmStartService.enabled = true;
+    warmStartService.minOverlapShare = 0.95;
+    warmStartService.seeds = 2;
+    context = EvaluationContext.builder()
+        .symbol("XBT/USD")
+        .period(60)
+        .bars(TestBars.hourlyBars(20))
+        .build();
+  }
+
+  @Test
+  void prepare_shouldSeedSavedParametersAndBestStoredEvaluations() {
+    // Arrange
+    var saved = StrategyParameters.builder().rsiPeriod(14).build();
+    var first = StrategyParameters.builder().rsiPeriod(10).build();
+    var second = StrategyParameters.builder().rsiPeriod(20).build();
+    var third = StrategyParameters.builder().rsiPeriod(25).build();
+    long datasetStart = TestBars.START.plusHours(1).toEpochSecond();
+    long datasetEnd = TestBars.START.plusHours(20).toEpochSecond();
+    // 19 of the 20 bars, one hour apart
+    when(evaluationRecordRepository.findReusable("XBT/USD", 60, STRATEGY, datasetStart,
+        datasetEnd, 18 * 3600L)).thenReturn(List.of(
+        record(first, 3.0, datasetEnd - 7200),
+        record(first, 0.5, datasetEnd - 3600),
+        record(second, 2.0, datasetEnd - 3600),
+        record(third, 1.0, datasetEnd - 3600)));
+    when(strategyParametersService.getStrategyName("XBT/USD")).thenReturn(Optional.of(STRATEGY));
+    when(strategyParametersService.getStrategyParameters("XBT/USD"))
+        .thenReturn(Optional.of(saved));
+
+    // Act
+    var warmStart = warmStartService.prepare(context, STRATEGY);
+
+    // Assert
+    assertEquals(List.of(saved, second, third), warmStart.seeds());
+    assertEquals(Map.of(first, 0.5, second, 2.0, third, 1.0), warmStart.pastEvaluations());
+  }
+
+  @Test
+  void record_shouldStoreEvaluationsWithRangeOfBars() {
+    // Arrange
+    var parameters = StrategyParameters.builder().rsiPeriod(14).lossPercent(2.5).build();
+    long datasetStart = TestBars.START.plusHours(1).toEpochSecond();
+
+    // Act
+    warmStartService.record(context, STRATEGY, Map.of(parameters, 1.5));
+
+    // Assert
+    verify(evaluationRecordRepository).deleteStale("XBT/USD", 60, STRATEGY, datasetStart,
+        18 * 3600L);
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<EvaluationRecordEntity>> captor = ArgumentCaptor.forClass(List.class);
+    verify(evaluationRecordRepository).saveAll(captor.capture());
+    var record = captor.getValue().getFirst();
+    assertEquals(parameters, WarmStartService.parseParameters(record.getParameters()));
+    assertEquals(datasetStart, record.getDatasetStart());
+    assertEquals(TestBars.START.plusHours(20).toEpochSecond(), record.getDatasetEnd());
+    assertEquals(20, record.getBarCount());
+    assertEquals(1.5, record.getFitness());
+  }
+
+  private static EvaluationRecordEntity record(StrategyParameters parameters, double fitness,
+      long datasetEnd) {
+    return EvaluationRecordEntity.builder()
+        .parameters(WarmStartService.formatParameters(parameters))
+        .datasetEnd(datasetEnd)
+        .fitness(fitness)
+        .build();
+  }
+}
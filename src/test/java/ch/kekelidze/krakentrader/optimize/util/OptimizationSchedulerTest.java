@@ -0,0 +1,61 @@
+package ch.kekelidze.krakentrader.optimize.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import ch.kekelidze.krakentrader.optimize.util.OptimizationScheduler.Status;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class OptimizationSchedulerTest {
+
+  private OptimizationScheduler scheduler;
+
+  @AfterEach
+  void tearDown() {
+    scheduler.destroy();
+  }
+
+  @Test
+  void optimizeCoins_shouldRunNestedTasksOnASingleThread() {
+    // Arrange
+    scheduler = new OptimizationScheduler(1);
+    List<String> coins = List.of("XBTUSD", "ETHUSD", "SOLUSD");
+
+    // Act
+    var results = scheduler.optimizeCoins(coins, coin -> {
+      // Evaluations forked by a coin are executed while the coin waits for them
+      List<Supplier<Integer>> evaluations = IntStream.range(0, 10)
+          .<Supplier<Integer>>mapToObj(i -> () -> coin.length() * i)
+          .toList();
+      return scheduler.invokeAll(evaluations).stream().mapToInt(Integer::intValue).sum();
+    });
+
+    // Assert
+    assertEquals(coins, List.copyOf(results.keySet()));
+    assertEquals(270, results.get("XBTUSD"));
+    coins.forEach(coin -> assertEquals(Status.DONE, scheduler.getProgress().get(coin).status()));
+  }
+
+  @Test
+  void optimizeCoins_shouldReportFailedCoins() {
+    // Arrange
+    scheduler = new OptimizationScheduler(2);
+
+    // Act
+    assertThrows(IllegalStateException.class, () -> scheduler.optimizeCoins(
+        List.of("XBTUSD", "ETHUSD"), coin -> {
+          if (coin.equals("ETHUSD")) {
+            throw new IllegalStateException("No history for " + coin);
+          }
+          return coin;
+        }));
+
+    // Assert
+    assertEquals(Status.DONE, scheduler.getProgress().get("XBTUSD").status());
+    assertEquals(Status.FAILED, scheduler.getProgress().get("ETHUSD").status());
+  }
+}
@@ -140,4 +140,37 @@ public class PortfolioTest {
         assertEquals(expectedCapital, portfolio.getTotalCapital());
         verify(portfolioPersistenceService).savePortfolioTotalCapital(expectedCapital);
     }
-}
\ No newline at end of file
+
+    @Test
+    void getOrCreateTradeState_shouldUseSliceKey_whenPortfolioIsSlice() {
+        // Arrange
+        Portfolio slice = new Portfolio(portfolioPersistenceService, tradeStatePersistenceService,
+            "rsiStrategy");
+        when(tradeStatePersistenceService.loadTradeState("rsiStrategy|XBTUSD"))
+            .thenReturn(Optional.empty());
+
+        // Act
+        TradeState result = slice.getOrCreateTradeState("XBTUSD");
+
+        // Assert
+        assertEquals("XBTUSD", result.getCoinPair());
+        assertEquals("rsiStrategy|XBTUSD", result.getStorageKey());
+        verify(tradeStatePersistenceService).loadTradeState("rsiStrategy|XBTUSD");
+    }
+
+    @Test
+    void addToTotalCapital_shouldNotPersist_whenPortfolioIsSlice() {
+        // Arrange
+        Portfolio slice = new Portfolio(portfolioPersistenceService, tradeStatePersistenceService,
+            "rsiStrategy");
+        slice.setTotalCapital(1000.0);
+
+        // Act
+        double result = slice.addToTotalCapital(-250.0);
+
+        // Assert
+        assertEquals(750.0, result);
+        assertTrue(slice.isSlice());
+        verifyNoInteractions(portfolioPersistenceService);
+    }
+}
@@ -0,0 +1,52 @@
+package ch.kekelidze.krakentrader.trade.cluster;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClusterCapitalLedgerTest {
+
+    private ClusterCapitalLedger capitalLedger;
+
+    @BeforeEach
+    void setUp() {
+        var dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        capitalLedger = new ClusterCapitalLedger(new JdbcTemplate(dataSource));
+        capitalLedger.enabled = true;
+        capitalLedger.initialize(10000.0);
+    }
+
+    @Test
+    void resetAvailableCapital_shouldKeepReservationsOfOtherNodes() {
+        // Arrange
+        assertTrue(capitalLedger.tryReserve(3000.0));
+
+        // Act
+        // The exchange balance still contains the capital of the unfilled order
+        capitalLedger.resetAvailableCapital(9500.0);
+        double available = capitalLedger.settle(3000.0, -2990.0);
+
+        // Assert
+        assertEquals(9500.0 - 2990.0, available, 1e-9);
+    }
+
+    @Test
+    void tryReserve_shouldRejectAmountAboveAvailableCapital() {
+        // Arrange
+        assertTrue(capitalLedger.tryReserve(8000.0));
+
+        // Act
+        boolean reserved = capitalLedger.tryReserve(3000.0);
+        capitalLedger.release(8000.0);
+
+        // Assert
+        assertFalse(reserved);
+        assertEquals(10000.0, capitalLedger.getAvailableCapital(), 1e-9);
+    }
+}
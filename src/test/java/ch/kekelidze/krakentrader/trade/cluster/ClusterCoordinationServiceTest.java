@@ -0,0 +1,208 @@
+package ch.kekelidze.krakentrader.trade.cluster;
+
+import ch.kekelidze.krakentrader.trade.service.PersistenceWriteBehindService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ClusterCoordinationServiceTest {
+
+    private static final String SELF = "node-a";
+    private static final String OTHER = "node-b";
+    private static final Instant NOW = Instant.parse("2025-01-01T00:00:00Z");
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PersistenceWriteBehindService writeBehindService;
+
+    @Mock
+    private PairLeaseListener listener;
+
+    private ClusterCoordinationService coordinationService;
+
+    @BeforeEach
+    void setUp() {
+        coordinationService = new ClusterCoordinationService(jdbcTemplate, writeBehindService);
+        coordinationService.enabled = true;
+        coordinationService.nodeId = SELF;
+        coordinationService.leaseSeconds = 30;
+        coordinationService.renewIntervalSeconds = 10;
+        coordinationService.clock = Clock.fixed(NOW, ZoneOffset.UTC);
+    }
+
+    @Test
+    void rendezvousOwner_shouldOnlyMovePairsOfLeavingNode() {
+        // Arrange
+        List<String> pairs = IntStream.range(0, 200).mapToObj(i -> "COIN" + i + "/USD").toList();
+        List<String> nodes = List.of("node-1", "node-2", "node-3");
+        Map<String, String> owners = new HashMap<>();
+        pairs.forEach(pair -> owners.put(pair, ClusterCoordinationService.rendezvousOwner(pair, nodes)));
+
+        // Act
+        List<String> remaining = List.of("node-1", "node-3");
+        List<String> moved = new ArrayList<>();
+        for (String pair : pairs) {
+            if (!owners.get(pair).equals(ClusterCoordinationService.rendezvousOwner(pair, remaining))) {
+                moved.add(pair);
+            }
+        }
+
+        // Assert
+        assertTrue(moved.stream().allMatch(pair -> owners.get(pair).equals("node-2")));
+        assertEquals(owners.values().stream().filter("node-2"::equals).count(), moved.size());
+        for (String node : nodes) {
+            long owned = owners.values().stream().filter(node::equals).count();
+            assertTrue(owned > 40, node + " owns only " + owned + " pairs");
+        }
+        assertNull(ClusterCoordinationService.rendezvousOwner("XBT/USD", List.of()));
+    }
+
+    @Test
+    void heartbeat_shouldAcquireLease_whenNodeIsPreferredOwner() {
+        // Arrange
+        startWith(List.of("XBT/USD"), List.of(SELF));
+        when(jdbcTemplate.update(startsWith("INSERT INTO pair_lease"), any(Object[].class)))
+            .thenReturn(1);
+
+        // Act
+        coordinationService.heartbeat();
+
+        // Assert
+        assertTrue(coordinationService.ownsPair("XBT/USD"));
+        verify(listener).onPairAcquired("XBT/USD");
+    }
+
+    @Test
+    void heartbeat_shouldNotAcquireLease_whenStillHeldByAnotherNode() {
+        // Arrange
+        startWith(List.of("XBT/USD"), List.of(SELF));
+        when(jdbcTemplate.update(startsWith("INSERT INTO pair_lease"), any(Object[].class)))
+            .thenThrow(new DuplicateKeyException("held"));
+
+        // Act
+        coordinationService.heartbeat();
+
+        // Assert
+        assertFalse(coordinationService.ownsPair("XBT/USD"));
+        verifyNoInteractions(listener);
+    }
+
+    @Test
+    void heartbeat_shouldReleaseLease_whenAnotherNodeIsPreferred() {
+        // Arrange
+        String pair = pairPreferredBy(OTHER);
+        startWith(List.of(pair), List.of(SELF));
+        when(jdbcTemplate.update(startsWith("INSERT INTO pair_lease"), any(Object[].class)))
+            .thenReturn(1);
+        coordinationService.heartbeat();
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(Object[].class)))
+            .thenReturn(List.of(SELF, OTHER));
+
+        // Act
+        coordinationService.heartbeat();
+
+        // Assert
+        assertFalse(coordinationService.ownsPair(pair));
+        InOrder inOrder = inOrder(listener, writeBehindService, jdbcTemplate);
+        inOrder.verify(listener).onPairReleased(pair);
+        inOrder.verify(writeBehindService).flush();
+        inOrder.verify(jdbcTemplate).update(startsWith("DELETE FROM pair_lease"), eq(pair), eq(SELF));
+    }
+
+    @Test
+    void heartbeat_shouldReleaseLease_whenListenerFailsToStartPair() {
+        // Arrange
+        startWith(List.of("XBT/USD"), List.of(SELF));
+        when(jdbcTemplate.update(startsWith("INSERT INTO pair_lease"), any(Object[].class)))
+            .thenReturn(1);
+        doThrow(new IllegalStateException("history unavailable"))
+            .when(listener).onPairAcquired("XBT/USD");
+
+        // Act
+        coordinationService.heartbeat();
+
+        // Assert
+        assertFalse(coordinationService.ownsPair("XBT/USD"));
+        verify(listener).onPairReleased("XBT/USD");
+        verify(jdbcTemplate).update(startsWith("DELETE FROM pair_lease"), eq("XBT/USD"), eq(SELF));
+    }
+
+    @Test
+    void heartbeat_shouldKeepLeaseUntilAcquiredPairIsStarted() {
+        // Arrange
+        String pair = pairPreferredBy(OTHER);
+        startWith(List.of(pair), List.of(SELF));
+        List<Runnable> acquisitions = new ArrayList<>();
+        coordinationService.acquisitionExecutor = acquisitions::add;
+        when(jdbcTemplate.update(startsWith("INSERT INTO pair_lease"), any(Object[].class)))
+            .thenReturn(1);
+        when(jdbcTemplate.update(startsWith("UPDATE pair_lease SET expires_at"),
+            any(Object[].class))).thenReturn(1);
+        coordinationService.heartbeat();
+        // The preferred owner of the pair joins while the pair is still being started
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(Object[].class)))
+            .thenReturn(List.of(SELF, OTHER));
+
+        // Act
+        coordinationService.heartbeat();
+
+        // Assert
+        verifyNoInteractions(listener);
+        assertTrue(coordinationService.ownsPair(pair));
+        verify(jdbcTemplate).update(startsWith("UPDATE pair_lease SET expires_at"),
+            any(Object[].class));
+        acquisitions.forEach(Runnable::run);
+        verify(listener).onPairAcquired(pair);
+    }
+
+    @Test
+    void ownsPair_shouldReturnFalse_whenLeaseExpiredLocally() {
+        // Arrange
+        startWith(List.of("XBT/USD"), List.of(SELF));
+        when(jdbcTemplate.update(startsWith("INSERT INTO pair_lease"), any(Object[].class)))
+            .thenReturn(1);
+        coordinationService.heartbeat();
+
+        // Act
+        coordinationService.clock = Clock.fixed(NOW.plusSeconds(31), ZoneOffset.UTC);
+
+        // Assert
+        assertFalse(coordinationService.ownsPair("XBT/USD"));
+    }
+
+    private void startWith(List<String> coinPairs, List<String> liveNodes) {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(Object[].class)))
+            .thenReturn(liveNodes);
+        // The heartbeat is driven by the test instead of the lease scheduler
+        coordinationService.register(coinPairs, listener);
+    }
+
+    private static String pairPreferredBy(String node) {
+        return IntStream.range(0, 100).mapToObj(i -> "COIN" + i + "/USD")
+            .filter(pair -> node.equals(
+                ClusterCoordinationService.rendezvousOwner(pair, List.of(SELF, OTHER))))
+            .findFirst()
+            .orElseThrow();
+    }
+}
@@ -0,0 +1,177 @@
+package ch.kekelidze.krakentrader.trade.journal;
+
+import ch.kekelidze.krakentrader.trade.TradeOperationType;
+import ch.kekelidze.krakentrader.trade.TradeState;
+import ch.kekelidze.krakentrader.trade.util.TradingCircuitBreaker.CircuitBreakerState;
+import ch.kekelidze.krakentrader.trade.util.TradingCircuitBreaker.CircuitState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for TradeJournal, TradeJournalReader and TradeJournalReplayer
+ */
+public class TradeJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path journalPath;
+    private TradeJournal tradeJournal;
+
+    @BeforeEach
+    void setUp() {
+        journalPath = tempDir.resolve("journal/trade-journal.bin");
+        tradeJournal = openJournal();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        tradeJournal.destroy();
+    }
+
+    @Test
+    void append_shouldBeReadableInSequenceOrder() throws Exception {
+        // Arrange
+        tradeJournal.recordOrderIntent(TradeOperationType.BUY, "XBT/USD", 100.0, 0.5);
+        tradeJournal.recordFill(TradeOperationType.BUY, "XBT/USD", 101.0, 0.5, 0.2);
+        tradeJournal.recordCapital("XBT/USD", 949.3);
+
+        // Act
+        List<TradeJournalEntry> entries = new ArrayList<>();
+        long read = TradeJournalReader.readAll(journalPath, entries::add);
+
+        // Assert
+        assertEquals(3, read);
+        assertEquals(TradeJournalEntryType.BUY_INTENT, entries.get(0).type());
+        TradeJournalEntry fill = entries.get(1);
+        assertEquals(2, fill.sequence());
+        assertEquals(TradeJournalEntryType.BUY_FILL, fill.type());
+        assertEquals("XBT/USD", fill.coinPair());
+        assertEquals(101.0, fill.price());
+        assertEquals(0.2, fill.fee());
+        assertEquals(949.3, entries.get(2).capital());
+    }
+
+    @Test
+    void open_shouldContinueSequenceOfExistingJournal() throws Exception {
+        // Arrange
+        tradeJournal.recordCapital("XBT/USD", 1000.0);
+        tradeJournal.recordCapital("XBT/USD", 900.0);
+        tradeJournal.destroy();
+
+        // Act
+        tradeJournal = openJournal();
+        long sequence = tradeJournal.recordCapital("ETH/USD", 800.0);
+
+        // Assert
+        assertEquals(3, sequence);
+        assertEquals(3, TradeJournalReader.readAll(journalPath, entry -> { }));
+    }
+
+    @Test
+    void replayer_shouldKeepLatestSnapshotPerCoinPair() throws Exception {
+        // Arrange
+        TradeState tradeState = new TradeState("XBT/USD");
+        tradeState.setInTrade(true);
+        tradeState.setEntryPrice(100.0);
+        tradeState.setPositionSize(0.5);
+        tradeJournal.recordTradeState(tradeState);
+        tradeState.setInTrade(false);
+        tradeState.setTotalProfit(2.5);
+        tradeJournal.recordTradeState(tradeState);
+        tradeJournal.recordCapital("XBT/USD", 1025.0);
+
+        // Act
+        TradeJournalReplayer replayer = new TradeJournalReplayer();
+        TradeJournalReader.readAll(journalPath, replayer::apply);
+
+        // Assert
+        TradeJournalEntry latest = replayer.getLatestTradeStates().get("XBT/USD");
+        assertFalse(latest.inTrade());
+        assertEquals(2.5, latest.fee());
+        assertEquals(1025.0, replayer.getLatestCapital().orElseThrow());
+        assertEquals(3, replayer.getLastSequence());
+    }
+
+    @Test
+    void replayer_shouldKeepLatestCircuitBreakerStatePerCoinPair() throws Exception {
+        // Arrange
+        CircuitBreakerState state = new CircuitBreakerState();
+        state.recordLoss(-2.0);
+        tradeJournal.recordCircuitBreaker("XBT/USD", state);
+        state.recordLoss(-3.0);
+        state.openCircuit();
+        tradeJournal.recordCircuitBreaker("XBT/USD", state);
+
+        // Act
+        TradeJournalReplayer replayer = new TradeJournalReplayer();
+        TradeJournalReader.readAll(journalPath, replayer::apply);
+
+        // Assert
+        TradeJournalEntry latest = replayer.getLatestCircuitBreakerStates().get("XBT/USD");
+        assertEquals(CircuitState.OPEN.ordinal(), (int) latest.price());
+        assertEquals(2, (int) latest.volume());
+        assertEquals(5.0, latest.fee());
+        assertTrue(latest.capital() > 0);
+    }
+
+    @Test
+    void reader_shouldOnlyReturnNewRecordsOnPoll() throws Exception {
+        // Arrange
+        tradeJournal.recordCapital("XBT/USD", 1000.0);
+        try (TradeJournalReader reader = new TradeJournalReader(journalPath)) {
+            assertEquals(1, reader.poll(entry -> { }));
+
+            // Act
+            tradeJournal.recordCapital("XBT/USD", 990.0);
+            tradeJournal.recordCapital("XBT/USD", 980.0);
+            int read = reader.poll(entry -> { });
+
+            // Assert
+            assertEquals(2, read);
+            assertEquals(3, reader.getLastSequence());
+        }
+    }
+
+    @Test
+    void append_shouldStoreLongCoinPair() throws Exception {
+        // Act
+        long sequence = tradeJournal.recordCapital("VERYLONGCOIN/USDT", 1.0);
+
+        // Assert
+        List<TradeJournalEntry> entries = new ArrayList<>();
+        TradeJournalReader.readAll(journalPath, entries::add);
+        assertEquals(1, sequence);
+        assertEquals("VERYLONGCOIN/USDT", entries.get(0).coinPair());
+    }
+
+    @Test
+    void append_shouldSkipRecordInsteadOfThrowing_whenCoinPairDoesNotFit() throws Exception {
+        // Act
+        long skipped = assertDoesNotThrow(
+            () -> tradeJournal.recordCapital("X".repeat(46) + "/USD", 1.0));
+        long sequence = tradeJournal.recordCapital("XBT/USD", 2.0);
+
+        // Assert
+        assertEquals(0, skipped);
+        assertEquals(1, sequence);
+        assertEquals(1, TradeJournalReader.readAll(journalPath, entry -> { }));
+    }
+
+    private TradeJournal openJournal() {
+        TradeJournal journal = new TradeJournal();
+        ReflectionTestUtils.setField(journal, "enabled", true);
+        ReflectionTestUtils.setField(journal, "journalPath", journalPath.toString());
+        journal.open();
+        return journal;
+    }
+}
@@ -0,0 +1,106 @@
+package ch.kekelidze.krakentrader.trade.service;
+
+import ch.kekelidze.krakentrader.trade.entity.PortfolioEntity;
+import ch.kekelidze.krakentrader.trade.entity.TradeStateEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for PersistenceWriteBehindService
+ */
+@ExtendWith(MockitoExtension.class)
+public class PersistenceWriteBehindServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private PersistenceWriteBehindService writeBehindService;
+
+    @BeforeEach
+    void setUp() {
+        writeBehindService = new PersistenceWriteBehindService(jdbcTemplate);
+        writeBehindService.flushIntervalMs = 200;
+    }
+
+    @Test
+    void flush_shouldCoalesceUpdatesPerCoinPair() {
+        // Arrange
+        writeBehindService.enqueueTradeState(tradeState("XBT/USD", 100.0));
+        writeBehindService.enqueueTradeState(tradeState("XBT/USD", 105.0));
+        writeBehindService.enqueueTradeState(tradeState("ETH/USD", 50.0));
+
+        // Act
+        int written = writeBehindService.flush();
+
+        // Assert
+        assertEquals(2, written);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> rowsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(contains("trade_state"), rowsCaptor.capture());
+        List<Object[]> rows = rowsCaptor.getValue();
+        assertEquals(2, rows.size());
+        Object[] xbtRow = rows.stream().filter(row -> "XBT/USD".equals(row[0])).findFirst()
+            .orElseThrow();
+        assertEquals(105.0, xbtRow[2]);
+        assertTrue(writeBehindService.getPendingTradeState("XBT/USD").isEmpty());
+    }
+
+    @Test
+    void flush_shouldKeepPendingSnapshots_whenBatchFails() {
+        // Arrange
+        writeBehindService.enqueuePortfolio(PortfolioEntity.builder().id(1L).totalCapital(500).build());
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+            .thenThrow(new RuntimeException("Database unavailable"));
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> writeBehindService.flush());
+        assertEquals(500.0,
+            writeBehindService.getPendingPortfolio(1L).orElseThrow().getTotalCapital());
+    }
+
+    @Test
+    void flush_shouldDoNothing_whenNothingIsPending() {
+        // Act
+        int written = writeBehindService.flush();
+
+        // Assert
+        assertEquals(0, written);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void destroy_shouldFlushPendingSnapshots() {
+        // Arrange
+        writeBehindService.enqueuePortfolio(PortfolioEntity.builder().id(1L).totalCapital(750).build());
+
+        // Act
+        writeBehindService.destroy();
+
+        // Assert
+        verify(jdbcTemplate).batchUpdate(contains("portfolio"), anyList());
+        assertTrue(writeBehindService.getPendingPortfolio(1L).isEmpty());
+    }
+
+    private static TradeStateEntity tradeState(String coinPair, double entryPrice) {
+        return TradeStateEntity.builder()
+            .coinPair(coinPair)
+            .inTrade(true)
+            .entryPrice(entryPrice)
+            .positionSize(1.0)
+            .activelyTraded(true)
+            .build();
+    }
+}
@@ -8,11 +8,14 @@ import ch.kekelidze.krakentrader.strategy.Strategy;
 import ch.kekelidze.krakentrader.strategy.dto.EvaluationContext;
 import ch.kekelidze.krakentrader.trade.Portfolio;
 import ch.kekelidze.krakentrader.trade.TradeState;
+import ch.kekelidze.krakentrader.trade.cluster.ClusterCapitalLedger;
+import ch.kekelidze.krakentrader.trade.journal.TradeJournal;
 import ch.kekelidze.krakentrader.trade.util.TradingCircuitBreaker;
 import ch.kekelidze.krakentrader.trade.util.TradingCircuitBreaker.CircuitState;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.ta4j.core.Bar;
@@ -50,6 +53,12 @@ public class TradeServiceTest {
     @Mock
     private TradingCircuitBreaker circuitBreaker;
 
+    @Mock
+    private TradeJournal tradeJournal;
+
+    @Mock
+    private ClusterCapitalLedger capitalLedger;
+
     @Mock
     private Strategy strategy;
 
@@ -68,7 +77,9 @@ public class TradeServiceTest {
             portfolio,
             tradeStatePersistenceService,
             tradingApiService,
-            circuitBreaker
+            circuitBreaker,
+            tradeJournal,
+            capitalLedger
         );
 
         // Set the strategy
@@ -182,6 +193,57 @@ public class TradeServiceTest {
         verify(portfolio).addToTotalCapital(anyDouble());
     }
 
+    @Test
+    void executeStrategy_shouldReserveSharedCapital_whenClusterModeIsEnabled() throws Exception {
+        // Arrange
+        mockTradeState.setInTrade(false);
+        StrategyParameters mockParams = mock(StrategyParameters.class);
+        when(mockParams.atrPeriod()).thenReturn(14);
+        when(strategy.getStrategyParameters(coinPair)).thenReturn(mockParams);
+        when(strategy.shouldBuy(any(EvaluationContext.class), eq(mockParams))).thenReturn(true);
+        when(capitalLedger.isEnabled()).thenReturn(true);
+        when(capitalLedger.getAvailableCapital()).thenReturn(10000.0);
+        when(capitalLedger.countPairsNotInTrade()).thenReturn(1);
+        when(capitalLedger.tryReserve(anyDouble())).thenReturn(true);
+        when(capitalLedger.settle(anyDouble(), anyDouble())).thenReturn(5990.0);
+        OrderResult mockOrderResult = new OrderResult("order123", 10.0, 40000.0, 0.1);
+        when(tradingApiService.placeMarketBuyOrder(eq(coinPair), anyDouble())).thenReturn(mockOrderResult);
+
+        // Act
+        tradeService.executeStrategy(coinPair, mockBars);
+
+        // Assert
+        ArgumentCaptor<Double> reserved = ArgumentCaptor.forClass(Double.class);
+        verify(capitalLedger).tryReserve(reserved.capture());
+        // The reservation is replaced by the actual cost of 4010
+        verify(capitalLedger).settle(eq(reserved.getValue()),
+            doubleThat(cost -> Math.abs(cost + 4010.0) < 1e-9));
+        verify(portfolio, never()).addToTotalCapital(anyDouble());
+        verify(portfolio).setTotalCapital(5990.0);
+    }
+
+    @Test
+    void executeStrategy_shouldSkipBuy_whenSharedCapitalCannotBeReserved() throws Exception {
+        // Arrange
+        mockTradeState.setInTrade(false);
+        StrategyParameters mockParams = mock(StrategyParameters.class);
+        when(mockParams.atrPeriod()).thenReturn(14);
+        when(strategy.getStrategyParameters(coinPair)).thenReturn(mockParams);
+        when(strategy.shouldBuy(any(EvaluationContext.class), eq(mockParams))).thenReturn(true);
+        when(capitalLedger.isEnabled()).thenReturn(true);
+        when(capitalLedger.getAvailableCapital()).thenReturn(10000.0);
+        when(capitalLedger.countPairsNotInTrade()).thenReturn(1);
+        when(capitalLedger.tryReserve(anyDouble())).thenReturn(false);
+
+        // Act
+        tradeService.executeStrategy(coinPair, mockBars);
+
+        // Assert
+        verify(tradingApiService, never()).placeMarketBuyOrder(anyString(), anyDouble());
+        verify(capitalLedger, never()).settle(anyDouble(), anyDouble());
+        assertFalse(mockTradeState.isInTrade());
+    }
+
     @Test
     void executeStrategy_shouldSell_whenStrategySignalsSell() throws Exception {
         // Arrange
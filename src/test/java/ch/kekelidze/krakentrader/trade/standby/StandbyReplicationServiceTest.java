@@ -0,0 +1,137 @@
+package ch.kekelidze.krakentrader.trade.standby;
+
+import ch.kekelidze.krakentrader.trade.TradeState;
+import ch.kekelidze.krakentrader.trade.journal.TradeJournal;
+import ch.kekelidze.krakentrader.trade.journal.TradeJournalRecovery;
+import ch.kekelidze.krakentrader.trade.journal.TradeJournalReplayer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StandbyReplicationServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private TradeJournalRecovery tradeJournalRecovery;
+
+    private TradeJournal primaryJournal;
+    private PrimaryLease primaryLease;
+    private TradeJournal standbyJournal;
+    private PrimaryLease standbyLease;
+    private StandbyReplicationService standbyService;
+    private final AtomicInteger takeovers = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        primaryJournal = journal();
+        primaryLease = lease();
+        standbyJournal = journal();
+        standbyLease = lease();
+        standbyService = new StandbyReplicationService(standbyJournal, tradeJournalRecovery,
+            standbyLease);
+        standbyService.enabled = true;
+        // Replication is driven by the test instead of the scheduler
+        standbyService.pollIntervalMs = 60_000;
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        standbyService.destroy();
+        standbyLease.destroy();
+        primaryLease.destroy();
+        standbyJournal.destroy();
+        primaryJournal.destroy();
+    }
+
+    @Test
+    void start_shouldBecomePrimary_whenLeaseIsFree() throws Exception {
+        // Act
+        standbyService.start(takeovers::incrementAndGet);
+
+        // Assert
+        assertTrue(standbyService.isActive());
+        assertTrue(standbyLease.isHeld());
+        assertEquals(1, takeovers.get());
+        assertEquals(1, standbyJournal.recordCapital("XBT/USD", 1000.0));
+    }
+
+    @Test
+    void replicate_shouldApplyJournalAndTakeOver_whenPrimaryReleasesLease() throws Exception {
+        // Arrange
+        assertTrue(primaryLease.tryAcquire());
+        primaryJournal.open();
+        TradeState tradeState = new TradeState("XBT/USD");
+        tradeState.setInTrade(true);
+        tradeState.setEntryPrice(100.0);
+        primaryJournal.recordTradeState(tradeState);
+        primaryJournal.recordCapital("XBT/USD", 950.0);
+        standbyService.start(takeovers::incrementAndGet);
+        assertFalse(standbyService.isActive());
+
+        standbyService.replicate();
+        primaryJournal.recordCapital("XBT/USD", 900.0);
+        primaryJournal.destroy();
+        primaryLease.destroy();
+
+        // Act
+        standbyService.replicate();
+
+        // Assert
+        assertTrue(standbyService.isActive());
+        assertEquals(1, takeovers.get());
+        ArgumentCaptor<TradeJournalReplayer> captor =
+            ArgumentCaptor.forClass(TradeJournalReplayer.class);
+        verify(tradeJournalRecovery, times(2)).apply(captor.capture());
+        List<TradeJournalReplayer> replayers = captor.getAllValues();
+        assertTrue(replayers.get(0).getLatestTradeStates().get("XBT/USD").inTrade());
+        assertEquals(950.0, replayers.get(0).getLatestCapital().orElseThrow());
+        assertEquals(900.0, replayers.get(1).getLatestCapital().orElseThrow());
+        assertEquals(4, standbyJournal.recordCapital("XBT/USD", 900.0));
+    }
+
+    @Test
+    void replicate_shouldStayStandby_whileLeaseIsHeld() throws Exception {
+        // Arrange
+        assertTrue(primaryLease.tryAcquire());
+        standbyService.start(takeovers::incrementAndGet);
+
+        // Act
+        standbyService.replicate();
+
+        // Assert
+        assertFalse(standbyService.isActive());
+        assertFalse(standbyLease.isHeld());
+        assertEquals(0, takeovers.get());
+        assertEquals(0, standbyJournal.recordCapital("XBT/USD", 900.0));
+    }
+
+    private TradeJournal journal() {
+        TradeJournal journal = new TradeJournal();
+        ReflectionTestUtils.setField(journal, "enabled", true);
+        ReflectionTestUtils.setField(journal, "journalPath",
+            tempDir.resolve("journal/trade-journal.bin").toString());
+        return journal;
+    }
+
+    private PrimaryLease lease() {
+        PrimaryLease lease = new PrimaryLease();
+        lease.leasePath = tempDir.resolve("standby/primary.lock").toString();
+        return lease;
+    }
+}
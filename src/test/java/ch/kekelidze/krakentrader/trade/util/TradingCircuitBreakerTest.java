@@ -0,0 +1,60 @@
+package ch.kekelidze.krakentrader.trade.util;
+
+import ch.kekelidze.krakentrader.backtester.util.SimulationClock;
+import ch.kekelidze.krakentrader.trade.util.TradingCircuitBreaker.CircuitState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TradingCircuitBreakerTest {
+
+    private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+    private TradingCircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        circuitBreaker = new TradingCircuitBreaker();
+        ReflectionTestUtils.setField(circuitBreaker, "maxConsecutiveLosses", 2);
+        ReflectionTestUtils.setField(circuitBreaker, "maxLossPercentInPeriod", 10.0);
+        ReflectionTestUtils.setField(circuitBreaker, "circuitOpenMinutes", 60L);
+        ReflectionTestUtils.setField(circuitBreaker, "testTradesInHalfOpen", 1);
+    }
+
+    @Test
+    void isolatedCopy_shouldFollowItsOwnClock() {
+        // Arrange
+        SimulationClock clock = new SimulationClock();
+        clock.setInstant(START);
+        TradingCircuitBreaker isolated = circuitBreaker.isolatedCopy(clock);
+        isolated.recordTradeResult("XBTUSD", -1.0);
+        isolated.recordTradeResult("XBTUSD", -1.0);
+        assertFalse(isolated.canTrade("XBTUSD"));
+
+        // Act
+        clock.setInstant(START.plus(Duration.ofMinutes(61)));
+
+        // Assert
+        assertTrue(isolated.canTrade("XBTUSD"));
+        assertEquals(CircuitState.HALF_OPEN, isolated.getCircuitState("XBTUSD"));
+    }
+
+    @Test
+    void isolatedCopy_shouldNotShareStateWithOriginal() {
+        // Arrange
+        TradingCircuitBreaker isolated = circuitBreaker.isolatedCopy(new SimulationClock());
+
+        // Act
+        isolated.recordTradeResult("XBTUSD", -1.0);
+        isolated.recordTradeResult("XBTUSD", -1.0);
+
+        // Assert
+        assertEquals(CircuitState.OPEN, isolated.getCircuitState("XBTUSD"));
+        assertEquals(CircuitState.CLOSED, circuitBreaker.getCircuitState("XBTUSD"));
+    }
+}